@@ -0,0 +1,224 @@
+package br.dev.brunovieira.authcentral.analytics;
+
+import br.dev.brunovieira.authcentral.config.AnalyticsProperties;
+import br.dev.brunovieira.authcentral.dto.response.AnalyticsResponse;
+import br.dev.brunovieira.authcentral.model.AuditAction;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-tenant auth counters.
+ * <p>
+ * Each audited operation bumps an in-process {@link LongAdder} for its tenant, minute and {@code ACTION:ok|fail};
+ * successful logins also add the user to that day's pending set. A scheduled flush pushes the deltas into Redis in
+ * one pipeline: {@code HINCRBY} on a per-minute hash and {@code PFADD} on a per-day HyperLogLog, so daily unique
+ * users cost about 12 KB per tenant no matter how many there are. Reads go straight to Redis and therefore see
+ * every instance's counts, up to one flush interval late.
+ */
+@Component
+@Slf4j
+public class AuthAnalytics {
+
+    static final String KEY_PREFIX = "auth-central:analytics:";
+    private static final long MINUTE_MS = TimeUnit.MINUTES.toMillis(1);
+    private static final long DAY_MS = TimeUnit.DAYS.toMillis(1);
+
+    private final AnalyticsProperties properties;
+    private final StringRedisTemplate redisTemplate;
+
+    private final ConcurrentHashMap<CounterKey, LongAdder> counters = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<UsersKey, Set<String>> pendingUsers = new ConcurrentHashMap<>();
+
+    public AuthAnalytics(AnalyticsProperties properties, StringRedisTemplate redisTemplate) {
+        this.properties = properties;
+        this.redisTemplate = redisTemplate;
+    }
+
+    public void record(String tenantKey, String action, boolean success, String userEmail, long timestamp) {
+        if (!properties.isEnabled() || tenantKey == null || action == null) {
+            return;
+        }
+        counters.computeIfAbsent(new CounterKey(tenantKey, timestamp / MINUTE_MS, field(action, success)),
+                key -> new LongAdder()).increment();
+        if (success && userEmail != null && AuditAction.USER_LOGIN.name().equals(action)) {
+            pendingUsers.computeIfAbsent(new UsersKey(tenantKey, timestamp / DAY_MS),
+                    key -> ConcurrentHashMap.newKeySet()).add(userEmail.trim().toLowerCase(Locale.ROOT));
+        }
+    }
+
+    /**
+     * Push the counts gathered since the last flush to Redis. If Redis is unavailable they are put back and
+     * retried on the next run.
+     */
+    @Scheduled(fixedDelayString = "${app.analytics.flush-ms:10000}")
+    public void flush() {
+        long currentMinute = System.currentTimeMillis() / MINUTE_MS;
+        Map<CounterKey, Long> deltas = new HashMap<>();
+        counters.forEach((key, adder) -> {
+            // sumThenReset swaps each cell atomically, so concurrent increments land in this or the next flush
+            long delta = adder.sumThenReset();
+            if (delta != 0) {
+                deltas.put(key, delta);
+            }
+            if (key.minute() < currentMinute - 1) {
+                counters.remove(key, adder);
+                long late = adder.sumThenReset();
+                if (late != 0) {
+                    deltas.merge(key, late, Long::sum);
+                }
+            }
+        });
+        long currentDay = currentMinute * MINUTE_MS / DAY_MS;
+        Map<UsersKey, List<String>> users = new HashMap<>();
+        pendingUsers.forEach((key, set) -> {
+            List<String> drained = new ArrayList<>();
+            for (String user : set) {
+                if (set.remove(user)) {
+                    drained.add(user);
+                }
+            }
+            if (!drained.isEmpty()) {
+                users.put(key, drained);
+            }
+            if (key.day() < currentDay && set.isEmpty()) {
+                pendingUsers.remove(key, set);
+            }
+        });
+        if (deltas.isEmpty() && users.isEmpty()) {
+            return;
+        }
+
+        Duration counterTtl = Duration.ofHours(properties.getCounterTtlHours());
+        Duration usersTtl = Duration.ofDays(properties.getUniqueUsersTtlDays());
+        try {
+            redisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public <K, V> Object execute(RedisOperations<K, V> operations) throws DataAccessException {
+                    RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                    Set<String> minuteKeys = new HashSet<>();
+                    deltas.forEach((key, delta) -> {
+                        String redisKey = minuteKey(key.tenantKey(), key.minute());
+                        ops.opsForHash().increment(redisKey, key.field(), delta);
+                        minuteKeys.add(redisKey);
+                    });
+                    minuteKeys.forEach(redisKey -> ops.expire(redisKey, counterTtl));
+                    users.forEach((key, members) -> {
+                        String redisKey = usersKey(key.tenantKey(), key.day());
+                        ops.opsForHyperLogLog().add(redisKey, members.toArray(String[]::new));
+                        ops.expire(redisKey, usersTtl);
+                    });
+                    return null;
+                }
+            });
+        } catch (Exception e) {
+            log.warn("Failed to flush auth analytics, keeping {} counters for the next run: {}", deltas.size(), e.getMessage());
+            deltas.forEach((key, delta) -> counters.computeIfAbsent(key, k -> new LongAdder()).add(delta));
+            users.forEach((key, members) -> pendingUsers.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).addAll(members));
+        }
+    }
+
+    /**
+     * Counts for {@code tenantKey} between {@code fromMillis} and {@code toMillis}, as flushed to Redis so far.
+     * Per-minute counts are limited to the last {@code max-query-minutes} of the range; unique users are
+     * reported for every UTC day the range touches that is still retained.
+     */
+    public AnalyticsResponse query(String tenantKey, long fromMillis, long toMillis) {
+        long toMinute = toMillis / MINUTE_MS;
+        long fromMinute = Math.max(fromMillis / MINUTE_MS, toMinute - properties.getMaxQueryMinutes() + 1);
+        long toDay = toMillis / DAY_MS;
+        long fromDay = Math.max(fromMillis / DAY_MS, toDay - properties.getUniqueUsersTtlDays() + 1);
+
+        List<Object> results = redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) throws DataAccessException {
+                RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                for (long minute = fromMinute; minute <= toMinute; minute++) {
+                    ops.opsForHash().entries(minuteKey(tenantKey, minute));
+                }
+                for (long day = fromDay; day <= toDay; day++) {
+                    ops.opsForHyperLogLog().size(usersKey(tenantKey, day));
+                }
+                return null;
+            }
+        });
+
+        Map<String, Long> totals = new TreeMap<>();
+        List<AnalyticsResponse.MinuteCounts> minutes = new ArrayList<>();
+        int index = 0;
+        for (long minute = fromMinute; minute <= toMinute; minute++, index++) {
+            if (results.get(index) instanceof Map<?, ?> hash && !hash.isEmpty()) {
+                Map<String, Long> counts = new TreeMap<>();
+                hash.forEach((field, value) -> {
+                    long count = Long.parseLong(value.toString());
+                    counts.put(field.toString(), count);
+                    totals.merge(field.toString(), count, Long::sum);
+                });
+                minutes.add(AnalyticsResponse.MinuteCounts.builder()
+                        .minute(TimeUnit.MINUTES.toSeconds(minute))
+                        .counts(counts)
+                        .build());
+            }
+        }
+        Map<String, Long> uniqueUsers = new LinkedHashMap<>();
+        for (long day = fromDay; day <= toDay; day++, index++) {
+            Object count = results.get(index);
+            uniqueUsers.put(LocalDate.ofEpochDay(day).toString(), count instanceof Number n ? n.longValue() : 0L);
+        }
+
+        long loginOk = totals.getOrDefault(field(AuditAction.USER_LOGIN.name(), true), 0L);
+        long loginFail = totals.getOrDefault(field(AuditAction.USER_LOGIN.name(), false), 0L);
+        return AnalyticsResponse.builder()
+                .tenant(tenantKey)
+                .from(TimeUnit.MINUTES.toSeconds(fromMinute))
+                .to(TimeUnit.MINUTES.toSeconds(toMinute))
+                .totals(totals)
+                .loginSuccessRate(loginOk + loginFail > 0 ? (double) loginOk / (loginOk + loginFail) : null)
+                .minutes(minutes)
+                .uniqueUsers(uniqueUsers)
+                .build();
+    }
+
+    int pendingCounters() {
+        return counters.size();
+    }
+
+    static String minuteKey(String tenantKey, long epochMinute) {
+        return KEY_PREFIX + tenantKey + ":m:" + epochMinute;
+    }
+
+    static String usersKey(String tenantKey, long epochDay) {
+        return KEY_PREFIX + tenantKey + ":u:" + epochDay;
+    }
+
+    private static String field(String action, boolean success) {
+        return action + (success ? ":ok" : ":fail");
+    }
+
+    record CounterKey(String tenantKey, long minute, String field) {
+    }
+
+    record UsersKey(String tenantKey, long day) {
+    }
+}
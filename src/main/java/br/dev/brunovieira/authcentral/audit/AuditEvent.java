@@ -0,0 +1,32 @@
+package br.dev.brunovieira.authcentral.audit;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * One audited auth operation. Field names are kept short because every event is written to each sink.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record AuditEvent(
+        @JsonProperty("ts") long timestamp,
+        @JsonProperty("tenant") String tenantKey,
+        @JsonProperty("action") String action,
+        @JsonProperty("user") String userEmail,
+        @JsonProperty("ip") String ipAddress,
+        @JsonProperty("ua") String userAgent,
+        @JsonProperty("ok") boolean success,
+        @JsonProperty("error") String errorMessage
+) {
+
+    /** Longer user agents and error messages are cut so a flood of failures cannot blow up the buffer. */
+    static final int MAX_TEXT_LENGTH = 256;
+
+    public AuditEvent {
+        userAgent = truncate(userAgent);
+        errorMessage = truncate(errorMessage);
+    }
+
+    private static String truncate(String value) {
+        return value != null && value.length() > MAX_TEXT_LENGTH ? value.substring(0, MAX_TEXT_LENGTH) : value;
+    }
+}
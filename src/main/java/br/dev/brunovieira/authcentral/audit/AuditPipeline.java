@@ -0,0 +1,157 @@
+package br.dev.brunovieira.authcentral.audit;
+
+import br.dev.brunovieira.authcentral.config.AuditProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Moves audit events off the request path.
+ * <p>
+ * {@link #publish} only enqueues into a lock-free ring buffer; a single drainer thread takes events out in
+ * batches and hands each batch to every sink. When the buffer fills up the configured overflow policy decides
+ * whether the request thread drops the event, waits briefly for space, or starts sampling. Queue depth, drops,
+ * writes and sink failures are exported as {@code audit.*} metrics.
+ */
+@Slf4j
+public class AuditPipeline implements AutoCloseable {
+
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final AuditRingBuffer<AuditEvent> buffer;
+    private final List<AuditSink> sinks;
+    private final AuditProperties.Overflow overflow;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final long blockTimeoutNanos;
+    private final int sampleRate;
+    private final int sampleThresholdSize;
+
+    private final AtomicLong sampleSequence = new AtomicLong();
+    private final Counter droppedFull;
+    private final Counter droppedSampled;
+    private final Counter written;
+    private final MeterRegistry meterRegistry;
+
+    private final Thread drainer;
+    private volatile boolean running = true;
+
+    public AuditPipeline(AuditProperties properties, List<AuditSink> sinks, MeterRegistry meterRegistry) {
+        this.buffer = new AuditRingBuffer<>(properties.getBufferCapacity());
+        this.sinks = List.copyOf(sinks);
+        this.overflow = properties.getOverflow();
+        this.batchSize = Math.max(1, properties.getBatchSize());
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(properties.getFlushIntervalMs());
+        this.blockTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(properties.getBlockTimeoutMs());
+        this.sampleRate = Math.max(1, properties.getSampleRate());
+        this.sampleThresholdSize = (int) (buffer.capacity() * properties.getSampleThreshold());
+        this.meterRegistry = meterRegistry;
+
+        this.droppedFull = Counter.builder("audit.events.dropped")
+                .description("Audit events discarded before reaching a sink")
+                .tag("reason", "full")
+                .register(meterRegistry);
+        this.droppedSampled = Counter.builder("audit.events.dropped")
+                .description("Audit events discarded before reaching a sink")
+                .tag("reason", "sampled")
+                .register(meterRegistry);
+        this.written = Counter.builder("audit.events.written")
+                .description("Audit events handed to the sinks")
+                .register(meterRegistry);
+        Gauge.builder("audit.queue.depth", buffer, AuditRingBuffer::size)
+                .description("Audit events waiting for the drainer")
+                .register(meterRegistry);
+        Gauge.builder("audit.queue.capacity", buffer, AuditRingBuffer::capacity)
+                .register(meterRegistry);
+
+        this.drainer = Thread.ofPlatform().daemon().name("audit-drainer").start(this::drain);
+    }
+
+    /**
+     * Enqueue an event. Never throws and never waits longer than {@code block-timeout-ms}.
+     */
+    public void publish(AuditEvent event) {
+        switch (overflow) {
+            case DROP -> offerOrDrop(event);
+            case SAMPLE -> {
+                if (buffer.size() >= sampleThresholdSize && sampleSequence.getAndIncrement() % sampleRate != 0) {
+                    droppedSampled.increment();
+                } else {
+                    offerOrDrop(event);
+                }
+            }
+            case BLOCK -> {
+                long deadline = System.nanoTime() + blockTimeoutNanos;
+                while (!buffer.offer(event)) {
+                    if (!running || System.nanoTime() - deadline > 0) {
+                        droppedFull.increment();
+                        return;
+                    }
+                    LockSupport.unpark(drainer);
+                    LockSupport.parkNanos(BLOCK_PARK_NANOS);
+                }
+            }
+        }
+    }
+
+    int queueDepth() {
+        return buffer.size();
+    }
+
+    /**
+     * Let the drainer flush what is left, then close the sinks.
+     */
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(drainer);
+        try {
+            drainer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (AuditSink sink : sinks) {
+            try {
+                sink.close();
+            } catch (Exception e) {
+                log.warn("Failed to close audit sink {}: {}", sink.name(), e.getMessage());
+            }
+        }
+    }
+
+    private void offerOrDrop(AuditEvent event) {
+        if (!buffer.offer(event)) {
+            droppedFull.increment();
+        }
+    }
+
+    private void drain() {
+        List<AuditEvent> batch = new ArrayList<>(batchSize);
+        while (true) {
+            batch.clear();
+            if (buffer.drainTo(batch, batchSize) == 0) {
+                if (!running) {
+                    return;
+                }
+                LockSupport.parkNanos(flushIntervalNanos);
+                continue;
+            }
+            for (AuditSink sink : sinks) {
+                try {
+                    sink.write(batch);
+                } catch (Exception e) {
+                    log.warn("Audit sink {} failed to write {} events: {}", sink.name(), batch.size(), e.getMessage());
+                    meterRegistry.counter("audit.sink.failures", "sink", sink.name()).increment();
+                }
+            }
+            written.increment(batch.size());
+        }
+    }
+}
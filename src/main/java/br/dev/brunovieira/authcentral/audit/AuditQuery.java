@@ -0,0 +1,8 @@
+package br.dev.brunovieira.authcentral.audit;
+
+/**
+ * Filter for {@link AuditSegmentStore#scan}. {@code null} filters match everything; the time range is inclusive
+ * epoch milliseconds.
+ */
+public record AuditQuery(String tenantKey, String action, Boolean success, long from, long to) {
+}
@@ -0,0 +1,258 @@
+package br.dev.brunovieira.authcentral.audit;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * One memory-mapped segment file of fixed-width audit records.
+ * <p>
+ * Layout: a {@value #RECORD_SIZE}-byte header (magic, version, record size, creation time) followed by
+ * {@code capacity} record slots. A record's timestamp is written last, so on reopen the first slot with a zero
+ * timestamp marks the end of the data. Alongside the file the segment keeps, in memory, the min/max timestamp of
+ * every {@value #BLOCK_RECORDS}-record block (the sparse time index) and the set of tenant ids and action codes
+ * it contains, so queries can skip whole segments and blocks.
+ * <p>
+ * Only the drainer thread appends; readers see records up to the volatile {@link #count()}.
+ */
+final class AuditSegment {
+
+    static final int RECORD_SIZE = 128;
+    static final int BLOCK_RECORDS = 1024;
+
+    static final int IP_LENGTH = 40;
+    static final int USER_LENGTH = 48;
+    static final int ERROR_LENGTH = 24;
+
+    private static final int MAGIC = 0x41554453;
+    private static final int VERSION = 1;
+
+    private static final int TIMESTAMP = 0;
+    private static final int TENANT = 8;
+    private static final int ACTION = 12;
+    private static final int SUCCESS = 13;
+    private static final int IP = 16;
+    private static final int USER = IP + IP_LENGTH;
+    private static final int ERROR = USER + USER_LENGTH;
+
+    private final Path path;
+    private final long sequence;
+    private final long createdAt;
+    private final int capacity;
+    private final MappedByteBuffer buffer;
+
+    private final long[] blockMin;
+    private final long[] blockMax;
+    private final Set<Integer> tenantIds = ConcurrentHashMap.newKeySet();
+    private volatile long actionCodes;
+    private volatile long minTimestamp = Long.MAX_VALUE;
+    private volatile long maxTimestamp = Long.MIN_VALUE;
+    private volatile int count;
+
+    private AuditSegment(Path path, long sequence, long createdAt, int capacity, MappedByteBuffer buffer) {
+        this.path = path;
+        this.sequence = sequence;
+        this.createdAt = createdAt;
+        this.capacity = capacity;
+        this.buffer = buffer;
+        int blocks = (capacity + BLOCK_RECORDS - 1) / BLOCK_RECORDS;
+        this.blockMin = new long[blocks];
+        this.blockMax = new long[blocks];
+        Arrays.fill(blockMin, Long.MAX_VALUE);
+        Arrays.fill(blockMax, Long.MIN_VALUE);
+    }
+
+    static AuditSegment create(Path path, long sequence, int capacity, long createdAt) throws IOException {
+        MappedByteBuffer buffer = map(path, (long) (capacity + 1) * RECORD_SIZE, true);
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, VERSION);
+        buffer.putInt(8, RECORD_SIZE);
+        buffer.putLong(16, createdAt);
+        return new AuditSegment(path, sequence, createdAt, capacity, buffer);
+    }
+
+    /**
+     * Map an existing segment and rebuild its in-memory index from the records on disk.
+     */
+    static AuditSegment open(Path path, long sequence) throws IOException {
+        MappedByteBuffer buffer = map(path, -1, false);
+        if (buffer.capacity() < RECORD_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(8) != RECORD_SIZE) {
+            throw new IOException("Not an audit segment: " + path);
+        }
+        int capacity = buffer.capacity() / RECORD_SIZE - 1;
+        AuditSegment segment = new AuditSegment(path, sequence, buffer.getLong(16), capacity, buffer);
+        segment.recover();
+        return segment;
+    }
+
+    private static MappedByteBuffer map(Path path, long size, boolean create) throws IOException {
+        StandardOpenOption[] options = create
+                ? new StandardOpenOption[]{StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE}
+                : new StandardOpenOption[]{StandardOpenOption.READ, StandardOpenOption.WRITE};
+        try (FileChannel channel = FileChannel.open(path, options)) {
+            // The mapping stays valid after the channel is closed
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size < 0 ? channel.size() : size);
+        }
+    }
+
+    private void recover() {
+        int low = 0;
+        int high = capacity;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (buffer.getLong(offset(mid) + TIMESTAMP) != 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        for (int i = 0; i < low; i++) {
+            index(i, timestamp(i), tenantId(i), actionCode(i));
+        }
+        count = low;
+    }
+
+    boolean isFull() {
+        return count >= capacity;
+    }
+
+    void append(long timestamp, int tenantId, int actionCode, boolean success, byte[] ip, byte[] user, byte[] error) {
+        int index = count;
+        int offset = offset(index);
+        buffer.putInt(offset + TENANT, tenantId);
+        buffer.put(offset + ACTION, (byte) actionCode);
+        buffer.put(offset + SUCCESS, (byte) (success ? 1 : 0));
+        putText(offset + IP, IP_LENGTH, ip);
+        putText(offset + USER, USER_LENGTH, user);
+        putText(offset + ERROR, ERROR_LENGTH, error);
+        buffer.putLong(offset + TIMESTAMP, timestamp);
+        index(index, timestamp, tenantId, actionCode);
+        count = index + 1;
+    }
+
+    private void index(int index, long timestamp, int tenantId, int actionCode) {
+        int block = index / BLOCK_RECORDS;
+        blockMin[block] = Math.min(blockMin[block], timestamp);
+        blockMax[block] = Math.max(blockMax[block], timestamp);
+        minTimestamp = Math.min(minTimestamp, timestamp);
+        maxTimestamp = Math.max(maxTimestamp, timestamp);
+        tenantIds.add(tenantId);
+        actionCodes |= 1L << actionCode;
+    }
+
+    /**
+     * Whether this segment can hold a record matching the filters; {@code -1} means "any".
+     */
+    boolean mayContain(int tenantId, int actionCode, long from, long to) {
+        return count > 0
+                && minTimestamp <= to && maxTimestamp >= from
+                && (tenantId < 0 || tenantIds.contains(tenantId))
+                && (actionCode < 0 || (actionCodes & (1L << actionCode)) != 0);
+    }
+
+    /**
+     * Visit, in append order, every record whose block overlaps {@code [from, to]}. The visitor still has to check
+     * each record's own timestamp. Stops early when the visitor returns {@code false}.
+     */
+    boolean scan(long from, long to, RecordVisitor visitor) {
+        int end = count;
+        for (int block = 0; block * BLOCK_RECORDS < end; block++) {
+            if (blockMin[block] > to || blockMax[block] < from) {
+                continue;
+            }
+            int last = Math.min(end, (block + 1) * BLOCK_RECORDS);
+            for (int i = block * BLOCK_RECORDS; i < last; i++) {
+                if (!visitor.visit(this, i)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    long timestamp(int index) {
+        return buffer.getLong(offset(index) + TIMESTAMP);
+    }
+
+    int tenantId(int index) {
+        return buffer.getInt(offset(index) + TENANT);
+    }
+
+    int actionCode(int index) {
+        return buffer.get(offset(index) + ACTION) & 0xFF;
+    }
+
+    boolean success(int index) {
+        return buffer.get(offset(index) + SUCCESS) != 0;
+    }
+
+    String ip(int index) {
+        return getText(offset(index) + IP, IP_LENGTH);
+    }
+
+    String user(int index) {
+        return getText(offset(index) + USER, USER_LENGTH);
+    }
+
+    String error(int index) {
+        return getText(offset(index) + ERROR, ERROR_LENGTH);
+    }
+
+    int count() {
+        return count;
+    }
+
+    long sequence() {
+        return sequence;
+    }
+
+    long createdAt() {
+        return createdAt;
+    }
+
+    Path path() {
+        return path;
+    }
+
+    void force() {
+        buffer.force();
+    }
+
+    private static int offset(int index) {
+        return (index + 1) * RECORD_SIZE;
+    }
+
+    private void putText(int offset, int length, byte[] value) {
+        int written = value == null ? 0 : Math.min(length, value.length);
+        if (written > 0) {
+            buffer.put(offset, value, 0, written);
+        }
+        for (int i = written; i < length; i++) {
+            buffer.put(offset + i, (byte) 0);
+        }
+    }
+
+    private String getText(int offset, int length) {
+        int end = 0;
+        while (end < length && buffer.get(offset + end) != 0) {
+            end++;
+        }
+        if (end == 0) {
+            return null;
+        }
+        byte[] bytes = new byte[end];
+        buffer.get(offset, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @FunctionalInterface
+    interface RecordVisitor {
+        boolean visit(AuditSegment segment, int index);
+    }
+}
@@ -0,0 +1,219 @@
+package br.dev.brunovieira.authcentral.audit;
+
+import br.dev.brunovieira.authcentral.model.AuditAction;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Durable local audit store: an {@link AuditSink} that appends fixed-width records to memory-mapped
+ * {@link AuditSegment} files, plus a filtered time-range {@link #scan}.
+ * <p>
+ * A new segment is started when the active one is full or older than the roll interval; the oldest segments are
+ * deleted beyond {@code maxSegments}. Tenant keys are stored as ids from a small append-only dictionary file.
+ * User email, IP and error text are kept truncated to their fixed widths; the user agent is not stored.
+ */
+@Slf4j
+public class AuditSegmentStore implements AuditSink {
+
+    static final int UNKNOWN_ACTION = 63;
+    private static final AuditAction[] ACTIONS = AuditAction.values();
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String DICTIONARY_FILE = "tenants.dict";
+
+    private final Path directory;
+    private final int segmentRecords;
+    private final long rollIntervalMs;
+    private final int maxSegments;
+    private final Clock clock;
+
+    private final List<AuditSegment> segments = new CopyOnWriteArrayList<>();
+    private final Map<String, Integer> tenantIds = new ConcurrentHashMap<>();
+    private final List<String> tenantKeys = new CopyOnWriteArrayList<>();
+    private volatile boolean opened;
+
+    public AuditSegmentStore(Path directory, long segmentBytes, long rollIntervalMs, int maxSegments, Clock clock) {
+        this.directory = directory;
+        this.segmentRecords = (int) Math.max(1, Math.min(Integer.MAX_VALUE / AuditSegment.RECORD_SIZE - 1,
+                segmentBytes / AuditSegment.RECORD_SIZE - 1));
+        this.rollIntervalMs = rollIntervalMs;
+        this.maxSegments = Math.max(1, maxSegments);
+        this.clock = clock;
+    }
+
+    @Override
+    public String name() {
+        return "store";
+    }
+
+    @Override
+    public void write(List<AuditEvent> batch) throws IOException {
+        open();
+        for (AuditEvent event : batch) {
+            AuditSegment active = segments.isEmpty() ? null : segments.getLast();
+            if (active == null || active.isFull() || clock.millis() - active.createdAt() >= rollIntervalMs) {
+                active = roll(active);
+            }
+            active.append(event.timestamp(),
+                    tenantId(event.tenantKey()),
+                    actionCode(event.action()),
+                    event.success(),
+                    bytes(event.ipAddress()),
+                    bytes(event.userEmail()),
+                    bytes(event.errorMessage()));
+        }
+    }
+
+    /**
+     * Feed every record matching {@code query} to {@code consumer}, oldest segment first, until the consumer
+     * returns {@code false}. Segments and index blocks that cannot match are skipped without being read.
+     *
+     * @return the number of records passed to the consumer
+     */
+    public int scan(AuditQuery query, Predicate<AuditEvent> consumer) {
+        try {
+            open();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        int tenantId = -1;
+        if (query.tenantKey() != null) {
+            Integer id = tenantIds.get(query.tenantKey());
+            if (id == null) {
+                return 0;
+            }
+            tenantId = id;
+        }
+        int actionCode = query.action() != null ? actionCode(query.action()) : -1;
+        int filterTenant = tenantId;
+        int[] matched = {0};
+
+        for (AuditSegment segment : segments) {
+            if (!segment.mayContain(filterTenant, actionCode, query.from(), query.to())) {
+                continue;
+            }
+            boolean more = segment.scan(query.from(), query.to(), (seg, i) -> {
+                long timestamp = seg.timestamp(i);
+                if (timestamp < query.from() || timestamp > query.to()
+                        || (filterTenant >= 0 && seg.tenantId(i) != filterTenant)
+                        || (actionCode >= 0 && seg.actionCode(i) != actionCode)
+                        || (query.success() != null && seg.success(i) != query.success())) {
+                    return true;
+                }
+                matched[0]++;
+                return consumer.test(toEvent(seg, i, timestamp));
+            });
+            if (!more) {
+                break;
+            }
+        }
+        return matched[0];
+    }
+
+    int segmentCount() {
+        return segments.size();
+    }
+
+    @Override
+    public synchronized void close() {
+        segments.forEach(AuditSegment::force);
+    }
+
+    private synchronized void open() throws IOException {
+        if (opened) {
+            return;
+        }
+        if (Files.isDirectory(directory)) {
+            Path dictionary = directory.resolve(DICTIONARY_FILE);
+            if (Files.exists(dictionary)) {
+                for (String key : Files.readAllLines(dictionary, StandardCharsets.UTF_8)) {
+                    tenantIds.put(key, tenantKeys.size());
+                    tenantKeys.add(key);
+                }
+            }
+            try (Stream<Path> files = Files.list(directory)) {
+                for (Path file : files.filter(f -> f.getFileName().toString().endsWith(SEGMENT_SUFFIX)).sorted().toList()) {
+                    try {
+                        segments.add(AuditSegment.open(file, sequenceOf(file)));
+                    } catch (IOException | RuntimeException e) {
+                        log.warn("Skipping unreadable audit segment {}: {}", file, e.getMessage());
+                    }
+                }
+            }
+            log.info("Opened audit store {} with {} segments", directory, segments.size());
+        }
+        opened = true;
+    }
+
+    private AuditSegment roll(AuditSegment previous) throws IOException {
+        Files.createDirectories(directory);
+        if (previous != null) {
+            previous.force();
+        }
+        long sequence = previous != null ? previous.sequence() + 1 : 1;
+        AuditSegment next = AuditSegment.create(
+                directory.resolve("audit-%012d%s".formatted(sequence, SEGMENT_SUFFIX)), sequence, segmentRecords, clock.millis());
+        segments.add(next);
+        while (segments.size() > maxSegments) {
+            AuditSegment oldest = segments.removeFirst();
+            Files.deleteIfExists(oldest.path());
+        }
+        return next;
+    }
+
+    private int tenantId(String tenantKey) throws IOException {
+        String key = tenantKey != null ? tenantKey : "";
+        Integer id = tenantIds.get(key);
+        if (id != null) {
+            return id;
+        }
+        Files.writeString(directory.resolve(DICTIONARY_FILE), key + "\n", StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        tenantKeys.add(key);
+        tenantIds.put(key, tenantKeys.size() - 1);
+        return tenantKeys.size() - 1;
+    }
+
+    private AuditEvent toEvent(AuditSegment segment, int index, long timestamp) {
+        int tenantId = segment.tenantId(index);
+        int actionCode = segment.actionCode(index);
+        return new AuditEvent(timestamp,
+                tenantId < tenantKeys.size() ? tenantKeys.get(tenantId) : null,
+                actionCode < ACTIONS.length ? ACTIONS[actionCode].name() : "UNKNOWN",
+                segment.user(index),
+                segment.ip(index),
+                null,
+                segment.success(index),
+                segment.error(index));
+    }
+
+    private static int actionCode(String action) {
+        for (AuditAction candidate : ACTIONS) {
+            if (candidate.name().equals(action)) {
+                return candidate.ordinal();
+            }
+        }
+        return UNKNOWN_ACTION;
+    }
+
+    private static long sequenceOf(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring("audit-".length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static byte[] bytes(String value) {
+        return value != null ? value.getBytes(StandardCharsets.UTF_8) : null;
+    }
+}
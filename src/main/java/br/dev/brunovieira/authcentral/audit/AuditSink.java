@@ -0,0 +1,19 @@
+package br.dev.brunovieira.authcentral.audit;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Destination for drained audit events. Called from the single drainer thread only, so implementations need no
+ * synchronization of their own.
+ */
+public interface AuditSink {
+
+    /** Short name used in logs and the {@code sink} metric tag. */
+    String name();
+
+    void write(List<AuditEvent> batch) throws IOException;
+
+    default void close() throws IOException {
+    }
+}
@@ -0,0 +1,48 @@
+package br.dev.brunovieira.authcentral.audit;
+
+import org.springframework.data.redis.connection.RedisStreamCommands.XAddOptions;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Appends events to a Redis stream, one XADD per event pipelined into a single round trip per batch. The stream
+ * is capped with {@code MAXLEN ~} so it cannot grow without bound.
+ */
+public class RedisStreamAuditSink implements AuditSink {
+
+    private static final byte[] EVENT_FIELD = "event".getBytes(StandardCharsets.UTF_8);
+
+    private final StringRedisTemplate redisTemplate;
+    private final JsonMapper jsonMapper;
+    private final byte[] streamKey;
+    private final XAddOptions options;
+
+    public RedisStreamAuditSink(StringRedisTemplate redisTemplate, JsonMapper jsonMapper, String streamKey, long maxLength) {
+        this.redisTemplate = redisTemplate;
+        this.jsonMapper = jsonMapper;
+        this.streamKey = streamKey.getBytes(StandardCharsets.UTF_8);
+        this.options = XAddOptions.maxlen(maxLength).approximateTrimming(true);
+    }
+
+    @Override
+    public String name() {
+        return "redis";
+    }
+
+    @Override
+    public void write(List<AuditEvent> batch) {
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (AuditEvent event : batch) {
+                Map<byte[], byte[]> fields = Map.of(EVENT_FIELD, jsonMapper.writeValueAsBytes(event));
+                connection.streamCommands().xAdd(MapRecord.create(streamKey, fields), options);
+            }
+            return null;
+        });
+    }
+}
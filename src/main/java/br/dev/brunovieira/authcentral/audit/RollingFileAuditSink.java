@@ -0,0 +1,95 @@
+package br.dev.brunovieira.authcentral.audit;
+
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Appends JSON lines to a file and rolls it once it passes {@code maxBytes}: {@code audit.log} becomes
+ * {@code audit.log.1}, older files shift up and the one past {@code maxFiles} is deleted.
+ */
+public class RollingFileAuditSink implements AuditSink {
+
+    private final JsonMapper jsonMapper;
+    private final Path file;
+    private final long maxBytes;
+    private final int maxFiles;
+
+    private OutputStream out;
+    private long size;
+
+    public RollingFileAuditSink(JsonMapper jsonMapper, Path file, long maxBytes, int maxFiles) {
+        this.jsonMapper = jsonMapper;
+        this.file = file;
+        this.maxBytes = maxBytes;
+        this.maxFiles = maxFiles;
+    }
+
+    @Override
+    public String name() {
+        return "file";
+    }
+
+    @Override
+    public void write(List<AuditEvent> batch) throws IOException {
+        if (out == null) {
+            open();
+        }
+        for (AuditEvent event : batch) {
+            byte[] line = jsonMapper.writeValueAsBytes(event);
+            if (size > 0 && size + line.length + 1 > maxBytes) {
+                roll();
+            }
+            out.write(line);
+            out.write('\n');
+            size += line.length + 1;
+        }
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (out != null) {
+            out.close();
+            out = null;
+        }
+    }
+
+    private void open() throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        out = new BufferedOutputStream(
+                Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND), 64 * 1024);
+        size = Files.size(file);
+    }
+
+    private void roll() throws IOException {
+        close();
+        Files.deleteIfExists(rolled(maxFiles));
+        for (int i = maxFiles - 1; i >= 1; i--) {
+            Path source = rolled(i);
+            if (Files.exists(source)) {
+                Files.move(source, rolled(i + 1), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        if (maxFiles > 0) {
+            Files.move(file, rolled(1), StandardCopyOption.REPLACE_EXISTING);
+        } else {
+            Files.deleteIfExists(file);
+        }
+        open();
+    }
+
+    private Path rolled(int index) {
+        return file.resolveSibling(file.getFileName() + "." + index);
+    }
+}
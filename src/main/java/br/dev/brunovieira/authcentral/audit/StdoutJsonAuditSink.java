@@ -0,0 +1,35 @@
+package br.dev.brunovieira.authcentral.audit;
+
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.PrintStream;
+import java.util.List;
+
+/**
+ * Writes each event as one JSON line to standard output, where container log collectors pick it up.
+ */
+public class StdoutJsonAuditSink implements AuditSink {
+
+    private final JsonMapper jsonMapper;
+    private final PrintStream out;
+
+    public StdoutJsonAuditSink(JsonMapper jsonMapper, PrintStream out) {
+        this.jsonMapper = jsonMapper;
+        this.out = out;
+    }
+
+    @Override
+    public String name() {
+        return "stdout";
+    }
+
+    @Override
+    public void write(List<AuditEvent> batch) {
+        StringBuilder lines = new StringBuilder(batch.size() * 192);
+        for (AuditEvent event : batch) {
+            lines.append(jsonMapper.writeValueAsString(event)).append('\n');
+        }
+        out.print(lines);
+        out.flush();
+    }
+}
@@ -0,0 +1,16 @@
+package br.dev.brunovieira.authcentral.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "app.admin")
+public class AdminProperties {
+
+    /**
+     * Shared secret expected in the X-Admin-Key header. Admin endpoints are disabled while blank.
+     */
+    private String apiKey;
+}
@@ -0,0 +1,21 @@
+package br.dev.brunovieira.authcentral.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "app.analytics")
+public class AnalyticsProperties {
+
+    private boolean enabled = true;
+    /** How often in-process counters are pushed to Redis. */
+    private long flushMs = 10_000;
+    /** Lifetime of the per-minute counter hashes in Redis. */
+    private long counterTtlHours = 168;
+    /** Lifetime of the per-day unique user HyperLogLogs in Redis. */
+    private long uniqueUsersTtlDays = 35;
+    /** Widest time range, in minutes, one analytics query returns per-minute counts for. */
+    private int maxQueryMinutes = 1440;
+}
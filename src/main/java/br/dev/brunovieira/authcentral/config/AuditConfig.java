@@ -0,0 +1,55 @@
+package br.dev.brunovieira.authcentral.config;
+
+import br.dev.brunovieira.authcentral.audit.AuditPipeline;
+import br.dev.brunovieira.authcentral.audit.AuditSegmentStore;
+import br.dev.brunovieira.authcentral.audit.AuditSink;
+import br.dev.brunovieira.authcentral.audit.RedisStreamAuditSink;
+import br.dev.brunovieira.authcentral.audit.RollingFileAuditSink;
+import br.dev.brunovieira.authcentral.audit.StdoutJsonAuditSink;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.nio.file.Path;
+import java.time.Clock;
+import java.util.List;
+
+@Configuration
+public class AuditConfig {
+
+    /**
+     * Always created so the admin query endpoint can read existing segments; it only receives events when
+     * {@code store} is among the configured sinks.
+     */
+    @Bean(destroyMethod = "close")
+    public AuditSegmentStore auditSegmentStore(AuditProperties properties) {
+        AuditProperties.Store store = properties.getStore();
+        return new AuditSegmentStore(Path.of(store.getDirectory()), store.getSegmentBytes(),
+                store.getRollIntervalMs(), store.getMaxSegments(), Clock.systemUTC());
+    }
+
+    @Bean(destroyMethod = "close")
+    public AuditPipeline auditPipeline(AuditProperties properties,
+                                       AuditSegmentStore auditSegmentStore,
+                                       StringRedisTemplate redisTemplate,
+                                       JsonMapper jsonMapper,
+                                       MeterRegistry meterRegistry) {
+        List<AuditSink> sinks = properties.getSinks().stream()
+                .distinct()
+                .map(type -> switch (type) {
+                    case STDOUT -> (AuditSink) new StdoutJsonAuditSink(jsonMapper, System.out);
+                    case FILE -> new RollingFileAuditSink(jsonMapper,
+                            Path.of(properties.getFile().getPath()),
+                            properties.getFile().getMaxBytes(),
+                            properties.getFile().getMaxFiles());
+                    case REDIS -> new RedisStreamAuditSink(redisTemplate, jsonMapper,
+                            properties.getRedis().getStreamKey(),
+                            properties.getRedis().getMaxLength());
+                    case STORE -> auditSegmentStore;
+                })
+                .toList();
+        return new AuditPipeline(properties, sinks, meterRegistry);
+    }
+}
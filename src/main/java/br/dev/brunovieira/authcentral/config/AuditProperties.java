@@ -0,0 +1,78 @@
+package br.dev.brunovieira.authcentral.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "app.audit")
+public class AuditProperties {
+
+    /** Events held in memory between the request threads and the drainer; rounded up to a power of two. */
+    private int bufferCapacity = 8192;
+    /** Maximum events handed to the sinks per write. */
+    private int batchSize = 256;
+    /** How long the drainer sleeps once the buffer is empty. */
+    private long flushIntervalMs = 50;
+    private Overflow overflow = Overflow.DROP;
+    /** With {@link Overflow#BLOCK}: longest a request thread waits for space before the event is dropped. */
+    private long blockTimeoutMs = 5;
+    /** With {@link Overflow#SAMPLE}: keep one in this many events once the buffer passes the threshold. */
+    private int sampleRate = 10;
+    /** With {@link Overflow#SAMPLE}: buffer fill ratio at which sampling starts. */
+    private double sampleThreshold = 0.5;
+    private List<SinkType> sinks = new ArrayList<>(List.of(SinkType.STDOUT));
+    private File file = new File();
+    private Redis redis = new Redis();
+    private Store store = new Store();
+
+    public enum Overflow {
+        /** Drop the event when the buffer is full. */
+        DROP,
+        /** Wait up to block-timeout-ms for space, then drop. */
+        BLOCK,
+        /** Thin out events once the buffer passes sample-threshold, drop when full. */
+        SAMPLE
+    }
+
+    public enum SinkType {
+        /** One JSON object per line on standard output. */
+        STDOUT,
+        /** JSON lines in a size-rolled file. */
+        FILE,
+        /** XADD to a capped Redis stream. */
+        REDIS,
+        /** Fixed-width records in local memory-mapped segments, queryable through the admin API. */
+        STORE
+    }
+
+    @Data
+    public static class File {
+        private String path = "logs/audit.log";
+        private long maxBytes = 50L * 1024 * 1024;
+        /** Rolled files kept next to the active one (audit.log.1 ... audit.log.N). */
+        private int maxFiles = 5;
+    }
+
+    @Data
+    public static class Redis {
+        private String streamKey = "auth-central:audit";
+        /** Approximate cap on stream length, enforced by XADD MAXLEN ~. */
+        private long maxLength = 100_000;
+    }
+
+    @Data
+    public static class Store {
+        private String directory = "data/audit";
+        /** Size of each memory-mapped segment file (128 bytes per record). */
+        private long segmentBytes = 64L * 1024 * 1024;
+        /** A segment is also closed once it is this old, so time-range queries can skip whole files. */
+        private long rollIntervalMs = 3_600_000;
+        /** Oldest segments beyond this many are deleted. */
+        private int maxSegments = 168;
+    }
+}
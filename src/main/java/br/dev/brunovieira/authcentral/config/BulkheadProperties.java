@@ -0,0 +1,42 @@
+package br.dev.brunovieira.authcentral.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "app.keycloak-bulkhead")
+public class BulkheadProperties {
+
+    /**
+     * Cap concurrent Keycloak calls per realm, so one slow or noisy tenant cannot hold every connection.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Size of the shared connection pool (and of its per-host limit); the per-realm caps partition it.
+     */
+    private int maxConnections = 200;
+
+    /**
+     * Bounds of each realm's adaptive concurrency cap.
+     */
+    private int minPerRealm = 2;
+    private int maxPerRealm = 32;
+
+    /**
+     * How long a call waits for a free slot in its realm (and for a pooled connection) before failing with 503.
+     */
+    private long acquireTimeoutMs = 250;
+
+    /**
+     * How often each cap is recomputed from the realm's observed throughput and latency.
+     */
+    private long resizeIntervalMs = 1000;
+
+    /**
+     * Spare capacity over the estimated concurrency need (throughput x latency).
+     */
+    private double headroom = 1.5;
+}
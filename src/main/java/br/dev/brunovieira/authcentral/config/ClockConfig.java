@@ -0,0 +1,21 @@
+package br.dev.brunovieira.authcentral.config;
+
+import br.dev.brunovieira.authcentral.util.NanoClock;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Clock;
+
+@Configuration
+public class ClockConfig {
+
+    @Bean
+    public NanoClock nanoClock() {
+        return NanoClock.system();
+    }
+
+    @Bean
+    public Clock clock() {
+        return Clock.systemUTC();
+    }
+}
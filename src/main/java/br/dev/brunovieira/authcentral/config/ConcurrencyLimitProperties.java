@@ -0,0 +1,46 @@
+package br.dev.brunovieira.authcentral.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "app.keycloak-limiter")
+public class ConcurrencyLimitProperties {
+
+    /**
+     * Shed Keycloak calls beyond an adaptive concurrency limit instead of queueing them.
+     */
+    private boolean enabled = true;
+
+    private int initialLimit = 20;
+    private int minLimit = 4;
+
+    /**
+     * Upper bound of the limit; should not exceed the connection pool size.
+     */
+    private int maxLimit = 200;
+
+    /**
+     * How far the recent round-trip time may rise over the long-term baseline before the limit shrinks.
+     */
+    private double rttTolerance = 1.5;
+
+    /**
+     * Weight of each new estimate in the limit, between 0 and 1.
+     */
+    private double smoothing = 0.2;
+
+    /**
+     * Calls averaged into one recent round-trip sample.
+     */
+    private int sampleWindow = 10;
+
+    /**
+     * Samples the long-term round-trip baseline is averaged over.
+     */
+    private int baselineWindow = 60;
+
+    private long retryAfterSeconds = 1;
+}
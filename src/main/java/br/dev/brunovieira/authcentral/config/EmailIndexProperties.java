@@ -0,0 +1,44 @@
+package br.dev.brunovieira.authcentral.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "app.email-index")
+public class EmailIndexProperties {
+
+    /**
+     * Answer "does this email exist" from the index instead of a Keycloak admin search.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Most users per tenant a Bloom filter is sized for. Filters are sized from the actual count on every load and
+     * rebuild; this only bounds the memory of very large realms, at the cost of more false positives there.
+     */
+    private int expectedEmails = 1_000_000;
+
+    private double falsePositiveRate = 0.01;
+
+    /**
+     * Users fetched per Keycloak admin call while rebuilding.
+     */
+    private int pageSize = 500;
+
+    /**
+     * How often the index is rebuilt from Keycloak, picking up users created or deleted outside this service.
+     */
+    private long reconcileMs = 3_600_000;
+
+    /**
+     * How long one instance owns a rebuild before another may start one.
+     */
+    private long rebuildLockMs = 600_000;
+
+    /**
+     * Pub/sub channel on which instances announce emails they registered.
+     */
+    private String channel = "auth-central:emails:added";
+}
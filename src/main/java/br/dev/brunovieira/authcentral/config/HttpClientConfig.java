@@ -1,10 +1,16 @@
 package br.dev.brunovieira.authcentral.config;
 
+import br.dev.brunovieira.authcentral.service.KeycloakBulkheads;
+import br.dev.brunovieira.authcentral.service.KeycloakConcurrencyLimiter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
 import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
 import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
-import org.apache.hc.client5.http.io.HttpClientConnectionManager;
+import org.apache.hc.core5.pool.PoolStats;
 import org.apache.hc.core5.util.TimeValue;
 import org.apache.hc.core5.util.Timeout;
 import org.springframework.context.annotation.Bean;
@@ -12,28 +18,57 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.web.client.RestClient;
 
+import java.time.Duration;
+import java.util.function.ToIntFunction;
+
 @Configuration
 public class HttpClientConfig {
 
+    public static final Duration KEYCLOAK_CONNECT_TIMEOUT = Duration.ofSeconds(5);
+    public static final Duration KEYCLOAK_READ_TIMEOUT = Duration.ofSeconds(10);
+
+    /**
+     * One pool shared by all tenants, sized by {@code app.keycloak-bulkhead.max-connections}. Each realm's share of
+     * it is capped by {@link KeycloakBulkheads}, and calls beyond what Keycloak currently sustains are shed by
+     * {@link KeycloakConcurrencyLimiter}; the pool itself also bounds how long a lease may wait.
+     */
     @Bean
-    public RestClient restClient() {
-        HttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
-                .setMaxConnTotal(50)
-                .setMaxConnPerRoute(20)
+    public RestClient restClient(BulkheadProperties bulkheadProperties,
+                                 KeycloakBulkheads keycloakBulkheads,
+                                 KeycloakConcurrencyLimiter keycloakConcurrencyLimiter,
+                                 MeterRegistry meterRegistry) {
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(bulkheadProperties.getMaxConnections())
+                .setMaxConnPerRoute(bulkheadProperties.getMaxConnections())
                 .setDefaultConnectionConfig(ConnectionConfig.custom()
-                        .setConnectTimeout(Timeout.ofSeconds(5))
-                        .setSocketTimeout(Timeout.ofSeconds(10))
+                        .setConnectTimeout(Timeout.of(KEYCLOAK_CONNECT_TIMEOUT))
+                        .setSocketTimeout(Timeout.of(KEYCLOAK_READ_TIMEOUT))
                         .build())
                 .build();
+        poolGauge(meterRegistry, connectionManager, "http.client.pool.leased", PoolStats::getLeased);
+        poolGauge(meterRegistry, connectionManager, "http.client.pool.pending", PoolStats::getPending);
+        poolGauge(meterRegistry, connectionManager, "http.client.pool.available", PoolStats::getAvailable);
+        poolGauge(meterRegistry, connectionManager, "http.client.pool.max", PoolStats::getMax);
 
         CloseableHttpClient httpClient = HttpClients.custom()
                 .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.ofMilliseconds(bulkheadProperties.getAcquireTimeoutMs()))
+                        .build())
                 .evictExpiredConnections()
                 .evictIdleConnections(TimeValue.ofSeconds(30))
                 .build();
 
         return RestClient.builder()
                 .requestFactory(new HttpComponentsClientHttpRequestFactory(httpClient))
+                .requestInterceptor(keycloakBulkheads)
+                .requestInterceptor(keycloakConcurrencyLimiter)
                 .build();
     }
+
+    private static void poolGauge(MeterRegistry meterRegistry, PoolingHttpClientConnectionManager connectionManager,
+                                  String name, ToIntFunction<PoolStats> stat) {
+        Gauge.builder(name, connectionManager, manager -> stat.applyAsInt(manager.getTotalStats()))
+                .register(meterRegistry);
+    }
 }
@@ -11,7 +11,7 @@ public class KeycloakConfig {
 
     private String url;
     private Admin admin;
-    private Token token;
+    private Token token = new Token();
 
     @Data
     public static class Admin {
@@ -20,8 +20,25 @@ public class KeycloakConfig {
         private String clientSecret;
     }
 
+    /**
+     * Tenant client-credentials tokens used for the admin API.
+     */
     @Data
     public static class Token {
-        private Integer cacheTtl;
+
+        /**
+         * Share of a token's lifetime after which it is replaced in the background.
+         */
+        private double refreshFraction = 0.75;
+
+        /**
+         * How long one instance may take to fetch a tenant's token before another tries.
+         */
+        private long leaseMs = 10000;
+
+        /**
+         * How often tokens are checked for their refresh point.
+         */
+        private long checkIntervalMs = 1000;
     }
 }
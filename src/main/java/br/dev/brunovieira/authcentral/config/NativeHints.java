@@ -1,8 +1,10 @@
 package br.dev.brunovieira.authcentral.config;
 
+import br.dev.brunovieira.authcentral.audit.AuditEvent;
+import br.dev.brunovieira.authcentral.dto.response.ApiResponse;
+import br.dev.brunovieira.authcentral.dto.response.LoginResponse;
 import br.dev.brunovieira.authcentral.model.Tenant;
-import org.keycloak.representations.idm.CredentialRepresentation;
-import org.keycloak.representations.idm.UserRepresentation;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
 import org.springframework.aot.hint.MemberCategory;
 import org.springframework.aot.hint.RuntimeHints;
 import org.springframework.aot.hint.RuntimeHintsRegistrar;
@@ -15,44 +17,50 @@ public class NativeHints {
 
     static class Registrar implements RuntimeHintsRegistrar {
 
+        private static final BindingReflectionHintsRegistrar BINDING = new BindingReflectionHintsRegistrar();
+
         @Override
         public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
-            // Tenant cached in Redis — Jackson needs reflection to deserialize
-            hints.reflection().registerType(Tenant.class,
+            // Tenant entries stored in the Redis registry hash — Jackson needs reflection to (de)serialize
+            hints.reflection().registerType(TenantProperties.TenantEntry.class,
                     MemberCategory.ACCESS_DECLARED_FIELDS,
                     MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
                     MemberCategory.INVOKE_DECLARED_METHODS);
 
-            // Keycloak representations used via reflection by JAX-RS / Jackson
-            hints.reflection().registerType(UserRepresentation.class,
+            hints.reflection().registerType(RateLimitConfig.EndpointLimits.class,
                     MemberCategory.ACCESS_DECLARED_FIELDS,
                     MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
                     MemberCategory.INVOKE_DECLARED_METHODS);
 
-            hints.reflection().registerType(CredentialRepresentation.class,
+            hints.reflection().registerType(RateLimitConfig.EndpointLimit.class,
+                    MemberCategory.ACCESS_DECLARED_FIELDS,
+                    MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
+                    MemberCategory.INVOKE_DECLARED_METHODS);
+
+            hints.reflection().registerType(Tenant.class,
                     MemberCategory.ACCESS_DECLARED_FIELDS,
                     MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
                     MemberCategory.INVOKE_DECLARED_METHODS);
 
-            // Keycloak admin client internal types that may be accessed reflectively
+            // Audit records serialized to JSON by the audit sinks
+            hints.reflection().registerType(AuditEvent.class,
+                    MemberCategory.ACCESS_DECLARED_FIELDS,
+                    MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
+                    MemberCategory.INVOKE_DECLARED_METHODS);
+
+            // Login and refresh return ResponseEntity<?>, so the response types are not inferred from the signatures:
+            // LoginResponse is read from Keycloak's token response and written inside ApiResponse
+            BINDING.registerReflectionHints(hints.reflection(), LoginResponse.class, ApiResponse.class);
+
+            // Service account tokens shared between instances through Redis
             registerIfPresent(hints, classLoader,
-                    "org.keycloak.representations.idm.RoleRepresentation",
-                    "org.keycloak.representations.idm.GroupRepresentation",
-                    "org.keycloak.representations.idm.ClientRepresentation",
-                    "org.keycloak.representations.idm.RealmRepresentation",
-                    "org.keycloak.representations.AccessToken",
-                    "org.keycloak.representations.IDToken",
-                    "org.keycloak.representations.RefreshToken",
-                    "org.keycloak.representations.adapters.config.AdapterConfig",
-                    "org.keycloak.jose.jws.JWSHeader"
-            );
+                    "br.dev.brunovieira.authcentral.service.ServiceTokenManager$ServiceToken");
 
             // Bucket4j types used by the rate limiting infrastructure
             registerIfPresent(hints, classLoader,
                     "io.github.bucket4j.BucketConfiguration",
                     "io.github.bucket4j.Bandwidth",
-                    "io.github.bucket4j.Refill",
-                    "io.github.bucket4j.grid.GridBucketState"
+                    "io.github.bucket4j.Refill"
             );
         }
 
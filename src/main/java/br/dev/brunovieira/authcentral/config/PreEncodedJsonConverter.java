@@ -0,0 +1,48 @@
+package br.dev.brunovieira.authcentral.config;
+
+import br.dev.brunovieira.authcentral.dto.response.PreEncodedJson;
+import org.jspecify.annotations.NonNull;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.IOException;
+
+/**
+ * Writes a {@link PreEncodedJson} body by copying its bytes straight to the response stream. Write-only.
+ */
+public class PreEncodedJsonConverter extends AbstractHttpMessageConverter<PreEncodedJson> {
+
+    public PreEncodedJsonConverter() {
+        super(MediaType.APPLICATION_JSON);
+    }
+
+    @Override
+    protected boolean supports(@NonNull Class<?> clazz) {
+        return PreEncodedJson.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected @NonNull PreEncodedJson readInternal(@NonNull Class<? extends PreEncodedJson> clazz,
+                                                   @NonNull HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Pre-encoded JSON bodies are write-only", inputMessage);
+    }
+
+    @Override
+    protected Long getContentLength(@NonNull PreEncodedJson body, MediaType contentType) {
+        return body.contentLength();
+    }
+
+    @Override
+    protected void writeInternal(@NonNull PreEncodedJson body, @NonNull HttpOutputMessage outputMessage)
+            throws IOException {
+        body.writeTo(outputMessage.getBody());
+    }
+}
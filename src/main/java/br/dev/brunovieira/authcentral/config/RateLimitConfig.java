@@ -4,14 +4,60 @@ import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.HashMap;
+import java.util.Map;
+
 @Data
 @Configuration
 @ConfigurationProperties(prefix = "rate-limit")
 public class RateLimitConfig {
 
     private boolean enabled = true;
-    private EndpointLimit login;
-    private EndpointLimit register;
+    private Mode mode = Mode.REDIS;
+    /** Default limits per endpoint name (login, register, refresh, logout); tenants may override them. */
+    private Map<String, EndpointLimits> limits = new HashMap<>();
+    private Hybrid hybrid = new Hybrid();
+    private Async async = new Async();
+    private CircuitBreaker circuitBreaker = new CircuitBreaker();
+    /**
+     * Largest request body read to find the target account. Longer bodies are only limited per IP and tenant, so a
+     * client cannot make the filter buffer arbitrary amounts before its IP bucket is even checked.
+     */
+    private int maxAccountBodyBytes = 8192;
+    /** How often the Redis memory gauges are refreshed. */
+    private long metricsRefreshMs = 30_000;
+
+    public enum Mode {
+        /** Every request is checked against Redis. */
+        REDIS,
+        /** Requests are checked locally and reconciled with Redis in periodic batches. */
+        HYBRID
+    }
+
+    /**
+     * Limits applied to one endpoint. Every configured dimension must have a token for the request to pass;
+     * a {@code null} dimension is not limited (or, in a tenant override, inherits the default).
+     */
+    @Data
+    public static class EndpointLimits {
+        /** Per client IP. */
+        private EndpointLimit ip;
+        /** Per target account (request body email); only for endpoints that carry one. */
+        private EndpointLimit account;
+        /** Shared by every caller of the tenant. */
+        private EndpointLimit tenant;
+
+        public EndpointLimits overriddenBy(EndpointLimits override) {
+            if (override == null) {
+                return this;
+            }
+            EndpointLimits merged = new EndpointLimits();
+            merged.setIp(override.getIp() != null ? override.getIp() : ip);
+            merged.setAccount(override.getAccount() != null ? override.getAccount() : account);
+            merged.setTenant(override.getTenant() != null ? override.getTenant() : tenant);
+            return merged;
+        }
+    }
 
     @Data
     public static class EndpointLimit {
@@ -19,4 +65,30 @@ public class RateLimitConfig {
         private int refillTokens;
         private int refillPeriod; // in seconds
     }
+
+    @Data
+    public static class Hybrid {
+        private long syncIntervalMs = 1000;
+        /** Fraction of the shared bucket's remaining tokens one instance may spend between syncs. */
+        private double overAdmissionTolerance = 0.5;
+        private long idleEvictionMs = 300_000;
+    }
+
+    @Data
+    public static class Async {
+        /** Release the servlet thread while the limiter waits on Redis. */
+        private boolean enabled = true;
+        /** Requests are let through if the limiter has not answered within this budget. */
+        private long timeoutMs = 2000;
+    }
+
+    @Data
+    public static class CircuitBreaker {
+        /** Budget for one Redis call; slower calls count as failures and the request is decided locally. */
+        private long callTimeoutMs = 100;
+        /** Consecutive failures that open the circuit. */
+        private int failureThreshold = 5;
+        /** How long the circuit stays open before a single probe call is let through. */
+        private long openDurationMs = 5000;
+    }
 }
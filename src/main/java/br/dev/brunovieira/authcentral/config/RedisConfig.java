@@ -4,8 +4,8 @@ import com.fasterxml.jackson.annotation.JsonTypeInfo;
 import tools.jackson.databind.DefaultTyping;
 import tools.jackson.databind.json.JsonMapper;
 import tools.jackson.databind.jsontype.BasicPolymorphicTypeValidator;
-import io.github.bucket4j.redis.lettuce.cas.LettuceBasedProxyManager;
 import io.lettuce.core.RedisClient;
+import io.lettuce.core.api.StatefulRedisConnection;
 import io.lettuce.core.codec.ByteArrayCodec;
 import io.lettuce.core.codec.RedisCodec;
 import io.lettuce.core.codec.StringCodec;
@@ -19,13 +19,12 @@ import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJacksonJsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 import java.time.Duration;
-import java.util.HashMap;
-import java.util.Map;
 
 @Configuration
 @EnableCaching
@@ -67,33 +66,31 @@ public class RedisConfig {
                 .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(redisSerializer))
                 .disableCachingNullValues();
 
-        Map<String, RedisCacheConfiguration> cacheConfigurations = new HashMap<>();
-
-        // Tenant cache - 24 hours
-        cacheConfigurations.put("tenants",
-                defaultConfig.entryTtl(Duration.ofHours(24)));
-
-        // Admin token cache - 50 seconds (Keycloak admin tokens expire at 60s)
-        cacheConfigurations.put("adminTokens",
-                defaultConfig.entryTtl(Duration.ofSeconds(50)));
-
         return RedisCacheManager.builder(connectionFactory)
                 .cacheDefaults(defaultConfig)
-                .withInitialCacheConfigurations(cacheConfigurations)
                 .build();
     }
 
     /**
-     * Provides a LettuceBasedProxyManager for Bucket4j rate limiting,
-     * reusing Spring's managed Redis connection settings (host, port, password, SSL).
+     * Pub/sub container used to propagate tenant registry reloads between instances.
      */
     @Bean
-    public LettuceBasedProxyManager<String> lettuceBasedProxyManager(RedisConnectionFactory connectionFactory) {
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        return container;
+    }
+
+    /**
+     * Dedicated Lettuce connection for the rate limiting scripts (binary keys, string arguments),
+     * reusing Spring's managed Redis connection settings (host, port, password, SSL).
+     */
+    @Bean(destroyMethod = "close")
+    public StatefulRedisConnection<byte[], String> rateLimitRedisConnection(RedisConnectionFactory connectionFactory) {
         LettuceConnectionFactory lettuceFactory = (LettuceConnectionFactory) connectionFactory;
         // The native client already has host, port, password, SSL configured by Spring
         RedisClient client = (RedisClient) lettuceFactory.getNativeClient();
-        var connection = client.connect(RedisCodec.of(StringCodec.UTF8, ByteArrayCodec.INSTANCE));
-        log.info("Created LettuceBasedProxyManager for Bucket4j rate limiting using Spring-managed Redis connection");
-        return LettuceBasedProxyManager.builderFor(connection).build();
+        log.info("Created rate limiting Redis connection using Spring-managed Redis connection");
+        return client.connect(RedisCodec.of(ByteArrayCodec.INSTANCE, StringCodec.UTF8));
     }
 }
@@ -0,0 +1,40 @@
+package br.dev.brunovieira.authcentral.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "app.refresh-coalescing")
+public class RefreshCoalescingProperties {
+
+    /**
+     * Collapse concurrent refreshes of the same token into a single Keycloak call.
+     */
+    private boolean enabled = true;
+
+    /**
+     * How long one instance owns the refresh of a token. Must exceed the Keycloak connect plus read timeout,
+     * otherwise a slow refresh lets a second instance redeem the same token; lower values are raised to that
+     * plus 5 s.
+     */
+    private long leaseMs = 20000;
+
+    /**
+     * How long a successful refresh result stays available to callers on other instances. Waiting callers pick it
+     * up within a poll interval of the lease being released; anyone presenting the token later is replaying an
+     * already rotated token, so this is kept short.
+     */
+    private long resultTtlMs = 2000;
+
+    /**
+     * How long a failed refresh is handed to waiting callers. Kept short so a later retry reaches Keycloak again.
+     */
+    private long errorTtlMs = 1000;
+
+    /**
+     * How often a waiting instance checks for the leader's result.
+     */
+    private long pollIntervalMs = 25;
+}
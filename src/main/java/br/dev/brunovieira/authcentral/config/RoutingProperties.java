@@ -0,0 +1,39 @@
+package br.dev.brunovieira.authcentral.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "app.keycloak-routing")
+public class RoutingProperties {
+
+    /**
+     * Weight of the newest response time in each node's moving average; higher reacts faster to a slowdown.
+     */
+    private double latencySmoothing = 0.3;
+
+    /**
+     * Consecutive connection failures or 5xx responses after which a node is taken out of rotation.
+     */
+    private int ejectAfterFailures = 3;
+
+    /**
+     * How long an ejected node is skipped before it is tried again.
+     */
+    private long ejectionMs = 10000;
+
+    /**
+     * Send a second copy of a slow idempotent call (logout, admin reads) to another node and take the first answer.
+     */
+    private boolean hedging = false;
+
+    /**
+     * A call is hedged once it has taken longer than this percentile of its node's recent response times,
+     * kept between the two delay bounds.
+     */
+    private double hedgePercentile = 0.95;
+    private long hedgeMinDelayMs = 10;
+    private long hedgeMaxDelayMs = 1000;
+}
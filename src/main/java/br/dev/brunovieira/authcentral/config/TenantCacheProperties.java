@@ -0,0 +1,26 @@
+package br.dev.brunovieira.authcentral.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Bounds of the per-tenant admin state (service account tokens, email indexes) kept in memory.
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "app.tenant-cache")
+public class TenantCacheProperties {
+
+    /**
+     * Tenants kept per cache; the least recently used ones are dropped beyond this.
+     */
+    private int maxTenants = 1000;
+
+    /**
+     * Tenants not used for this long are dropped.
+     */
+    private long idleEvictionMs = 1_800_000;
+
+    private long sweepIntervalMs = 60_000;
+}
@@ -1,6 +1,7 @@
 package br.dev.brunovieira.authcentral.config;
 
 import br.dev.brunovieira.authcentral.model.Tenant;
+import br.dev.brunovieira.authcentral.model.TokenResponseMode;
 import jakarta.annotation.PostConstruct;
 import lombok.Getter;
 import lombok.Setter;
@@ -24,6 +25,8 @@ public class TenantProperties {
 
     private List<TenantEntry> tenants = new ArrayList<>();
 
+    private Registry registry = new Registry();
+
     private Map<String, Tenant> tenantMap;
 
     @PostConstruct
@@ -31,16 +34,7 @@ public class TenantProperties {
         AtomicLong idSeq = new AtomicLong(1);
         tenantMap = tenants.stream()
                 .filter(e -> e.getKey() != null && !e.getKey().isBlank())
-                .map(e -> Tenant.builder()
-                        .id(idSeq.getAndIncrement())
-                        .tenantKey(e.getKey())
-                        .tenantName(e.getName())
-                        .realmName(e.getRealmName())
-                        .clientId(e.getClientId())
-                        .clientSecret(e.getClientSecret())
-                        .keycloakBaseUrl(e.getKeycloakBaseUrl())
-                        .isActive(true)
-                        .build())
+                .map(e -> e.toTenant(idSeq.getAndIncrement(), e.getKey()))
                 .collect(Collectors.toMap(Tenant::getTenantKey, t -> t));
 
         log.info("Loaded {} tenant(s) from configuration: {}", tenantMap.size(), tenantMap.keySet());
@@ -59,5 +53,42 @@ public class TenantProperties {
         private String clientId;
         private String clientSecret;
         private String keycloakBaseUrl;
+        private List<String> keycloakNodes;
+        private boolean active = true;
+        private TokenResponseMode tokenResponse;
+        private Map<String, RateLimitConfig.EndpointLimits> rateLimits;
+
+        public Tenant toTenant(long id, String tenantKey) {
+            return Tenant.builder()
+                    .id(id)
+                    .tenantKey(tenantKey)
+                    .tenantName(name)
+                    .realmName(realmName)
+                    .clientId(clientId)
+                    .clientSecret(clientSecret)
+                    .keycloakBaseUrl(keycloakBaseUrl)
+                    .keycloakNodes(keycloakNodes)
+                    .isActive(active)
+                    .tokenResponseMode(tokenResponse)
+                    .rateLimits(rateLimits)
+                    .build();
+        }
+    }
+
+    @Getter
+    @Setter
+    public static class Registry {
+        private String redisKey = "auth-central:tenants";
+        private String reloadChannel = "auth-central:tenants:reload";
+
+        /**
+         * Optional newline-delimited JSON file of tenant entries, one per line with its {@code key}.
+         */
+        private String file;
+
+        /**
+         * How often changed tenant sources are re-read.
+         */
+        private long pollMs = 10_000;
     }
 }
@@ -0,0 +1,35 @@
+package br.dev.brunovieira.authcentral.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "app.token-validation")
+public class TokenValidationProperties {
+
+    /**
+     * How often cached realm JWKS are re-fetched in the background to pick up key rotation.
+     */
+    private long jwksRefreshMs = 300000;
+
+    /**
+     * Minimum gap between JWKS fetches triggered by an unknown key id, so forged kids cannot hammer Keycloak.
+     */
+    private long unknownKidRefetchMs = 10000;
+
+    /**
+     * Allowed clock skew when checking exp and nbf.
+     */
+    private long clockSkewSeconds = 30;
+
+    /**
+     * Audiences a token must be issued for, matched against its aud and azp claims. Empty means the tenant's own
+     * client id, so tokens Keycloak issued to other clients of the realm are rejected.
+     */
+    private List<String> audiences = new ArrayList<>();
+}
@@ -1,5 +1,6 @@
 package br.dev.brunovieira.authcentral.config;
 
+import br.dev.brunovieira.authcentral.interceptor.AdminInterceptor;
 import br.dev.brunovieira.authcentral.interceptor.TenantInterceptor;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
@@ -7,6 +8,7 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.http.converter.HttpMessageConverters;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
@@ -24,6 +26,7 @@ import java.util.concurrent.Executors;
 public class WebConfig implements WebMvcConfigurer {
 
     private final TenantInterceptor tenantInterceptor;
+    private final AdminInterceptor adminInterceptor;
 
     @Value("${cors.allowed-origins}")
     private String allowedOrigins;
@@ -47,7 +50,18 @@ public class WebConfig implements WebMvcConfigurer {
     public void addInterceptors(InterceptorRegistry registry) {
         registry.addInterceptor(tenantInterceptor)
                 .addPathPatterns("/api/**")
-                .excludePathPatterns("/actuator/**", "/swagger-ui/**", "/api-docs/**");
+                .excludePathPatterns("/actuator/**", "/swagger-ui/**", "/api-docs/**", "/api/v1/admin/**");
+        registry.addInterceptor(adminInterceptor)
+                .addPathPatterns("/api/v1/admin/**");
+    }
+
+    /**
+     * Pre-encoded bodies (unparsed Keycloak token responses, prepared error responses); ahead of Jackson, which
+     * would otherwise serialize the holder objects.
+     */
+    @Override
+    public void configureMessageConverters(HttpMessageConverters.ServerBuilder builder) {
+        builder.addCustomConverter(new PreEncodedJsonConverter());
     }
 
     @Bean
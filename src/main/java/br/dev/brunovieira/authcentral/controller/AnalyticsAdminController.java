@@ -0,0 +1,41 @@
+package br.dev.brunovieira.authcentral.controller;
+
+import br.dev.brunovieira.authcentral.analytics.AuthAnalytics;
+import br.dev.brunovieira.authcentral.dto.response.AnalyticsResponse;
+import br.dev.brunovieira.authcentral.dto.response.ApiResponse;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+import java.time.Instant;
+
+@RestController
+@RequestMapping("/api/v1/admin/analytics")
+@RequiredArgsConstructor
+@Tag(name = "Analytics Administration", description = "Per-tenant auth activity (requires X-Admin-Key)")
+public class AnalyticsAdminController {
+
+    private final AuthAnalytics authAnalytics;
+
+    @GetMapping
+    @Operation(summary = "Tenant auth analytics",
+            description = "Login success/failure, registrations and other operations per minute, plus daily unique users. Defaults to the last hour.")
+    public ResponseEntity<ApiResponse<AnalyticsResponse>> analytics(
+            @Parameter(description = "Tenant key", required = true) @RequestParam String tenant,
+            @Parameter(description = "Start of the range (ISO-8601)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @Parameter(description = "End of the range (ISO-8601)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to
+    ) {
+        Instant end = to != null ? to : Instant.now();
+        Instant start = from != null ? from : end.minus(Duration.ofHours(1));
+        AnalyticsResponse response = authAnalytics.query(tenant, start.toEpochMilli(), end.toEpochMilli());
+        return ResponseEntity.ok(ApiResponse.success("Analytics retrieved", response));
+    }
+}
@@ -0,0 +1,70 @@
+package br.dev.brunovieira.authcentral.controller;
+
+import br.dev.brunovieira.authcentral.audit.AuditQuery;
+import br.dev.brunovieira.authcentral.audit.AuditSegmentStore;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
+
+@RestController
+@RequestMapping("/api/v1/admin/audit")
+@RequiredArgsConstructor
+@Tag(name = "Audit Administration", description = "Query the local audit store (requires X-Admin-Key)")
+public class AuditAdminController {
+
+    static final int MAX_LIMIT = 100_000;
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    private final AuditSegmentStore auditSegmentStore;
+    private final JsonMapper jsonMapper;
+
+    @GetMapping
+    @Operation(summary = "Query audit records",
+            description = "Streams matching records as newline-delimited JSON, oldest first. Defaults to the last hour.")
+    public ResponseEntity<StreamingResponseBody> query(
+            @Parameter(description = "Tenant key") @RequestParam(required = false) String tenant,
+            @Parameter(description = "Action, e.g. USER_LOGIN") @RequestParam(required = false) String action,
+            @Parameter(description = "Only successful (true) or failed (false) operations") @RequestParam(required = false) Boolean success,
+            @Parameter(description = "Start of the range (ISO-8601)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @Parameter(description = "End of the range (ISO-8601)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+            @Parameter(description = "Maximum records returned") @RequestParam(defaultValue = "1000") int limit
+    ) {
+        Instant end = to != null ? to : Instant.now();
+        Instant start = from != null ? from : end.minus(Duration.ofHours(1));
+        AuditQuery query = new AuditQuery(tenant, action, success, start.toEpochMilli(), end.toEpochMilli());
+        int max = Math.clamp(limit, 1, MAX_LIMIT);
+
+        StreamingResponseBody body = out -> {
+            int[] written = {0};
+            try {
+                auditSegmentStore.scan(query, event -> {
+                    try {
+                        out.write(jsonMapper.writeValueAsBytes(event));
+                        out.write('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    return ++written[0] < max;
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        };
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
+    }
+}
@@ -3,10 +3,18 @@ package br.dev.brunovieira.authcentral.controller;
 import br.dev.brunovieira.authcentral.dto.request.LoginRequest;
 import br.dev.brunovieira.authcentral.dto.request.RefreshTokenRequest;
 import br.dev.brunovieira.authcentral.dto.request.RegisterRequest;
+import br.dev.brunovieira.authcentral.dto.request.ValidateTokenRequest;
 import br.dev.brunovieira.authcentral.dto.response.ApiResponse;
 import br.dev.brunovieira.authcentral.dto.response.LoginResponse;
+import br.dev.brunovieira.authcentral.dto.response.PreparedError;
+import br.dev.brunovieira.authcentral.dto.response.TokenPassthrough;
+import br.dev.brunovieira.authcentral.dto.response.TokenValidationResponse;
+import br.dev.brunovieira.authcentral.exception.PreparedErrors;
+import br.dev.brunovieira.authcentral.model.AuthOutcome;
 import br.dev.brunovieira.authcentral.model.Tenant;
+import br.dev.brunovieira.authcentral.model.TokenResponseMode;
 import br.dev.brunovieira.authcentral.service.AuthService;
+import br.dev.brunovieira.authcentral.service.TokenValidationService;
 import br.dev.brunovieira.authcentral.util.RequestUtils;
 import br.dev.brunovieira.authcentral.util.TenantContext;
 import io.swagger.v3.oas.annotations.Operation;
@@ -20,6 +28,7 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -30,7 +39,11 @@ import org.springframework.web.bind.annotation.*;
 @Tag(name = "Authentication", description = "Authentication endpoints for user registration, login, and token management")
 public class AuthController {
 
+    private static final TokenPassthrough.Envelope LOGIN_ENVELOPE = new TokenPassthrough.Envelope("Login successful");
+    private static final TokenPassthrough.Envelope REFRESH_ENVELOPE = new TokenPassthrough.Envelope("Token refreshed successfully");
+
     private final AuthService authService;
+    private final TokenValidationService tokenValidationService;
 
     @PostMapping("/register")
     @Operation(
@@ -71,7 +84,8 @@ public class AuthController {
     @PostMapping("/login")
     @Operation(
             summary = "User login",
-            description = "Authenticates a user and returns JWT access token and refresh token"
+            description = "Authenticates a user and returns JWT access token and refresh token. "
+                    + "X-Token-Response: envelope or raw returns Keycloak's token response unparsed"
     )
     @ApiResponses(value = {
             @io.swagger.v3.oas.annotations.responses.ApiResponse(
@@ -84,7 +98,7 @@ public class AuthController {
                     description = "Invalid credentials"
             )
     })
-    public ResponseEntity<ApiResponse<LoginResponse>> login(
+    public ResponseEntity<?> login(
             @Parameter(description = "Login credentials", required = true)
             @Valid @RequestBody LoginRequest request,
             HttpServletRequest httpRequest
@@ -93,15 +107,26 @@ public class AuthController {
         String ipAddress = RequestUtils.getClientIpAddress(httpRequest);
         String userAgent = RequestUtils.getUserAgent(httpRequest);
 
-        LoginResponse response = authService.login(tenant, request, ipAddress, userAgent);
+        TokenResponseMode mode = responseMode(tenant, httpRequest);
+        if (mode != TokenResponseMode.STANDARD) {
+            return switch (authService.loginPassthrough(tenant, request, ipAddress, userAgent)) {
+                case AuthOutcome.Granted<byte[]>(byte[] tokenResponse) -> passthrough(mode, LOGIN_ENVELOPE, tokenResponse);
+                case AuthOutcome.Rejected<byte[]>(String reason) -> rejected(reason);
+            };
+        }
 
-        return ResponseEntity.ok(ApiResponse.success("Login successful", response));
+        return switch (authService.login(tenant, request, ipAddress, userAgent)) {
+            case AuthOutcome.Granted<LoginResponse>(LoginResponse response) ->
+                    ResponseEntity.ok(ApiResponse.success("Login successful", response));
+            case AuthOutcome.Rejected<LoginResponse>(String reason) -> rejected(reason);
+        };
     }
 
     @PostMapping("/refresh")
     @Operation(
             summary = "Refresh access token",
-            description = "Uses a refresh token to obtain a new access token"
+            description = "Uses a refresh token to obtain a new access token. "
+                    + "X-Token-Response: envelope or raw returns Keycloak's token response unparsed"
     )
     @ApiResponses(value = {
             @io.swagger.v3.oas.annotations.responses.ApiResponse(
@@ -114,7 +139,7 @@ public class AuthController {
                     description = "Invalid or expired refresh token"
             )
     })
-    public ResponseEntity<ApiResponse<LoginResponse>> refreshToken(
+    public ResponseEntity<?> refreshToken(
             @Parameter(description = "Refresh token", required = true)
             @Valid @RequestBody RefreshTokenRequest request,
             HttpServletRequest httpRequest
@@ -123,14 +148,32 @@ public class AuthController {
         String ipAddress = RequestUtils.getClientIpAddress(httpRequest);
         String userAgent = RequestUtils.getUserAgent(httpRequest);
 
-        LoginResponse response = authService.refreshToken(
+        TokenResponseMode mode = responseMode(tenant, httpRequest);
+        if (mode != TokenResponseMode.STANDARD) {
+            AuthOutcome<byte[]> outcome = authService.refreshTokenPassthrough(
+                    tenant,
+                    request.getRefreshToken(),
+                    ipAddress,
+                    userAgent
+            );
+            return switch (outcome) {
+                case AuthOutcome.Granted<byte[]>(byte[] tokenResponse) -> passthrough(mode, REFRESH_ENVELOPE, tokenResponse);
+                case AuthOutcome.Rejected<byte[]>(String reason) -> rejected(reason);
+            };
+        }
+
+        AuthOutcome<LoginResponse> outcome = authService.refreshToken(
                 tenant,
                 request.getRefreshToken(),
                 ipAddress,
                 userAgent
         );
 
-        return ResponseEntity.ok(ApiResponse.success("Token refreshed successfully", response));
+        return switch (outcome) {
+            case AuthOutcome.Granted<LoginResponse>(LoginResponse response) ->
+                    ResponseEntity.ok(ApiResponse.success("Token refreshed successfully", response));
+            case AuthOutcome.Rejected<LoginResponse>(String reason) -> rejected(reason);
+        };
     }
 
     @PostMapping("/logout")
@@ -157,4 +200,54 @@ public class AuthController {
 
         return ResponseEntity.ok(ApiResponse.success("Logout successful", null));
     }
+
+    @PostMapping("/validate")
+    @Operation(
+            summary = "Validate access token",
+            description = "Verifies an access token locally against the tenant realm's signing keys and returns its claims"
+    )
+    @ApiResponses(value = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "200",
+                    description = "Token is valid",
+                    content = @Content(schema = @Schema(implementation = TokenValidationResponse.class))
+            ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "401",
+                    description = "Invalid or expired token"
+            )
+    })
+    public ResponseEntity<ApiResponse<TokenValidationResponse>> validate(
+            @Parameter(description = "Access token", required = true)
+            @Valid @RequestBody ValidateTokenRequest request
+    ) {
+        Tenant tenant = TenantContext.getCurrentTenant();
+
+        TokenValidationResponse response = tokenValidationService.validate(tenant, request.getToken());
+
+        return ResponseEntity.ok(ApiResponse.success("Token is valid", response));
+    }
+
+    private static TokenResponseMode responseMode(Tenant tenant, HttpServletRequest httpRequest) {
+        return TokenResponseMode.resolve(httpRequest.getHeader(TokenResponseMode.HEADER), tenant.getTokenResponseMode());
+    }
+
+    /**
+     * Keycloak's token response as received, either alone or inside the usual {@link ApiResponse} envelope.
+     */
+    private static ResponseEntity<TokenPassthrough> passthrough(TokenResponseMode mode, TokenPassthrough.Envelope envelope,
+                                                                byte[] tokenResponse) {
+        TokenPassthrough body = mode == TokenResponseMode.RAW
+                ? TokenPassthrough.raw(tokenResponse)
+                : TokenPassthrough.enveloped(envelope, tokenResponse);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    /**
+     * The 401 an expected authentication failure gets; the same body {@code GlobalExceptionHandler} writes for an
+     * {@code AuthenticationException}, without the exception.
+     */
+    private static ResponseEntity<PreparedError.Body> rejected(String reason) {
+        return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(PreparedErrors.AUTHENTICATION_FAILED.get(reason).body());
+    }
 }
@@ -0,0 +1,45 @@
+package br.dev.brunovieira.authcentral.controller;
+
+import br.dev.brunovieira.authcentral.config.TenantProperties;
+import br.dev.brunovieira.authcentral.dto.response.ApiResponse;
+import br.dev.brunovieira.authcentral.service.TenantRegistry;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/v1/admin/tenants")
+@RequiredArgsConstructor
+@Tag(name = "Tenant Administration", description = "Manage the tenant registry (requires X-Admin-Key)")
+public class TenantAdminController {
+
+    private final TenantRegistry tenantRegistry;
+
+    @PostMapping("/reload")
+    @Operation(summary = "Reload tenants", description = "Rebuilds the tenant snapshot on every instance")
+    public ResponseEntity<ApiResponse<Map<String, Integer>>> reload() {
+        int count = tenantRegistry.reloadAndBroadcast();
+        return ResponseEntity.ok(ApiResponse.success("Tenants reloaded", Map.of("tenants", count)));
+    }
+
+    @PutMapping("/{tenantKey}")
+    @Operation(summary = "Create or update a tenant", description = "Stores the tenant in Redis and reloads every instance")
+    public ResponseEntity<ApiResponse<Map<String, Integer>>> upsert(
+            @PathVariable String tenantKey,
+            @RequestBody TenantProperties.TenantEntry entry
+    ) {
+        int count = tenantRegistry.upsert(tenantKey, entry);
+        return ResponseEntity.ok(ApiResponse.success("Tenant saved", Map.of("tenants", count)));
+    }
+
+    @DeleteMapping("/{tenantKey}")
+    @Operation(summary = "Remove a tenant", description = "Removes the tenant from Redis and reloads every instance")
+    public ResponseEntity<ApiResponse<Map<String, Integer>>> remove(@PathVariable String tenantKey) {
+        int count = tenantRegistry.remove(tenantKey);
+        return ResponseEntity.ok(ApiResponse.success("Tenant removed", Map.of("tenants", count)));
+    }
+}
@@ -0,0 +1,34 @@
+package br.dev.brunovieira.authcentral.dto.keycloak;
+
+import tools.jackson.databind.JsonNode;
+
+/**
+ * The fields of a Keycloak admin API user representation that this service reads.
+ * Parsed from the JSON tree by hand, so it needs no reflection metadata in the native image.
+ */
+public record KeycloakUser(
+        String id,
+        String username,
+        String email,
+        String firstName,
+        String lastName,
+        boolean enabled,
+        boolean emailVerified
+) {
+
+    public static KeycloakUser from(JsonNode node) {
+        return new KeycloakUser(
+                text(node, "id"),
+                text(node, "username"),
+                text(node, "email"),
+                text(node, "firstName"),
+                text(node, "lastName"),
+                node.path("enabled").asBoolean(false),
+                node.path("emailVerified").asBoolean(false));
+    }
+
+    private static String text(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return value != null && value.isString() ? value.stringValue() : null;
+    }
+}
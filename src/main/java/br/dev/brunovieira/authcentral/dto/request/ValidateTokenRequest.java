@@ -0,0 +1,20 @@
+package br.dev.brunovieira.authcentral.dto.request;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Token validation request")
+public class ValidateTokenRequest {
+
+    @NotBlank(message = "Token is required")
+    @Schema(description = "Access token issued for the tenant realm", required = true)
+    private String token;
+}
@@ -0,0 +1,54 @@
+package br.dev.brunovieira.authcentral.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Auth activity of one tenant over a time range")
+public class AnalyticsResponse {
+
+    @Schema(description = "Tenant key")
+    private String tenant;
+
+    @Schema(description = "Start of the range, epoch seconds (minute-aligned)")
+    private Long from;
+
+    @Schema(description = "End of the range, epoch seconds (minute-aligned)")
+    private Long to;
+
+    @Schema(description = "Operations in the range by ACTION:ok / ACTION:fail", example = "{\"USER_LOGIN:ok\": 120, \"USER_LOGIN:fail\": 7}")
+    private Map<String, Long> totals;
+
+    @JsonProperty("login_success_rate")
+    @Schema(description = "Successful logins divided by all logins, or null without logins", example = "0.94")
+    private Double loginSuccessRate;
+
+    @Schema(description = "Per-minute counts, only minutes with activity")
+    private List<MinuteCounts> minutes;
+
+    @JsonProperty("unique_users")
+    @Schema(description = "Approximate distinct users with a successful login, per UTC day (yyyy-MM-dd)")
+    private Map<String, Long> uniqueUsers;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class MinuteCounts {
+
+        @Schema(description = "Start of the minute, epoch seconds")
+        private Long minute;
+
+        private Map<String, Long> counts;
+    }
+}
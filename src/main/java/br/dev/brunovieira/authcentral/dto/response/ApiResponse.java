@@ -1,5 +1,6 @@
 package br.dev.brunovieira.authcentral.dto.response;
 
+import br.dev.brunovieira.authcentral.util.CoarseClock;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.AllArgsConstructor;
@@ -28,14 +29,13 @@ public class ApiResponse<T> {
 
     @Schema(description = "Timestamp of the response")
     @Builder.Default
-    private LocalDateTime timestamp = LocalDateTime.now();
+    private LocalDateTime timestamp = CoarseClock.system().now();
 
     public static <T> ApiResponse<T> success(String message, T data) {
         return ApiResponse.<T>builder()
                 .status("success")
                 .message(message)
                 .data(data)
-                .timestamp(LocalDateTime.now())
                 .build();
     }
 
@@ -47,7 +47,6 @@ public class ApiResponse<T> {
         return ApiResponse.<T>builder()
                 .status("error")
                 .message(message)
-                .timestamp(LocalDateTime.now())
                 .build();
     }
 }
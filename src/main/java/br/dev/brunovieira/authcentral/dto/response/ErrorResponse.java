@@ -1,5 +1,6 @@
 package br.dev.brunovieira.authcentral.dto.response;
 
+import br.dev.brunovieira.authcentral.util.CoarseClock;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.AllArgsConstructor;
@@ -36,5 +37,5 @@ public class ErrorResponse {
 
     @Schema(description = "Timestamp of the error")
     @Builder.Default
-    private LocalDateTime timestamp = LocalDateTime.now();
+    private LocalDateTime timestamp = CoarseClock.system().now();
 }
@@ -0,0 +1,15 @@
+package br.dev.brunovieira.authcentral.dto.response;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * A response body that is already JSON bytes, written as is by {@code PreEncodedJsonConverter} instead of being
+ * serialized by Jackson.
+ */
+public interface PreEncodedJson {
+
+    long contentLength();
+
+    void writeTo(OutputStream out) throws IOException;
+}
@@ -0,0 +1,114 @@
+package br.dev.brunovieira.authcentral.dto.response;
+
+import br.dev.brunovieira.authcentral.util.CoarseClock;
+import tools.jackson.core.io.JsonStringEncoder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An {@link ErrorResponse} without field errors, serialized once. Each response only adds the current
+ * {@link CoarseClock} timestamp, so rejecting a request costs no Jackson serialization. The JSON is the same,
+ * field for field, as Jackson writes for the equivalent {@code ErrorResponse}.
+ */
+public final class PreparedError {
+
+    private static final byte[] TAIL = "\"}".getBytes(StandardCharsets.US_ASCII);
+
+    private final int code;
+    private final String message;
+    private final String details;
+    private final byte[] head;
+
+    public PreparedError(int code, String message, String details) {
+        this.code = code;
+        this.message = message;
+        this.details = details;
+        StringBuilder json = new StringBuilder("{\"status\":\"error\"");
+        if (message != null) {
+            json.append(",\"message\":\"").append(JsonStringEncoder.getInstance().quoteAsCharArray(message)).append('"');
+        }
+        json.append(",\"code\":").append(code);
+        if (details != null) {
+            json.append(",\"details\":\"").append(JsonStringEncoder.getInstance().quoteAsCharArray(details)).append('"');
+        }
+        this.head = json.append(",\"timestamp\":\"").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    public int code() {
+        return code;
+    }
+
+    public String message() {
+        return message;
+    }
+
+    public String details() {
+        return details;
+    }
+
+    /**
+     * This error stamped with the current time.
+     */
+    public Body body() {
+        return new Body(this, CoarseClock.system().isoBytes());
+    }
+
+    /**
+     * One response's body: the prepared JSON around {@code timestamp}.
+     */
+    public record Body(PreparedError error, byte[] timestamp) implements PreEncodedJson {
+
+        @Override
+        public long contentLength() {
+            return (long) error.head.length + timestamp.length + TAIL.length;
+        }
+
+        @Override
+        public void writeTo(OutputStream out) throws IOException {
+            out.write(error.head);
+            out.write(timestamp);
+            out.write(TAIL);
+        }
+    }
+
+    /**
+     * Prepared errors with a fixed code and details, one per message. Messages come from exceptions and are
+     * normally a handful of constants; beyond {@code maxMessages} the cache is dropped and refilled.
+     */
+    public static final class Cache {
+
+        private final int code;
+        private final String details;
+        private final int maxMessages;
+        private final PreparedError withoutMessage;
+        private final ConcurrentHashMap<String, PreparedError> errors = new ConcurrentHashMap<>();
+
+        public Cache(int code, String details, int maxMessages) {
+            this.code = code;
+            this.details = details;
+            this.maxMessages = maxMessages;
+            this.withoutMessage = new PreparedError(code, null, details);
+        }
+
+        public PreparedError get(String message) {
+            if (message == null) {
+                return withoutMessage;
+            }
+            PreparedError error = errors.get(message);
+            if (error == null) {
+                if (errors.size() >= maxMessages) {
+                    errors.clear();
+                }
+                error = errors.computeIfAbsent(message, m -> new PreparedError(code, m, details));
+            }
+            return error;
+        }
+
+        int size() {
+            return errors.size();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package br.dev.brunovieira.authcentral.dto.response;
+
+import br.dev.brunovieira.authcentral.util.CoarseClock;
+import tools.jackson.core.io.JsonStringEncoder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A Keycloak token response written to the client without being parsed: the body bytes as received, optionally
+ * between the precomputed head and a small tail of the {@link ApiResponse} envelope. Written as the three parts in
+ * sequence, so the body is never copied into a larger buffer.
+ */
+public record TokenPassthrough(byte[] prefix, byte[] body, byte[] suffix) implements PreEncodedJson {
+
+    private static final byte[] EMPTY = new byte[0];
+
+    public static TokenPassthrough raw(byte[] body) {
+        return new TokenPassthrough(EMPTY, body, EMPTY);
+    }
+
+    public static TokenPassthrough enveloped(Envelope envelope, byte[] body) {
+        return new TokenPassthrough(envelope.prefix, body, envelope.suffix(CoarseClock.system().isoBytes()));
+    }
+
+    @Override
+    public long contentLength() {
+        return (long) prefix.length + body.length + suffix.length;
+    }
+
+    @Override
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(prefix);
+        out.write(body);
+        out.write(suffix);
+    }
+
+    /**
+     * The {@code ApiResponse.success(message, data)} JSON around a {@code data} value, with the same field order
+     * and timestamp format Jackson produces for it.
+     */
+    public static final class Envelope {
+
+        private static final byte[] TIMESTAMP_HEAD = ",\"timestamp\":\"".getBytes(StandardCharsets.US_ASCII);
+
+        private final byte[] prefix;
+
+        public Envelope(String message) {
+            this.prefix = ("{\"status\":\"success\",\"message\":\""
+                    + new String(JsonStringEncoder.getInstance().quoteAsCharArray(message))
+                    + "\",\"data\":").getBytes(StandardCharsets.UTF_8);
+        }
+
+        byte[] suffix(byte[] timestamp) {
+            byte[] suffix = new byte[TIMESTAMP_HEAD.length + timestamp.length + 2];
+            System.arraycopy(TIMESTAMP_HEAD, 0, suffix, 0, TIMESTAMP_HEAD.length);
+            System.arraycopy(timestamp, 0, suffix, TIMESTAMP_HEAD.length, timestamp.length);
+            suffix[suffix.length - 2] = '"';
+            suffix[suffix.length - 1] = '}';
+            return suffix;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package br.dev.brunovieira.authcentral.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Claims of a locally validated access token")
+public class TokenValidationResponse {
+
+    @Schema(description = "Token subject (Keycloak user id)", example = "f3b1c2d4-...")
+    private String subject;
+
+    @Schema(description = "Token issuer", example = "https://keycloak.example.com/realms/acme")
+    private String issuer;
+
+    @JsonProperty("expires_at")
+    @Schema(description = "Expiration as epoch seconds", example = "1767225600")
+    private Long expiresAt;
+
+    @Schema(description = "All claims carried by the token")
+    private Map<String, Object> claims;
+}
@@ -1,11 +1,16 @@
 package br.dev.brunovieira.authcentral.exception;
 
+/**
+ * An authentication failure that is not part of normal traffic (expected rejections are returned as
+ * {@link br.dev.brunovieira.authcentral.model.AuthOutcome.Rejected}). Stackless: only its message is ever
+ * reported, and a wrapped cause keeps its own stack trace.
+ */
 public class AuthenticationException extends RuntimeException {
     public AuthenticationException(String message) {
-        super(message);
+        super(message, null, false, false);
     }
 
     public AuthenticationException(String message, Throwable cause) {
-        super(message, cause);
+        super(message, cause, false, false);
     }
 }
@@ -1,8 +1,11 @@
 package br.dev.brunovieira.authcentral.exception;
 
 import br.dev.brunovieira.authcentral.dto.response.ErrorResponse;
+import br.dev.brunovieira.authcentral.dto.response.PreparedError;
+import br.dev.brunovieira.authcentral.util.CoarseClock;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -10,7 +13,6 @@ import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
-import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -19,37 +21,25 @@ import java.util.Map;
 public class GlobalExceptionHandler {
 
     @ExceptionHandler(TenantNotFoundException.class)
-    public ResponseEntity<ErrorResponse> handleTenantNotFoundException(
+    public ResponseEntity<PreparedError.Body> handleTenantNotFoundException(
             TenantNotFoundException ex,
             HttpServletRequest request
     ) {
         log.error("Tenant not found: {}", ex.getMessage());
 
-        ErrorResponse error = ErrorResponse.builder()
-                .status("error")
-                .message(ex.getMessage())
-                .code(HttpStatus.UNAUTHORIZED.value())
-                .details("Invalid or missing tenant key")
-                .timestamp(LocalDateTime.now())
-                .build();
+        PreparedError.Body error = PreparedErrors.TENANT_NOT_FOUND.get(ex.getMessage()).body();
 
         return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(error);
     }
 
     @ExceptionHandler(AuthenticationException.class)
-    public ResponseEntity<ErrorResponse> handleAuthenticationException(
+    public ResponseEntity<PreparedError.Body> handleAuthenticationException(
             AuthenticationException ex,
             HttpServletRequest request
     ) {
         log.error("Authentication failed: {}", ex.getMessage());
 
-        ErrorResponse error = ErrorResponse.builder()
-                .status("error")
-                .message(ex.getMessage())
-                .code(HttpStatus.UNAUTHORIZED.value())
-                .details("Authentication failed")
-                .timestamp(LocalDateTime.now())
-                .build();
+        PreparedError.Body error = PreparedErrors.AUTHENTICATION_FAILED.get(ex.getMessage()).body();
 
         return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(error);
     }
@@ -66,7 +56,7 @@ public class GlobalExceptionHandler {
                 .message(ex.getMessage())
                 .code(HttpStatus.CONFLICT.value())
                 .details("User with this email already exists")
-                .timestamp(LocalDateTime.now())
+                .timestamp(CoarseClock.system().now())
                 .build();
 
         return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
@@ -84,30 +74,38 @@ public class GlobalExceptionHandler {
                 .message(ex.getMessage())
                 .code(HttpStatus.NOT_FOUND.value())
                 .details("User not found")
-                .timestamp(LocalDateTime.now())
+                .timestamp(CoarseClock.system().now())
                 .build();
 
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
     }
 
     @ExceptionHandler(RateLimitExceededException.class)
-    public ResponseEntity<ErrorResponse> handleRateLimitExceededException(
+    public ResponseEntity<PreparedError.Body> handleRateLimitExceededException(
             RateLimitExceededException ex,
             HttpServletRequest request
     ) {
         log.warn("Rate limit exceeded: {}", ex.getMessage());
 
-        ErrorResponse error = ErrorResponse.builder()
-                .status("error")
-                .message(ex.getMessage())
-                .code(HttpStatus.TOO_MANY_REQUESTS.value())
-                .details("Too many requests. Please try again later.")
-                .timestamp(LocalDateTime.now())
-                .build();
+        PreparedError.Body error = PreparedErrors.RATE_LIMITED.get(ex.getMessage()).body();
 
         return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(error);
     }
 
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public ResponseEntity<PreparedError.Body> handleServiceUnavailableException(
+            ServiceUnavailableException ex,
+            HttpServletRequest request
+    ) {
+        log.warn("Service unavailable: {}", ex.getMessage());
+
+        PreparedError.Body error = PreparedErrors.SERVICE_UNAVAILABLE.get(ex.getMessage()).body();
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(ex.getRetryAfterSeconds()))
+                .body(error);
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<ErrorResponse> handleValidationException(
             MethodArgumentNotValidException ex,
@@ -128,7 +126,7 @@ public class GlobalExceptionHandler {
                 .code(HttpStatus.BAD_REQUEST.value())
                 .details("One or more fields have validation errors")
                 .fieldErrors(fieldErrors)
-                .timestamp(LocalDateTime.now())
+                .timestamp(CoarseClock.system().now())
                 .build();
 
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
@@ -146,7 +144,7 @@ public class GlobalExceptionHandler {
                 .message(ex.getMessage())
                 .code(HttpStatus.BAD_REQUEST.value())
                 .details("Invalid request parameters")
-                .timestamp(LocalDateTime.now())
+                .timestamp(CoarseClock.system().now())
                 .build();
 
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
@@ -164,7 +162,7 @@ public class GlobalExceptionHandler {
                 .message("An unexpected error occurred")
                 .code(HttpStatus.INTERNAL_SERVER_ERROR.value())
                 .details("Please contact support if the problem persists")
-                .timestamp(LocalDateTime.now())
+                .timestamp(CoarseClock.system().now())
                 .build();
 
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(error);
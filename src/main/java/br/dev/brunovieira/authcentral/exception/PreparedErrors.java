@@ -0,0 +1,27 @@
+package br.dev.brunovieira.authcentral.exception;
+
+import br.dev.brunovieira.authcentral.dto.response.PreparedError;
+import org.springframework.http.HttpStatus;
+
+/**
+ * The error bodies of failures that arrive in floods, serialized once per distinct message. Shared by
+ * {@link GlobalExceptionHandler}, the rate limit filter and the controllers that return expected rejections
+ * without throwing.
+ */
+public final class PreparedErrors {
+
+    private static final int MAX_MESSAGES = 256;
+
+    public static final PreparedError.Cache TENANT_NOT_FOUND = new PreparedError.Cache(
+            HttpStatus.UNAUTHORIZED.value(), "Invalid or missing tenant key", MAX_MESSAGES);
+    public static final PreparedError.Cache AUTHENTICATION_FAILED = new PreparedError.Cache(
+            HttpStatus.UNAUTHORIZED.value(), "Authentication failed", MAX_MESSAGES);
+    public static final PreparedError.Cache RATE_LIMITED = new PreparedError.Cache(
+            HttpStatus.TOO_MANY_REQUESTS.value(), "Too many requests. Please try again later.", MAX_MESSAGES);
+    public static final PreparedError.Cache SERVICE_UNAVAILABLE = new PreparedError.Cache(
+            HttpStatus.SERVICE_UNAVAILABLE.value(), "The identity provider is busy. Please try again later.",
+            MAX_MESSAGES);
+
+    private PreparedErrors() {
+    }
+}
@@ -0,0 +1,94 @@
+package br.dev.brunovieira.authcentral.filter;
+
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.SequenceInputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Request wrapper that reads the body once so filters can inspect it and the controller can still bind it.
+ * At most {@code maxBytes} are buffered: a longer body is not available to filters, and the controller reads the
+ * buffered prefix followed by the rest of the original stream.
+ */
+public class CachedBodyHttpServletRequest extends HttpServletRequestWrapper {
+
+    private final byte[] prefix;
+    private final boolean complete;
+
+    public CachedBodyHttpServletRequest(HttpServletRequest request, int maxBytes) throws IOException {
+        super(request);
+        this.prefix = request.getInputStream().readNBytes(maxBytes + 1);
+        this.complete = prefix.length <= maxBytes;
+    }
+
+    /**
+     * The whole body, or {@code null} if it is longer than the buffering limit.
+     */
+    public byte[] getBody() {
+        return complete ? prefix : null;
+    }
+
+    @Override
+    public ServletInputStream getInputStream() throws IOException {
+        InputStream in = new ByteArrayInputStream(prefix);
+        if (!complete) {
+            in = new SequenceInputStream(in, super.getInputStream());
+        }
+        return new BodyInputStream(in);
+    }
+
+    @Override
+    public BufferedReader getReader() throws IOException {
+        String encoding = getCharacterEncoding();
+        Charset charset = encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8;
+        return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+    }
+
+    private static final class BodyInputStream extends ServletInputStream {
+
+        private final InputStream in;
+        private boolean finished;
+
+        BodyInputStream(InputStream in) {
+            this.in = in;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = in.read();
+            finished = b < 0;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = in.read(b, off, len);
+            finished = n < 0;
+            return n;
+        }
+
+        @Override
+        public boolean isFinished() {
+            return finished;
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            throw new UnsupportedOperationException("Non-blocking reads are not supported");
+        }
+    }
+}
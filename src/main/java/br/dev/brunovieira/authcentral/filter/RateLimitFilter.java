@@ -1,68 +1,61 @@
 package br.dev.brunovieira.authcentral.filter;
 
 import br.dev.brunovieira.authcentral.config.RateLimitConfig;
-import br.dev.brunovieira.authcentral.dto.response.ErrorResponse;
+import br.dev.brunovieira.authcentral.dto.response.PreparedError;
+import br.dev.brunovieira.authcentral.exception.PreparedErrors;
+import br.dev.brunovieira.authcentral.model.Tenant;
+import br.dev.brunovieira.authcentral.ratelimit.BucketLimit;
+import br.dev.brunovieira.authcentral.ratelimit.RateLimitPolicy;
+import br.dev.brunovieira.authcentral.ratelimit.RateLimitedEndpoint;
+import br.dev.brunovieira.authcentral.ratelimit.RateLimiter;
+import br.dev.brunovieira.authcentral.service.TenantRegistry;
 import br.dev.brunovieira.authcentral.util.RequestUtils;
+import tools.jackson.databind.JsonNode;
 import tools.jackson.databind.json.JsonMapper;
-import io.github.bucket4j.Bandwidth;
-import io.github.bucket4j.Bucket;
-import io.github.bucket4j.BucketConfiguration;
-import io.github.bucket4j.Refill;
-import io.github.bucket4j.redis.lettuce.cas.LettuceBasedProxyManager;
+import jakarta.servlet.AsyncContext;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.time.Duration;
-import java.time.LocalDateTime;
-import java.util.Map;
-import java.util.function.Supplier;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 
 @Component
 @Slf4j
 public class RateLimitFilter extends OncePerRequestFilter {
 
     private final RateLimitConfig rateLimitConfig;
-    private final LettuceBasedProxyManager<String> proxyManager;
+    private final RateLimitPolicy rateLimitPolicy;
+    private final TenantRegistry tenantRegistry;
+    private final RateLimiter rateLimiter;
     private final JsonMapper jsonMapper;
-    private final Map<String, Supplier<BucketConfiguration>> configCache;
+    private final Executor decisionExecutor;
 
     public RateLimitFilter(
             RateLimitConfig rateLimitConfig,
-            LettuceBasedProxyManager<String> proxyManager,
-            JsonMapper jsonMapper
+            RateLimitPolicy rateLimitPolicy,
+            TenantRegistry tenantRegistry,
+            RateLimiter rateLimiter,
+            JsonMapper jsonMapper,
+            @Qualifier("applicationTaskExecutor") Executor decisionExecutor
     ) {
         this.rateLimitConfig = rateLimitConfig;
-        this.proxyManager = proxyManager;
+        this.rateLimitPolicy = rateLimitPolicy;
+        this.tenantRegistry = tenantRegistry;
+        this.rateLimiter = rateLimiter;
         this.jsonMapper = jsonMapper;
-        this.configCache = buildConfigCache(rateLimitConfig);
-    }
-
-    private static Map<String, Supplier<BucketConfiguration>> buildConfigCache(RateLimitConfig config) {
-        return Map.of(
-                "login", toBucketConfigSupplier(config.getLogin()),
-                "register", toBucketConfigSupplier(config.getRegister())
-        );
-    }
-
-    private static Supplier<BucketConfiguration> toBucketConfigSupplier(RateLimitConfig.EndpointLimit limit) {
-        if (limit == null) {
-            return null;
-        }
-        BucketConfiguration configuration = BucketConfiguration.builder()
-                .addLimit(Bandwidth.classic(
-                        limit.getCapacity(),
-                        Refill.intervally(limit.getRefillTokens(), Duration.ofSeconds(limit.getRefillPeriod()))
-                ))
-                .build();
-        return () -> configuration;
+        this.decisionExecutor = decisionExecutor;
     }
 
     @Override
@@ -74,59 +67,129 @@ public class RateLimitFilter extends OncePerRequestFilter {
             return;
         }
 
-        String requestURI = request.getRequestURI();
-        String endpointKey = getEndpointKey(requestURI);
-
-        if (endpointKey == null) {
+        RateLimitedEndpoint endpoint = RateLimitedEndpoint.fromRequestUri(request.getRequestURI());
+        if (endpoint == null) {
             filterChain.doFilter(request, response);
             return;
         }
 
-        Supplier<BucketConfiguration> configSupplier = configCache.get(endpointKey);
-        if (configSupplier == null) {
+        String tenantKey = RequestUtils.getTenantKey(request);
+        Tenant tenant = tenantKey != null ? tenantRegistry.find(tenantKey) : null;
+
+        String email = null;
+        int maxBodyBytes = rateLimitConfig.getMaxAccountBodyBytes();
+        // a body declared larger than the cap is not buffered at all; an undeclared one is buffered up to the cap
+        if (rateLimitPolicy.limitsAccounts(tenant, endpoint) && request.getContentLengthLong() <= maxBodyBytes) {
+            CachedBodyHttpServletRequest cached = new CachedBodyHttpServletRequest(request, maxBodyBytes);
+            byte[] body = cached.getBody();
+            email = body != null ? extractEmail(body) : null;
+            request = cached;
+        }
+
+        String clientIp = RequestUtils.getClientIpAddress(request);
+        List<BucketLimit> buckets = rateLimitPolicy.bucketsFor(tenant, endpoint, clientIp, email);
+        if (buckets.isEmpty()) {
             filterChain.doFilter(request, response);
             return;
         }
 
-        String clientIp = RequestUtils.getClientIpAddress(request);
-        String bucketKey = "rate_limit:" + requestURI + ":" + clientIp;
+        if (rateLimitConfig.getAsync().isEnabled() && request.isAsyncSupported()) {
+            consumeAsync(request, response, filterChain, buckets, clientIp);
+            return;
+        }
 
+        boolean allowed;
         try {
-            Bucket bucket = proxyManager.builder().build(bucketKey, configSupplier);
+            allowed = rateLimiter.tryConsume(buckets);
+        } catch (Exception e) {
+            log.error("Error checking rate limit, allowing request: {}", e.getMessage());
+            allowed = true;
+        }
+
+        if (allowed) {
+            filterChain.doFilter(request, response);
+        } else {
+            log.warn("Rate limit exceeded for IP {} on endpoint {}", clientIp, request.getRequestURI());
+            sendRateLimitError(response);
+        }
+    }
 
-            if (bucket.tryConsume(1)) {
+    /**
+     * Hold the request in async mode while Redis answers, so no servlet thread is parked on the round trip.
+     * Allowed requests are re-dispatched to the rest of the chain; this filter skips async dispatches. The decision
+     * is acted on from {@code decisionExecutor}, never from the Redis I/O thread or the timeout scheduler that
+     * completed it, since writing a 429 is blocking servlet I/O.
+     */
+    private void consumeAsync(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain,
+                              List<BucketLimit> buckets, String clientIp)
+            throws ServletException, IOException {
+        CompletableFuture<Boolean> decision = requestDecision(buckets);
+
+        if (decision.isDone()) {
+            if (isAllowed(decision, request)) {
                 filterChain.doFilter(request, response);
             } else {
-                log.warn("Rate limit exceeded for IP {} on endpoint {}", clientIp, requestURI);
+                log.warn("Rate limit exceeded for IP {} on endpoint {}", clientIp, request.getRequestURI());
                 sendRateLimitError(response);
             }
+            return;
+        }
+
+        AsyncContext asyncContext = request.startAsync(request, response);
+        decision.orTimeout(rateLimitConfig.getAsync().getTimeoutMs(), TimeUnit.MILLISECONDS)
+                .whenCompleteAsync((result, error) -> {
+                    if (isAllowed(decision, request)) {
+                        asyncContext.dispatch();
+                        return;
+                    }
+                    log.warn("Rate limit exceeded for IP {} on endpoint {}", clientIp, request.getRequestURI());
+                    try {
+                        sendRateLimitError((HttpServletResponse) asyncContext.getResponse());
+                    } catch (IOException e) {
+                        log.error("Failed to write rate limit response: {}", e.getMessage());
+                    } finally {
+                        asyncContext.complete();
+                    }
+                }, decisionExecutor);
+    }
+
+    private CompletableFuture<Boolean> requestDecision(List<BucketLimit> buckets) {
+        try {
+            return rateLimiter.tryConsumeAsync(buckets);
         } catch (Exception e) {
-            log.error("Error checking rate limit, allowing request: {}", e.getMessage());
-            filterChain.doFilter(request, response);
+            return CompletableFuture.failedFuture(e);
         }
     }
 
-    private String getEndpointKey(String requestURI) {
-        if (requestURI.endsWith("/login")) {
-            return "login";
-        } else if (requestURI.endsWith("/register")) {
-            return "register";
+    private boolean isAllowed(CompletableFuture<Boolean> decision, HttpServletRequest request) {
+        try {
+            return decision.join();
+        } catch (Exception e) {
+            log.error("Error checking rate limit for {}, allowing request: {}", request.getRequestURI(), e.getMessage());
+            return true;
+        }
+    }
+
+    private String extractEmail(byte[] body) {
+        try {
+            JsonNode email = jsonMapper.readTree(body).get("email");
+            return email != null && email.isString() ? email.stringValue() : null;
+        } catch (Exception e) {
+            // Malformed bodies are rejected by request validation; only the IP and tenant limits apply
+            return null;
         }
-        return null;
     }
 
     private void sendRateLimitError(HttpServletResponse response) throws IOException {
-        ErrorResponse error = ErrorResponse.builder()
-                .status("error")
-                .message("Rate limit exceeded. Please try again later.")
-                .code(HttpStatus.TOO_MANY_REQUESTS.value())
-                .details("Too many requests. Please try again later.")
-                .timestamp(LocalDateTime.now())
-                .build();
+        PreparedError.Body error = PreparedErrors.RATE_LIMITED
+                .get("Rate limit exceeded. Please try again later.")
+                .body();
 
         response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
         response.setContentType(MediaType.APPLICATION_JSON_VALUE);
-        response.getWriter().write(jsonMapper.writeValueAsString(error));
-        response.getWriter().flush();
+        response.setContentLengthLong(error.contentLength());
+        ServletOutputStream out = response.getOutputStream();
+        error.writeTo(out);
+        out.flush();
     }
 }
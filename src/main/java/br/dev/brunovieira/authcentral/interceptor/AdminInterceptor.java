@@ -0,0 +1,36 @@
+package br.dev.brunovieira.authcentral.interceptor;
+
+import br.dev.brunovieira.authcentral.config.AdminProperties;
+import br.dev.brunovieira.authcentral.exception.AuthenticationException;
+import br.dev.brunovieira.authcentral.util.RequestUtils;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.jspecify.annotations.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class AdminInterceptor implements HandlerInterceptor {
+
+    private final AdminProperties adminProperties;
+
+    @Override
+    public boolean preHandle(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response, @NonNull Object handler) {
+        String expected = adminProperties.getApiKey();
+        String provided = RequestUtils.getAdminKey(request);
+
+        if (expected == null || expected.isBlank() || provided == null
+                || !MessageDigest.isEqual(expected.getBytes(StandardCharsets.UTF_8), provided.getBytes(StandardCharsets.UTF_8))) {
+            log.warn("Rejected admin request to {}", request.getRequestURI());
+            throw new AuthenticationException("Invalid or missing admin key");
+        }
+        return true;
+    }
+}
@@ -0,0 +1,42 @@
+package br.dev.brunovieira.authcentral.model;
+
+import java.util.function.Function;
+
+/**
+ * Result of an authentication step whose failure is ordinary traffic: a wrong password, an expired or reused
+ * refresh token. A rejection carries the client-facing reason as a value instead of being thrown through every
+ * layer, so exceptions are left to failures nobody expected.
+ */
+public sealed interface AuthOutcome<T> {
+
+    static <T> AuthOutcome<T> granted(T value) {
+        return new Granted<>(value);
+    }
+
+    static <T> AuthOutcome<T> rejected(String reason) {
+        return new Rejected<>(reason);
+    }
+
+    /**
+     * Transform a granted value; a rejection is passed on unchanged.
+     */
+    <R> AuthOutcome<R> map(Function<? super T, ? extends R> mapper);
+
+    record Granted<T>(T value) implements AuthOutcome<T> {
+
+        @Override
+        public <R> AuthOutcome<R> map(Function<? super T, ? extends R> mapper) {
+            return new Granted<>(mapper.apply(value));
+        }
+    }
+
+    record Rejected<T>(String reason) implements AuthOutcome<T> {
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <R> AuthOutcome<R> map(Function<? super T, ? extends R> mapper) {
+            // holds no T, so it is a valid AuthOutcome<R> as is
+            return (AuthOutcome<R>) this;
+        }
+    }
+}
@@ -1,7 +1,11 @@
 package br.dev.brunovieira.authcentral.model;
 
+import br.dev.brunovieira.authcentral.config.RateLimitConfig;
 import lombok.*;
 
+import java.util.List;
+import java.util.Map;
+
 @Getter
 @Setter
 @EqualsAndHashCode(onlyExplicitlyIncluded = true)
@@ -25,5 +29,14 @@ public class Tenant {
 
     private String keycloakBaseUrl;
 
+    /** Further Keycloak nodes serving the same realm; calls are spread over these and {@link #keycloakBaseUrl}. */
+    private List<String> keycloakNodes;
+
     private Boolean isActive = true;
+
+    /** Shape of login and refresh responses unless a request asks otherwise; {@code null} means standard. */
+    private TokenResponseMode tokenResponseMode;
+
+    /** Per-endpoint overrides of the default rate limits, keyed by endpoint name. */
+    private Map<String, RateLimitConfig.EndpointLimits> rateLimits;
 }
@@ -0,0 +1,36 @@
+package br.dev.brunovieira.authcentral.model;
+
+import java.util.Locale;
+
+/**
+ * How login and refresh responses are shaped. Set per tenant ({@code tokenResponse}) and overridable per request
+ * with the {@value #HEADER} header.
+ */
+public enum TokenResponseMode {
+
+    /** {@code ApiResponse<LoginResponse>}; on login also the user's email and names from the access token. */
+    STANDARD,
+
+    /** Keycloak's token response, unparsed, as {@code data} of the usual {@code ApiResponse} envelope. */
+    ENVELOPE,
+
+    /** Keycloak's token response as is, in plain OAuth2 shape. */
+    RAW;
+
+    public static final String HEADER = "X-Token-Response";
+
+    /**
+     * The mode a request asked for in {@code requested}, else the tenant's, else {@link #STANDARD}. Unknown values
+     * are ignored.
+     */
+    public static TokenResponseMode resolve(String requested, TokenResponseMode tenantDefault) {
+        if (requested != null && !requested.isBlank()) {
+            try {
+                return valueOf(requested.strip().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                // fall back to the tenant's mode
+            }
+        }
+        return tenantDefault != null ? tenantDefault : STANDARD;
+    }
+}
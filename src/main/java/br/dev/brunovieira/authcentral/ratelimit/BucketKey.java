@@ -0,0 +1,175 @@
+package br.dev.brunovieira.authcentral.ratelimit;
+
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Locale;
+
+/**
+ * Compact binary Redis key of a rate limit bucket:
+ * <pre>
+ * '{' tenant tag (6) '}' endpoint ordinal (1) dimension (1) identity (0, 4 or 8)
+ * </pre>
+ * The tenant tag is a hash of the tenant key, so it is identical on every instance, and sits inside a Redis hash
+ * tag so all buckets of a tenant share a cluster slot. It is written in the Base64URL alphabet: a raw hash byte
+ * could be a {@code '}'}, which would end the hash tag early and scatter a request's keys across slots. IPv4
+ * clients are stored as their 4 address bytes, IPv6 clients by their /64 network prefix (what a single subscriber
+ * is usually allocated), account emails and unparseable client addresses as 8 bytes of their SHA-256. An IPv4 key
+ * is 14 bytes.
+ */
+public final class BucketKey {
+
+    /** Tag used when the request has no known tenant. */
+    public static final int NO_TENANT = 0;
+
+    private static final byte TENANT = 0;
+    private static final byte IP = 1;
+    private static final byte ACCOUNT = 2;
+    private static final byte CLIENT = 3;
+
+    private static final int HASH_BYTES = 8;
+    private static final int TAG_CHARS = 6;
+    private static final byte[] TAG_ALPHABET =
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_".getBytes(StandardCharsets.US_ASCII);
+
+    private final byte[] bytes;
+    private final int hash;
+
+    BucketKey(byte[] bytes) {
+        this.bytes = bytes;
+        this.hash = Arrays.hashCode(bytes);
+    }
+
+    public static int tenantTag(String tenantKey) {
+        if (tenantKey == null) {
+            return NO_TENANT;
+        }
+        int tag = ByteBuffer.wrap(sha256(tenantKey)).getInt();
+        return tag == NO_TENANT ? 1 : tag;
+    }
+
+    public static BucketKey tenant(int tenantTag, RateLimitedEndpoint endpoint) {
+        return of(tenantTag, endpoint, TENANT, new byte[0]);
+    }
+
+    public static BucketKey ip(int tenantTag, RateLimitedEndpoint endpoint, String clientIp) {
+        byte[] address = packAddress(clientIp);
+        return address != null
+                ? of(tenantTag, endpoint, IP, address)
+                : of(tenantTag, endpoint, CLIENT, Arrays.copyOf(sha256(String.valueOf(clientIp)), HASH_BYTES));
+    }
+
+    public static BucketKey account(int tenantTag, RateLimitedEndpoint endpoint, String email) {
+        String normalized = email.trim().toLowerCase(Locale.ROOT);
+        return of(tenantTag, endpoint, ACCOUNT, Arrays.copyOf(sha256(normalized), HASH_BYTES));
+    }
+
+    private static BucketKey of(int tenantTag, RateLimitedEndpoint endpoint, byte dimension, byte[] identity) {
+        ByteBuffer key = ByteBuffer.allocate(TAG_CHARS + 4 + identity.length).put((byte) '{');
+        // six characters of six bits cover the 32-bit tag
+        for (int shift = (TAG_CHARS - 1) * 6; shift >= 0; shift -= 6) {
+            key.put(TAG_ALPHABET[(tenantTag >>> shift) & 0x3F]);
+        }
+        return new BucketKey(key
+                .put((byte) '}')
+                .put((byte) endpoint.ordinal())
+                .put(dimension)
+                .put(identity)
+                .array());
+    }
+
+    /**
+     * The raw key. Callers must not modify the returned array.
+     */
+    public byte[] bytes() {
+        return bytes;
+    }
+
+    /**
+     * Key of the {@code index}-th bandwidth of a multi-bandwidth configuration; index 0 is this key.
+     */
+    public byte[] bytes(int index) {
+        if (index == 0) {
+            return bytes;
+        }
+        byte[] suffixed = Arrays.copyOf(bytes, bytes.length + 1);
+        suffixed[bytes.length] = (byte) index;
+        return suffixed;
+    }
+
+    static byte[] packAddress(String ip) {
+        if (ip == null || ip.isEmpty()) {
+            return null;
+        }
+        if (ip.indexOf(':') < 0) {
+            return packIpv4(ip);
+        }
+        try {
+            // Bracketed so the JDK only parses the literal and never falls back to a DNS lookup
+            String literal = ip.startsWith("[") ? ip : "[" + ip + "]";
+            InetAddress address = InetAddress.getByName(literal);
+            return address instanceof Inet4Address
+                    ? address.getAddress()
+                    : Arrays.copyOf(address.getAddress(), 8);
+        } catch (UnknownHostException e) {
+            return null;
+        }
+    }
+
+    private static byte[] packIpv4(String ip) {
+        byte[] packed = new byte[4];
+        int part = 0;
+        int value = -1;
+        for (int i = 0; i < ip.length(); i++) {
+            char c = ip.charAt(i);
+            if (c == '.') {
+                if (value < 0 || part == 3) {
+                    return null;
+                }
+                packed[part++] = (byte) value;
+                value = -1;
+            } else if (c >= '0' && c <= '9') {
+                value = (value < 0 ? 0 : value * 10) + (c - '0');
+                if (value > 255) {
+                    return null;
+                }
+            } else {
+                return null;
+            }
+        }
+        if (value < 0 || part != 3) {
+            return null;
+        }
+        packed[3] = (byte) value;
+        return packed;
+    }
+
+    private static byte[] sha256(String value) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || o instanceof BucketKey other && Arrays.equals(bytes, other.bytes);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return HexFormat.of().formatHex(bytes);
+    }
+}
@@ -0,0 +1,9 @@
+package br.dev.brunovieira.authcentral.ratelimit;
+
+import io.github.bucket4j.BucketConfiguration;
+
+/**
+ * One bucket a request must draw a token from.
+ */
+public record BucketLimit(BucketKey key, BucketConfiguration configuration) {
+}
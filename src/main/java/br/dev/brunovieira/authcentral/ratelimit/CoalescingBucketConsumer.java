@@ -0,0 +1,125 @@
+package br.dev.brunovieira.authcentral.ratelimit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Merges concurrent single-token consumptions against the same set of buckets into one remote operation.
+ * <p>
+ * At most one operation per bucket set is in flight. Requests arriving meanwhile are queued and sent together as a
+ * single "take up to N tokens" call once it completes; the first {@code granted} waiters are admitted in
+ * arrival order and the rest are rejected. Each batch is sent with the limits of its newest request.
+ */
+public class CoalescingBucketConsumer {
+
+    /**
+     * Takes up to {@code tokens} tokens from every bucket and returns how many were granted.
+     */
+    @FunctionalInterface
+    public interface BatchConsumer {
+        CompletableFuture<Long> consume(List<BucketLimit> buckets, long tokens);
+    }
+
+    private final BatchConsumer batchConsumer;
+    private final ConcurrentHashMap<Object, KeyQueue> queues = new ConcurrentHashMap<>();
+
+    public CoalescingBucketConsumer(BatchConsumer batchConsumer) {
+        this.batchConsumer = batchConsumer;
+    }
+
+    public CompletableFuture<Boolean> tryConsume(List<BucketLimit> buckets) {
+        Object bucketKey = buckets.size() == 1
+                ? buckets.getFirst().key()
+                : buckets.stream().map(BucketLimit::key).toList();
+        Waiter waiter = new Waiter(new CompletableFuture<>(), buckets);
+        while (true) {
+            KeyQueue queue = queues.computeIfAbsent(bucketKey, k -> new KeyQueue());
+            List<Waiter> batch;
+            synchronized (queue) {
+                if (queue.retired) {
+                    continue;
+                }
+                queue.waiting.add(waiter);
+                if (queue.inFlight) {
+                    return waiter.decision;
+                }
+                queue.inFlight = true;
+                batch = queue.drain();
+            }
+            dispatch(bucketKey, queue, batch);
+            return waiter.decision;
+        }
+    }
+
+    int activeKeys() {
+        return queues.size();
+    }
+
+    /**
+     * Send batches until one is still in flight or the queue is empty. Results that are already complete, as when
+     * the circuit breaker rejects at once, are settled in this loop rather than in a nested callback, so a busy key
+     * never deepens the stack.
+     */
+    private void dispatch(Object bucketKey, KeyQueue queue, List<Waiter> batch) {
+        while (batch != null) {
+            CompletableFuture<Long> result;
+            try {
+                // the newest waiter carries the current limits
+                result = batchConsumer.consume(batch.getLast().buckets(), batch.size());
+            } catch (RuntimeException e) {
+                result = CompletableFuture.failedFuture(e);
+            }
+            if (!result.isDone()) {
+                List<Waiter> sent = batch;
+                CompletableFuture<Long> pending = result;
+                result.whenComplete((granted, error) -> dispatch(bucketKey, queue, settle(bucketKey, queue, sent, pending)));
+                return;
+            }
+            batch = settle(bucketKey, queue, batch, result);
+        }
+    }
+
+    /**
+     * Complete the batch's waiters and take the next batch, or retire the queue if nobody is waiting.
+     */
+    private List<Waiter> settle(Object bucketKey, KeyQueue queue, List<Waiter> batch, CompletableFuture<Long> result) {
+        try {
+            long granted = result.join();
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).decision().complete(i < granted);
+            }
+        } catch (CompletionException | CancellationException e) {
+            Throwable error = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            batch.forEach(w -> w.decision().completeExceptionally(error));
+        }
+
+        synchronized (queue) {
+            if (queue.waiting.isEmpty()) {
+                queue.inFlight = false;
+                queue.retired = true;
+                queues.remove(bucketKey, queue);
+                return null;
+            }
+            return queue.drain();
+        }
+    }
+
+    private record Waiter(CompletableFuture<Boolean> decision, List<BucketLimit> buckets) {
+    }
+
+    private static final class KeyQueue {
+        private List<Waiter> waiting = new ArrayList<>();
+        private boolean inFlight;
+        private boolean retired;
+
+        private List<Waiter> drain() {
+            List<Waiter> drained = waiting;
+            waiting = new ArrayList<>();
+            return drained;
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package br.dev.brunovieira.authcentral.ratelimit;
+
+import br.dev.brunovieira.authcentral.config.RateLimitConfig;
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.BucketConfiguration;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local-first limiter: decisions are taken against an in-process Bucket4j bucket and the tokens consumed
+ * since the last sync are debited from the shared Redis bucket in one batch per sync interval. A request with
+ * several buckets must be admitted by each of them locally; tokens already taken are returned on rejection.
+ * <p>
+ * Between syncs each instance may spend at most {@code overAdmissionTolerance} of the tokens the shared bucket
+ * had left at the previous sync. With N instances the worst-case over-admission per interval is therefore
+ * {@code N * tolerance - 1} times the remaining tokens; a tolerance of {@code 1/N} keeps the cluster exact.
+ * A key this instance has not synced yet knows nothing of the shared balance, which other instances may already
+ * have drained, so it starts with half of that share of its capacity until its first sync returns the balance.
+ * Redis traffic is one command per active key per interval, independent of request volume.
+ * <p>
+ * While the {@link RedisCircuitBreaker} is open the allowance is not enforced: each instance falls back to its
+ * local buckets alone, and the tokens spent meanwhile are pushed once Redis is back.
+ */
+@Component
+@ConditionalOnProperty(prefix = "rate-limit", name = "mode", havingValue = "hybrid")
+@Slf4j
+public class HybridRateLimiter implements RateLimiter {
+
+    private final TokenBucketStore store;
+    private final RedisCircuitBreaker circuitBreaker;
+    private final RateLimitConfig.Hybrid settings;
+    private final ConcurrentHashMap<BucketKey, LocalState> states = new ConcurrentHashMap<>();
+
+    public HybridRateLimiter(TokenBucketStore store, RedisCircuitBreaker circuitBreaker,
+                             RateLimitConfig rateLimitConfig) {
+        this.store = store;
+        this.circuitBreaker = circuitBreaker;
+        this.settings = rateLimitConfig.getHybrid();
+    }
+
+    @Override
+    public boolean tryConsume(List<BucketLimit> buckets) {
+        boolean shared = circuitBreaker.isClosed();
+        for (int i = 0; i < buckets.size(); i++) {
+            BucketLimit limit = buckets.get(i);
+            LocalState state = states.computeIfAbsent(limit.key(),
+                    k -> new LocalState(limit.configuration(), settings.getOverAdmissionTolerance()));
+            if (!state.tryAcquire(shared)) {
+                for (int j = 0; j < i; j++) {
+                    LocalState acquired = states.get(buckets.get(j).key());
+                    if (acquired != null) {
+                        acquired.release();
+                    }
+                }
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Push locally consumed tokens to Redis and pull back what the shared bucket has left.
+     */
+    @Scheduled(fixedDelayString = "${rate-limit.hybrid.sync-interval-ms:1000}")
+    public void sync() {
+        long idleCutoff = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(settings.getIdleEvictionMs());
+        List<CompletableFuture<Void>> pending = new ArrayList<>();
+
+        states.forEach((key, state) -> {
+            long delta = state.unsynced.getAndSet(0);
+            if (delta == 0 && !state.starved && state.reserved) {
+                if (state.lastUsedNanos < idleCutoff) {
+                    states.remove(key, state);
+                }
+                return;
+            }
+
+            pending.add(circuitBreaker.call(() -> store.debit(new BucketLimit(key, state.configuration), delta))
+                    .thenAccept(state::reconcile)
+                    .exceptionally(e -> {
+                        state.unsynced.addAndGet(delta);
+                        log.warn("Failed to sync rate limit bucket {}: {}", key, e.getMessage());
+                        return null;
+                    }));
+        });
+
+        try {
+            CompletableFuture.allOf(pending.toArray(CompletableFuture[]::new))
+                    .get(settings.getSyncIntervalMs(), TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            log.warn("Rate limit sync of {} bucket(s) did not complete in time: {}", pending.size(), e.getMessage());
+        }
+    }
+
+    int trackedKeys() {
+        return states.size();
+    }
+
+    static final class LocalState {
+
+        final BucketConfiguration configuration;
+        final Bucket bucket;
+        final double tolerance;
+        final AtomicLong unsynced = new AtomicLong();
+        volatile long allowance;
+        volatile boolean starved;
+        volatile boolean reserved;
+        volatile long lastUsedNanos = System.nanoTime();
+
+        LocalState(BucketConfiguration configuration, double tolerance) {
+            this.configuration = configuration;
+            this.tolerance = tolerance;
+            var builder = Bucket.builder();
+            long capacity = Long.MAX_VALUE;
+            for (Bandwidth bandwidth : configuration.getBandwidths()) {
+                builder.addLimit(bandwidth);
+                capacity = Math.min(capacity, bandwidth.getCapacity());
+            }
+            this.bucket = builder.build();
+            this.allowance = Math.max(1, allowanceFor(capacity) / 2);
+        }
+
+        boolean tryAcquire(boolean enforceAllowance) {
+            lastUsedNanos = System.nanoTime();
+            if (!bucket.tryConsume(1)) {
+                starved = true;
+                return false;
+            }
+            if (!enforceAllowance) {
+                unsynced.incrementAndGet();
+                return true;
+            }
+            long used;
+            do {
+                used = unsynced.get();
+                if (used >= allowance) {
+                    bucket.addTokens(1);
+                    starved = true;
+                    return false;
+                }
+            } while (!unsynced.compareAndSet(used, used + 1));
+            return true;
+        }
+
+        void release() {
+            bucket.addTokens(1);
+            unsynced.decrementAndGet();
+        }
+
+        void reconcile(long globalAvailable) {
+            long target = Math.max(globalAvailable, 0);
+            long local = bucket.getAvailableTokens();
+            if (local > target) {
+                bucket.tryConsumeAsMuchAsPossible(local - target);
+            } else if (local < target) {
+                bucket.addTokens(target - local);
+            }
+            allowance = allowanceFor(target);
+            starved = false;
+            reserved = true;
+        }
+
+        private long allowanceFor(long available) {
+            return available <= 0 ? 0 : Math.max(1, (long) Math.ceil(available * tolerance));
+        }
+    }
+}
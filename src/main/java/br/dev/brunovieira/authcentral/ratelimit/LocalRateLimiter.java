@@ -0,0 +1,60 @@
+package br.dev.brunovieira.authcentral.ratelimit;
+
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-process limiter used while Redis is unavailable. Each instance enforces the configured limits on its own,
+ * so the cluster-wide limit is loosened by the number of instances — but never lifted.
+ */
+public class LocalRateLimiter implements RateLimiter {
+
+    private final ConcurrentHashMap<BucketKey, LocalBucket> buckets = new ConcurrentHashMap<>();
+
+    @Override
+    public boolean tryConsume(List<BucketLimit> limits) {
+        for (int i = 0; i < limits.size(); i++) {
+            BucketLimit limit = limits.get(i);
+            if (!buckets.computeIfAbsent(limit.key(), k -> new LocalBucket(limit)).bucket.tryConsume(1)) {
+                for (int j = 0; j < i; j++) {
+                    LocalBucket acquired = buckets.get(limits.get(j).key());
+                    if (acquired != null) {
+                        acquired.bucket.addTokens(1);
+                    }
+                }
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Drop buckets that have refilled to capacity; they behave exactly like absent ones.
+     */
+    public void evictFull() {
+        buckets.values().removeIf(b -> b.bucket.getAvailableTokens() >= b.capacity);
+    }
+
+    int trackedKeys() {
+        return buckets.size();
+    }
+
+    private static final class LocalBucket {
+        final Bucket bucket;
+        final long capacity;
+
+        LocalBucket(BucketLimit limit) {
+            var builder = Bucket.builder();
+            long min = Long.MAX_VALUE;
+            for (Bandwidth bandwidth : limit.configuration().getBandwidths()) {
+                builder.addLimit(bandwidth);
+                min = Math.min(min, bandwidth.getCapacity());
+            }
+            this.bucket = builder.build();
+            this.capacity = min;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package br.dev.brunovieira.authcentral.ratelimit;
+
+import br.dev.brunovieira.authcentral.config.RateLimitConfig;
+import br.dev.brunovieira.authcentral.model.Tenant;
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.BucketConfiguration;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolves the buckets a request must draw from: per client IP, per target account and per tenant.
+ * <p>
+ * Limits are the {@code rate-limit.limits} defaults overridden per dimension by the tenant's own
+ * {@code rateLimits}. Compiled configurations are cached per (tenant, endpoint) and recompiled when the tenant
+ * registry hands out a new {@link Tenant} instance. Keys are compact binary {@link BucketKey}s.
+ */
+@Component
+public class RateLimitPolicy {
+
+    private final RateLimitConfig rateLimitConfig;
+    private final Map<CacheKey, CompiledLimits> cache = new ConcurrentHashMap<>();
+
+    public RateLimitPolicy(RateLimitConfig rateLimitConfig) {
+        this.rateLimitConfig = rateLimitConfig;
+    }
+
+    /**
+     * Whether the account dimension applies, i.e. the caller should extract the target email from the body.
+     */
+    public boolean limitsAccounts(Tenant tenant, RateLimitedEndpoint endpoint) {
+        return tenant != null && compiled(tenant, endpoint).account() != null;
+    }
+
+    /**
+     * Buckets for a request. The tenant and account dimensions only apply to known tenants.
+     *
+     * @param tenant the resolved tenant, or {@code null} if the tenant key is missing or unknown
+     * @param email  the target account, or {@code null} if the endpoint does not carry one
+     */
+    public List<BucketLimit> bucketsFor(Tenant tenant, RateLimitedEndpoint endpoint, String clientIp, String email) {
+        CompiledLimits limits = compiled(tenant, endpoint);
+
+        List<BucketLimit> buckets = new ArrayList<>(3);
+        if (limits.ip() != null) {
+            buckets.add(new BucketLimit(BucketKey.ip(limits.tenantTag(), endpoint, clientIp), limits.ip()));
+        }
+        if (tenant != null && limits.account() != null && email != null && !email.isBlank()) {
+            buckets.add(new BucketLimit(BucketKey.account(limits.tenantTag(), endpoint, email), limits.account()));
+        }
+        if (tenant != null && limits.tenant() != null) {
+            buckets.add(new BucketLimit(BucketKey.tenant(limits.tenantTag(), endpoint), limits.tenant()));
+        }
+        return buckets;
+    }
+
+    private CompiledLimits compiled(Tenant tenant, RateLimitedEndpoint endpoint) {
+        CacheKey key = new CacheKey(tenant != null ? tenant.getTenantKey() : null, endpoint);
+        CompiledLimits cached = cache.get(key);
+        if (cached != null && cached.source() == tenant) {
+            return cached;
+        }
+        CompiledLimits compiled = compile(tenant, endpoint);
+        cache.put(key, compiled);
+        return compiled;
+    }
+
+    private CompiledLimits compile(Tenant tenant, RateLimitedEndpoint endpoint) {
+        RateLimitConfig.EndpointLimits defaults = rateLimitConfig.getLimits().get(endpoint.configName());
+        RateLimitConfig.EndpointLimits override = tenant != null && tenant.getRateLimits() != null
+                ? tenant.getRateLimits().get(endpoint.configName())
+                : null;
+        RateLimitConfig.EndpointLimits effective = defaults != null
+                ? defaults.overriddenBy(override)
+                : override;
+
+        int tenantTag = BucketKey.tenantTag(tenant != null ? tenant.getTenantKey() : null);
+        if (effective == null) {
+            return new CompiledLimits(tenant, tenantTag, null, null, null);
+        }
+        return new CompiledLimits(tenant, tenantTag,
+                toConfiguration(effective.getIp()),
+                endpoint.identifiesAccount() ? toConfiguration(effective.getAccount()) : null,
+                toConfiguration(effective.getTenant()));
+    }
+
+    private static BucketConfiguration toConfiguration(RateLimitConfig.EndpointLimit limit) {
+        if (limit == null || limit.getCapacity() <= 0) {
+            return null;
+        }
+        return BucketConfiguration.builder()
+                .addLimit(Bandwidth.builder()
+                        .capacity(limit.getCapacity())
+                        .refillIntervally(limit.getRefillTokens(), Duration.ofSeconds(limit.getRefillPeriod()))
+                        .build())
+                .build();
+    }
+
+    private record CacheKey(String tenantKey, RateLimitedEndpoint endpoint) {
+    }
+
+    private record CompiledLimits(Tenant source, int tenantTag, BucketConfiguration ip, BucketConfiguration account,
+                                  BucketConfiguration tenant) {
+    }
+}
@@ -0,0 +1,97 @@
+package br.dev.brunovieira.authcentral.ratelimit;
+
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.sync.RedisCommands;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Redis memory accounting for rate limit state, refreshed periodically:
+ * <ul>
+ *   <li>{@code rate_limit.redis.used_memory} / {@code rate_limit.redis.maxmemory} — bytes, from {@code INFO memory}</li>
+ *   <li>{@code rate_limit.redis.bucket_bytes} — {@code MEMORY USAGE} of a recently written bucket</li>
+ *   <li>{@code rate_limit.redis.bucket_headroom} — how many more buckets fit under {@code maxmemory}</li>
+ *   <li>{@code rate_limit.redis.evicted_keys} / {@code rate_limit.redis.expired_keys} — cumulative, from {@code INFO stats}</li>
+ * </ul>
+ * Evictions should stay at zero: an evicted bucket resets that client's limit.
+ */
+@Component
+@Slf4j
+public class RateLimitRedisMetrics {
+
+    private final RedisCommands<byte[], String> commands;
+    private final RedisTokenBucketStore store;
+
+    private final AtomicLong usedMemory = new AtomicLong();
+    private final AtomicLong maxMemory = new AtomicLong();
+    private final AtomicLong bucketBytes = new AtomicLong();
+    private final AtomicLong evictedKeys = new AtomicLong();
+    private final AtomicLong expiredKeys = new AtomicLong();
+
+    public RateLimitRedisMetrics(StatefulRedisConnection<byte[], String> rateLimitRedisConnection,
+                                 RedisTokenBucketStore store,
+                                 MeterRegistry meterRegistry) {
+        this.commands = rateLimitRedisConnection.sync();
+        this.store = store;
+
+        Gauge.builder("rate_limit.redis.used_memory", usedMemory, AtomicLong::get)
+                .baseUnit("bytes").register(meterRegistry);
+        Gauge.builder("rate_limit.redis.maxmemory", maxMemory, AtomicLong::get)
+                .baseUnit("bytes").register(meterRegistry);
+        Gauge.builder("rate_limit.redis.bucket_bytes", bucketBytes, AtomicLong::get)
+                .baseUnit("bytes").register(meterRegistry);
+        Gauge.builder("rate_limit.redis.bucket_headroom", this, RateLimitRedisMetrics::bucketHeadroom)
+                .register(meterRegistry);
+        Gauge.builder("rate_limit.redis.evicted_keys", evictedKeys, AtomicLong::get)
+                .register(meterRegistry);
+        Gauge.builder("rate_limit.redis.expired_keys", expiredKeys, AtomicLong::get)
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${rate-limit.metrics-refresh-ms:30000}")
+    public void refresh() {
+        try {
+            String memory = commands.info("memory");
+            usedMemory.set(infoValue(memory, "used_memory"));
+            maxMemory.set(infoValue(memory, "maxmemory"));
+
+            String stats = commands.info("stats");
+            evictedKeys.set(infoValue(stats, "evicted_keys"));
+            expiredKeys.set(infoValue(stats, "expired_keys"));
+
+            byte[] sample = store.sampleKey();
+            if (sample != null) {
+                Long usage = commands.memoryUsage(sample);
+                if (usage != null) {
+                    bucketBytes.set(usage);
+                }
+            }
+        } catch (Exception e) {
+            log.warn("Failed to refresh rate limit Redis metrics: {}", e.getMessage());
+        }
+    }
+
+    double bucketHeadroom() {
+        long max = maxMemory.get();
+        long perBucket = bucketBytes.get();
+        if (max <= 0 || perBucket <= 0) {
+            return Double.NaN;
+        }
+        return Math.max(0, max - usedMemory.get()) / (double) perBucket;
+    }
+
+    static long infoValue(String info, String field) {
+        String prefix = field + ":";
+        for (String line : info.split("\r?\n")) {
+            if (line.startsWith(prefix)) {
+                return Long.parseLong(line.substring(prefix.length()).trim());
+            }
+        }
+        return 0;
+    }
+}
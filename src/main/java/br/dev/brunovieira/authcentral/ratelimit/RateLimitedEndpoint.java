@@ -0,0 +1,41 @@
+package br.dev.brunovieira.authcentral.ratelimit;
+
+import java.util.Locale;
+
+/**
+ * Auth endpoints subject to rate limiting. The lower-case name is the key used in
+ * {@code rate-limit.limits} and in tenant overrides.
+ */
+public enum RateLimitedEndpoint {
+
+    LOGIN(true),
+    REGISTER(true),
+    REFRESH(false),
+    LOGOUT(false);
+
+    private final String configName = name().toLowerCase(Locale.ROOT);
+    private final String pathSuffix = "/" + configName;
+    private final boolean identifiesAccount;
+
+    RateLimitedEndpoint(boolean identifiesAccount) {
+        this.identifiesAccount = identifiesAccount;
+    }
+
+    public String configName() {
+        return configName;
+    }
+
+    /** Whether the request body carries the email of the account being acted on. */
+    public boolean identifiesAccount() {
+        return identifiesAccount;
+    }
+
+    public static RateLimitedEndpoint fromRequestUri(String requestUri) {
+        for (RateLimitedEndpoint endpoint : values()) {
+            if (requestUri.endsWith(endpoint.pathSuffix)) {
+                return endpoint;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,24 @@
+package br.dev.brunovieira.authcentral.ratelimit;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Decides whether a request may proceed given the buckets that apply to it.
+ */
+public interface RateLimiter {
+
+    /**
+     * Try to take one token from each of {@code buckets}. Either every bucket is debited or none is.
+     *
+     * @return {@code true} if the request is within all limits
+     */
+    boolean tryConsume(List<BucketLimit> buckets);
+
+    /**
+     * Non-blocking variant of {@link #tryConsume}. Limiters that decide locally complete immediately.
+     */
+    default CompletableFuture<Boolean> tryConsumeAsync(List<BucketLimit> buckets) {
+        return CompletableFuture.completedFuture(tryConsume(buckets));
+    }
+}
@@ -0,0 +1,149 @@
+package br.dev.brunovieira.authcentral.ratelimit;
+
+import br.dev.brunovieira.authcentral.config.RateLimitConfig;
+import br.dev.brunovieira.authcentral.util.NanoClock;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Guards rate limit calls to Redis.
+ * <p>
+ * Every call gets {@code callTimeoutMs}; a timeout or error counts as a failure. After {@code failureThreshold}
+ * consecutive failures the circuit opens and callers decide locally without touching Redis. Once
+ * {@code openDurationMs} has passed a single probe call is let through (half-open): success closes the circuit,
+ * failure opens it for another period.
+ */
+@Component
+@Slf4j
+public class RedisCircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    /**
+     * Thrown (through the returned future) when a call is not attempted because the circuit is open.
+     */
+    public static class CircuitOpenException extends RuntimeException {
+        public CircuitOpenException() {
+            super("Redis circuit is open", null, false, false);
+        }
+    }
+
+    private final RateLimitConfig.CircuitBreaker settings;
+    private final NanoClock nanoClock;
+
+    private volatile State state = State.CLOSED;
+    private volatile long openUntilNanos;
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final AtomicBoolean probeInFlight = new AtomicBoolean();
+
+    public RedisCircuitBreaker(RateLimitConfig rateLimitConfig, MeterRegistry meterRegistry, NanoClock nanoClock) {
+        this.settings = rateLimitConfig.getCircuitBreaker();
+        this.nanoClock = nanoClock;
+        Gauge.builder("rate_limit.redis.circuit_state", this, b -> b.state.ordinal())
+                .description("0 = closed, 1 = open, 2 = half-open")
+                .register(meterRegistry);
+    }
+
+    public State state() {
+        return state;
+    }
+
+    /**
+     * Whether Redis should currently be used for decisions. Cheap enough to call on every request.
+     */
+    public boolean isClosed() {
+        return state == State.CLOSED;
+    }
+
+    /**
+     * Run {@code call} within the time budget if the circuit allows it, otherwise fail with
+     * {@link CircuitOpenException} without calling.
+     */
+    public <T> CompletableFuture<T> call(Supplier<CompletableFuture<T>> call) {
+        boolean probe = false;
+        if (state != State.CLOSED) {
+            if (!tryAcquireProbe()) {
+                return CompletableFuture.failedFuture(new CircuitOpenException());
+            }
+            probe = true;
+        }
+
+        CompletableFuture<T> result;
+        try {
+            result = call.get().orTimeout(settings.getCallTimeoutMs(), TimeUnit.MILLISECONDS);
+        } catch (RuntimeException e) {
+            result = CompletableFuture.failedFuture(e);
+        }
+
+        boolean isProbe = probe;
+        return result.whenComplete((value, error) -> {
+            if (error == null) {
+                onSuccess(isProbe);
+            } else {
+                onFailure(isProbe, error);
+            }
+        });
+    }
+
+    private boolean tryAcquireProbe() {
+        if (state == State.OPEN && nanoClock.nanoTime() - openUntilNanos < 0) {
+            return false;
+        }
+        if (!probeInFlight.compareAndSet(false, true)) {
+            return false;
+        }
+        synchronized (this) {
+            if (state == State.OPEN) {
+                state = State.HALF_OPEN;
+                log.info("Redis circuit half-open, probing");
+            }
+        }
+        return true;
+    }
+
+    private void onSuccess(boolean probe) {
+        if (consecutiveFailures.get() != 0) {
+            consecutiveFailures.set(0);
+        }
+        if (probe) {
+            synchronized (this) {
+                state = State.CLOSED;
+                probeInFlight.set(false);
+            }
+            log.info("Redis circuit closed");
+        }
+    }
+
+    private void onFailure(boolean probe, Throwable error) {
+        if (probe) {
+            synchronized (this) {
+                open();
+                probeInFlight.set(false);
+            }
+            return;
+        }
+        if (consecutiveFailures.incrementAndGet() >= settings.getFailureThreshold()) {
+            synchronized (this) {
+                if (state == State.CLOSED) {
+                    open();
+                    log.warn("Redis circuit opened after {} consecutive failures, last: {}",
+                            consecutiveFailures.get(), error.toString());
+                }
+            }
+        }
+    }
+
+    private void open() {
+        openUntilNanos = nanoClock.nanoTime() + TimeUnit.MILLISECONDS.toNanos(settings.getOpenDurationMs());
+        state = State.OPEN;
+        consecutiveFailures.set(0);
+    }
+}
@@ -0,0 +1,66 @@
+package br.dev.brunovieira.authcentral.ratelimit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Every consumption is one script round trip to Redis covering all of the request's buckets.
+ * Exact across instances, but Redis latency is paid on each request.
+ * <p>
+ * The async variant never parks a thread on Redis, and concurrent consumptions against the same buckets
+ * are coalesced into a single script call.
+ * <p>
+ * Calls go through the {@link RedisCircuitBreaker}: a slow or failing Redis costs at most the call budget, and
+ * while the circuit is open requests are decided by a {@link LocalRateLimiter} instead.
+ */
+@Component
+@ConditionalOnProperty(prefix = "rate-limit", name = "mode", havingValue = "redis", matchIfMissing = true)
+public class RedisRateLimiter implements RateLimiter {
+
+    private final TokenBucketStore store;
+    private final RedisCircuitBreaker circuitBreaker;
+    private final CoalescingBucketConsumer coalescer;
+    private final LocalRateLimiter fallback = new LocalRateLimiter();
+    private final Counter fallbackDecisions;
+
+    public RedisRateLimiter(TokenBucketStore store, RedisCircuitBreaker circuitBreaker, MeterRegistry meterRegistry) {
+        this.store = store;
+        this.circuitBreaker = circuitBreaker;
+        this.coalescer = new CoalescingBucketConsumer(
+                (buckets, tokens) -> circuitBreaker.call(() -> store.consume(buckets, tokens)));
+        this.fallbackDecisions = Counter.builder("rate_limit.fallback.decisions")
+                .description("Requests decided by the in-process limiter because Redis was unavailable")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public boolean tryConsume(List<BucketLimit> buckets) {
+        try {
+            return circuitBreaker.call(() -> store.consume(buckets, 1)).join() > 0;
+        } catch (RuntimeException e) {
+            return decideLocally(buckets);
+        }
+    }
+
+    @Override
+    public CompletableFuture<Boolean> tryConsumeAsync(List<BucketLimit> buckets) {
+        // While the circuit is open the batch fails fast, except for the occasional half-open probe
+        return coalescer.tryConsume(buckets).exceptionally(e -> decideLocally(buckets));
+    }
+
+    @Scheduled(fixedDelayString = "${rate-limit.circuit-breaker.open-duration-ms:5000}")
+    public void evictFallbackBuckets() {
+        fallback.evictFull();
+    }
+
+    private boolean decideLocally(List<BucketLimit> buckets) {
+        fallbackDecisions.increment();
+        return fallback.tryConsume(buckets);
+    }
+}
@@ -0,0 +1,139 @@
+package br.dev.brunovieira.authcentral.ratelimit;
+
+import io.github.bucket4j.Bandwidth;
+import io.lettuce.core.RedisNoScriptException;
+import io.lettuce.core.ScriptOutputType;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.async.RedisAsyncCommands;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Token buckets kept in Redis as {@code "<tokens>:<last refill ms>"} strings and updated by a single Lua script,
+ * so checking and debiting all the buckets of a request is one atomic round trip.
+ * <p>
+ * Refill is interval based, matching {@link Bandwidth} built with {@code refillIntervally}, and uses the Redis
+ * clock so instances do not need synchronized clocks. Every bucket expires when it would have refilled to
+ * capacity; a full bucket is indistinguishable from a missing one, so idle clients cost no memory and expiry
+ * never loosens a limit. A configuration with several bandwidths is stored as one key per bandwidth.
+ */
+@Component
+public class RedisTokenBucketStore implements TokenBucketStore {
+
+    static final String SCRIPT = """
+            local time = redis.call('TIME')
+            local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+            local granted = tonumber(ARGV[1])
+            local force = ARGV[2] == '1'
+            local balances, stamps = {}, {}
+            for i, key in ipairs(KEYS) do
+                local capacity = tonumber(ARGV[3 * i])
+                local refill = tonumber(ARGV[3 * i + 1])
+                local period = tonumber(ARGV[3 * i + 2])
+                local balance, stamp = capacity, now
+                local state = redis.call('GET', key)
+                if state then
+                    local b, s = string.match(state, '^(-?%d+):(%d+)$')
+                    balance, stamp = tonumber(b), tonumber(s)
+                    local periods = math.floor((now - stamp) / period)
+                    if periods > 0 then
+                        balance = math.min(capacity, balance + periods * refill)
+                        stamp = stamp + periods * period
+                    end
+                end
+                balances[i], stamps[i] = balance, stamp
+                if not force then
+                    granted = math.max(0, math.min(granted, balance))
+                end
+            end
+            local remaining
+            for i, key in ipairs(KEYS) do
+                local capacity = tonumber(ARGV[3 * i])
+                local refill = tonumber(ARGV[3 * i + 1])
+                local period = tonumber(ARGV[3 * i + 2])
+                local balance = balances[i] - granted
+                if balance >= capacity then
+                    redis.call('DEL', key)
+                else
+                    local full_at = stamps[i] + math.ceil((capacity - balance) / refill) * period
+                    redis.call('SET', key, balance .. ':' .. stamps[i], 'PX', math.max(full_at - now, 1))
+                end
+                if remaining == nil or balance < remaining then
+                    remaining = balance
+                end
+            end
+            return {granted, remaining}
+            """;
+
+    private static final String SCRIPT_SHA = sha1(SCRIPT);
+
+    private final RedisAsyncCommands<byte[], String> commands;
+    private volatile byte[] sampleKey;
+
+    public RedisTokenBucketStore(StatefulRedisConnection<byte[], String> rateLimitRedisConnection) {
+        this.commands = rateLimitRedisConnection.async();
+    }
+
+    @Override
+    public CompletableFuture<Long> consume(List<BucketLimit> buckets, long tokens) {
+        return run(buckets, tokens, false).thenApply(result -> result.get(0));
+    }
+
+    @Override
+    public CompletableFuture<Long> debit(BucketLimit bucket, long tokens) {
+        return run(List.of(bucket), tokens, true).thenApply(result -> result.get(1));
+    }
+
+    private CompletableFuture<List<Long>> run(List<BucketLimit> buckets, long tokens, boolean force) {
+        List<byte[]> keys = new ArrayList<>();
+        List<String> args = new ArrayList<>();
+        args.add(Long.toString(tokens));
+        args.add(force ? "1" : "0");
+        for (BucketLimit bucket : buckets) {
+            Bandwidth[] bandwidths = bucket.configuration().getBandwidths();
+            for (int i = 0; i < bandwidths.length; i++) {
+                keys.add(bucket.key().bytes(i));
+                args.add(Long.toString(bandwidths[i].getCapacity()));
+                args.add(Long.toString(bandwidths[i].getRefillTokens()));
+                args.add(Long.toString(Math.max(1, bandwidths[i].getRefillPeriodNanos() / 1_000_000)));
+            }
+        }
+        byte[][] keyArray = keys.toArray(byte[][]::new);
+        String[] argArray = args.toArray(String[]::new);
+        sampleKey = keyArray[0];
+
+        return commands.<List<Long>>evalsha(SCRIPT_SHA, ScriptOutputType.MULTI, keyArray, argArray)
+                .toCompletableFuture()
+                .exceptionallyCompose(e -> unwrap(e) instanceof RedisNoScriptException
+                        ? commands.<List<Long>>eval(SCRIPT, ScriptOutputType.MULTI, keyArray, argArray).toCompletableFuture()
+                        : CompletableFuture.failedFuture(e));
+    }
+
+    /**
+     * A recently written bucket key, for memory accounting; {@code null} before the first call.
+     */
+    byte[] sampleKey() {
+        return sampleKey;
+    }
+
+    private static Throwable unwrap(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    }
+
+    private static String sha1(String script) {
+        try {
+            return HexFormat.of().formatHex(
+                    MessageDigest.getInstance("SHA-1").digest(script.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
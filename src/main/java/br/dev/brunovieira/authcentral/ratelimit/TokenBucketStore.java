@@ -0,0 +1,25 @@
+package br.dev.brunovieira.authcentral.ratelimit;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Shared token bucket state.
+ */
+public interface TokenBucketStore {
+
+    /**
+     * Atomically take up to {@code tokens} tokens from every bucket. The same amount is taken from each bucket:
+     * the largest amount all of them can afford.
+     *
+     * @return number of tokens granted, between 0 and {@code tokens}
+     */
+    CompletableFuture<Long> consume(List<BucketLimit> buckets, long tokens);
+
+    /**
+     * Take {@code tokens} tokens from the bucket regardless of its balance, which may go negative.
+     *
+     * @return tokens left in the bucket after the debit
+     */
+    CompletableFuture<Long> debit(BucketLimit bucket, long tokens);
+}
@@ -1,17 +1,29 @@
 package br.dev.brunovieira.authcentral.service;
 
+import br.dev.brunovieira.authcentral.analytics.AuthAnalytics;
+import br.dev.brunovieira.authcentral.audit.AuditEvent;
+import br.dev.brunovieira.authcentral.audit.AuditPipeline;
 import br.dev.brunovieira.authcentral.model.Tenant;
-import lombok.extern.slf4j.Slf4j;
+import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
+/**
+ * Records auth operations. Events are only enqueued here; {@link AuditPipeline} writes them to the configured
+ * sinks in the background. Each operation is also counted in {@link AuthAnalytics}.
+ */
 @Service
-@Slf4j
+@RequiredArgsConstructor
 public class AuditLogService {
 
+    private final AuditPipeline auditPipeline;
+    private final AuthAnalytics authAnalytics;
+
     public void logAction(Tenant tenant, String userEmail, String action, String ipAddress,
                           String userAgent, boolean success, String errorMessage) {
-        log.info("AUDIT action={} user={} tenant={} ip={} success={} error={}",
-                action, userEmail, tenant.getTenantKey(), ipAddress, success, errorMessage);
+        long timestamp = System.currentTimeMillis();
+        auditPipeline.publish(new AuditEvent(timestamp, tenant.getTenantKey(), action,
+                userEmail, ipAddress, userAgent, success, errorMessage));
+        authAnalytics.record(tenant.getTenantKey(), action, success, userEmail, timestamp);
     }
 
     public void logSuccess(Tenant tenant, String userEmail, String action, String ipAddress, String userAgent) {
@@ -5,23 +5,27 @@ import br.dev.brunovieira.authcentral.dto.request.RegisterRequest;
 import br.dev.brunovieira.authcentral.dto.response.LoginResponse;
 import br.dev.brunovieira.authcentral.exception.AuthenticationException;
 import br.dev.brunovieira.authcentral.model.AuditAction;
+import br.dev.brunovieira.authcentral.model.AuthOutcome;
 import br.dev.brunovieira.authcentral.model.Tenant;
 import tools.jackson.databind.json.JsonMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
-import java.util.Base64;
-import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class AuthService {
 
+    private static final JwtClaimExtractor USER_CLAIMS = new JwtClaimExtractor("email", "given_name", "family_name");
+
     private final KeycloakAdminService keycloakAdminService;
     private final AuditLogService auditLogService;
     private final JsonMapper jsonMapper;
+    private final RefreshTokenCoalescer refreshTokenCoalescer;
 
     /**
      * Register a new user
@@ -60,24 +64,49 @@ public class AuthService {
     }
 
     /**
-     * Authenticate user and return tokens.
+     * Authenticate user and return tokens, or the reason they were refused.
      * Extracts user info from the JWT access token instead of making a second Keycloak admin API call.
      */
-    public LoginResponse login(Tenant tenant, LoginRequest request, String ipAddress, String userAgent) {
+    public AuthOutcome<LoginResponse> login(Tenant tenant, LoginRequest request, String ipAddress, String userAgent) {
+        return authenticate(tenant, request, ipAddress, userAgent, tokenResponse -> {
+            LoginResponse response = jsonMapper.readValue(tokenResponse, LoginResponse.class);
+
+            // Extract user info from the JWT access token (avoids a second Keycloak round-trip)
+            JwtClaimExtractor.Claims claims = userClaims(response.getAccessToken());
+            response.setEmail(Objects.requireNonNullElse(claims.getString("email"), request.getEmail()));
+            response.setFirstName(claims.getString("given_name"));
+            response.setLastName(claims.getString("family_name"));
+            return response;
+        });
+    }
+
+    /**
+     * Authenticate user and return Keycloak's token response body as received, to be passed through to the client.
+     */
+    public AuthOutcome<byte[]> loginPassthrough(Tenant tenant, LoginRequest request, String ipAddress, String userAgent) {
+        return authenticate(tenant, request, ipAddress, userAgent, tokenResponse -> tokenResponse);
+    }
+
+    private <T> AuthOutcome<T> authenticate(Tenant tenant, LoginRequest request, String ipAddress, String userAgent,
+                                            Function<byte[], T> shape) {
         try {
-            Map<String, Object> tokenResponse = keycloakAdminService.authenticateUser(
+            AuthOutcome<T> outcome = keycloakAdminService.authenticateUser(
                     tenant,
                     request.getEmail(),
                     request.getPassword()
-            );
-
-            // Extract user info from the JWT access token (avoids a second Keycloak round-trip)
-            String accessToken = (String) tokenResponse.get("access_token");
-            Map<String, Object> claims = decodeJwtPayload(accessToken);
-
-            String email = (String) claims.getOrDefault("email", request.getEmail());
-            String firstName = (String) claims.get("given_name");
-            String lastName = (String) claims.get("family_name");
+            ).map(shape);
+
+            if (outcome instanceof AuthOutcome.Rejected<T> rejected) {
+                auditLogService.logFailure(
+                        tenant,
+                        request.getEmail(),
+                        AuditAction.USER_LOGIN.name(),
+                        ipAddress,
+                        userAgent,
+                        rejected.reason()
+                );
+                return outcome;
+            }
 
             auditLogService.logSuccess(
                     tenant,
@@ -89,16 +118,7 @@ public class AuthService {
 
             log.info("User logged in successfully: {}", request.getEmail());
 
-            return LoginResponse.builder()
-                    .accessToken(accessToken)
-                    .refreshToken((String) tokenResponse.get("refresh_token"))
-                    .tokenType((String) tokenResponse.get("token_type"))
-                    .expiresIn(((Number) tokenResponse.get("expires_in")).longValue())
-                    .refreshExpiresIn(((Number) tokenResponse.get("refresh_expires_in")).longValue())
-                    .email(email)
-                    .firstName(firstName)
-                    .lastName(lastName)
-                    .build();
+            return outcome;
 
         } catch (Exception e) {
             auditLogService.logFailure(
@@ -114,11 +134,38 @@ public class AuthService {
     }
 
     /**
-     * Refresh access token
+     * Refresh access token, or return the reason the refresh token was refused.
+     * Concurrent refreshes of the same token share one Keycloak call; each caller is audited separately.
+     */
+    public AuthOutcome<LoginResponse> refreshToken(Tenant tenant, String refreshToken, String ipAddress, String userAgent) {
+        return refresh(tenant, refreshToken, ipAddress, userAgent,
+                tokenResponse -> jsonMapper.readValue(tokenResponse, LoginResponse.class));
+    }
+
+    /**
+     * Refresh access token and return Keycloak's token response body as received, to be passed through to the client.
      */
-    public LoginResponse refreshToken(Tenant tenant, String refreshToken, String ipAddress, String userAgent) {
+    public AuthOutcome<byte[]> refreshTokenPassthrough(Tenant tenant, String refreshToken, String ipAddress, String userAgent) {
+        return refresh(tenant, refreshToken, ipAddress, userAgent, tokenResponse -> tokenResponse);
+    }
+
+    private <T> AuthOutcome<T> refresh(Tenant tenant, String refreshToken, String ipAddress, String userAgent,
+                                       Function<byte[], T> shape) {
         try {
-            Map<String, Object> tokenResponse = keycloakAdminService.refreshToken(tenant, refreshToken);
+            AuthOutcome<T> outcome = refreshTokenCoalescer.refresh(tenant, refreshToken,
+                    () -> keycloakAdminService.refreshToken(tenant, refreshToken)).map(shape);
+
+            if (outcome instanceof AuthOutcome.Rejected<T> rejected) {
+                auditLogService.logFailure(
+                        tenant,
+                        null,
+                        AuditAction.TOKEN_REFRESH.name(),
+                        ipAddress,
+                        userAgent,
+                        rejected.reason()
+                );
+                return outcome;
+            }
 
             auditLogService.logSuccess(
                     tenant,
@@ -130,13 +177,7 @@ public class AuthService {
 
             log.info("Token refreshed successfully for tenant: {}", tenant.getTenantName());
 
-            return LoginResponse.builder()
-                    .accessToken((String) tokenResponse.get("access_token"))
-                    .refreshToken((String) tokenResponse.get("refresh_token"))
-                    .tokenType((String) tokenResponse.get("token_type"))
-                    .expiresIn(((Number) tokenResponse.get("expires_in")).longValue())
-                    .refreshExpiresIn(((Number) tokenResponse.get("refresh_expires_in")).longValue())
-                    .build();
+            return outcome;
 
         } catch (Exception e) {
             auditLogService.logFailure(
@@ -182,23 +223,20 @@ public class AuthService {
     }
 
     /**
-     * Decode the payload segment of a JWT without signature verification.
+     * Read the user's claims from the payload segment of a JWT without signature verification.
      * Safe because we just received this token directly from Keycloak.
      */
-    @SuppressWarnings("unchecked")
-    private Map<String, Object> decodeJwtPayload(String jwt) {
+    private JwtClaimExtractor.Claims userClaims(String jwt) {
+        JwtClaimExtractor.Claims claims;
         try {
-            String[] parts = jwt.split("\\.");
-            if (parts.length != 3) {
-                throw new AuthenticationException("Invalid JWT format");
-            }
-            byte[] payload = Base64.getUrlDecoder().decode(parts[1]);
-            return jsonMapper.readValue(payload, Map.class);
-        } catch (AuthenticationException e) {
-            throw e;
+            claims = USER_CLAIMS.extract(jwt);
         } catch (Exception e) {
             log.warn("Failed to decode JWT payload, falling back to empty claims: {}", e.getMessage());
-            return Map.of();
+            return USER_CLAIMS.empty();
+        }
+        if (claims == null) {
+            throw new AuthenticationException("Invalid JWT format");
         }
+        return claims;
     }
 }
@@ -0,0 +1,100 @@
+package br.dev.brunovieira.authcentral.service;
+
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A concurrency cap whose limit can change while calls are in flight. Completed calls feed a latency EWMA and
+ * a completion count, from which {@link #resize} derives the next limit by Little's law.
+ */
+final class Bulkhead {
+
+    private static final double LATENCY_WEIGHT = 0.2;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition hasRoom = lock.newCondition();
+
+    private volatile int limit;
+    private volatile int inFlight;
+    private volatile int waiting;
+    private double latencyNanos;
+    private long completed;
+
+    Bulkhead(int limit) {
+        this.limit = limit;
+    }
+
+    /**
+     * Take a slot, waiting at most {@code timeoutNanos} for one to free up.
+     */
+    boolean tryAcquire(long timeoutNanos) throws InterruptedException {
+        lock.lock();
+        try {
+            long remaining = timeoutNanos;
+            waiting++;
+            try {
+                while (inFlight >= limit) {
+                    if (remaining <= 0) {
+                        return false;
+                    }
+                    remaining = hasRoom.awaitNanos(remaining);
+                }
+            } finally {
+                waiting--;
+            }
+            inFlight++;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void release(long elapsedNanos) {
+        lock.lock();
+        try {
+            inFlight--;
+            completed++;
+            latencyNanos = latencyNanos == 0 ? elapsedNanos
+                    : LATENCY_WEIGHT * elapsedNanos + (1 - LATENCY_WEIGHT) * latencyNanos;
+            hasRoom.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Set the limit to the concurrency the last {@code intervalNanos} needed (completions per nanosecond times
+     * mean latency, or the calls present right now if more), times {@code headroom}, within {@code [min, max]}.
+     */
+    void resize(long intervalNanos, int min, int max, double headroom) {
+        lock.lock();
+        try {
+            double throughput = intervalNanos > 0 ? (double) completed / intervalNanos : 0;
+            double needed = Math.max(throughput * latencyNanos, inFlight + waiting);
+            completed = 0;
+            int next = Math.clamp((long) Math.ceil(needed * headroom), min, max);
+            if (next > limit) {
+                hasRoom.signalAll();
+            }
+            limit = next;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int limit() {
+        return limit;
+    }
+
+    int inFlight() {
+        return inFlight;
+    }
+
+    int waiting() {
+        return waiting;
+    }
+
+    int available() {
+        return Math.max(0, limit - inFlight);
+    }
+}
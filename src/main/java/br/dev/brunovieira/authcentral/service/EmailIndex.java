@@ -0,0 +1,406 @@
+package br.dev.brunovieira.authcentral.service;
+
+import br.dev.brunovieira.authcentral.config.EmailIndexProperties;
+import br.dev.brunovieira.authcentral.config.TenantCacheProperties;
+import br.dev.brunovieira.authcentral.model.Tenant;
+import br.dev.brunovieira.authcentral.util.RedisLeases;
+import br.dev.brunovieira.authcentral.util.TenantCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.jspecify.annotations.NonNull;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Per-tenant index of registered emails, so "does this email exist" does not need a Keycloak admin search.
+ * <p>
+ * The shared copy is a Redis set of truncated SHA-256 hashes of the normalized emails (never the emails
+ * themselves). Each instance mirrors it into an in-memory Bloom filter: a negative answer from the filter is
+ * final, a positive one is confirmed with {@code SISMEMBER}. A tenant's index is loaded in the background the
+ * first time it is asked about; until then, and whenever Redis fails, the answer is {@link Presence#UNKNOWN} and
+ * callers fall back to Keycloak.
+ * <p>
+ * Registrations through this service are added to the set and announced over pub/sub so every instance's filter
+ * sees them immediately. Users created or deleted directly in Keycloak are picked up by the periodic rebuild,
+ * which pages through the realm on one instance (guarded by a Redis lock) and swaps in a fresh set.
+ * <p>
+ * Filters are held in a {@link TenantCache}, so only tenants looked up recently keep theirs in memory.
+ */
+@Component
+@Slf4j
+public class EmailIndex implements MessageListener {
+
+    static final String KEY_PREFIX = "auth-central:emails:";
+    private static final int WRITE_CHUNK = 1000;
+    private static final long RETRY_MS = TimeUnit.SECONDS.toMillis(5);
+    private static final long MIN_BLOOM_EMAILS = 1024;
+
+    public enum Presence { PRESENT, ABSENT, UNKNOWN }
+
+    /**
+     * One page of a realm's users, as the emails they are registered under. An empty page ends the listing.
+     */
+    @FunctionalInterface
+    public interface EmailSource {
+        List<String> page(int first, int max);
+    }
+
+    private final EmailIndexProperties properties;
+    private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final Executor loader;
+
+    private final String instanceId = UUID.randomUUID().toString();
+    private final TenantCache<String, TenantIndex> indexes;
+
+    public EmailIndex(EmailIndexProperties properties,
+                      StringRedisTemplate redisTemplate,
+                      RedisMessageListenerContainer listenerContainer,
+                      TenantCacheProperties cacheProperties,
+                      MeterRegistry meterRegistry,
+                      @Qualifier("applicationTaskExecutor") Executor loader) {
+        this.properties = properties;
+        this.redisTemplate = redisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.loader = loader;
+        this.indexes = new TenantCache<>("email-index", cacheProperties.getMaxTenants(),
+                cacheProperties.getIdleEvictionMs(), TenantIndex::drop, meterRegistry);
+    }
+
+    @PostConstruct
+    void init() {
+        if (properties.isEnabled()) {
+            listenerContainer.addMessageListener(this, new ChannelTopic(properties.getChannel()));
+        }
+    }
+
+    /**
+     * Whether {@code email} is registered in the tenant's realm. {@code source} pages through the realm and is
+     * only used when the index has to be built.
+     */
+    public Presence lookup(Tenant tenant, String email, EmailSource source) {
+        if (!properties.isEnabled() || email == null) {
+            return Presence.UNKNOWN;
+        }
+        try (TenantCache.Lease<TenantIndex> lease = indexes.acquire(tenant.getTenantKey(), key -> new TenantIndex(key, source))) {
+            TenantIndex index = lease.value();
+            if (!index.ready) {
+                scheduleLoad(index);
+                return Presence.UNKNOWN;
+            }
+            EmailHash hash = EmailHash.of(email);
+            if (!index.bloom.mightContain(hash.high(), hash.low())) {
+                return Presence.ABSENT;
+            }
+            try {
+                Boolean member = redisTemplate.opsForSet().isMember(setKey(index.tenantKey), hash.encoded());
+                return Boolean.TRUE.equals(member) ? Presence.PRESENT : Presence.ABSENT;
+            } catch (Exception e) {
+                log.warn("Email index lookup failed for tenant {}: {}", index.tenantKey, e.getMessage());
+                return Presence.UNKNOWN;
+            }
+        }
+    }
+
+    /**
+     * Record a newly registered email in the shared set and on every instance.
+     */
+    public void add(Tenant tenant, String email) {
+        if (!properties.isEnabled() || email == null) {
+            return;
+        }
+        EmailHash hash = EmailHash.of(email);
+        remember(tenant.getTenantKey(), hash);
+        try {
+            redisTemplate.opsForSet().add(setKey(tenant.getTenantKey()), hash.encoded());
+            redisTemplate.convertAndSend(properties.getChannel(),
+                    instanceId + " " + tenant.getTenantKey() + " " + hash.encoded());
+        } catch (Exception e) {
+            log.warn("Failed to add email to index of tenant {}: {}", tenant.getTenantKey(), e.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(@NonNull Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split(" ");
+        if (parts.length != 3 || instanceId.equals(parts[0])) {
+            return;
+        }
+        try {
+            remember(parts[1], EmailHash.decode(parts[2]));
+        } catch (IllegalArgumentException e) {
+            log.debug("Ignoring malformed email index message: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Rebuild every loaded tenant index from Keycloak. Only the instance that wins a tenant's lock pages through
+     * the realm; the others reload their filter from the shared set.
+     */
+    @Scheduled(fixedDelayString = "${app.email-index.reconcile-ms:3600000}",
+            initialDelayString = "${app.email-index.reconcile-ms:3600000}")
+    public void reconcile() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        List<String> tenantKeys = new ArrayList<>();
+        indexes.forEach((tenantKey, index) -> tenantKeys.add(tenantKey));
+        for (String tenantKey : tenantKeys) {
+            try (TenantCache.Lease<TenantIndex> lease = indexes.pin(tenantKey)) {
+                TenantIndex index = lease != null ? lease.value() : null;
+                if (index == null || !index.ready || !index.loading.compareAndSet(false, true)) {
+                    continue;
+                }
+                try {
+                    if (!rebuild(index)) {
+                        loadFromRedis(index);
+                    }
+                } catch (Exception e) {
+                    log.warn("Email index reconciliation failed for tenant {}: {}", index.tenantKey, e.getMessage());
+                } finally {
+                    index.loading.set(false);
+                }
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.tenant-cache.sweep-interval-ms:60000}")
+    public void evictIdle() {
+        indexes.evictIdle();
+    }
+
+    int loadedTenants() {
+        int[] loaded = {0};
+        indexes.forEach((tenantKey, index) -> loaded[0] += index.ready ? 1 : 0);
+        return loaded[0];
+    }
+
+    private void remember(String tenantKey, EmailHash hash) {
+        try (TenantCache.Lease<TenantIndex> lease = indexes.pin(tenantKey)) {
+            if (lease != null) {
+                lease.value().remember(hash);
+            }
+        }
+    }
+
+    private void scheduleLoad(TenantIndex index) {
+        if (System.currentTimeMillis() < index.retryAt || !index.loading.compareAndSet(false, true)) {
+            return;
+        }
+        loader.execute(() -> {
+            try {
+                String syncedAt = redisTemplate.opsForValue().get(syncedKey(index.tenantKey));
+                boolean fresh = syncedAt != null
+                        && System.currentTimeMillis() - Long.parseLong(syncedAt) < properties.getReconcileMs();
+                if (!(fresh ? loadFromRedis(index) : rebuild(index))) {
+                    // another instance is building the set right now
+                    index.retryAt = System.currentTimeMillis() + RETRY_MS;
+                }
+            } catch (Exception e) {
+                log.warn("Failed to load email index for tenant {}: {}", index.tenantKey, e.getMessage());
+                index.retryAt = System.currentTimeMillis() + RETRY_MS;
+            } finally {
+                index.loading.set(false);
+            }
+        });
+    }
+
+    private boolean loadFromRedis(TenantIndex index) {
+        String key = setKey(index.tenantKey);
+        Long size = redisTemplate.opsForSet().size(key);
+        BloomFilter bloom = newBloom(size != null ? size : 0);
+        index.startCollecting();
+        try (Cursor<String> cursor = redisTemplate.opsForSet().scan(key, ScanOptions.scanOptions().count(WRITE_CHUNK).build())) {
+            while (cursor.hasNext()) {
+                EmailHash hash = EmailHash.decode(cursor.next());
+                bloom.put(hash.high(), hash.low());
+            }
+        }
+        index.install(bloom);
+        log.info("Loaded email index for tenant {} from Redis ({} emails)", index.tenantKey, size);
+        return true;
+    }
+
+    /**
+     * Page through the realm into a fresh set and filter, then swap both in. Returns {@code false} without doing
+     * anything if another instance holds the rebuild lock.
+     */
+    private boolean rebuild(TenantIndex index) {
+        String lockKey = KEY_PREFIX + index.tenantKey + ":lock";
+        Boolean locked = redisTemplate.opsForValue()
+                .setIfAbsent(lockKey, instanceId, Duration.ofMillis(properties.getRebuildLockMs()));
+        if (!Boolean.TRUE.equals(locked)) {
+            return false;
+        }
+        try {
+            index.startCollecting();
+            List<EmailHash> hashes = new ArrayList<>();
+            int pageSize = Math.max(1, properties.getPageSize());
+            for (int first = 0; ; first += pageSize) {
+                List<String> page = index.source.page(first, pageSize);
+                if (page.isEmpty()) {
+                    break;
+                }
+                page.forEach(email -> hashes.add(EmailHash.of(email)));
+            }
+            BloomFilter bloom = newBloom(hashes.size());
+            hashes.forEach(hash -> bloom.put(hash.high(), hash.low()));
+
+            String key = setKey(index.tenantKey);
+            String staging = key + ":rebuild";
+            redisTemplate.delete(staging);
+            redisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public <K, V> Object execute(RedisOperations<K, V> operations) throws DataAccessException {
+                    RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                    for (int from = 0; from < hashes.size(); from += WRITE_CHUNK) {
+                        ops.opsForSet().add(staging, hashes.subList(from, Math.min(hashes.size(), from + WRITE_CHUNK))
+                                .stream().map(EmailHash::encoded).toArray(String[]::new));
+                    }
+                    return null;
+                }
+            });
+            if (hashes.isEmpty()) {
+                redisTemplate.delete(key);
+            } else {
+                redisTemplate.rename(staging, key);
+            }
+            // registrations announced while paging may be missing from the realm snapshot
+            List<EmailHash> added = index.install(bloom);
+            if (!added.isEmpty()) {
+                redisTemplate.opsForSet().add(key, added.stream().map(EmailHash::encoded).toArray(String[]::new));
+            }
+            redisTemplate.opsForValue().set(syncedKey(index.tenantKey), Long.toString(System.currentTimeMillis()));
+            log.info("Rebuilt email index for tenant {} from Keycloak ({} emails)", index.tenantKey, hashes.size());
+            return true;
+        } finally {
+            RedisLeases.release(redisTemplate, lockKey, instanceId);
+        }
+    }
+
+    private BloomFilter newBloom(long emails) {
+        return new BloomFilter(bloomCapacity(emails, properties.getExpectedEmails()), properties.getFalsePositiveRate());
+    }
+
+    /**
+     * Room for twice the current users, so registrations until the next rebuild keep the false positive rate, within
+     * a small floor and the configured cap. Small realms get small filters.
+     */
+    static long bloomCapacity(long emails, long maxEmails) {
+        return Math.min(Math.max(emails * 2, MIN_BLOOM_EMAILS), Math.max(maxEmails, MIN_BLOOM_EMAILS));
+    }
+
+    static String setKey(String tenantKey) {
+        return KEY_PREFIX + tenantKey;
+    }
+
+    static String syncedKey(String tenantKey) {
+        return KEY_PREFIX + tenantKey + ":synced-at";
+    }
+
+    private static final class TenantIndex {
+
+        final String tenantKey;
+        final EmailSource source;
+        final AtomicBoolean loading = new AtomicBoolean();
+        volatile BloomFilter bloom = new BloomFilter(1, 0.5);
+        volatile boolean ready;
+        volatile long retryAt;
+        private List<EmailHash> collected;
+
+        TenantIndex(String tenantKey, EmailSource source) {
+            this.tenantKey = tenantKey;
+            this.source = source;
+        }
+
+        synchronized void remember(EmailHash hash) {
+            bloom.put(hash.high(), hash.low());
+            if (collected != null) {
+                collected.add(hash);
+            }
+        }
+
+        /**
+         * Start keeping the emails added while a new filter is being built, so none are lost in the swap.
+         */
+        synchronized void startCollecting() {
+            collected = new ArrayList<>();
+        }
+
+        synchronized List<EmailHash> install(BloomFilter next) {
+            List<EmailHash> added = collected != null ? collected : List.of();
+            added.forEach(hash -> next.put(hash.high(), hash.low()));
+            collected = null;
+            bloom = next;
+            ready = true;
+            return added;
+        }
+
+        /**
+         * Release the filter of an evicted index; a load still running into it is simply discarded.
+         */
+        synchronized void drop() {
+            ready = false;
+            collected = null;
+            bloom = new BloomFilter(1, 0.5);
+        }
+    }
+
+    /**
+     * First 128 bits of SHA-256 over the trimmed, lower-cased email.
+     */
+    record EmailHash(long high, long low) {
+
+        static EmailHash of(String email) {
+            try {
+                byte[] digest = MessageDigest.getInstance("SHA-256")
+                        .digest(email.trim().toLowerCase(Locale.ROOT).getBytes(StandardCharsets.UTF_8));
+                ByteBuffer buffer = ByteBuffer.wrap(digest);
+                return new EmailHash(buffer.getLong(), buffer.getLong());
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        static EmailHash decode(String encoded) {
+            byte[] bytes = Base64.getUrlDecoder().decode(encoded);
+            if (bytes.length != 16) {
+                throw new IllegalArgumentException("Not an email hash: " + encoded);
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            return new EmailHash(buffer.getLong(), buffer.getLong());
+        }
+
+        String encoded() {
+            return Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString(ByteBuffer.allocate(16).putLong(high).putLong(low).array());
+        }
+    }
+}
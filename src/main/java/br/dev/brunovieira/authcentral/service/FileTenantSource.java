@@ -0,0 +1,154 @@
+package br.dev.brunovieira.authcentral.service;
+
+import lombok.extern.slf4j.Slf4j;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Tenants from a newline-delimited JSON file, one tenant entry (including its {@code key}) per line. Blank
+ * lines and lines starting with {@code #} are skipped. Only each key's byte offset is indexed; an entry is read
+ * back from the file when its tenant is resolved. The file is re-indexed when its size or modification time
+ * changes.
+ */
+@Slf4j
+public class FileTenantSource implements TenantSource {
+
+    private final Path path;
+    private final JsonMapper jsonMapper;
+
+    public FileTenantSource(Path path, JsonMapper jsonMapper) {
+        this.path = path;
+        this.jsonMapper = jsonMapper;
+    }
+
+    @Override
+    public String name() {
+        return "file";
+    }
+
+    @Override
+    public Map<String, Long> index() throws IOException {
+        Map<String, Long> index = new HashMap<>();
+        try (LineReader reader = new LineReader(path, 0)) {
+            int lineNumber = 0;
+            for (long offset = 0; ; offset = reader.position()) {
+                String line = reader.readLine();
+                if (line == null) {
+                    break;
+                }
+                lineNumber++;
+                String trimmed = line.strip();
+                if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                    continue;
+                }
+                try {
+                    String key = keyOf(trimmed);
+                    if (key == null) {
+                        log.warn("Skipping tenant without key at {}:{}", path, lineNumber);
+                        continue;
+                    }
+                    index.put(key, offset);
+                } catch (Exception e) {
+                    log.warn("Skipping malformed tenant at {}:{}: {}", path, lineNumber, e.getMessage());
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Reads the line at {@code locator}, its byte offset. If the file was rewritten since it was indexed and the
+     * line holds another tenant, the file is scanned for the key instead until the next poll re-indexes it.
+     */
+    @Override
+    public String entry(String tenantKey, long locator) throws IOException {
+        try (LineReader reader = new LineReader(path, locator)) {
+            String line = reader.readLine();
+            if (line != null && tenantKey.equals(keyOrNull(line.strip()))) {
+                return line.strip();
+            }
+        }
+        try (LineReader reader = new LineReader(path, 0)) {
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                if (tenantKey.equals(keyOrNull(line.strip()))) {
+                    return line.strip();
+                }
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public long version() throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        return attributes.lastModifiedTime().toMillis() * 31 + attributes.size();
+    }
+
+    private String keyOf(String json) {
+        JsonNode key = jsonMapper.readTree(json).get("key");
+        return key != null && key.isString() && !key.stringValue().isBlank() ? key.stringValue() : null;
+    }
+
+    private String keyOrNull(String line) {
+        if (line.isEmpty() || line.startsWith("#")) {
+            return null;
+        }
+        try {
+            return keyOf(line);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * Reads UTF-8 lines from a byte offset, tracking the offset of the next one.
+     */
+    private static final class LineReader implements Closeable {
+
+        private final InputStream in;
+        private final ByteArrayOutputStream line = new ByteArrayOutputStream();
+        private long position;
+
+        LineReader(Path path, long position) throws IOException {
+            SeekableByteChannel channel = Files.newByteChannel(path);
+            channel.position(position);
+            this.in = new BufferedInputStream(Channels.newInputStream(channel));
+            this.position = position;
+        }
+
+        long position() {
+            return position;
+        }
+
+        String readLine() throws IOException {
+            line.reset();
+            for (int b = in.read(); b != -1; b = in.read()) {
+                position++;
+                if (b == '\n') {
+                    return line.toString(StandardCharsets.UTF_8);
+                }
+                line.write(b);
+            }
+            return line.size() > 0 ? line.toString(StandardCharsets.UTF_8) : null;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package br.dev.brunovieira.authcentral.service;
+
+import br.dev.brunovieira.authcentral.config.ConcurrencyLimitProperties;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrency limit driven by round-trip time, after the gradient algorithm.
+ * <p>
+ * Every {@code sample-window} completed calls give a recent RTT, which is also folded into a slow-moving baseline.
+ * Their ratio is the gradient: while the recent RTT stays within {@code rtt-tolerance} of the baseline the limit
+ * grows by about its square root per window; once queueing pushes the RTT up it shrinks in proportion (at most by
+ * half). Windows in which fewer than half the permits were used say nothing about capacity and leave the limit
+ * alone. {@link #tryAcquire()} never waits.
+ */
+final class GradientLimiter {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double smoothing;
+    private final int sampleWindow;
+    private final double baselineWeight;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile double limit;
+
+    private double baselineRtt;
+    private double recentRtt;
+    private long windowSum;
+    private int windowCount;
+    private int windowMaxInFlight;
+
+    GradientLimiter(ConcurrencyLimitProperties properties) {
+        this.minLimit = Math.max(1, properties.getMinLimit());
+        this.maxLimit = Math.max(minLimit, properties.getMaxLimit());
+        this.tolerance = properties.getRttTolerance();
+        this.smoothing = properties.getSmoothing();
+        this.sampleWindow = Math.max(1, properties.getSampleWindow());
+        this.baselineWeight = 2.0 / (Math.max(1, properties.getBaselineWindow()) + 1);
+        this.limit = Math.clamp(properties.getInitialLimit(), minLimit, maxLimit);
+    }
+
+    boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Return a permit and record how long the call took.
+     */
+    void release(long rttNanos) {
+        int before = inFlight.getAndDecrement();
+        synchronized (this) {
+            windowSum += rttNanos;
+            windowCount++;
+            windowMaxInFlight = Math.max(windowMaxInFlight, before);
+            if (windowCount >= sampleWindow) {
+                update();
+            }
+        }
+    }
+
+    private void update() {
+        double shortRtt = Math.max(1, (double) windowSum / windowCount);
+        int maxInFlight = windowMaxInFlight;
+        windowSum = 0;
+        windowCount = 0;
+        windowMaxInFlight = 0;
+
+        recentRtt = shortRtt;
+        baselineRtt = baselineRtt == 0 ? shortRtt : baselineRtt + baselineWeight * (shortRtt - baselineRtt);
+        if (baselineRtt / shortRtt > 2) {
+            // the RTT has dropped well below the baseline (an overload ended); let the baseline catch up
+            baselineRtt *= 0.95;
+        }
+        double current = limit;
+        if (maxInFlight < current / 2) {
+            return;
+        }
+        double gradient = Math.clamp(tolerance * baselineRtt / shortRtt, 0.5, 1.0);
+        double estimate = current * gradient + Math.sqrt(current);
+        limit = Math.clamp(current * (1 - smoothing) + estimate * smoothing, minLimit, maxLimit);
+    }
+
+    int limit() {
+        return (int) limit;
+    }
+
+    int inFlight() {
+        return inFlight.get();
+    }
+
+    synchronized double recentRttNanos() {
+        return recentRtt;
+    }
+}
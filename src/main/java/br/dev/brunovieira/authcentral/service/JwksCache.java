@@ -0,0 +1,148 @@
+package br.dev.brunovieira.authcentral.service;
+
+import br.dev.brunovieira.authcentral.config.TenantCacheProperties;
+import br.dev.brunovieira.authcentral.config.TokenValidationProperties;
+import br.dev.brunovieira.authcentral.model.Tenant;
+import br.dev.brunovieira.authcentral.util.NanoClock;
+import br.dev.brunovieira.authcentral.util.TenantCache;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory cache of each realm's signing keys.
+ * <p>
+ * Keys are fetched from the realm's certs endpoint the first time a token for it is validated, re-fetched in the
+ * background so rotated keys show up before they are used, and re-fetched on demand when a token names a key id
+ * the cache has not seen. On-demand fetches are rate limited per realm; a failed fetch keeps the previous keys.
+ * Realms are held in a {@link TenantCache}, so one no token was validated for within {@code app.tenant-cache}
+ * bounds is dropped and fetched again on its next use.
+ */
+@Component
+@Slf4j
+public class JwksCache {
+
+    private final RestClient restClient;
+    private final TokenValidationProperties properties;
+    private final NanoClock nanoClock;
+    private final TenantCache<String, RealmKeys> realms;
+
+    public JwksCache(RestClient restClient,
+                     TokenValidationProperties properties,
+                     NanoClock nanoClock,
+                     TenantCacheProperties cacheProperties,
+                     MeterRegistry meterRegistry) {
+        this.restClient = restClient;
+        this.properties = properties;
+        this.nanoClock = nanoClock;
+        this.realms = new TenantCache<>("jwks", cacheProperties.getMaxTenants(),
+                cacheProperties.getIdleEvictionMs(), realm -> { }, meterRegistry);
+    }
+
+    /**
+     * Base URL of the tenant's realm, which is also the issuer of its tokens.
+     */
+    public static String realmUrl(Tenant tenant) {
+        return realmUrl(tenant.getKeycloakBaseUrl(), tenant);
+    }
+
+    /**
+     * The tenant's realm on one particular Keycloak node.
+     */
+    public static String realmUrl(String baseUrl, Tenant tenant) {
+        return baseUrl + "/realms/" + tenant.getRealmName();
+    }
+
+    /**
+     * Keys of the realm at {@code realmUrl}. When {@code kid} is not among them the set is re-fetched first,
+     * unless that happened less than {@code unknown-kid-refetch-ms} ago.
+     */
+    public List<JWK> keys(String realmUrl, String kid) {
+        try (TenantCache.Lease<RealmKeys> lease = realms.acquire(realmUrl, RealmKeys::new)) {
+            RealmKeys realm = lease.value();
+            JWKSet current = realm.jwkSet;
+            if (current == null || (kid != null && current.getKeyByKeyId(kid) == null)) {
+                current = realm.refresh(TimeUnit.MILLISECONDS.toNanos(properties.getUnknownKidRefetchMs()));
+            }
+            return current != null ? current.getKeys() : List.of();
+        }
+    }
+
+    /**
+     * Re-fetch every known realm so rotated keys are picked up without waiting for an unknown kid. Does not
+     * count as a use, so idle realms still age out.
+     */
+    @Scheduled(fixedDelayString = "${app.token-validation.jwks-refresh-ms:300000}",
+            initialDelayString = "${app.token-validation.jwks-refresh-ms:300000}")
+    public void refreshAll() {
+        realms.forEach((realmUrl, realm) -> realm.refresh(0));
+    }
+
+    @Scheduled(fixedDelayString = "${app.tenant-cache.sweep-interval-ms:60000}")
+    public void evictIdle() {
+        realms.evictIdle();
+    }
+
+    int realmCount() {
+        return realms.size();
+    }
+
+    private JWKSet fetch(String realmUrl) {
+        String body = restClient.get()
+                .uri(realmUrl + "/protocol/openid-connect/certs")
+                .retrieve()
+                .body(String.class);
+        try {
+            return JWKSet.parse(body);
+        } catch (Exception e) {
+            throw new IllegalStateException("Malformed JWKS from " + realmUrl, e);
+        }
+    }
+
+    private final class RealmKeys {
+
+        private final String realmUrl;
+        private final ReentrantLock lock = new ReentrantLock();
+        private volatile JWKSet jwkSet;
+        private volatile long fetchedAt;
+        private volatile boolean fetched;
+
+        RealmKeys(String realmUrl) {
+            this.realmUrl = realmUrl;
+        }
+
+        /**
+         * Fetch the key set unless one was fetched within {@code minIntervalNanos}. Concurrent callers wait for
+         * a single fetch.
+         */
+        JWKSet refresh(long minIntervalNanos) {
+            long requestedAt = nanoClock.nanoTime();
+            lock.lock();
+            try {
+                if (fetched && (fetchedAt - requestedAt > 0 || requestedAt - fetchedAt < minIntervalNanos)) {
+                    return jwkSet;
+                }
+                try {
+                    jwkSet = fetch(realmUrl);
+                    log.debug("Loaded {} signing keys for {}", jwkSet.getKeys().size(), realmUrl);
+                } catch (Exception e) {
+                    log.warn("Failed to fetch JWKS for {}, keeping {} cached keys: {}",
+                            realmUrl, jwkSet != null ? jwkSet.getKeys().size() : 0, e.getMessage());
+                }
+                fetchedAt = nanoClock.nanoTime();
+                fetched = true;
+                return jwkSet;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package br.dev.brunovieira.authcentral.service;
+
+import tools.jackson.core.JsonParser;
+import tools.jackson.core.JsonToken;
+import tools.jackson.core.ObjectReadContext;
+import tools.jackson.core.json.JsonFactory;
+
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Reads a fixed set of top-level claims from a JWT payload without verifying the token.
+ * <p>
+ * The payload segment is found by scanning for the two dots, and its Base64URL text is decoded on demand into a
+ * streaming JSON parser, so neither the segments nor the decoded payload are ever copied into strings or arrays.
+ * Claims that were not asked for are skipped without being materialized, and parsing stops as soon as every
+ * requested claim has been seen. Only scalar claims (strings, numbers, booleans) are returned; object and array
+ * claims are skipped. Instances are immutable and safe to share.
+ */
+public final class JwtClaimExtractor {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final String[] names;
+    private final Claims empty;
+
+    public JwtClaimExtractor(String... names) {
+        this.names = names.clone();
+        this.empty = new Claims(this.names, new Object[this.names.length]);
+    }
+
+    /**
+     * The requested claims of {@code jwt}, or {@code null} if it is not made of exactly three dot-separated
+     * segments.
+     *
+     * @throws IllegalArgumentException if the payload is not valid Base64URL
+     * @throws tools.jackson.core.JacksonException if the payload is not a JSON object
+     */
+    public Claims extract(String jwt) {
+        Objects.requireNonNull(jwt, "jwt");
+        int first = jwt.indexOf('.');
+        int second = first < 0 ? -1 : jwt.indexOf('.', first + 1);
+        if (second < 0 || second == jwt.length() - 1 || jwt.indexOf('.', second + 1) >= 0) {
+            return null;
+        }
+
+        Object[] values = new Object[names.length];
+        int found = 0;
+        try (JsonParser parser = JSON_FACTORY.createParser(ObjectReadContext.empty(),
+                new Base64UrlInputStream(jwt, first + 1, second))) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IllegalArgumentException("JWT payload is not a JSON object");
+            }
+            String name;
+            while (found < names.length && (name = parser.nextName()) != null) {
+                JsonToken token = parser.nextToken();
+                int index = indexOf(name);
+                if (index < 0 || values[index] != null) {
+                    parser.skipChildren();
+                    continue;
+                }
+                values[index] = switch (token) {
+                    case VALUE_STRING -> parser.getString();
+                    case VALUE_NUMBER_INT, VALUE_NUMBER_FLOAT -> parser.getNumberValue();
+                    case VALUE_TRUE -> Boolean.TRUE;
+                    case VALUE_FALSE -> Boolean.FALSE;
+                    default -> {
+                        parser.skipChildren();
+                        yield null;
+                    }
+                };
+                found++;
+            }
+        }
+        return new Claims(names, values);
+    }
+
+    /**
+     * A result with none of the requested claims present.
+     */
+    public Claims empty() {
+        return empty;
+    }
+
+    private int indexOf(String name) {
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * The requested claims of one token; a claim that was absent, null or not a scalar reads as {@code null}.
+     */
+    public static final class Claims {
+
+        private final String[] names;
+        private final Object[] values;
+
+        private Claims(String[] names, Object[] values) {
+            this.names = names;
+            this.values = values;
+        }
+
+        public Object get(String name) {
+            for (int i = 0; i < names.length; i++) {
+                if (names[i].equals(name)) {
+                    return values[i];
+                }
+            }
+            return null;
+        }
+
+        public String getString(String name) {
+            return get(name) instanceof String value ? value : null;
+        }
+
+        @Override
+        public String toString() {
+            return "Claims" + Arrays.toString(values);
+        }
+    }
+
+    /**
+     * Unpadded Base64URL text of {@code source[start, end)} decoded as it is read, up to three bytes at a time.
+     */
+    static final class Base64UrlInputStream extends InputStream {
+
+        private static final byte[] SEXTETS = new byte[128];
+
+        static {
+            Arrays.fill(SEXTETS, (byte) -1);
+            for (int i = 0; i < 26; i++) {
+                SEXTETS['A' + i] = (byte) i;
+                SEXTETS['a' + i] = (byte) (26 + i);
+            }
+            for (int i = 0; i < 10; i++) {
+                SEXTETS['0' + i] = (byte) (52 + i);
+            }
+            SEXTETS['-'] = 62;
+            SEXTETS['_'] = 63;
+        }
+
+        private final CharSequence source;
+        private final int end;
+        private int position;
+        private int pending;
+        private int pendingBytes;
+
+        Base64UrlInputStream(CharSequence source, int start, int end) {
+            // tolerate padding even though JWTs omit it
+            while (end > start && source.charAt(end - 1) == '=') {
+                end--;
+            }
+            this.source = source;
+            this.position = start;
+            this.end = end;
+        }
+
+        @Override
+        public int read() {
+            if (pendingBytes == 0 && !decodeNext()) {
+                return -1;
+            }
+            return nextPending();
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+            Objects.checkFromIndexSize(offset, length, buffer.length);
+            int written = 0;
+            while (written < length && pendingBytes > 0) {
+                buffer[offset + written++] = (byte) nextPending();
+            }
+            // whole groups straight into the buffer
+            int groups = Math.min((length - written) / 3, (end - position) / 4);
+            for (int g = 0; g < groups; g++, position += 4) {
+                int bits = sextet(source.charAt(position)) << 18 | sextet(source.charAt(position + 1)) << 12
+                        | sextet(source.charAt(position + 2)) << 6 | sextet(source.charAt(position + 3));
+                buffer[offset + written++] = (byte) (bits >>> 16);
+                buffer[offset + written++] = (byte) (bits >>> 8);
+                buffer[offset + written++] = (byte) bits;
+            }
+            while (written < length && (pendingBytes > 0 || decodeNext())) {
+                buffer[offset + written++] = (byte) nextPending();
+            }
+            return written == 0 && length > 0 ? -1 : written;
+        }
+
+        private int nextPending() {
+            int value = (pending >>> 16) & 0xFF;
+            pending <<= 8;
+            pendingBytes--;
+            return value;
+        }
+
+        /**
+         * Decode the next group of up to four characters into {@link #pending}.
+         */
+        private boolean decodeNext() {
+            int count = Math.min(4, end - position);
+            if (count <= 0) {
+                return false;
+            }
+            if (count == 1) {
+                throw new IllegalArgumentException("Truncated Base64URL input");
+            }
+            int bits = 0;
+            for (int i = 0; i < count; i++) {
+                bits = bits << 6 | sextet(source.charAt(position + i));
+            }
+            position += count;
+            pending = bits << 6 * (4 - count);
+            pendingBytes = count - 1;
+            return true;
+        }
+
+        private static int sextet(char c) {
+            int value = c < 128 ? SEXTETS[c] : -1;
+            if (value < 0) {
+                throw new IllegalArgumentException("Illegal Base64URL character: " + c);
+            }
+            return value;
+        }
+    }
+}
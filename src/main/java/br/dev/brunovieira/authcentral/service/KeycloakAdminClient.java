@@ -0,0 +1,140 @@
+package br.dev.brunovieira.authcentral.service;
+
+import br.dev.brunovieira.authcentral.dto.keycloak.KeycloakUser;
+import br.dev.brunovieira.authcentral.exception.UserAlreadyExistsException;
+import br.dev.brunovieira.authcentral.model.Tenant;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.util.UriComponentsBuilder;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.databind.node.ObjectNode;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * The Keycloak admin API operations this service uses, on the shared pooled {@link RestClient}.
+ * <p>
+ * Calls carry the tenant's service account token from {@link ServiceTokenManager}. Request bodies are built and
+ * responses read as JSON trees, so no Keycloak representation classes are involved.
+ */
+@Component
+@Slf4j
+public class KeycloakAdminClient {
+
+    private final RestClient restClient;
+    private final KeycloakRouter router;
+    private final ServiceTokenManager serviceTokenManager;
+    private final JsonMapper jsonMapper;
+
+    public KeycloakAdminClient(RestClient restClient, KeycloakRouter router, ServiceTokenManager serviceTokenManager,
+                               JsonMapper jsonMapper) {
+        this.restClient = restClient;
+        this.router = router;
+        this.serviceTokenManager = serviceTokenManager;
+        this.jsonMapper = jsonMapper;
+    }
+
+    /**
+     * Create an enabled, email-verified user whose username is the email, with a permanent password.
+     *
+     * @return the new user's id
+     * @throws UserAlreadyExistsException if Keycloak reports a conflict
+     */
+    public String createUser(Tenant tenant, String email, String firstName, String lastName, String password) {
+        ObjectNode user = jsonMapper.createObjectNode()
+                .put("username", email)
+                .put("email", email)
+                .put("firstName", firstName)
+                .put("lastName", lastName)
+                .put("enabled", true)
+                .put("emailVerified", true);
+        user.putArray("credentials").addObject()
+                .put("type", "password")
+                .put("value", password)
+                .put("temporary", false);
+
+        ResponseEntity<Void> response = router.call(tenant, baseUrl -> restClient.post()
+                .uri(usersUri(baseUrl, tenant).build().toUri())
+                .header(HttpHeaders.AUTHORIZATION, bearer(tenant))
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(jsonMapper.writeValueAsBytes(user))
+                .retrieve()
+                .onStatus(status -> status.value() == HttpStatus.CONFLICT.value(), (req, res) -> {
+                    throw new UserAlreadyExistsException("User with email " + email + " already exists");
+                })
+                .onStatus(HttpStatusCode::isError, (req, res) -> {
+                    throw new RuntimeException("Failed to create user: " + res.getStatusCode());
+                })
+                .toBodilessEntity());
+
+        URI location = response.getHeaders().getLocation();
+        if (location == null) {
+            throw new RuntimeException("Failed to create user: no Location header");
+        }
+        String path = location.getPath();
+        return path.substring(path.lastIndexOf('/') + 1);
+    }
+
+    /**
+     * Users whose username matches {@code username}, exactly or as a substring.
+     */
+    public List<KeycloakUser> searchByUsername(Tenant tenant, String username, boolean exact) {
+        // expanded as a URI variable so reserved characters such as '+' are percent-encoded
+        return getUsers(tenant, baseUrl -> usersUri(baseUrl, tenant)
+                .queryParam("username", "{username}")
+                .queryParam("exact", exact)
+                .encode()
+                .buildAndExpand(username)
+                .toUri());
+    }
+
+    /**
+     * One page of the realm's users in Keycloak's default order.
+     */
+    public List<KeycloakUser> listUsers(Tenant tenant, int first, int max) {
+        return getUsers(tenant, baseUrl -> usersUri(baseUrl, tenant)
+                .queryParam("first", first)
+                .queryParam("max", max)
+                .queryParam("briefRepresentation", true)
+                .build()
+                .toUri());
+    }
+
+    /**
+     * Reads are idempotent, so a slow node may be raced by another ({@link KeycloakRouter#hedged}).
+     */
+    private List<KeycloakUser> getUsers(Tenant tenant, Function<String, URI> uri) {
+        String bearer = bearer(tenant);
+        String body = router.hedged(tenant, baseUrl -> restClient.get()
+                .uri(uri.apply(baseUrl))
+                .header(HttpHeaders.AUTHORIZATION, bearer)
+                .retrieve()
+                .body(String.class));
+        if (body == null) {
+            return List.of();
+        }
+        JsonNode array = jsonMapper.readTree(body);
+        List<KeycloakUser> users = new ArrayList<>(array.size());
+        array.forEach(node -> users.add(KeycloakUser.from(node)));
+        return users;
+    }
+
+    private String bearer(Tenant tenant) {
+        return "Bearer " + serviceTokenManager.currentToken(tenant);
+    }
+
+    private static UriComponentsBuilder usersUri(String baseUrl, Tenant tenant) {
+        return UriComponentsBuilder.fromUriString(baseUrl)
+                .pathSegment("admin", "realms", tenant.getRealmName(), "users");
+    }
+}
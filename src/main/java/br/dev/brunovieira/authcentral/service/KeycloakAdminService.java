@@ -1,159 +1,93 @@
 package br.dev.brunovieira.authcentral.service;
 
+import br.dev.brunovieira.authcentral.dto.keycloak.KeycloakUser;
 import br.dev.brunovieira.authcentral.exception.AuthenticationException;
+import br.dev.brunovieira.authcentral.exception.ServiceUnavailableException;
 import br.dev.brunovieira.authcentral.exception.UserAlreadyExistsException;
 import br.dev.brunovieira.authcentral.exception.UserNotFoundException;
+import br.dev.brunovieira.authcentral.model.AuthOutcome;
 import br.dev.brunovieira.authcentral.model.Tenant;
-import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
-import org.keycloak.admin.client.Keycloak;
-import org.keycloak.admin.client.KeycloakBuilder;
-import org.keycloak.admin.client.resource.RealmResource;
-import org.keycloak.admin.client.resource.UserResource;
-import org.keycloak.admin.client.resource.UsersResource;
-import org.keycloak.representations.idm.CredentialRepresentation;
-import org.keycloak.representations.idm.UserRepresentation;
 import org.springframework.http.HttpStatusCode;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
-import org.springframework.util.LinkedMultiValueMap;
-import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.HttpServerErrorException;
 import org.springframework.web.client.RestClient;
 
-import jakarta.ws.rs.core.Response;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
 @Service
 @Slf4j
 public class KeycloakAdminService {
 
     private final RestClient restClient;
-    private final ConcurrentHashMap<Long, Keycloak> keycloakClients = new ConcurrentHashMap<>();
+    private final KeycloakRouter router;
+    private final TokenRequestEncoder requestEncoder;
+    private final EmailIndex emailIndex;
+    private final KeycloakAdminClient adminClient;
 
-    public KeycloakAdminService(RestClient restClient) {
+    public KeycloakAdminService(RestClient restClient, KeycloakRouter router, TokenRequestEncoder requestEncoder,
+                                EmailIndex emailIndex, KeycloakAdminClient adminClient) {
         this.restClient = restClient;
+        this.router = router;
+        this.requestEncoder = requestEncoder;
+        this.emailIndex = emailIndex;
+        this.adminClient = adminClient;
     }
 
     /**
-     * Get or create a Keycloak admin client for the tenant.
-     * Cached in-memory via ConcurrentHashMap (Keycloak objects contain HTTP clients
-     * and thread pools that are not serializable to Redis).
-     */
-    public Keycloak createKeycloakClient(Tenant tenant) {
-        return keycloakClients.computeIfAbsent(tenant.getId(), id -> {
-            log.info("Creating Keycloak client for tenant: {}", tenant.getTenantName());
-            return KeycloakBuilder.builder()
-                    .serverUrl(tenant.getKeycloakBaseUrl())
-                    .realm(tenant.getRealmName())
-                    .clientId(tenant.getClientId())
-                    .clientSecret(tenant.getClientSecret())
-                    .grantType("client_credentials")
-                    .build();
-        });
-    }
-
-    @PreDestroy
-    public void closeKeycloakClients() {
-        log.info("Closing {} cached Keycloak clients", keycloakClients.size());
-        keycloakClients.values().forEach(client -> {
-            try {
-                client.close();
-            } catch (Exception e) {
-                log.warn("Error closing Keycloak client: {}", e.getMessage());
-            }
-        });
-        keycloakClients.clear();
-    }
-
-    /**
-     * Register a new user in Keycloak
+     * Register a new user in Keycloak.
+     * The password travels inside the create call and an existing username comes back as 409,
+     * so registration is a single admin API round trip. Emails the index already knows are rejected without
+     * calling Keycloak at all.
      */
     public String registerUser(Tenant tenant, String email, String firstName, String lastName, String password) {
         log.info("Registering user {} in realm {}", email, tenant.getRealmName());
 
-        Keycloak keycloak = createKeycloakClient(tenant);
-        RealmResource realmResource = keycloak.realm(tenant.getRealmName());
-        UsersResource usersResource = realmResource.users();
-
-        // Check if user already exists
-        List<UserRepresentation> existingUsers = usersResource.search(email, true);
-        if (!existingUsers.isEmpty()) {
-            log.warn("User {} already exists in realm {}", email, tenant.getRealmName());
+        if (emailIndex.lookup(tenant, email, emailSource(tenant)) == EmailIndex.Presence.PRESENT) {
+            log.warn("User {} already exists in realm {} (email index)", email, tenant.getRealmName());
             throw new UserAlreadyExistsException("User with email " + email + " already exists");
         }
 
-        // Create user representation
-        UserRepresentation user = new UserRepresentation();
-        user.setEnabled(true);
-        user.setUsername(email);
-        user.setEmail(email);
-        user.setFirstName(firstName);
-        user.setLastName(lastName);
-        user.setEmailVerified(true);
-
-        // Create user
-        Response response = usersResource.create(user);
-
-        if (response.getStatus() != 201) {
-            log.error("Failed to create user: {}", response.getStatusInfo());
-            throw new RuntimeException("Failed to create user: " + response.getStatusInfo());
+        try {
+            String userId = adminClient.createUser(tenant, email, firstName, lastName, password);
+            log.info("User created with ID: {}", userId);
+            emailIndex.add(tenant, email);
+            return userId;
+        } catch (UserAlreadyExistsException e) {
+            emailIndex.add(tenant, email);
+            log.warn("User {} already exists in realm {}", email, tenant.getRealmName());
+            throw e;
         }
-
-        String userId = extractUserIdFromLocation(response.getLocation().getPath());
-        log.info("User created with ID: {}", userId);
-
-        // Set password
-        CredentialRepresentation credential = new CredentialRepresentation();
-        credential.setType(CredentialRepresentation.PASSWORD);
-        credential.setValue(password);
-        credential.setTemporary(false);
-
-        UserResource userResource = usersResource.get(userId);
-        userResource.resetPassword(credential);
-
-        log.info("Password set for user: {}", userId);
-        response.close();
-
-        return userId;
     }
 
     /**
-     * Authenticate user and get tokens
+     * Authenticate user and get tokens. Grants Keycloak's token response body unparsed, so callers can pass it
+     * through or read only what they need; wrong credentials come back as a rejection.
      */
-    public Map<String, Object> authenticateUser(Tenant tenant, String email, String password) {
+    public AuthOutcome<byte[]> authenticateUser(Tenant tenant, String email, String password) {
         log.info("Authenticating user {} in realm {}", email, tenant.getRealmName());
 
-        MultiValueMap<String, String> body = new LinkedMultiValueMap<>();
-        body.add("client_id", tenant.getClientId());
-        body.add("client_secret", tenant.getClientSecret());
-        body.add("grant_type", "password");
-        body.add("username", email);
-        body.add("password", password);
+        TokenRequestEncoder.Template template = requestEncoder.template(tenant);
+        byte[] body = template.passwordGrant(email, password);
 
         try {
-            @SuppressWarnings("unchecked")
-            Map<String, Object> tokenResponse = restClient.post()
-                    .uri(tokenUrl(tenant))
-                    .contentType(MediaType.APPLICATION_FORM_URLENCODED)
-                    .body(body)
-                    .retrieve()
-                    .onStatus(HttpStatusCode::is4xxClientError, (req, res) -> {
-                        if (res.getStatusCode().value() == 401) {
-                            throw new AuthenticationException("Invalid credentials");
-                        }
-                        throw new AuthenticationException("Authentication failed: " + res.getStatusCode());
-                    })
-                    .body(Map.class);
+            AuthOutcome<byte[]> outcome = requestTokens(tenant, template, body,
+                    status -> status.value() == 401 ? "Invalid credentials" : "Authentication failed: " + status);
 
-            if (tokenResponse != null) {
+            if (outcome instanceof AuthOutcome.Rejected<byte[]> rejected) {
+                log.info("Authentication rejected for user {}: {}", email, rejected.reason());
+                return outcome;
+            }
+            if (outcome instanceof AuthOutcome.Granted<byte[]> granted && hasBody(granted)) {
                 log.info("User {} authenticated successfully", email);
-                return tokenResponse;
+                return outcome;
             }
 
             throw new AuthenticationException("Failed to authenticate user");
 
-        } catch (AuthenticationException e) {
+        } catch (AuthenticationException | ServiceUnavailableException e) {
             throw e;
         } catch (Exception e) {
             log.error("Unexpected error during authentication: {}", e.getMessage());
@@ -162,37 +96,31 @@ public class KeycloakAdminService {
     }
 
     /**
-     * Refresh access token using refresh token
+     * Refresh access token using refresh token. Grants Keycloak's token response body unparsed; an invalid or
+     * expired refresh token comes back as a rejection.
      */
-    public Map<String, Object> refreshToken(Tenant tenant, String refreshToken) {
+    public AuthOutcome<byte[]> refreshToken(Tenant tenant, String refreshToken) {
         log.info("Refreshing token for tenant {}", tenant.getTenantName());
 
-        MultiValueMap<String, String> body = new LinkedMultiValueMap<>();
-        body.add("client_id", tenant.getClientId());
-        body.add("client_secret", tenant.getClientSecret());
-        body.add("grant_type", "refresh_token");
-        body.add("refresh_token", refreshToken);
+        TokenRequestEncoder.Template template = requestEncoder.template(tenant);
+        byte[] body = template.refreshGrant(refreshToken);
 
         try {
-            @SuppressWarnings("unchecked")
-            Map<String, Object> tokenResponse = restClient.post()
-                    .uri(tokenUrl(tenant))
-                    .contentType(MediaType.APPLICATION_FORM_URLENCODED)
-                    .body(body)
-                    .retrieve()
-                    .onStatus(HttpStatusCode::is4xxClientError, (req, res) -> {
-                        throw new AuthenticationException("Invalid or expired refresh token");
-                    })
-                    .body(Map.class);
+            AuthOutcome<byte[]> outcome = requestTokens(tenant, template, body,
+                    status -> "Invalid or expired refresh token");
 
-            if (tokenResponse != null) {
+            if (outcome instanceof AuthOutcome.Rejected<byte[]> rejected) {
+                log.info("Token refresh rejected: {}", rejected.reason());
+                return outcome;
+            }
+            if (outcome instanceof AuthOutcome.Granted<byte[]> granted && hasBody(granted)) {
                 log.info("Token refreshed successfully");
-                return tokenResponse;
+                return outcome;
             }
 
             throw new AuthenticationException("Failed to refresh token");
 
-        } catch (AuthenticationException e) {
+        } catch (AuthenticationException | ServiceUnavailableException e) {
             throw e;
         } catch (Exception e) {
             log.error("Token refresh failed: {}", e.getMessage());
@@ -200,24 +128,49 @@ public class KeycloakAdminService {
         }
     }
 
+    /**
+     * POST a grant to the token endpoint. A 4xx is Keycloak turning the grant down and becomes a rejection with
+     * the reason from {@code rejection}; a 5xx is still thrown, so the router counts it against the node.
+     */
+    private AuthOutcome<byte[]> requestTokens(Tenant tenant, TokenRequestEncoder.Template template, byte[] body,
+                                              Function<HttpStatusCode, String> rejection) {
+        return router.call(tenant, baseUrl -> restClient.post()
+                .uri(template.tokenUri(baseUrl))
+                .contentType(MediaType.APPLICATION_FORM_URLENCODED)
+                .body(body)
+                .exchange((request, response) -> {
+                    HttpStatusCode status = response.getStatusCode();
+                    if (status.is4xxClientError()) {
+                        return AuthOutcome.<byte[]>rejected(rejection.apply(status));
+                    }
+                    if (status.isError()) {
+                        throw new HttpServerErrorException(status, response.getStatusText());
+                    }
+                    return AuthOutcome.granted(response.bodyTo(byte[].class));
+                }));
+    }
+
+    private static boolean hasBody(AuthOutcome.Granted<byte[]> granted) {
+        return granted.value() != null && granted.value().length > 0;
+    }
+
     /**
      * Logout user (revoke tokens)
      */
     public void logoutUser(Tenant tenant, String refreshToken) {
         log.info("Logging out user for tenant {}", tenant.getTenantName());
 
-        MultiValueMap<String, String> body = new LinkedMultiValueMap<>();
-        body.add("client_id", tenant.getClientId());
-        body.add("client_secret", tenant.getClientSecret());
-        body.add("refresh_token", refreshToken);
+        TokenRequestEncoder.Template template = requestEncoder.template(tenant);
+        byte[] body = template.logout(refreshToken);
 
         try {
-            restClient.post()
-                    .uri(logoutUrl(tenant))
+            // revoking a refresh token twice is harmless, so a slow node may be raced
+            router.hedged(tenant, baseUrl -> restClient.post()
+                    .uri(template.logoutUri(baseUrl))
                     .contentType(MediaType.APPLICATION_FORM_URLENCODED)
                     .body(body)
                     .retrieve()
-                    .toBodilessEntity();
+                    .toBodilessEntity());
             log.info("User logged out successfully");
         } catch (Exception e) {
             log.error("Logout failed: {}", e.getMessage());
@@ -226,14 +179,14 @@ public class KeycloakAdminService {
     }
 
     /**
-     * Get user information by email
+     * Get user information by email. Emails the index knows to be absent are answered without a search.
      */
-    public UserRepresentation getUserByEmail(Tenant tenant, String email) {
-        Keycloak keycloak = createKeycloakClient(tenant);
-        RealmResource realmResource = keycloak.realm(tenant.getRealmName());
-        UsersResource usersResource = realmResource.users();
+    public KeycloakUser getUserByEmail(Tenant tenant, String email) {
+        if (emailIndex.lookup(tenant, email, emailSource(tenant)) == EmailIndex.Presence.ABSENT) {
+            throw new UserNotFoundException("User with email " + email + " not found");
+        }
 
-        List<UserRepresentation> users = usersResource.search(email, true);
+        List<KeycloakUser> users = adminClient.searchByUsername(tenant, email, true);
         if (users.isEmpty()) {
             throw new UserNotFoundException("User with email " + email + " not found");
         }
@@ -241,21 +194,23 @@ public class KeycloakAdminService {
         return users.get(0);
     }
 
-    // --- URL helpers ---
-
-    private String tokenUrl(Tenant tenant) {
-        return tenant.getKeycloakBaseUrl() + "/realms/" + tenant.getRealmName() + "/protocol/openid-connect/token";
-    }
-
-    private String logoutUrl(Tenant tenant) {
-        return tenant.getKeycloakBaseUrl() + "/realms/" + tenant.getRealmName() + "/protocol/openid-connect/logout";
-    }
-
     /**
-     * Extract user ID from Location header
+     * Pages through the realm's users for the email index. Users are registered with the email as username,
+     * so both are indexed when they differ.
      */
-    private String extractUserIdFromLocation(String locationPath) {
-        String[] parts = locationPath.split("/");
-        return parts[parts.length - 1];
+    private EmailIndex.EmailSource emailSource(Tenant tenant) {
+        return (first, max) -> {
+            List<KeycloakUser> users = adminClient.listUsers(tenant, first, max);
+            List<String> emails = new ArrayList<>(users.size());
+            for (KeycloakUser user : users) {
+                if (user.email() != null) {
+                    emails.add(user.email());
+                }
+                if (user.username() != null && !user.username().equalsIgnoreCase(user.email())) {
+                    emails.add(user.username());
+                }
+            }
+            return emails;
+        };
     }
 }
@@ -0,0 +1,158 @@
+package br.dev.brunovieira.authcentral.service;
+
+import br.dev.brunovieira.authcentral.config.BulkheadProperties;
+import br.dev.brunovieira.authcentral.config.TenantCacheProperties;
+import br.dev.brunovieira.authcentral.exception.ServiceUnavailableException;
+import br.dev.brunovieira.authcentral.util.NanoClock;
+import br.dev.brunovieira.authcentral.util.TenantCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.jspecify.annotations.NonNull;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Per-realm bulkheads in front of the shared Keycloak connection pool.
+ * <p>
+ * Every outgoing call is assigned to a partition (Keycloak host plus realm, i.e. one tenant) and must take a slot
+ * in that partition's {@link Bulkhead} before it may lease a connection; the slot is held until the response is
+ * closed. A call that cannot get a slot within {@code acquire-timeout-ms} fails with a 503 instead of queueing, so
+ * a slow realm only slows its own callers. Each cap starts at {@code min-per-realm} and is resized every
+ * {@code resize-interval-ms} to the realm's throughput times its latency, plus headroom, up to
+ * {@code max-per-realm}. Partitions are kept in a {@link TenantCache} that only evicts a partition once no call
+ * holds or waits for one of its slots; otherwise the next call would get a fresh, empty bulkhead beside the calls
+ * still running on the old one. Exported as {@code keycloak.bulkhead.*{partition}}.
+ */
+@Component
+@Slf4j
+public class KeycloakBulkheads implements ClientHttpRequestInterceptor {
+
+    private final BulkheadProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final NanoClock nanoClock;
+    private final long acquireTimeoutNanos;
+    private final TenantCache<String, Partition> partitions;
+    private volatile long lastResize;
+
+    public KeycloakBulkheads(BulkheadProperties properties, TenantCacheProperties cacheProperties,
+                             MeterRegistry meterRegistry, NanoClock nanoClock) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.nanoClock = nanoClock;
+        this.acquireTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(properties.getAcquireTimeoutMs());
+        this.partitions = new TenantCache<>("keycloak-bulkheads", cacheProperties.getMaxTenants(),
+                cacheProperties.getIdleEvictionMs(), true, Partition::unregister, meterRegistry);
+        this.lastResize = nanoClock.nanoTime();
+    }
+
+    @Override
+    public @NonNull ClientHttpResponse intercept(@NonNull HttpRequest request, byte @NonNull [] body,
+                                                 @NonNull ClientHttpRequestExecution execution) throws IOException {
+        if (!properties.isEnabled()) {
+            return execution.execute(request, body);
+        }
+        String key = partitionKey(request.getURI());
+        TenantCache.Lease<Partition> lease = partitions.acquire(key, Partition::new);
+        Partition partition = lease.value();
+        boolean acquired;
+        try {
+            acquired = partition.bulkhead.tryAcquire(acquireTimeoutNanos);
+        } catch (InterruptedException e) {
+            lease.close();
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a Keycloak slot");
+        }
+        if (!acquired) {
+            lease.close();
+            partition.rejected.increment();
+            throw new ServiceUnavailableException("Too many concurrent Keycloak calls for " + key);
+        }
+
+        long start = nanoClock.nanoTime();
+        Runnable release = () -> {
+            partition.bulkhead.release(nanoClock.nanoTime() - start);
+            lease.close();
+        };
+        try {
+            return new ReleasingResponse(execution.execute(request, body), release);
+        } catch (IOException | RuntimeException e) {
+            release.run();
+            throw e;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.keycloak-bulkhead.resize-interval-ms:1000}")
+    public void resize() {
+        long now = nanoClock.nanoTime();
+        long interval = now - lastResize;
+        lastResize = now;
+        partitions.forEach((key, partition) -> partition.bulkhead.resize(interval,
+                properties.getMinPerRealm(), properties.getMaxPerRealm(), properties.getHeadroom()));
+    }
+
+    @Scheduled(fixedDelayString = "${app.tenant-cache.sweep-interval-ms:60000}")
+    public void evictIdle() {
+        partitions.evictIdle();
+    }
+
+    Bulkhead bulkhead(String partitionKey) {
+        try (TenantCache.Lease<Partition> lease = partitions.pin(partitionKey)) {
+            return lease != null ? lease.value().bulkhead : null;
+        }
+    }
+
+    /**
+     * {@code host:port/realm} for realm URLs, {@code host:port} for anything else.
+     */
+    static String partitionKey(URI uri) {
+        String path = uri.getRawPath() != null ? uri.getRawPath() : "";
+        int realms = path.indexOf("/realms/");
+        if (realms < 0) {
+            return uri.getRawAuthority();
+        }
+        int start = realms + "/realms/".length();
+        int end = path.indexOf('/', start);
+        return uri.getRawAuthority() + "/" + path.substring(start, end < 0 ? path.length() : end);
+    }
+
+    private final class Partition {
+
+        final Bulkhead bulkhead = new Bulkhead(properties.getMinPerRealm());
+        final Counter rejected;
+        final List<Meter> meters;
+
+        Partition(String key) {
+            this.rejected = Counter.builder("keycloak.bulkhead.rejected")
+                    .description("Keycloak calls refused because their realm had no free slot")
+                    .tag("partition", key)
+                    .register(meterRegistry);
+            this.meters = List.of(rejected,
+                    gauge("keycloak.bulkhead.limit", key, Bulkhead::limit),
+                    gauge("keycloak.bulkhead.leased", key, Bulkhead::inFlight),
+                    gauge("keycloak.bulkhead.pending", key, Bulkhead::waiting),
+                    gauge("keycloak.bulkhead.available", key, Bulkhead::available));
+        }
+
+        private Gauge gauge(String name, String key, ToDoubleFunction<Bulkhead> value) {
+            return Gauge.builder(name, bulkhead, value).tag("partition", key).register(meterRegistry);
+        }
+
+        void unregister() {
+            meters.forEach(meterRegistry::remove);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package br.dev.brunovieira.authcentral.service;
+
+import br.dev.brunovieira.authcentral.config.ConcurrencyLimitProperties;
+import br.dev.brunovieira.authcentral.exception.ServiceUnavailableException;
+import br.dev.brunovieira.authcentral.util.NanoClock;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.jspecify.annotations.NonNull;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Adaptive limit on concurrent calls to each Keycloak host.
+ * <p>
+ * Runs inside the per-realm {@link KeycloakBulkheads}, so it only counts calls that are about to be sent. Each
+ * host gets a {@link GradientLimiter} fed with the round-trip time of every call (until its response is closed).
+ * Calls over the limit are refused at once with a 503 and {@code Retry-After} rather than queued, which keeps
+ * Keycloak close to its best throughput when it slows down instead of piling up blocked virtual threads. Exported
+ * as {@code keycloak.limiter.{limit,in_flight,rtt,rejected}{host}}.
+ */
+@Component
+@RequiredArgsConstructor
+public class KeycloakConcurrencyLimiter implements ClientHttpRequestInterceptor {
+
+    private final ConcurrencyLimitProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final NanoClock nanoClock;
+    private final ConcurrentHashMap<String, Host> hosts = new ConcurrentHashMap<>();
+
+    @Override
+    public @NonNull ClientHttpResponse intercept(@NonNull HttpRequest request, byte @NonNull [] body,
+                                                 @NonNull ClientHttpRequestExecution execution) throws IOException {
+        if (!properties.isEnabled()) {
+            return execution.execute(request, body);
+        }
+        Host host = hosts.computeIfAbsent(String.valueOf(request.getURI().getRawAuthority()), Host::new);
+        if (!host.limiter.tryAcquire()) {
+            host.rejected.increment();
+            throw new ServiceUnavailableException("Keycloak is at its concurrency limit", properties.getRetryAfterSeconds());
+        }
+        long start = nanoClock.nanoTime();
+        Runnable release = () -> host.limiter.release(nanoClock.nanoTime() - start);
+        try {
+            return new ReleasingResponse(execution.execute(request, body), release);
+        } catch (IOException | RuntimeException e) {
+            release.run();
+            throw e;
+        }
+    }
+
+    GradientLimiter limiter(String host) {
+        Host state = hosts.get(host);
+        return state != null ? state.limiter : null;
+    }
+
+    private final class Host {
+
+        final GradientLimiter limiter = new GradientLimiter(properties);
+        final Counter rejected;
+
+        Host(String name) {
+            this.rejected = Counter.builder("keycloak.limiter.rejected")
+                    .description("Keycloak calls shed because the adaptive concurrency limit was reached")
+                    .tag("host", name)
+                    .register(meterRegistry);
+            Gauge.builder("keycloak.limiter.limit", limiter, GradientLimiter::limit).tag("host", name).register(meterRegistry);
+            Gauge.builder("keycloak.limiter.in_flight", limiter, GradientLimiter::inFlight).tag("host", name).register(meterRegistry);
+            Gauge.builder("keycloak.limiter.rtt", limiter, l -> TimeUnit.NANOSECONDS.toMillis((long) l.recentRttNanos()))
+                    .baseUnit("milliseconds")
+                    .tag("host", name)
+                    .register(meterRegistry);
+        }
+    }
+}
@@ -0,0 +1,342 @@
+package br.dev.brunovieira.authcentral.service;
+
+import br.dev.brunovieira.authcentral.config.RoutingProperties;
+import br.dev.brunovieira.authcentral.exception.ServiceUnavailableException;
+import br.dev.brunovieira.authcentral.model.Tenant;
+import br.dev.brunovieira.authcentral.util.NanoClock;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Picks which Keycloak node serves each call when a tenant lists several ({@code keycloakBaseUrl} plus
+ * {@code keycloakNodes}).
+ * <p>
+ * Every node keeps a moving average of its response time and its calls in flight. A call goes to the cheaper of two
+ * randomly drawn healthy nodes (power of two choices), so load follows latency without every instance piling onto
+ * the same "fastest" node. Connection failures and 5xx responses are counted per node; after
+ * {@code eject-after-failures} in a row the node is skipped for {@code ejection-ms}, then gets traffic again and is
+ * ejected on its next failure unless it answers. When every node is ejected all of them are used. Calls shed by our
+ * own concurrency limits never reached a node and leave its statistics alone.
+ * <p>
+ * Idempotent calls may go through {@link #hedged}: if the first node has not answered within its recent
+ * {@code hedge-percentile} response time, the same call is sent to a second node and the first answer wins.
+ * Exported as {@code keycloak.node.{latency,in_flight,ejected}{node}} and {@code keycloak.hedges{result}}.
+ */
+@Component
+@Slf4j
+public class KeycloakRouter {
+
+    // a power of two, so the sample index wraps with a mask
+    private static final int SAMPLES = 128;
+
+    private final RoutingProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Executor executor;
+    private final NanoClock nanoClock;
+    private final ConcurrentHashMap<String, Node> nodes = new ConcurrentHashMap<>();
+    private final Counter hedgesSent;
+    private final Counter hedgesWon;
+
+    public KeycloakRouter(RoutingProperties properties,
+                          MeterRegistry meterRegistry,
+                          @Qualifier("applicationTaskExecutor") Executor executor,
+                          NanoClock nanoClock) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.executor = executor;
+        this.nanoClock = nanoClock;
+        this.hedgesSent = Counter.builder("keycloak.hedges")
+                .description("Idempotent Keycloak calls sent to a second node because the first was slow")
+                .tag("result", "sent")
+                .register(meterRegistry);
+        this.hedgesWon = Counter.builder("keycloak.hedges")
+                .description("Idempotent Keycloak calls sent to a second node because the first was slow")
+                .tag("result", "won")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Run {@code request} against the base URL of one of the tenant's nodes.
+     */
+    public <T> T call(Tenant tenant, Function<String, T> request) {
+        return send(choose(endpoints(tenant), null), request);
+    }
+
+    /**
+     * Like {@link #call}, but hedged on a second node when the first is slow. Only for requests that are safe to
+     * send twice; with hedging disabled or a single node this is a plain {@link #call}.
+     */
+    public <T> T hedged(Tenant tenant, Function<String, T> request) {
+        List<String> endpoints = endpoints(tenant);
+        if (!properties.isHedging() || endpoints.size() < 2) {
+            return send(choose(endpoints, null), request);
+        }
+        Node primary = choose(endpoints, null);
+        CompletableFuture<T> first = CompletableFuture.supplyAsync(() -> send(primary, request), executor);
+        try {
+            return first.get(hedgeDelayNanos(primary), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            // slower than usual: race a second node below
+        } catch (ExecutionException e) {
+            throw rethrow(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for Keycloak", e);
+        }
+
+        Node backup = choose(endpoints, primary);
+        hedgesSent.increment();
+        log.debug("Hedging call to {} on {}", primary.baseUrl, backup.baseUrl);
+        CompletableFuture<T> second = CompletableFuture.supplyAsync(() -> send(backup, request), executor);
+
+        CompletableFuture<T> winner = new CompletableFuture<>();
+        AtomicInteger nodeFailures = new AtomicInteger();
+        first.whenComplete(settle(winner, nodeFailures, false));
+        second.whenComplete(settle(winner, nodeFailures, true));
+        try {
+            return winner.get();
+        } catch (ExecutionException e) {
+            throw rethrow(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for Keycloak", e);
+        }
+    }
+
+    /**
+     * The first answer completes {@code winner}; a node failure or a locally shed copy only does so once both copies
+     * have failed, since the other node may still answer.
+     */
+    private <T> BiConsumer<T, Throwable> settle(CompletableFuture<T> winner, AtomicInteger nodeFailures, boolean backup) {
+        return (value, error) -> {
+            Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+            if (cause == null) {
+                if (winner.complete(value) && backup) {
+                    hedgesWon.increment();
+                }
+            } else if (!(isNodeFailure(cause) || isLocalRejection(cause)) || nodeFailures.incrementAndGet() == 2) {
+                winner.completeExceptionally(cause);
+            }
+        };
+    }
+
+    /**
+     * The tenant's distinct Keycloak base URLs, {@code keycloakBaseUrl} first.
+     */
+    static List<String> endpoints(Tenant tenant) {
+        List<String> extra = tenant.getKeycloakNodes();
+        if (extra == null || extra.isEmpty()) {
+            return List.of(tenant.getKeycloakBaseUrl());
+        }
+        Set<String> urls = new LinkedHashSet<>();
+        urls.add(tenant.getKeycloakBaseUrl());
+        for (String url : extra) {
+            if (url != null && !url.isBlank()) {
+                urls.add(url.strip());
+            }
+        }
+        return List.copyOf(urls);
+    }
+
+    /**
+     * Power of two choices over the healthy nodes other than {@code exclude}.
+     */
+    private Node choose(List<String> endpoints, Node exclude) {
+        if (endpoints.size() == 1) {
+            return node(endpoints.getFirst());
+        }
+        long now = nanoClock.nanoTime();
+        List<Node> candidates = new ArrayList<>(endpoints.size());
+        for (String url : endpoints) {
+            Node node = node(url);
+            if (node != exclude && !node.ejected(now)) {
+                candidates.add(node);
+            }
+        }
+        if (candidates.isEmpty()) {
+            for (String url : endpoints) {
+                Node node = node(url);
+                if (node != exclude) {
+                    candidates.add(node);
+                }
+            }
+        }
+        if (candidates.size() == 1) {
+            return candidates.getFirst();
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int a = random.nextInt(candidates.size());
+        int b = random.nextInt(candidates.size() - 1);
+        if (b >= a) {
+            b++;
+        }
+        Node left = candidates.get(a);
+        Node right = candidates.get(b);
+        return left.cost() <= right.cost() ? left : right;
+    }
+
+    private <T> T send(Node node, Function<String, T> request) {
+        node.inFlight.incrementAndGet();
+        long start = nanoClock.nanoTime();
+        try {
+            T result = request.apply(node.baseUrl);
+            node.answered(nanoClock.nanoTime() - start);
+            return result;
+        } catch (RuntimeException e) {
+            if (isLocalRejection(e)) {
+                // shed by our own limits before reaching the node: says nothing about its health or speed
+                throw e;
+            }
+            if (isNodeFailure(e)) {
+                node.failed(nanoClock.nanoTime());
+            } else {
+                // a 4xx or a rejection is still an answer from a working node
+                node.answered(nanoClock.nanoTime() - start);
+            }
+            throw e;
+        } finally {
+            node.inFlight.decrementAndGet();
+        }
+    }
+
+    private long hedgeDelayNanos(Node node) {
+        long min = TimeUnit.MILLISECONDS.toNanos(properties.getHedgeMinDelayMs());
+        long max = TimeUnit.MILLISECONDS.toNanos(properties.getHedgeMaxDelayMs());
+        long percentile = node.percentile(properties.getHedgePercentile());
+        return percentile < 0 ? max : Math.clamp(percentile, min, max);
+    }
+
+    Node node(String baseUrl) {
+        return nodes.computeIfAbsent(baseUrl, Node::new);
+    }
+
+    private static boolean isNodeFailure(Throwable e) {
+        return e instanceof ResourceAccessException || e instanceof HttpServerErrorException;
+    }
+
+    /**
+     * Raised by our own concurrency limits ({@link KeycloakConcurrencyLimiter}, {@link KeycloakBulkheads}) without
+     * the node ever being called.
+     */
+    private static boolean isLocalRejection(Throwable e) {
+        return e instanceof ServiceUnavailableException;
+    }
+
+    private static RuntimeException rethrow(Throwable cause) {
+        if (cause instanceof RuntimeException runtime) {
+            return runtime;
+        }
+        if (cause instanceof Error error) {
+            throw error;
+        }
+        return new IllegalStateException(cause);
+    }
+
+    final class Node {
+
+        final String baseUrl;
+        final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger failures = new AtomicInteger();
+        private volatile double latencyNanos;
+        private volatile long ejectedUntil;
+        private volatile boolean ejected;
+
+        // recent response times for the hedge delay, guarded by this
+        private final long[] samples = new long[SAMPLES];
+        private int nextSample;
+        private int sampleCount;
+
+        Node(String baseUrl) {
+            this.baseUrl = baseUrl;
+            Gauge.builder("keycloak.node.latency", this, n -> TimeUnit.NANOSECONDS.toMillis((long) n.latencyNanos))
+                    .baseUnit("milliseconds")
+                    .tag("node", baseUrl)
+                    .register(meterRegistry);
+            Gauge.builder("keycloak.node.in_flight", inFlight, AtomicInteger::get)
+                    .tag("node", baseUrl)
+                    .register(meterRegistry);
+            Gauge.builder("keycloak.node.ejected", this, n -> n.ejected(nanoClock.nanoTime()) ? 1 : 0)
+                    .tag("node", baseUrl)
+                    .register(meterRegistry);
+        }
+
+        /**
+         * Expected wait for one more call: unmeasured nodes cost nothing, so they are tried first.
+         */
+        double cost() {
+            return latencyNanos * (inFlight.get() + 1);
+        }
+
+        boolean ejected(long now) {
+            return ejected && now - ejectedUntil < 0;
+        }
+
+        double latencyNanos() {
+            return latencyNanos;
+        }
+
+        void answered(long elapsedNanos) {
+            failures.set(0);
+            ejected = false;
+            double current = latencyNanos;
+            latencyNanos = current == 0 ? elapsedNanos
+                    : current + properties.getLatencySmoothing() * (elapsedNanos - current);
+            synchronized (this) {
+                samples[nextSample] = elapsedNanos;
+                nextSample = (nextSample + 1) & (SAMPLES - 1);
+                if (sampleCount < SAMPLES) {
+                    sampleCount++;
+                }
+            }
+        }
+
+        void failed(long now) {
+            if (failures.incrementAndGet() >= properties.getEjectAfterFailures()) {
+                if (!ejected(now)) {
+                    log.warn("Ejecting Keycloak node {} for {} ms after {} consecutive failures",
+                            baseUrl, properties.getEjectionMs(), failures.get());
+                }
+                ejectedUntil = now + TimeUnit.MILLISECONDS.toNanos(properties.getEjectionMs());
+                ejected = true;
+            }
+        }
+
+        /**
+         * The given percentile of recent response times, or {@code -1} before the first answer.
+         */
+        long percentile(double percentile) {
+            long[] sorted;
+            synchronized (this) {
+                if (sampleCount == 0) {
+                    return -1;
+                }
+                sorted = Arrays.copyOf(samples, sampleCount);
+            }
+            Arrays.sort(sorted);
+            return sorted[Math.clamp((long) Math.ceil(percentile * sorted.length) - 1, 0, sorted.length - 1)];
+        }
+    }
+}
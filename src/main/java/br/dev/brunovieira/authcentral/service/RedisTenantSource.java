@@ -0,0 +1,68 @@
+package br.dev.brunovieira.authcentral.service;
+
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Tenants from the admin-managed Redis hash. Indexed with {@code HSCAN} so a large hash does not block Redis,
+ * and an entry is fetched with {@code HGET} when its tenant is resolved; changes are announced over pub/sub
+ * rather than polled.
+ */
+public class RedisTenantSource implements TenantSource {
+
+    private static final int SCAN_COUNT = 1000;
+
+    private final StringRedisTemplate redisTemplate;
+    private final String hashKey;
+
+    public RedisTenantSource(StringRedisTemplate redisTemplate, String hashKey) {
+        this.redisTemplate = redisTemplate;
+        this.hashKey = hashKey;
+    }
+
+    @Override
+    public String name() {
+        return "redis";
+    }
+
+    /**
+     * Every key in the hash; entries are looked up by key, so the locator is unused.
+     */
+    @Override
+    public Map<String, Long> index() {
+        Map<String, Long> index = new HashMap<>();
+        HashOperations<String, Object, Object> hash = redisTemplate.opsForHash();
+        try (Cursor<Map.Entry<Object, Object>> cursor = hash.scan(hashKey, ScanOptions.scanOptions().count(SCAN_COUNT).build())) {
+            while (cursor.hasNext()) {
+                index.put((String) cursor.next().getKey(), 0L);
+            }
+        }
+        return index;
+    }
+
+    @Override
+    public String entry(String tenantKey, long locator) {
+        return entry(tenantKey);
+    }
+
+    /**
+     * One entry, or {@code null} if the hash does not have it.
+     */
+    public String entry(String tenantKey) {
+        Object value = redisTemplate.opsForHash().get(hashKey, tenantKey);
+        return value != null ? (String) value : null;
+    }
+
+    public void put(String tenantKey, String json) {
+        redisTemplate.opsForHash().put(hashKey, tenantKey, json);
+    }
+
+    public void delete(String tenantKey) {
+        redisTemplate.opsForHash().delete(hashKey, tenantKey);
+    }
+}
@@ -0,0 +1,217 @@
+package br.dev.brunovieira.authcentral.service;
+
+import br.dev.brunovieira.authcentral.config.HttpClientConfig;
+import br.dev.brunovieira.authcentral.config.RefreshCoalescingProperties;
+import br.dev.brunovieira.authcentral.exception.AuthenticationException;
+import br.dev.brunovieira.authcentral.model.AuthOutcome;
+import br.dev.brunovieira.authcentral.model.Tenant;
+import br.dev.brunovieira.authcentral.util.AesGcm;
+import br.dev.brunovieira.authcentral.util.NanoClock;
+import br.dev.brunovieira.authcentral.util.RedisLeases;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight for token refreshes.
+ * <p>
+ * Clients often fire several requests with the same refresh token at once (parallel tabs, retries). Keycloak
+ * rotates refresh tokens, so only the first of those calls would succeed and the rest would fail or revoke the
+ * session. Callers holding the same token are therefore collapsed into one upstream call: in-process through a
+ * shared future, across instances through a short Redis lease whose holder publishes the result for the others.
+ * <p>
+ * The shared result is Keycloak's token response body, kept unparsed so every caller can shape it as it asked
+ * for, or Keycloak's rejection of the token, which is handed to other instances for a shorter time. Unexpected
+ * failures are only shared in-process; another instance retries once the lease is released. Redis keys are a
+ * SHA-256 of tenant and token, never the token itself. A handed-off token response is sealed with
+ * AES-GCM under a key derived from the refresh token by HKDF, so reading it takes the token that was redeemed, not
+ * just access to Redis, and it expires soon after the lease is released. The lease outlives a Keycloak call that
+ * runs into its timeouts, and is released only by its holder. If Redis is unavailable only the in-process
+ * coalescing applies.
+ */
+@Component
+@Slf4j
+public class RefreshTokenCoalescer {
+
+    static final String LEASE_PREFIX = "auth-central:refresh:lease:";
+    static final String RESULT_PREFIX = "auth-central:refresh:result:";
+    private static final String ERROR_MARKER = "!";
+    private static final byte[] HKDF_SALT = "auth-central:refresh-result".getBytes(StandardCharsets.UTF_8);
+    /**
+     * Shortest lease: a Keycloak call may take up to its connect and read timeouts, plus time to publish the result.
+     */
+    static final Duration MIN_LEASE = HttpClientConfig.KEYCLOAK_CONNECT_TIMEOUT
+            .plus(HttpClientConfig.KEYCLOAK_READ_TIMEOUT)
+            .plusSeconds(5);
+
+    private final RefreshCoalescingProperties properties;
+    private final StringRedisTemplate redisTemplate;
+    private final NanoClock nanoClock;
+    private final Duration lease;
+
+    private final String instanceId = UUID.randomUUID().toString();
+    private final ConcurrentHashMap<String, CompletableFuture<AuthOutcome<byte[]>>> inFlight = new ConcurrentHashMap<>();
+
+    public RefreshTokenCoalescer(RefreshCoalescingProperties properties,
+                                 StringRedisTemplate redisTemplate,
+                                 NanoClock nanoClock) {
+        this.properties = properties;
+        this.redisTemplate = redisTemplate;
+        this.nanoClock = nanoClock;
+        this.lease = Duration.ofMillis(Math.max(properties.getLeaseMs(), MIN_LEASE.toMillis()));
+    }
+
+    /**
+     * Run {@code upstream} once for all concurrent callers refreshing the same token and hand every caller its
+     * outcome.
+     */
+    public AuthOutcome<byte[]> refresh(Tenant tenant, String refreshToken, Supplier<AuthOutcome<byte[]>> upstream) {
+        if (!properties.isEnabled()) {
+            return upstream.get();
+        }
+        String flightKey = flightKey(tenant, refreshToken);
+        CompletableFuture<AuthOutcome<byte[]>> flight = new CompletableFuture<>();
+        CompletableFuture<AuthOutcome<byte[]>> existing = inFlight.putIfAbsent(flightKey, flight);
+        if (existing != null) {
+            return join(existing);
+        }
+        try {
+            AuthOutcome<byte[]> outcome = refreshAcrossInstances(flightKey, resultKey(tenant, refreshToken), upstream);
+            flight.complete(outcome);
+            return outcome;
+        } catch (RuntimeException e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(flightKey, flight);
+        }
+    }
+
+    int inFlightCount() {
+        return inFlight.size();
+    }
+
+    private AuthOutcome<byte[]> refreshAcrossInstances(String flightKey, SecretKey resultKey,
+                                                       Supplier<AuthOutcome<byte[]>> upstream) {
+        long deadline = nanoClock.nanoTime() + lease.multipliedBy(2).toNanos();
+        while (true) {
+            Boolean acquired;
+            try {
+                String handedOff = redisTemplate.opsForValue().get(RESULT_PREFIX + flightKey);
+                if (handedOff != null) {
+                    AuthOutcome<byte[]> outcome = decode(flightKey, resultKey, handedOff);
+                    if (outcome != null) {
+                        return outcome;
+                    }
+                    log.warn("Discarding a refresh result that does not open with this token, calling Keycloak directly");
+                    return upstream.get();
+                }
+                acquired = redisTemplate.opsForValue().setIfAbsent(LEASE_PREFIX + flightKey, instanceId, lease);
+            } catch (Exception e) {
+                log.debug("Refresh coalescing unavailable, calling Keycloak directly: {}", e.getMessage());
+                return upstream.get();
+            }
+            if (Boolean.TRUE.equals(acquired)) {
+                return lead(flightKey, resultKey, upstream);
+            }
+            if (nanoClock.nanoTime() - deadline > 0) {
+                log.warn("Timed out waiting for a concurrent token refresh, calling Keycloak directly");
+                return upstream.get();
+            }
+            try {
+                Thread.sleep(properties.getPollIntervalMs());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AuthenticationException("Token refresh interrupted", e);
+            }
+        }
+    }
+
+    private AuthOutcome<byte[]> lead(String flightKey, SecretKey resultKey, Supplier<AuthOutcome<byte[]>> upstream) {
+        try {
+            AuthOutcome<byte[]> outcome = upstream.get();
+            switch (outcome) {
+                case AuthOutcome.Granted<byte[]> granted -> publish(flightKey,
+                        seal(flightKey, resultKey, granted.value()), properties.getResultTtlMs());
+                case AuthOutcome.Rejected<byte[]> rejected -> publish(flightKey,
+                        ERROR_MARKER + rejected.reason(), properties.getErrorTtlMs());
+            }
+            return outcome;
+        } finally {
+            try {
+                RedisLeases.release(redisTemplate, LEASE_PREFIX + flightKey, instanceId);
+            } catch (Exception e) {
+                log.debug("Failed to release refresh lease: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void publish(String flightKey, String value, long ttlMs) {
+        try {
+            redisTemplate.opsForValue().set(RESULT_PREFIX + flightKey, value, Duration.ofMillis(ttlMs));
+        } catch (Exception e) {
+            log.debug("Failed to publish refresh result: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * The outcome another instance handed off, or {@code null} if a response does not open with {@code resultKey}.
+     */
+    AuthOutcome<byte[]> decode(String flightKey, SecretKey resultKey, String handedOff) {
+        if (handedOff.startsWith(ERROR_MARKER)) {
+            return AuthOutcome.rejected(handedOff.substring(ERROR_MARKER.length()));
+        }
+        byte[] plaintext = AesGcm.open(resultKey, flightKey.getBytes(StandardCharsets.US_ASCII), handedOff);
+        return plaintext != null ? AuthOutcome.granted(plaintext) : null;
+    }
+
+    /**
+     * Base64 of IV and AES-GCM ciphertext of {@code tokenResponse}, bound to {@code flightKey}.
+     */
+    String seal(String flightKey, SecretKey resultKey, byte[] tokenResponse) {
+        return AesGcm.seal(resultKey, flightKey.getBytes(StandardCharsets.US_ASCII), tokenResponse);
+    }
+
+    private static AuthOutcome<byte[]> join(CompletableFuture<AuthOutcome<byte[]>> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * HKDF-SHA256 of tenant and refresh token: an AES-256 key only holders of the token can derive, unrelated to
+     * the {@link #flightKey} that names the Redis entries.
+     */
+    static SecretKey resultKey(Tenant tenant, String refreshToken) {
+        return AesGcm.deriveKey(HKDF_SALT, String.valueOf(tenant.getTenantKey()), refreshToken);
+    }
+
+    static String flightKey(Tenant tenant, String refreshToken) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(String.valueOf(tenant.getTenantKey()).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(refreshToken.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package br.dev.brunovieira.authcentral.service;
+
+import org.jspecify.annotations.NonNull;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs {@code release} once, when the caller has read and closed the response, so a slot taken for an outgoing
+ * call also covers reading its body.
+ */
+final class ReleasingResponse implements ClientHttpResponse {
+
+    private final ClientHttpResponse delegate;
+    private final Runnable release;
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    ReleasingResponse(ClientHttpResponse delegate, Runnable release) {
+        this.delegate = delegate;
+        this.release = release;
+    }
+
+    @Override
+    public @NonNull HttpStatusCode getStatusCode() throws IOException {
+        return delegate.getStatusCode();
+    }
+
+    @Override
+    public @NonNull String getStatusText() throws IOException {
+        return delegate.getStatusText();
+    }
+
+    @Override
+    public @NonNull HttpHeaders getHeaders() {
+        return delegate.getHeaders();
+    }
+
+    @Override
+    public @NonNull InputStream getBody() throws IOException {
+        return delegate.getBody();
+    }
+
+    @Override
+    public void close() {
+        try {
+            delegate.close();
+        } finally {
+            if (released.compareAndSet(false, true)) {
+                release.run();
+            }
+        }
+    }
+}
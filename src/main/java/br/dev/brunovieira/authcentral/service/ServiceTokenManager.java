@@ -0,0 +1,391 @@
+package br.dev.brunovieira.authcentral.service;
+
+import br.dev.brunovieira.authcentral.config.KeycloakConfig;
+import br.dev.brunovieira.authcentral.config.TenantCacheProperties;
+import br.dev.brunovieira.authcentral.exception.AuthenticationException;
+import br.dev.brunovieira.authcentral.exception.ServiceUnavailableException;
+import br.dev.brunovieira.authcentral.model.Tenant;
+import br.dev.brunovieira.authcentral.util.AesGcm;
+import br.dev.brunovieira.authcentral.util.RedisLeases;
+import br.dev.brunovieira.authcentral.util.TenantCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestClient;
+import tools.jackson.databind.json.JsonMapper;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Client-credentials tokens of the tenants' service accounts, used for the Keycloak admin API.
+ * <p>
+ * A token is replaced in the background once {@code refresh-fraction} of its lifetime has passed, so callers
+ * always get a valid one from memory. The current token of each tenant is shared through Redis: whichever
+ * instance gets the short fetch lease asks Keycloak, the others pick the new token up from Redis. Only when an
+ * instance has no usable token at all (first use of a tenant, or a long outage) does the caller wait for one.
+ * The shared copy is sealed under a key derived from the tenant's client secret, and a fetch lease is released
+ * only by its holder. If Redis is unavailable every instance fetches its own tokens.
+ * <p>
+ * Tenants are kept in a {@link TenantCache}: one not asked for a token within {@code app.tenant-cache} bounds
+ * stops being refreshed and is forgotten until its next use.
+ */
+@Component
+@Slf4j
+public class ServiceTokenManager {
+
+    static final String KEY_PREFIX = "auth-central:service-token:";
+    private static final long POLL_MS = 25;
+    private static final byte[] HKDF_SALT = "auth-central:service-token".getBytes(StandardCharsets.UTF_8);
+
+    private final KeycloakConfig.Token properties;
+    private final RestClient restClient;
+    private final KeycloakRouter router;
+    private final TokenRequestEncoder requestEncoder;
+    private final StringRedisTemplate redisTemplate;
+    private final JsonMapper jsonMapper;
+    private final TenantRegistry tenantRegistry;
+    private final Executor refresher;
+    private final Clock clock;
+    private final int maxWarmTenants;
+
+    private final String instanceId = UUID.randomUUID().toString();
+    private final TenantCache<String, ManagedToken> tokens;
+    private final Counter fetches;
+    private final Counter failures;
+
+    public ServiceTokenManager(KeycloakConfig keycloakConfig,
+                               RestClient restClient,
+                               KeycloakRouter router,
+                               TokenRequestEncoder requestEncoder,
+                               StringRedisTemplate redisTemplate,
+                               JsonMapper jsonMapper,
+                               TenantRegistry tenantRegistry,
+                               TenantCacheProperties cacheProperties,
+                               MeterRegistry meterRegistry,
+                               @Qualifier("applicationTaskExecutor") Executor refresher,
+                               Clock clock) {
+        this.properties = keycloakConfig.getToken();
+        this.restClient = restClient;
+        this.router = router;
+        this.requestEncoder = requestEncoder;
+        this.redisTemplate = redisTemplate;
+        this.jsonMapper = jsonMapper;
+        this.tenantRegistry = tenantRegistry;
+        this.refresher = refresher;
+        this.clock = clock;
+        this.maxWarmTenants = cacheProperties.getMaxTenants();
+        this.tokens = new TenantCache<>("service-tokens", cacheProperties.getMaxTenants(),
+                cacheProperties.getIdleEvictionMs(), managed -> managed.token = null, meterRegistry, clock::millis);
+        this.fetches = Counter.builder("keycloak.service_token.fetches")
+                .description("Client-credentials tokens fetched from Keycloak by this instance")
+                .register(meterRegistry);
+        this.failures = Counter.builder("keycloak.service_token.refresh.failures")
+                .description("Background token refreshes that failed")
+                .register(meterRegistry);
+    }
+
+    /**
+     * A valid access token for the tenant's service account. Served from memory; blocks only when this instance
+     * has never held a token for the tenant or its last one has expired.
+     */
+    public String currentToken(Tenant tenant) {
+        try (TenantCache.Lease<ManagedToken> lease = managed(tenant)) {
+            ManagedToken managed = lease.value();
+            ServiceToken token = managed.token;
+            long now = clock.millis();
+            if (token != null && now < token.expiresAt()) {
+                if (now >= token.refreshAt()) {
+                    scheduleRefresh(tenant.getTenantKey());
+                }
+                return token.value();
+            }
+            return acquire(managed).value();
+        }
+    }
+
+    /**
+     * Start fetching tokens for the known tenants, up to the tenant cache size, as soon as the application is up.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        tenantRegistry.tenants(maxWarmTenants).forEach(tenant -> {
+            try (TenantCache.Lease<ManagedToken> ignored = managed(tenant)) {
+                scheduleRefresh(tenant.getTenantKey());
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${keycloak.token.check-interval-ms:1000}")
+    public void refreshDue() {
+        long now = clock.millis();
+        tokens.forEach((tenantKey, managed) -> {
+            ServiceToken token = managed.token;
+            if (token == null || now >= token.refreshAt()) {
+                scheduleRefresh(tenantKey);
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${app.tenant-cache.sweep-interval-ms:60000}")
+    public void evictIdle() {
+        tokens.evictIdle();
+    }
+
+    int cachedTenants() {
+        return tokens.size();
+    }
+
+    private TenantCache.Lease<ManagedToken> managed(Tenant tenant) {
+        TenantCache.Lease<ManagedToken> lease = tokens.acquire(tenant.getTenantKey(), key -> new ManagedToken(tenant));
+        lease.value().tenant = tenant;
+        return lease;
+    }
+
+    /**
+     * Refresh in the background. The task pins the tenant without counting as a use, so refreshes alone do not
+     * keep an idle tenant cached.
+     */
+    private void scheduleRefresh(String tenantKey) {
+        TenantCache.Lease<ManagedToken> lease = tokens.pin(tenantKey);
+        if (lease == null) {
+            return;
+        }
+        ManagedToken managed = lease.value();
+        if (!managed.refreshing.compareAndSet(false, true)) {
+            lease.close();
+            return;
+        }
+        try {
+            refresher.execute(() -> {
+                try {
+                    refresh(managed);
+                } catch (Exception e) {
+                    failures.increment();
+                    log.warn("Background token refresh failed for tenant {}: {}", tenantKey, e.getMessage());
+                } finally {
+                    managed.refreshing.set(false);
+                    lease.close();
+                }
+            });
+        } catch (RuntimeException e) {
+            managed.refreshing.set(false);
+            lease.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Wait for a usable token. One caller per tenant waits and the others share its result through the tenant's
+     * in-flight future, so no caller holds a lock across the Redis and Keycloak round trips.
+     */
+    private ServiceToken acquire(ManagedToken managed) {
+        CompletableFuture<ServiceToken> flight = new CompletableFuture<>();
+        CompletableFuture<ServiceToken> existing = managed.acquiring.compareAndExchange(null, flight);
+        if (existing != null) {
+            return join(existing);
+        }
+        try {
+            ServiceToken token = await(managed);
+            flight.complete(token);
+            return token;
+        } catch (RuntimeException e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            managed.acquiring.set(null);
+        }
+    }
+
+    /**
+     * Take the token another instance is fetching, or fetch it here once its lease runs out.
+     */
+    private ServiceToken await(ManagedToken managed) {
+        long deadline = clock.millis() + properties.getLeaseMs();
+        while (true) {
+            ServiceToken token = managed.token;
+            if (token != null && clock.millis() < token.expiresAt()) {
+                return token;
+            }
+            token = refresh(managed);
+            if (token != null) {
+                return token;
+            }
+            if (clock.millis() >= deadline) {
+                return adopt(managed, fetch(managed.tenant));
+            }
+            try {
+                Thread.sleep(POLL_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AuthenticationException("Interrupted while waiting for a service token");
+            }
+        }
+    }
+
+    /**
+     * Bring the tenant's token up to date: adopt a fresher shared one, or fetch and share a new one if this
+     * instance wins the lease. Returns {@code null} when another instance holds the lease and nothing usable is
+     * known yet.
+     */
+    private ServiceToken refresh(ManagedToken managed) {
+        Tenant tenant = managed.tenant;
+        String key = KEY_PREFIX + tenant.getTenantKey();
+        long now = clock.millis();
+
+        ServiceToken shared;
+        boolean leased;
+        try {
+            shared = open(tenant, redisTemplate.opsForValue().get(key));
+            if (shared != null && now < shared.refreshAt()) {
+                return adopt(managed, shared);
+            }
+            leased = Boolean.TRUE.equals(redisTemplate.opsForValue()
+                    .setIfAbsent(key + ":lease", instanceId, Duration.ofMillis(properties.getLeaseMs())));
+        } catch (Exception e) {
+            log.warn("Redis unavailable for service tokens, fetching for tenant {} locally: {}",
+                    tenant.getTenantKey(), e.getMessage());
+            return adopt(managed, fetch(tenant));
+        }
+
+        if (!leased) {
+            // Another instance is fetching; keep what we have until it shares the result
+            if (shared != null && now < shared.expiresAt()) {
+                return adopt(managed, shared);
+            }
+            ServiceToken current = managed.token;
+            return current != null && now < current.expiresAt() ? current : null;
+        }
+
+        try {
+            ServiceToken fetched = fetch(tenant);
+            long ttl = fetched.expiresAt() - clock.millis();
+            if (ttl > 0) {
+                redisTemplate.opsForValue().set(key, seal(tenant, fetched), Duration.ofMillis(ttl));
+            }
+            return adopt(managed, fetched);
+        } finally {
+            try {
+                RedisLeases.release(redisTemplate, key + ":lease", instanceId);
+            } catch (Exception e) {
+                log.debug("Could not release service token lease for tenant {}: {}", tenant.getTenantKey(), e.getMessage());
+            }
+        }
+    }
+
+    private ServiceToken adopt(ManagedToken managed, ServiceToken token) {
+        ServiceToken current = managed.token;
+        if (current == null || token.expiresAt() >= current.expiresAt()) {
+            managed.token = token;
+        }
+        return managed.token;
+    }
+
+    @SuppressWarnings("unchecked")
+    private ServiceToken fetch(Tenant tenant) {
+        TokenRequestEncoder.Template template = requestEncoder.template(tenant);
+
+        long requestedAt = clock.millis();
+        Map<String, Object> response;
+        try {
+            response = router.call(tenant, baseUrl -> restClient.post()
+                    .uri(template.tokenUri(baseUrl))
+                    .contentType(MediaType.APPLICATION_FORM_URLENCODED)
+                    .body(template.clientCredentialsGrant())
+                    .retrieve()
+                    .body(Map.class));
+        } catch (HttpClientErrorException e) {
+            // the tenant's service account is misconfigured; not something the caller can fix by signing in again
+            throw new ServiceUnavailableException("Service account token request rejected: " + e.getStatusCode());
+        }
+        if (response == null || !(response.get("access_token") instanceof String accessToken)) {
+            throw new ServiceUnavailableException("Service account token response without access_token");
+        }
+        fetches.increment();
+
+        long lifetimeMs = response.get("expires_in") instanceof Number n ? n.longValue() * 1000 : 60_000;
+        long refreshAt = requestedAt + (long) (lifetimeMs * properties.getRefreshFraction());
+        log.debug("Fetched service token for tenant {}, valid for {} ms", tenant.getTenantKey(), lifetimeMs);
+        return new ServiceToken(accessToken, requestedAt + lifetimeMs, refreshAt);
+    }
+
+    /**
+     * The token another instance shared, or {@code null} if there is none or it does not open with the tenant's
+     * client secret, as happens for a while after the secret is rotated.
+     */
+    ServiceToken open(Tenant tenant, String sealed) {
+        if (sealed == null) {
+            return null;
+        }
+        byte[] json = AesGcm.open(sealingKey(tenant), associatedData(tenant), sealed);
+        if (json == null) {
+            log.warn("Ignoring a shared service token for tenant {} that does not open with its client secret",
+                    tenant.getTenantKey());
+            return null;
+        }
+        return jsonMapper.readValue(json, ServiceToken.class);
+    }
+
+    /**
+     * The token as stored in Redis: sealed with AES-GCM under a key derived from the tenant's client secret, so
+     * reading it takes the secret that could fetch it anyway, not just access to Redis.
+     */
+    String seal(Tenant tenant, ServiceToken token) {
+        return AesGcm.seal(sealingKey(tenant), associatedData(tenant), jsonMapper.writeValueAsBytes(token));
+    }
+
+    private static SecretKey sealingKey(Tenant tenant) {
+        return AesGcm.deriveKey(HKDF_SALT, String.valueOf(tenant.getTenantKey()),
+                String.valueOf(tenant.getClientSecret()));
+    }
+
+    private static byte[] associatedData(Tenant tenant) {
+        return (KEY_PREFIX + tenant.getTenantKey()).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static ServiceToken join(CompletableFuture<ServiceToken> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * The shared form of a token; times are epoch milliseconds.
+     */
+    record ServiceToken(String value, long expiresAt, long refreshAt) {
+    }
+
+    private static final class ManagedToken {
+
+        volatile Tenant tenant;
+        volatile ServiceToken token;
+        final AtomicBoolean refreshing = new AtomicBoolean();
+        final AtomicReference<CompletableFuture<ServiceToken>> acquiring = new AtomicReference<>();
+
+        ManagedToken(Tenant tenant) {
+            this.tenant = tenant;
+        }
+    }
+}
@@ -0,0 +1,357 @@
+package br.dev.brunovieira.authcentral.service;
+
+import br.dev.brunovieira.authcentral.config.TenantProperties;
+import br.dev.brunovieira.authcentral.model.Tenant;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.jspecify.annotations.NonNull;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process tenant lookup.
+ * <p>
+ * Resolution is a few map reads — no Redis round trip — so it keeps working while Redis is slow or down.
+ * Tenants come from the configuration file, then the {@link TenantSource}s in increasing priority: an optional
+ * tenants file and the admin-managed Redis hash. Of each source only an index of its tenant keys is held; an
+ * entry is read back from its source and built into a {@link Tenant} the first time its key is resolved, so
+ * startup and memory do not depend on how many tenants exist but on how many are used. Keys that are not in
+ * any index never reach a source.
+ * <p>
+ * Changes are applied without a restart: a single-tenant change in Redis is announced over pub/sub with its key
+ * and re-read alone, a full reload is announced without one, and file sources are re-read when they change.
+ */
+@Component
+@Slf4j
+public class TenantRegistry implements MessageListener {
+
+    private final TenantProperties tenantProperties;
+    private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final JsonMapper jsonMapper;
+    private final RedisTenantSource redisSource;
+    private final List<Layer> layers;
+
+    private final String instanceId = UUID.randomUUID().toString();
+    private final ConcurrentHashMap<String, Resolved> resolved = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Long> ids = new ConcurrentHashMap<>();
+    private final AtomicLong idSeq = new AtomicLong();
+    private volatile int size;
+
+    public TenantRegistry(TenantProperties tenantProperties,
+                          StringRedisTemplate redisTemplate,
+                          RedisMessageListenerContainer listenerContainer,
+                          JsonMapper jsonMapper) {
+        this.tenantProperties = tenantProperties;
+        this.redisTemplate = redisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.jsonMapper = jsonMapper;
+        this.redisSource = new RedisTenantSource(redisTemplate, tenantProperties.getRegistry().getRedisKey());
+        List<Layer> all = new ArrayList<>();
+        fileSources(tenantProperties, jsonMapper).forEach(source -> all.add(new Layer(source)));
+        all.add(new Layer(redisSource));
+        this.layers = List.copyOf(all);
+    }
+
+    private static List<TenantSource> fileSources(TenantProperties tenantProperties, JsonMapper jsonMapper) {
+        String file = tenantProperties.getRegistry().getFile();
+        return file != null && !file.isBlank() ? List.of(new FileTenantSource(Path.of(file), jsonMapper)) : List.of();
+    }
+
+    @PostConstruct
+    void init() {
+        reload();
+        listenerContainer.addMessageListener(this, new ChannelTopic(tenantProperties.getRegistry().getReloadChannel()));
+    }
+
+    /**
+     * Resolve an active tenant by API key, or {@code null} if unknown or inactive.
+     */
+    public Tenant find(String tenantKey) {
+        if (tenantKey == null) {
+            return null;
+        }
+        Tenant tenant = resolve(tenantKey);
+        return tenant != null && Boolean.TRUE.equals(tenant.getIsActive()) ? tenant : null;
+    }
+
+    /**
+     * Up to {@code max} active tenants, configured ones first. Builds every tenant it returns.
+     */
+    public List<Tenant> tenants(int max) {
+        List<Tenant> result = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        for (String key : tenantProperties.getTenantMap().keySet()) {
+            collect(key, seen, result, max);
+        }
+        for (int i = layers.size() - 1; i >= 0 && result.size() < max; i--) {
+            for (String key : layers.get(i).index.keySet()) {
+                if (!collect(key, seen, result, max)) {
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+
+    private boolean collect(String key, Set<String> seen, List<Tenant> result, int max) {
+        if (result.size() >= max) {
+            return false;
+        }
+        if (seen.add(key)) {
+            Tenant tenant = find(key);
+            if (tenant != null) {
+                result.add(tenant);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Tenant keys known to the registry, active or not, including entries not parsed yet.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Re-index every source. A source that cannot be read keeps its previous index.
+     */
+    public synchronized int reload() {
+        tenantProperties.getTenantMap().values().forEach(tenant -> {
+            ids.put(tenant.getTenantKey(), tenant.getId());
+            idSeq.accumulateAndGet(tenant.getId(), Math::max);
+        });
+        layers.forEach(this::load);
+        applyChanges();
+        log.info("Tenant registry reloaded: {} tenant(s)", size);
+        return size;
+    }
+
+    /**
+     * Re-index the sources whose version changed since they were last read, e.g. an edited tenants file or a
+     * source that could not be read before.
+     */
+    @Scheduled(fixedDelayString = "${app.registry.poll-ms:10000}", initialDelayString = "${app.registry.poll-ms:10000}")
+    public synchronized void pollSources() {
+        boolean changed = false;
+        for (Layer layer : layers) {
+            try {
+                if (layer.source.version() != layer.version) {
+                    changed |= load(layer);
+                }
+            } catch (Exception e) {
+                log.debug("Could not check tenant source {}: {}", layer.source.name(), e.getMessage());
+            }
+        }
+        if (changed) {
+            applyChanges();
+            log.info("Tenant sources changed, registry now has {} tenant(s)", size);
+        }
+    }
+
+    /**
+     * Reload locally and ask every other instance to do the same.
+     */
+    public int reloadAndBroadcast() {
+        int count = reload();
+        publish(instanceId);
+        return count;
+    }
+
+    /**
+     * Store a tenant in the Redis hash and propagate the change to all instances.
+     */
+    public int upsert(String tenantKey, TenantProperties.TenantEntry entry) {
+        String json = jsonMapper.writeValueAsString(entry);
+        redisSource.put(tenantKey, json);
+        apply(tenantKey, json);
+        publish(instanceId + " " + tenantKey);
+        return size;
+    }
+
+    /**
+     * Remove a tenant from the Redis hash and propagate the change to all instances.
+     */
+    public int remove(String tenantKey) {
+        redisSource.delete(tenantKey);
+        apply(tenantKey, null);
+        publish(instanceId + " " + tenantKey);
+        return size;
+    }
+
+    @Override
+    public void onMessage(@NonNull Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split(" ", 2);
+        if (instanceId.equals(parts[0])) {
+            return;
+        }
+        if (parts.length == 1) {
+            log.info("Tenant reload requested by instance {}", parts[0]);
+            reload();
+            return;
+        }
+        try {
+            apply(parts[1], redisSource.entry(parts[1]));
+        } catch (Exception e) {
+            log.warn("Could not refresh tenant {} from Redis: {}", parts[1], e.getMessage());
+        }
+    }
+
+    private Tenant resolve(String tenantKey) {
+        Layer layer = layerOf(tenantKey);
+        if (layer == null) {
+            return tenantProperties.getTenantMap().get(tenantKey);
+        }
+        long generation = layer.generation;
+        Resolved current = resolved.get(tenantKey);
+        if (current != null && current.layer() == layer && current.generation() == generation) {
+            return current.tenant();
+        }
+        String json;
+        try {
+            json = layer.source.entry(tenantKey, layer.index.getOrDefault(tenantKey, 0L));
+        } catch (Exception e) {
+            log.warn("Could not read tenant {} from {}: {}", tenantKey, layer.source.name(), e.getMessage());
+            return null;
+        }
+        // malformed and vanished entries are remembered too, so they are not re-read and logged on every request;
+        // an entry replaced by apply() meanwhile is newer than this one and is kept
+        Resolved built = build(tenantKey, layer, generation, json);
+        boolean stored = current == null
+                ? resolved.putIfAbsent(tenantKey, built) == null
+                : resolved.replace(tenantKey, current, built);
+        return stored ? built.tenant() : resolve(tenantKey);
+    }
+
+    private Resolved build(String tenantKey, Layer layer, long generation, String json) {
+        Tenant tenant = null;
+        if (json != null) {
+            try {
+                TenantProperties.TenantEntry entry = jsonMapper.readValue(json, TenantProperties.TenantEntry.class);
+                tenant = entry.toTenant(ids.computeIfAbsent(tenantKey, key -> idSeq.incrementAndGet()), tenantKey);
+            } catch (Exception e) {
+                log.warn("Ignoring malformed tenant entry {}: {}", tenantKey, e.getMessage());
+            }
+        }
+        return new Resolved(layer, generation, tenant);
+    }
+
+    /**
+     * The highest-priority source that has {@code tenantKey}, or {@code null}.
+     */
+    private Layer layerOf(String tenantKey) {
+        for (int i = layers.size() - 1; i >= 0; i--) {
+            if (layers.get(i).index.containsKey(tenantKey)) {
+                return layers.get(i);
+            }
+        }
+        return null;
+    }
+
+    private boolean load(Layer layer) {
+        try {
+            // read the version first, so a change made while reading is picked up by the next poll
+            long version = layer.source.version();
+            layer.index = new ConcurrentHashMap<>(layer.source.index());
+            layer.version = version;
+            layer.generation++;
+            return true;
+        } catch (Exception e) {
+            log.warn("Could not read tenants from {}, keeping {} entries: {}",
+                    layer.source.name(), layer.index.size(), e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Change one Redis entry in place; {@code json} is {@code null} for a removed tenant. The new entry is built
+     * right away, as it is already at hand.
+     */
+    private synchronized void apply(String tenantKey, String json) {
+        boolean before = known(tenantKey);
+        Layer redisLayer = layers.getLast();
+        if (json != null) {
+            redisLayer.index.put(tenantKey, 0L);
+            resolved.put(tenantKey, build(tenantKey, redisLayer, redisLayer.generation, json));
+        } else {
+            redisLayer.index.remove(tenantKey);
+            resolved.remove(tenantKey);
+        }
+        size += (known(tenantKey) ? 1 : 0) - (before ? 1 : 0);
+    }
+
+    private void applyChanges() {
+        resolved.entrySet().removeIf(e -> layerOf(e.getKey()) != e.getValue().layer());
+        int count = 0;
+        for (String key : tenantProperties.getTenantMap().keySet()) {
+            if (layerOf(key) == null) {
+                count++;
+            }
+        }
+        for (int i = 0; i < layers.size(); i++) {
+            for (String key : layers.get(i).index.keySet()) {
+                if (!inLayerAbove(key, i)) {
+                    count++;
+                }
+            }
+        }
+        size = count;
+    }
+
+    private boolean inLayerAbove(String tenantKey, int layer) {
+        for (int i = layer + 1; i < layers.size(); i++) {
+            if (layers.get(i).index.containsKey(tenantKey)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean known(String tenantKey) {
+        return layerOf(tenantKey) != null || tenantProperties.getTenantMap().containsKey(tenantKey);
+    }
+
+    private void publish(String message) {
+        try {
+            redisTemplate.convertAndSend(tenantProperties.getRegistry().getReloadChannel(), message);
+        } catch (Exception e) {
+            log.warn("Failed to broadcast tenant change: {}", e.getMessage());
+        }
+    }
+
+    private static final class Layer {
+
+        final TenantSource source;
+        volatile Map<String, Long> index = Map.of();
+        volatile long version = Long.MIN_VALUE;
+        /**
+         * Bumped on every re-index, so entries resolved from an older index are read again.
+         */
+        volatile long generation;
+
+        Layer(TenantSource source) {
+            this.source = source;
+        }
+    }
+
+    private record Resolved(Layer layer, long generation, Tenant tenant) {
+    }
+}
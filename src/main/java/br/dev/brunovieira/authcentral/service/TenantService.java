@@ -1,11 +1,9 @@
 package br.dev.brunovieira.authcentral.service;
 
-import br.dev.brunovieira.authcentral.config.TenantProperties;
 import br.dev.brunovieira.authcentral.exception.TenantNotFoundException;
 import br.dev.brunovieira.authcentral.model.Tenant;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -13,13 +11,16 @@ import org.springframework.stereotype.Service;
 @Slf4j
 public class TenantService {
 
-    private final TenantProperties tenantProperties;
+    private final TenantRegistry tenantRegistry;
 
-    @Cacheable(value = "tenants", key = "#tenantKey")
     public Tenant getTenantByKey(String tenantKey) {
         log.debug("Fetching tenant by key: {}", tenantKey);
-        return tenantProperties.findByKey(tenantKey)
-                .filter(t -> Boolean.TRUE.equals(t.getIsActive()))
-                .orElseThrow(() -> new TenantNotFoundException("Tenant not found or inactive: " + tenantKey));
+        Tenant tenant = tenantRegistry.find(tenantKey);
+        if (tenant == null) {
+            // the key is client input: keep it out of the response so the prepared 401 body is one constant
+            log.debug("Unknown or inactive tenant key: {}", tenantKey);
+            throw new TenantNotFoundException("Tenant not found or inactive");
+        }
+        return tenant;
     }
 }
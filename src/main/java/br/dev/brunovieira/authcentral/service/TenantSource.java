@@ -0,0 +1,34 @@
+package br.dev.brunovieira.authcentral.service;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * A store of tenant definitions beyond the configuration file. The registry only keeps an index of the tenant
+ * keys; an entry's raw {@link br.dev.brunovieira.authcentral.config.TenantProperties.TenantEntry} JSON is read
+ * back with {@link #entry(String, long)} when the tenant is first resolved.
+ */
+public interface TenantSource {
+
+    String name();
+
+    /**
+     * Every tenant key, mapped to a locator the source uses to find its entry again (e.g. a file offset). Throws
+     * if the source cannot be read, in which case its previous index is kept.
+     */
+    Map<String, Long> index() throws IOException;
+
+    /**
+     * The JSON of one entry, or {@code null} if the source no longer has it. {@code locator} is the one from the
+     * last {@link #index()}; it may be stale if the source changed since.
+     */
+    String entry(String tenantKey, long locator) throws IOException;
+
+    /**
+     * A marker that changes whenever {@link #index()} would. Sources that announce their changes some other way
+     * return a constant and are never polled.
+     */
+    default long version() throws IOException {
+        return 0;
+    }
+}
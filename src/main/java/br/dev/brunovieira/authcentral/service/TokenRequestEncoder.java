@@ -0,0 +1,213 @@
+package br.dev.brunovieira.authcentral.service;
+
+import br.dev.brunovieira.authcentral.config.TenantCacheProperties;
+import br.dev.brunovieira.authcentral.model.Tenant;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Form bodies and URIs for a tenant's OpenID Connect token and logout endpoints, precompiled per tenant.
+ * <p>
+ * The URIs for each Keycloak node and the URL-encoded {@code client_id}/{@code client_secret}/{@code grant_type}
+ * prefix of every body are built once into a {@link Template}; a call only encodes its own fields (username,
+ * password, refresh token) straight into an exactly sized {@code byte[]}, with no {@code MultiValueMap} or message
+ * converter involved. The encoding is that of {@link java.net.URLEncoder} in UTF-8, as used by Spring's form
+ * converter. Templates are rebuilt when the tenant's definition changes and dropped all at once beyond
+ * {@code max-tenants}, since rebuilding one is cheap.
+ */
+@Component
+public class TokenRequestEncoder {
+
+    private final int maxTemplates;
+    private final ConcurrentHashMap<String, Template> templates = new ConcurrentHashMap<>();
+
+    public TokenRequestEncoder(TenantCacheProperties cacheProperties) {
+        this.maxTemplates = cacheProperties.getMaxTenants();
+    }
+
+    public Template template(Tenant tenant) {
+        Template template = templates.get(tenant.getTenantKey());
+        if (template != null && template.tenant == tenant) {
+            return template;
+        }
+        // a registry update resolves a new Tenant instance, so identity is enough to notice changes
+        Template compiled = new Template(tenant);
+        if (template == null && templates.size() >= maxTemplates) {
+            templates.clear();
+        }
+        templates.put(tenant.getTenantKey(), compiled);
+        return compiled;
+    }
+
+    int size() {
+        return templates.size();
+    }
+
+    /**
+     * One tenant's precompiled requests.
+     */
+    public static final class Template {
+
+        private final Tenant tenant;
+        private final Map<String, URI> tokenUris = new HashMap<>();
+        private final Map<String, URI> logoutUris = new HashMap<>();
+        private final byte[] passwordPrefix;
+        private final byte[] passwordSeparator;
+        private final byte[] refreshPrefix;
+        private final byte[] logoutPrefix;
+        private final byte[] clientCredentials;
+
+        Template(Tenant tenant) {
+            this.tenant = tenant;
+            for (String baseUrl : KeycloakRouter.endpoints(tenant)) {
+                String openIdConnect = JwksCache.realmUrl(baseUrl, tenant) + "/protocol/openid-connect/";
+                tokenUris.put(baseUrl, URI.create(openIdConnect + "token"));
+                logoutUris.put(baseUrl, URI.create(openIdConnect + "logout"));
+            }
+            String credentials = "client_id=" + FormEncoding.encode(tenant.getClientId())
+                    + "&client_secret=" + FormEncoding.encode(tenant.getClientSecret());
+            this.passwordPrefix = ascii(credentials + "&grant_type=password&username=");
+            this.passwordSeparator = ascii("&password=");
+            this.refreshPrefix = ascii(credentials + "&grant_type=refresh_token&refresh_token=");
+            this.logoutPrefix = ascii(credentials + "&refresh_token=");
+            this.clientCredentials = ascii(credentials + "&grant_type=client_credentials");
+        }
+
+        public URI tokenUri(String baseUrl) {
+            URI uri = tokenUris.get(baseUrl);
+            return uri != null ? uri : URI.create(JwksCache.realmUrl(baseUrl, tenant) + "/protocol/openid-connect/token");
+        }
+
+        public URI logoutUri(String baseUrl) {
+            URI uri = logoutUris.get(baseUrl);
+            return uri != null ? uri : URI.create(JwksCache.realmUrl(baseUrl, tenant) + "/protocol/openid-connect/logout");
+        }
+
+        public byte[] passwordGrant(String username, String password) {
+            int length = passwordPrefix.length + FormEncoding.length(username)
+                    + passwordSeparator.length + FormEncoding.length(password);
+            byte[] body = new byte[length];
+            int position = copy(passwordPrefix, body, 0);
+            position = FormEncoding.write(username, body, position);
+            position = copy(passwordSeparator, body, position);
+            FormEncoding.write(password, body, position);
+            return body;
+        }
+
+        public byte[] refreshGrant(String refreshToken) {
+            return withValue(refreshPrefix, refreshToken);
+        }
+
+        public byte[] logout(String refreshToken) {
+            return withValue(logoutPrefix, refreshToken);
+        }
+
+        /**
+         * The whole client-credentials body, which has no per-call field. Callers must not modify it.
+         */
+        public byte[] clientCredentialsGrant() {
+            return clientCredentials;
+        }
+
+        private static byte[] withValue(byte[] prefix, String value) {
+            byte[] body = new byte[prefix.length + FormEncoding.length(value)];
+            FormEncoding.write(value, body, copy(prefix, body, 0));
+            return body;
+        }
+
+        private static int copy(byte[] source, byte[] target, int position) {
+            System.arraycopy(source, 0, target, position, source.length);
+            return position + source.length;
+        }
+
+        private static byte[] ascii(String value) {
+            return value.getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    /**
+     * {@code application/x-www-form-urlencoded} encoding of UTF-8 text without intermediate strings: letters,
+     * digits and {@code .-*_} are kept, space becomes {@code +}, every other byte {@code %XX}.
+     */
+    static final class FormEncoding {
+
+        private static final byte[] HEX = "0123456789ABCDEF".getBytes(StandardCharsets.US_ASCII);
+
+        private FormEncoding() {
+        }
+
+        static String encode(String value) {
+            byte[] encoded = new byte[length(value)];
+            write(value, encoded, 0);
+            return new String(encoded, StandardCharsets.US_ASCII);
+        }
+
+        static int length(String value) {
+            if (value == null) {
+                return 0;
+            }
+            int length = 0;
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c >= 0x80) {
+                    return length(value.getBytes(StandardCharsets.UTF_8));
+                }
+                length += kept(c) ? 1 : 3;
+            }
+            return length;
+        }
+
+        static int write(String value, byte[] target, int position) {
+            if (value == null) {
+                return position;
+            }
+            for (int i = 0; i < value.length(); i++) {
+                if (value.charAt(i) >= 0x80) {
+                    return write(value.getBytes(StandardCharsets.UTF_8), target, position);
+                }
+            }
+            for (int i = 0; i < value.length(); i++) {
+                position = write(value.charAt(i), target, position);
+            }
+            return position;
+        }
+
+        private static int length(byte[] utf8) {
+            int length = 0;
+            for (byte b : utf8) {
+                length += kept(b & 0xFF) ? 1 : 3;
+            }
+            return length;
+        }
+
+        private static int write(byte[] utf8, byte[] target, int position) {
+            for (byte b : utf8) {
+                position = write(b & 0xFF, target, position);
+            }
+            return position;
+        }
+
+        private static int write(int c, byte[] target, int position) {
+            if (c == ' ') {
+                target[position++] = '+';
+            } else if (kept(c)) {
+                target[position++] = (byte) c;
+            } else {
+                target[position++] = '%';
+                target[position++] = HEX[c >> 4];
+                target[position++] = HEX[c & 0xF];
+            }
+            return position;
+        }
+
+        private static boolean kept(int c) {
+            return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                    || c == '.' || c == '-' || c == '*' || c == '_' || c == ' ';
+        }
+    }
+}
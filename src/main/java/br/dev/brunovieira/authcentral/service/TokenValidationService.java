@@ -0,0 +1,140 @@
+package br.dev.brunovieira.authcentral.service;
+
+import br.dev.brunovieira.authcentral.config.TenantCacheProperties;
+import br.dev.brunovieira.authcentral.config.TokenValidationProperties;
+import br.dev.brunovieira.authcentral.dto.response.TokenValidationResponse;
+import br.dev.brunovieira.authcentral.exception.AuthenticationException;
+import br.dev.brunovieira.authcentral.model.Tenant;
+import br.dev.brunovieira.authcentral.util.TenantCache;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.oauth2.core.DelegatingOAuth2TokenValidator;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtClaimNames;
+import org.springframework.security.oauth2.jwt.JwtClaimValidator;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.security.oauth2.jwt.JwtTimestampValidator;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Validates access tokens locally against the signing keys of the tenant's realm.
+ * <p>
+ * Only the realm's JWKS is ever fetched from Keycloak (see {@link JwksCache}); signature, expiry, issuer and token
+ * type are checked in-process, so a validation is a few microseconds of CPU instead of an introspection call.
+ * The token must also be meant for one of the configured audiences, by default the tenant's own client.
+ * Decoders are built per realm and held in a {@link TenantCache} alongside the realm keys.
+ */
+@Service
+@Slf4j
+public class TokenValidationService {
+
+    private static final Set<JWSAlgorithm> SIGNING_ALGORITHMS = Set.of(
+            JWSAlgorithm.RS256, JWSAlgorithm.RS384, JWSAlgorithm.RS512,
+            JWSAlgorithm.PS256, JWSAlgorithm.PS384, JWSAlgorithm.PS512,
+            JWSAlgorithm.ES256, JWSAlgorithm.ES384, JWSAlgorithm.ES512,
+            JWSAlgorithm.EdDSA
+    );
+
+    private final JwksCache jwksCache;
+    private final TokenValidationProperties properties;
+    private final TenantCache<String, JwtDecoder> decoders;
+
+    public TokenValidationService(JwksCache jwksCache,
+                                  TokenValidationProperties properties,
+                                  TenantCacheProperties cacheProperties,
+                                  MeterRegistry meterRegistry) {
+        this.jwksCache = jwksCache;
+        this.properties = properties;
+        this.decoders = new TenantCache<>("jwt-decoders", cacheProperties.getMaxTenants(),
+                cacheProperties.getIdleEvictionMs(), decoder -> { }, meterRegistry);
+    }
+
+    /**
+     * Verify an access token issued by the tenant's realm and return its claims.
+     *
+     * @throws AuthenticationException if the token is malformed, not signed by a realm key, expired,
+     *                                 issued by another realm or for another audience, or not an access token
+     */
+    public TokenValidationResponse validate(Tenant tenant, String token) {
+        Jwt jwt;
+        try (TenantCache.Lease<JwtDecoder> decoder =
+                     decoders.acquire(JwksCache.realmUrl(tenant), realmUrl -> decoderFor(realmUrl, tenant))) {
+            jwt = decoder.value().decode(token);
+        } catch (JwtException e) {
+            log.debug("Token rejected for tenant {}: {}", tenant.getTenantName(), e.getMessage());
+            throw new AuthenticationException("Invalid or expired token");
+        }
+        if (!isForAcceptedAudience(tenant, jwt)) {
+            log.debug("Token rejected for tenant {}: audience {} / azp {} not accepted",
+                    tenant.getTenantName(), jwt.getAudience(), jwt.getClaimAsString("azp"));
+            throw new AuthenticationException("Invalid or expired token");
+        }
+
+        Map<String, Object> claims = new LinkedHashMap<>();
+        jwt.getClaims().forEach((name, value) ->
+                claims.put(name, value instanceof Instant instant ? instant.getEpochSecond() : value));
+
+        return TokenValidationResponse.builder()
+                .subject(jwt.getSubject())
+                .issuer(jwt.getClaimAsString(JwtClaimNames.ISS))
+                .expiresAt(jwt.getExpiresAt() != null ? jwt.getExpiresAt().getEpochSecond() : null)
+                .claims(claims)
+                .build();
+    }
+
+    private boolean isForAcceptedAudience(Tenant tenant, Jwt jwt) {
+        List<String> accepted = properties.getAudiences().isEmpty()
+                ? List.of(String.valueOf(tenant.getClientId()))
+                : properties.getAudiences();
+        if (accepted.contains(jwt.getClaimAsString("azp"))) {
+            return true;
+        }
+        List<String> audience = jwt.getAudience();
+        return audience != null && audience.stream().anyMatch(accepted::contains);
+    }
+
+    @Scheduled(fixedDelayString = "${app.tenant-cache.sweep-interval-ms:60000}")
+    public void evictIdle() {
+        decoders.evictIdle();
+    }
+
+    private JwtDecoder decoderFor(String realmUrl, Tenant tenant) {
+        JWKSource<SecurityContext> keySource = (selector, context) -> {
+            Set<String> kids = selector.getMatcher().getKeyIDs();
+            String kid = kids == null || kids.isEmpty() ? null : kids.iterator().next();
+            return selector.select(new JWKSet(jwksCache.keys(realmUrl, kid)));
+        };
+        DefaultJWTProcessor<SecurityContext> processor = new DefaultJWTProcessor<>();
+        processor.setJWSKeySelector(new JWSVerificationKeySelector<>(SIGNING_ALGORITHMS, keySource));
+        // Claims are checked by the Spring validators below
+        processor.setJWTClaimsSetVerifier((claims, context) -> { });
+
+        // The issuer host may differ from keycloakBaseUrl behind a proxy; the realm path must match
+        String issuerSuffix = "/realms/" + tenant.getRealmName();
+        NimbusJwtDecoder decoder = new NimbusJwtDecoder(processor);
+        decoder.setJwtValidator(new DelegatingOAuth2TokenValidator<>(
+                new JwtTimestampValidator(Duration.ofSeconds(properties.getClockSkewSeconds())),
+                new JwtClaimValidator<>(JwtClaimNames.EXP, exp -> exp != null),
+                new JwtClaimValidator<>(JwtClaimNames.ISS, iss -> iss != null && iss.toString().endsWith(issuerSuffix)),
+                // Keycloak marks access tokens typ=Bearer; ID tokens must not pass as access tokens
+                new JwtClaimValidator<>("typ", typ -> typ != null && "Bearer".equalsIgnoreCase(typ.toString()))
+        ));
+        return decoder;
+    }
+}
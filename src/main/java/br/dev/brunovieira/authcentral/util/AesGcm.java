@@ -0,0 +1,91 @@
+package br.dev.brunovieira.authcentral.util;
+
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * Sealing of secrets that instances hand to each other through Redis.
+ * <p>
+ * Keys are AES-256 keys derived with HKDF-SHA256 from a secret the reading instance must already hold. A sealed
+ * value is the Base64 of a random IV followed by the AES-GCM ciphertext and tag; the associated data binds it to
+ * the entry it was written for, so a value copied under another key does not open.
+ */
+public final class AesGcm {
+
+    private static final byte[] HKDF_INFO = "aes-256-gcm".getBytes(StandardCharsets.UTF_8);
+    private static final int IV_BYTES = 12;
+    private static final int TAG_BITS = 128;
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private AesGcm() {
+    }
+
+    /**
+     * HKDF-SHA256 of {@code parts}, each UTF-8 encoded and separated by a zero byte, into an AES-256 key.
+     * {@code salt} names the purpose, so the same secret yields unrelated keys for different uses.
+     */
+    public static SecretKey deriveKey(byte[] salt, String... parts) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(salt, "HmacSHA256"));
+            for (int i = 0; i < parts.length; i++) {
+                if (i > 0) {
+                    mac.update((byte) 0);
+                }
+                mac.update(parts[i].getBytes(StandardCharsets.UTF_8));
+            }
+            byte[] pseudoRandomKey = mac.doFinal();
+
+            mac.init(new SecretKeySpec(pseudoRandomKey, "HmacSHA256"));
+            mac.update(HKDF_INFO);
+            return new SecretKeySpec(mac.doFinal(new byte[]{1}), "AES");
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 not available", e);
+        }
+    }
+
+    /**
+     * Base64 of IV and AES-GCM ciphertext of {@code plaintext}, bound to {@code associatedData}.
+     */
+    public static String seal(SecretKey key, byte[] associatedData, byte[] plaintext) {
+        try {
+            byte[] iv = new byte[IV_BYTES];
+            RANDOM.nextBytes(iv);
+            byte[] sealed = new byte[IV_BYTES + plaintext.length + TAG_BITS / 8];
+            System.arraycopy(iv, 0, sealed, 0, IV_BYTES);
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, iv));
+            cipher.updateAAD(associatedData);
+            cipher.doFinal(plaintext, 0, plaintext.length, sealed, IV_BYTES);
+            return Base64.getEncoder().encodeToString(sealed);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("AES-GCM not available", e);
+        }
+    }
+
+    /**
+     * The plaintext of a {@link #seal sealed} value, or {@code null} if it was not sealed with {@code key} and
+     * {@code associatedData} or has been tampered with.
+     */
+    public static byte[] open(SecretKey key, byte[] associatedData, String sealed) {
+        try {
+            byte[] bytes = Base64.getDecoder().decode(sealed);
+            if (bytes.length < IV_BYTES + TAG_BITS / 8) {
+                return null;
+            }
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, bytes, 0, IV_BYTES));
+            cipher.updateAAD(associatedData);
+            return cipher.doFinal(bytes, IV_BYTES, bytes.length - IV_BYTES);
+        } catch (IllegalArgumentException | GeneralSecurityException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package br.dev.brunovieira.authcentral.util;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.function.LongSupplier;
+
+/**
+ * Local date-time for response timestamps, at millisecond resolution and cached per millisecond.
+ * <p>
+ * Requests that arrive within the same millisecond share one {@link LocalDateTime} and one pre-formatted copy of
+ * it, so stamping a response costs a {@code currentTimeMillis} read instead of a clock query, an object and a
+ * format. The text is what Jackson writes for a {@link LocalDateTime}, so pre-serialized bodies look like
+ * serialized ones.
+ */
+public final class CoarseClock {
+
+    private static final CoarseClock SYSTEM = new CoarseClock(System::currentTimeMillis, ZoneId.systemDefault());
+
+    private final LongSupplier millisClock;
+    private final ZoneId zone;
+    private volatile Tick tick;
+
+    CoarseClock(LongSupplier millisClock, ZoneId zone) {
+        this.millisClock = millisClock;
+        this.zone = zone;
+        this.tick = tick(millisClock.getAsLong());
+    }
+
+    public static CoarseClock system() {
+        return SYSTEM;
+    }
+
+    public LocalDateTime now() {
+        return current().time;
+    }
+
+    /**
+     * {@link #now()} as ISO-8601 ASCII bytes, without quotes. Shared between callers; must not be modified.
+     */
+    public byte[] isoBytes() {
+        return current().iso;
+    }
+
+    private Tick current() {
+        long millis = millisClock.getAsLong();
+        Tick current = tick;
+        if (current.millis != millis) {
+            // racing threads may each format the same millisecond; any of them is correct
+            current = tick(millis);
+            tick = current;
+        }
+        return current;
+    }
+
+    private Tick tick(long millis) {
+        LocalDateTime time = LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), zone);
+        return new Tick(millis, time, DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(time).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private record Tick(long millis, LocalDateTime time, byte[] iso) {
+    }
+}
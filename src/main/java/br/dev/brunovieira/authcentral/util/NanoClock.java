@@ -0,0 +1,14 @@
+package br.dev.brunovieira.authcentral.util;
+
+/**
+ * Monotonic time source for elapsed-time measurements, so timing-dependent components can be driven by tests.
+ */
+@FunctionalInterface
+public interface NanoClock {
+
+    long nanoTime();
+
+    static NanoClock system() {
+        return System::nanoTime;
+    }
+}
@@ -0,0 +1,36 @@
+package br.dev.brunovieira.authcentral.util;
+
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.List;
+
+/**
+ * Release of Redis leases taken with {@code SET key owner NX PX ttl}.
+ * <p>
+ * A lease may expire while its holder is still working and be taken by another instance; a plain {@code DEL} from
+ * the first holder would then drop the second one's lease. Releasing therefore deletes the key only if it still
+ * holds the caller's owner id, checked and deleted in one script.
+ */
+public final class RedisLeases {
+
+    private static final RedisScript<Long> RELEASE = RedisScript.of("""
+            if redis.call('GET', KEYS[1]) == ARGV[1] then
+                return redis.call('DEL', KEYS[1])
+            end
+            return 0
+            """, Long.class);
+
+    private RedisLeases() {
+    }
+
+    /**
+     * Delete {@code key} if {@code owner} still holds it.
+     *
+     * @return whether the lease was released; {@code false} if it had expired or passed to someone else
+     */
+    public static boolean release(StringRedisTemplate redisTemplate, String key, String owner) {
+        Long deleted = redisTemplate.execute(RELEASE, List.of(key), owner);
+        return deleted != null && deleted > 0;
+    }
+}
@@ -37,4 +37,8 @@ public class RequestUtils {
     public static String getTenantKey(HttpServletRequest request) {
         return request.getHeader("X-Tenant-Key");
     }
+
+    public static String getAdminKey(HttpServletRequest request) {
+        return request.getHeader("X-Admin-Key");
+    }
 }
@@ -0,0 +1,252 @@
+package br.dev.brunovieira.authcentral.util;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Per-tenant state bounded by count and idle time.
+ * <p>
+ * Values are used through {@link Lease}s. An evicted value leaves the map at once, so new callers get a fresh
+ * one, but it is only closed once the last lease on it is released. Beyond {@code maxSize} the least recently
+ * used tenth of the entries is evicted in one pass; idle entries go on each {@link #evictIdle()}. A cache built with
+ * {@code keepLeased} only evicts entries nobody holds a lease on, for values whose state must not be forked while
+ * in use; it may then stay above {@code maxSize} while every entry is leased.
+ * Exported as {@code tenant_cache.gets{cache,result}}, {@code tenant_cache.evictions{cache,cause}} and
+ * {@code tenant_cache.size{cache}}.
+ */
+@Slf4j
+public final class TenantCache<K, V> {
+
+    private final String name;
+    private final int maxSize;
+    private final long idleMs;
+    private final boolean keepLeased;
+    private final Consumer<V> onClose;
+    private final LongSupplier clock;
+    private final ConcurrentHashMap<K, Entry<V>> entries = new ConcurrentHashMap<>();
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter sizeEvictions;
+    private final Counter idleEvictions;
+
+    public TenantCache(String name, int maxSize, long idleMs, Consumer<V> onClose, MeterRegistry meterRegistry) {
+        this(name, maxSize, idleMs, false, onClose, meterRegistry, System::currentTimeMillis);
+    }
+
+    public TenantCache(String name, int maxSize, long idleMs, boolean keepLeased, Consumer<V> onClose,
+                       MeterRegistry meterRegistry) {
+        this(name, maxSize, idleMs, keepLeased, onClose, meterRegistry, System::currentTimeMillis);
+    }
+
+    public TenantCache(String name, int maxSize, long idleMs, Consumer<V> onClose, MeterRegistry meterRegistry,
+                       LongSupplier clock) {
+        this(name, maxSize, idleMs, false, onClose, meterRegistry, clock);
+    }
+
+    public TenantCache(String name, int maxSize, long idleMs, boolean keepLeased, Consumer<V> onClose,
+                       MeterRegistry meterRegistry, LongSupplier clock) {
+        this.name = name;
+        this.maxSize = Math.max(1, maxSize);
+        this.idleMs = idleMs;
+        this.keepLeased = keepLeased;
+        this.onClose = onClose;
+        this.clock = clock;
+        this.hits = Counter.builder("tenant_cache.gets").tag("cache", name).tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("tenant_cache.gets").tag("cache", name).tag("result", "miss").register(meterRegistry);
+        this.sizeEvictions = Counter.builder("tenant_cache.evictions").tag("cache", name).tag("cause", "size").register(meterRegistry);
+        this.idleEvictions = Counter.builder("tenant_cache.evictions").tag("cache", name).tag("cause", "idle").register(meterRegistry);
+        Gauge.builder("tenant_cache.size", entries, ConcurrentHashMap::size).tag("cache", name).register(meterRegistry);
+    }
+
+    /**
+     * Lease the value for {@code key}, creating it with {@code loader} if absent. Counts as a use.
+     */
+    public Lease<V> acquire(K key, Function<K, V> loader) {
+        while (true) {
+            boolean[] created = {false};
+            Entry<V> entry = entries.computeIfAbsent(key, k -> {
+                created[0] = true;
+                return new Entry<>(loader.apply(k), clock.getAsLong());
+            });
+            if (entry.retain()) {
+                entry.lastUsed = clock.getAsLong();
+                (created[0] ? misses : hits).increment();
+                if (created[0] && entries.size() > maxSize) {
+                    evictLeastRecentlyUsed();
+                }
+                return new Lease<>(this, entry);
+            }
+            // evicted between lookup and retain; the next round sees a fresh entry
+            entries.remove(key, entry);
+        }
+    }
+
+    /**
+     * Lease the value for {@code key} without counting it as a use, or {@code null} if it is not cached. For
+     * background work that must not keep a tenant alive.
+     */
+    public Lease<V> pin(K key) {
+        Entry<V> entry = entries.get(key);
+        return entry != null && entry.retain() ? new Lease<>(this, entry) : null;
+    }
+
+    /**
+     * Visit the cached values without counting it as a use. A value may be evicted while being visited.
+     */
+    public void forEach(BiConsumer<K, V> action) {
+        entries.forEach((key, entry) -> action.accept(key, entry.value));
+    }
+
+    public int evictIdle() {
+        long cutoff = clock.getAsLong() - idleMs;
+        int evicted = 0;
+        for (var e : entries.entrySet()) {
+            if (e.getValue().lastUsed < cutoff && evict(e.getKey(), e.getValue(), keepLeased)) {
+                idleEvictions.increment();
+                evicted++;
+            }
+        }
+        if (evicted > 0) {
+            log.debug("Evicted {} idle tenant(s) from {}", evicted, name);
+        }
+        return evicted;
+    }
+
+    /**
+     * Evict everything, e.g. on shutdown.
+     */
+    public void clear() {
+        entries.forEach((key, entry) -> evict(key, entry, false));
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private void evictLeastRecentlyUsed() {
+        int target = maxSize - maxSize / 10;
+        List<java.util.Map.Entry<K, Entry<V>>> snapshot = new ArrayList<>(entries.entrySet());
+        if (snapshot.size() <= maxSize) {
+            return;
+        }
+        snapshot.sort(Comparator.comparingLong(e -> e.getValue().lastUsed));
+        int excess = snapshot.size() - target;
+        for (int i = 0; i < snapshot.size() && excess > 0; i++) {
+            if (evict(snapshot.get(i).getKey(), snapshot.get(i).getValue(), keepLeased)) {
+                sizeEvictions.increment();
+                excess--;
+            }
+        }
+    }
+
+    private boolean evict(K key, Entry<V> entry, boolean unleasedOnly) {
+        if (unleasedOnly) {
+            // taking the map's hold as the last one stops any new lease before the entry leaves the map
+            if (!entry.retire()) {
+                return false;
+            }
+            entries.remove(key, entry);
+            close(entry);
+            return true;
+        }
+        if (!entries.remove(key, entry)) {
+            return false;
+        }
+        release(entry);
+        return true;
+    }
+
+    private void release(Entry<V> entry) {
+        if (entry.release() == 0) {
+            close(entry);
+        }
+    }
+
+    private void close(Entry<V> entry) {
+        if (entry.closed.compareAndSet(false, true)) {
+            try {
+                onClose.accept(entry.value);
+            } catch (RuntimeException e) {
+                log.warn("Failed to close evicted {} entry: {}", name, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * A hold on a cached value; the value is not closed while any lease on it is open.
+     */
+    public static final class Lease<V> implements AutoCloseable {
+
+        private final TenantCache<?, V> cache;
+        private final Entry<V> entry;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Lease(TenantCache<?, V> cache, Entry<V> entry) {
+            this.cache = cache;
+            this.entry = entry;
+        }
+
+        public V value() {
+            return entry.value;
+        }
+
+        @Override
+        public void close() {
+            if (released.compareAndSet(false, true)) {
+                cache.release(entry);
+            }
+        }
+    }
+
+    /**
+     * The map's own reference counts as one hold, dropped on eviction; the value closes when holds reach zero.
+     */
+    private static final class Entry<V> {
+
+        final V value;
+        final AtomicInteger holds = new AtomicInteger(1);
+        final AtomicBoolean closed = new AtomicBoolean();
+        volatile long lastUsed;
+
+        Entry(V value, long now) {
+            this.value = value;
+            this.lastUsed = now;
+        }
+
+        boolean retain() {
+            int current;
+            do {
+                current = holds.get();
+                if (current == 0) {
+                    return false;
+                }
+            } while (!holds.compareAndSet(current, current + 1));
+            return true;
+        }
+
+        int release() {
+            return holds.decrementAndGet();
+        }
+
+        /**
+         * Drop the map's hold if it is the only one left.
+         */
+        boolean retire() {
+            return holds.compareAndSet(1, 0);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package br.dev.brunovieira.authcentral;
+
+import io.lettuce.core.api.StatefulRedisConnection;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+/**
+ * Starts the full application context, so a bean Spring cannot construct fails the build instead of the deploy.
+ * The Redis beans that connect on startup are replaced; everything else is wired as in production.
+ */
+@SpringBootTest
+class AuthCentralApplicationTests {
+
+    @MockitoBean
+    private StatefulRedisConnection<byte[], String> rateLimitRedisConnection;
+
+    @MockitoBean
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    @Test
+    void contextLoads() {
+    }
+}
@@ -1,6 +1,12 @@
 package br.dev.brunovieira.authcentral;
 
+import br.dev.brunovieira.authcentral.config.RoutingProperties;
+import br.dev.brunovieira.authcentral.config.TenantCacheProperties;
 import br.dev.brunovieira.authcentral.model.Tenant;
+import br.dev.brunovieira.authcentral.service.KeycloakRouter;
+import br.dev.brunovieira.authcentral.service.TokenRequestEncoder;
+import br.dev.brunovieira.authcentral.util.NanoClock;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 
 public final class TestFixtures {
 
@@ -19,4 +25,15 @@ public final class TestFixtures {
                 .isActive(true)
                 .build();
     }
+
+    /**
+     * A router for single-node tenants, which sends every call to {@code keycloakBaseUrl}.
+     */
+    public static KeycloakRouter router() {
+        return new KeycloakRouter(new RoutingProperties(), new SimpleMeterRegistry(), Runnable::run, NanoClock.system());
+    }
+
+    public static TokenRequestEncoder requestEncoder() {
+        return new TokenRequestEncoder(new TenantCacheProperties());
+    }
 }
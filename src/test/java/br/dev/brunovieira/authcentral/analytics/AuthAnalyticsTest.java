@@ -0,0 +1,197 @@
+package br.dev.brunovieira.authcentral.analytics;
+
+import br.dev.brunovieira.authcentral.config.AnalyticsProperties;
+import br.dev.brunovieira.authcentral.dto.response.AnalyticsResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.HyperLogLogOperations;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AuthAnalyticsTest {
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private RedisOperations<String, String> operations;
+
+    @Mock
+    private HashOperations<String, Object, Object> hashOperations;
+
+    @Mock
+    private HyperLogLogOperations<String, String> hyperLogLogOperations;
+
+    private AnalyticsProperties properties;
+    private AuthAnalytics analytics;
+    private long now;
+    private long minute;
+    private long day;
+
+    @BeforeEach
+    void setUp() {
+        properties = new AnalyticsProperties();
+        analytics = new AuthAnalytics(properties, redisTemplate);
+        now = System.currentTimeMillis();
+        minute = now / TimeUnit.MINUTES.toMillis(1);
+        day = now / TimeUnit.DAYS.toMillis(1);
+        lenient().when(operations.opsForHash()).thenReturn(hashOperations);
+        lenient().when(operations.opsForHyperLogLog()).thenReturn(hyperLogLogOperations);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flush_pipelinesCounterDeltasAndUniqueUsers() {
+        runPipelinesAgainstMock();
+        analytics.record("tenant-a", "USER_LOGIN", true, "Alice@Test.com ", now);
+        analytics.record("tenant-a", "USER_LOGIN", true, "alice@test.com", now);
+        analytics.record("tenant-a", "USER_LOGIN", false, "bob@test.com", now);
+        analytics.record("tenant-a", "USER_REGISTER", true, "carol@test.com", now);
+
+        analytics.flush();
+
+        String minuteKey = AuthAnalytics.minuteKey("tenant-a", minute);
+        verify(hashOperations).increment(minuteKey, "USER_LOGIN:ok", 2L);
+        verify(hashOperations).increment(minuteKey, "USER_LOGIN:fail", 1L);
+        verify(hashOperations).increment(minuteKey, "USER_REGISTER:ok", 1L);
+        verify(operations).expire(minuteKey, Duration.ofHours(168));
+        verify(hyperLogLogOperations).add(AuthAnalytics.usersKey("tenant-a", day), "alice@test.com");
+        verify(operations).expire(AuthAnalytics.usersKey("tenant-a", day), Duration.ofDays(35));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flush_sendsEachCountOnce() {
+        runPipelinesAgainstMock();
+        analytics.record("tenant-a", "TOKEN_REFRESH", true, null, now);
+        analytics.flush();
+
+        analytics.flush();
+
+        verify(redisTemplate, times(1)).executePipelined(any(SessionCallback.class));
+        verifyNoInteractions(hyperLogLogOperations);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flush_failure_keepsCountsForNextRun() {
+        when(redisTemplate.executePipelined(any(SessionCallback.class)))
+                .thenThrow(new RedisConnectionFailureException("down"))
+                .thenAnswer(invocation -> {
+                    invocation.<SessionCallback<Object>>getArgument(0).execute(operations);
+                    return List.of();
+                });
+        analytics.record("tenant-a", "USER_LOGIN", true, "alice@test.com", now);
+        analytics.flush();
+
+        analytics.record("tenant-a", "USER_LOGIN", true, "bob@test.com", now);
+        analytics.flush();
+
+        verify(hashOperations).increment(AuthAnalytics.minuteKey("tenant-a", minute), "USER_LOGIN:ok", 2L);
+        ArgumentCaptor<String[]> members = ArgumentCaptor.forClass(String[].class);
+        verify(hyperLogLogOperations).add(eq(AuthAnalytics.usersKey("tenant-a", day)), members.capture());
+        assertThat(members.getValue()).containsExactlyInAnyOrder("alice@test.com", "bob@test.com");
+    }
+
+    @Test
+    void flush_dropsCountersOfPastMinutes() {
+        runPipelinesAgainstMock();
+        analytics.record("tenant-a", "USER_LOGIN", true, null, now - TimeUnit.MINUTES.toMillis(5));
+        analytics.record("tenant-a", "USER_LOGIN", true, null, now);
+
+        analytics.flush();
+
+        assertThat(analytics.pendingCounters()).isEqualTo(1);
+    }
+
+    @Test
+    void record_disabled_countsNothing() {
+        properties.setEnabled(false);
+
+        analytics.record("tenant-a", "USER_LOGIN", true, "alice@test.com", now);
+        analytics.flush();
+
+        verifyNoInteractions(redisTemplate);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void query_aggregatesMinutesTotalsRateAndUniqueUsers() {
+        long from = minute * TimeUnit.MINUTES.toMillis(1) - TimeUnit.MINUTES.toMillis(2);
+        List<Object> results = new ArrayList<>();
+        results.add(Map.of());
+        results.add(Map.of("USER_LOGIN:ok", "3", "USER_LOGIN:fail", "1"));
+        results.add(Map.of("USER_LOGIN:ok", "5", "USER_REGISTER:ok", "2"));
+        long fromDay = from / TimeUnit.DAYS.toMillis(1);
+        for (long d = fromDay; d <= day; d++) {
+            results.add(42L);
+        }
+        when(redisTemplate.executePipelined(any(SessionCallback.class))).thenAnswer(invocation -> {
+            invocation.<SessionCallback<Object>>getArgument(0).execute(operations);
+            return results;
+        });
+
+        AnalyticsResponse response = analytics.query("tenant-a", from, now);
+
+        assertThat(response.getTenant()).isEqualTo("tenant-a");
+        assertThat(response.getMinutes()).hasSize(2);
+        assertThat(response.getMinutes().getLast().getMinute()).isEqualTo(TimeUnit.MINUTES.toSeconds(minute));
+        assertThat(response.getTotals())
+                .containsEntry("USER_LOGIN:ok", 8L)
+                .containsEntry("USER_LOGIN:fail", 1L)
+                .containsEntry("USER_REGISTER:ok", 2L);
+        assertThat(response.getLoginSuccessRate()).isEqualTo(8.0 / 9.0);
+        assertThat(response.getUniqueUsers()).containsValue(42L);
+        verify(hashOperations, times(3)).entries(anyString());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void query_clampsMinuteRange() {
+        properties.setMaxQueryMinutes(10);
+        when(redisTemplate.executePipelined(any(SessionCallback.class))).thenAnswer(invocation -> {
+            invocation.<SessionCallback<Object>>getArgument(0).execute(operations);
+            List<Object> results = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                results.add(Map.of());
+            }
+            results.add(0L);
+            results.add(0L);
+            return results;
+        });
+
+        AnalyticsResponse response = analytics.query("tenant-a", now - TimeUnit.DAYS.toMillis(1), now);
+
+        verify(hashOperations, times(10)).entries(anyString());
+        assertThat(response.getLoginSuccessRate()).isNull();
+        assertThat(response.getMinutes()).isEmpty();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void runPipelinesAgainstMock() {
+        lenient().when(redisTemplate.executePipelined(any(SessionCallback.class))).thenAnswer(invocation -> {
+            invocation.<SessionCallback<Object>>getArgument(0).execute(operations);
+            return List.of();
+        });
+    }
+}
@@ -0,0 +1,210 @@
+package br.dev.brunovieira.authcentral.audit;
+
+import br.dev.brunovieira.authcentral.config.AuditProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+class AuditPipelineTest {
+
+    private AuditProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private AuditPipeline pipeline;
+
+    @BeforeEach
+    void setUp() {
+        properties = new AuditProperties();
+        properties.setFlushIntervalMs(1);
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (pipeline != null) {
+            pipeline.close();
+        }
+    }
+
+    @Test
+    void publish_deliversEventsInOrderToEverySink() throws Exception {
+        RecordingSink first = new RecordingSink("first");
+        RecordingSink second = new RecordingSink("second");
+        pipeline = new AuditPipeline(properties, List.of(first, second), meterRegistry);
+
+        for (int i = 0; i < 100; i++) {
+            pipeline.publish(event("user" + i));
+        }
+
+        awaitCondition(() -> second.events.size() == 100);
+        assertThat(first.events).extracting(AuditEvent::userEmail).startsWith("user0", "user1").endsWith("user99");
+        assertThat(second.events).hasSize(100);
+        awaitCondition(() -> meterRegistry.get("audit.events.written").counter().count() == 100);
+    }
+
+    @Test
+    void failingSink_doesNotStopOthers() throws Exception {
+        AuditSink failing = new RecordingSink("broken") {
+            @Override
+            public void write(List<AuditEvent> batch) throws IOException {
+                throw new IOException("disk full");
+            }
+        };
+        RecordingSink healthy = new RecordingSink("healthy");
+        pipeline = new AuditPipeline(properties, List.of(failing, healthy), meterRegistry);
+
+        pipeline.publish(event("a"));
+
+        awaitCondition(() -> healthy.events.size() == 1);
+        awaitCondition(() -> meterRegistry.find("audit.sink.failures").tag("sink", "broken").counter() != null);
+    }
+
+    @Test
+    void dropPolicy_countsEventsThatDoNotFit() throws Exception {
+        properties.setBufferCapacity(4);
+        properties.setBatchSize(1);
+        BlockingSink sink = new BlockingSink();
+        pipeline = new AuditPipeline(properties, List.of(sink), meterRegistry);
+
+        pipeline.publish(event("in-sink"));
+        assertThat(sink.entered.await(5, TimeUnit.SECONDS)).isTrue();
+        for (int i = 0; i < 6; i++) {
+            pipeline.publish(event("queued" + i));
+        }
+
+        assertThat(pipeline.queueDepth()).isEqualTo(4);
+        assertThat(dropped("full")).isEqualTo(2);
+        sink.release.countDown();
+    }
+
+    @Test
+    void samplePolicy_thinsOutEventsAboveThreshold() throws Exception {
+        properties.setBufferCapacity(16);
+        properties.setBatchSize(1);
+        properties.setOverflow(AuditProperties.Overflow.SAMPLE);
+        properties.setSampleRate(4);
+        properties.setSampleThreshold(0.5);
+        BlockingSink sink = new BlockingSink();
+        pipeline = new AuditPipeline(properties, List.of(sink), meterRegistry);
+
+        pipeline.publish(event("in-sink"));
+        assertThat(sink.entered.await(5, TimeUnit.SECONDS)).isTrue();
+        for (int i = 0; i < 8; i++) {
+            pipeline.publish(event("below-threshold" + i));
+        }
+        for (int i = 0; i < 8; i++) {
+            pipeline.publish(event("sampled" + i));
+        }
+
+        assertThat(pipeline.queueDepth()).isEqualTo(10);
+        assertThat(dropped("sampled")).isEqualTo(6);
+        assertThat(dropped("full")).isZero();
+        sink.release.countDown();
+    }
+
+    @Test
+    void blockPolicy_waitsForSpaceThenDrops() throws Exception {
+        properties.setBufferCapacity(2);
+        properties.setBatchSize(1);
+        properties.setOverflow(AuditProperties.Overflow.BLOCK);
+        properties.setBlockTimeoutMs(20);
+        BlockingSink sink = new BlockingSink();
+        pipeline = new AuditPipeline(properties, List.of(sink), meterRegistry);
+
+        pipeline.publish(event("in-sink"));
+        assertThat(sink.entered.await(5, TimeUnit.SECONDS)).isTrue();
+        pipeline.publish(event("queued1"));
+        pipeline.publish(event("queued2"));
+
+        long start = System.nanoTime();
+        pipeline.publish(event("blocked"));
+
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isGreaterThanOrEqualTo(20);
+        assertThat(dropped("full")).isEqualTo(1);
+        sink.release.countDown();
+    }
+
+    @Test
+    void close_flushesPendingEventsAndClosesSinks() {
+        properties.setFlushIntervalMs(60_000);
+        RecordingSink sink = new RecordingSink("sink");
+        pipeline = new AuditPipeline(properties, List.of(sink), meterRegistry);
+
+        pipeline.publish(event("last"));
+        pipeline.close();
+
+        assertThat(sink.events).extracting(AuditEvent::userEmail).containsExactly("last");
+        assertThat(sink.closed).isTrue();
+        pipeline = null;
+    }
+
+    private double dropped(String reason) {
+        return meterRegistry.get("audit.events.dropped").tag("reason", reason).counter().count();
+    }
+
+    private static AuditEvent event(String user) {
+        return new AuditEvent(System.currentTimeMillis(), "tenant", "USER_LOGIN", user, "127.0.0.1", "ua", true, null);
+    }
+
+    private static void awaitCondition(java.util.function.BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition not met in time").isLessThan(deadline);
+            Thread.sleep(5);
+        }
+    }
+
+    private static class RecordingSink implements AuditSink {
+        private final String name;
+        final List<AuditEvent> events = new CopyOnWriteArrayList<>();
+        volatile boolean closed;
+
+        RecordingSink(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String name() {
+            return name;
+        }
+
+        @Override
+        public void write(List<AuditEvent> batch) throws IOException {
+            events.addAll(batch);
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
+    /** Holds the drainer inside its first write until released, so the buffer can be filled deterministically. */
+    private static class BlockingSink implements AuditSink {
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        @Override
+        public String name() {
+            return "blocking";
+        }
+
+        @Override
+        public void write(List<AuditEvent> batch) {
+            entered.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
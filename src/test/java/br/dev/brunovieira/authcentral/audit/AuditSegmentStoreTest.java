@@ -0,0 +1,181 @@
+package br.dev.brunovieira.authcentral.audit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.*;
+
+class AuditSegmentStoreTest {
+
+    private static final long T0 = 1_700_000_000_000L;
+    private static final long HOUR = 3_600_000L;
+
+    @TempDir
+    Path dir;
+
+    private MutableClock clock;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(T0);
+    }
+
+    @Test
+    void scan_returnsMatchingRecordsWithTheirFields() throws Exception {
+        AuditSegmentStore store = store(1024 * 1024, HOUR, 10);
+        store.write(List.of(
+                event(T0, "tenant-a", "USER_LOGIN", "alice@test.com", false, "Invalid credentials"),
+                event(T0 + 1, "tenant-a", "USER_LOGIN", "bob@test.com", true, null),
+                event(T0 + 2, "tenant-b", "USER_LOGIN", "carol@test.com", false, "Invalid credentials"),
+                event(T0 + 3, "tenant-a", "TOKEN_REFRESH", null, false, "Expired")));
+
+        List<AuditEvent> failedLogins = scan(store, new AuditQuery("tenant-a", "USER_LOGIN", false, T0, T0 + HOUR));
+
+        assertThat(failedLogins).singleElement().satisfies(event -> {
+            assertThat(event.timestamp()).isEqualTo(T0);
+            assertThat(event.tenantKey()).isEqualTo("tenant-a");
+            assertThat(event.action()).isEqualTo("USER_LOGIN");
+            assertThat(event.userEmail()).isEqualTo("alice@test.com");
+            assertThat(event.ipAddress()).isEqualTo("2001:db8::1");
+            assertThat(event.success()).isFalse();
+            assertThat(event.errorMessage()).isEqualTo("Invalid credentials");
+            assertThat(event.userAgent()).isNull();
+        });
+        assertThat(scan(store, new AuditQuery(null, null, null, T0, T0 + HOUR))).hasSize(4);
+        assertThat(scan(store, new AuditQuery(null, null, null, T0 + 1, T0 + 2)))
+                .extracting(AuditEvent::userEmail).containsExactly("bob@test.com", "carol@test.com");
+        assertThat(scan(store, new AuditQuery("unknown-tenant", null, null, T0, T0 + HOUR))).isEmpty();
+    }
+
+    @Test
+    void write_truncatesToFixedWidths() throws Exception {
+        AuditSegmentStore store = store(1024 * 1024, HOUR, 10);
+        store.write(List.of(event(T0, "tenant-a", "USER_LOGIN", "x".repeat(100) + "@test.com", false, "e".repeat(100))));
+
+        AuditEvent stored = scan(store, new AuditQuery(null, null, null, T0, T0)).getFirst();
+
+        assertThat(stored.userEmail()).hasSize(AuditSegment.USER_LENGTH);
+        assertThat(stored.errorMessage()).hasSize(AuditSegment.ERROR_LENGTH);
+    }
+
+    @Test
+    void write_rollsBySizeAndTimeAndEnforcesRetention() throws Exception {
+        AuditSegmentStore store = store(AuditSegment.RECORD_SIZE * 3L, HOUR, 3);
+
+        store.write(List.of(event(T0, "t", "USER_LOGIN", "u1", true, null), event(T0, "t", "USER_LOGIN", "u2", true, null)));
+        store.write(List.of(event(T0, "t", "USER_LOGIN", "u3", true, null)));
+        assertThat(store.segmentCount()).isEqualTo(2);
+
+        clock.advance(HOUR);
+        store.write(List.of(event(T0 + HOUR, "t", "USER_LOGIN", "u4", true, null)));
+        assertThat(store.segmentCount()).isEqualTo(3);
+
+        clock.advance(HOUR);
+        store.write(List.of(event(T0 + 2 * HOUR, "t", "USER_LOGIN", "u5", true, null)));
+
+        assertThat(store.segmentCount()).isEqualTo(3);
+        assertThat(scan(store, new AuditQuery(null, null, null, 0, Long.MAX_VALUE)))
+                .extracting(AuditEvent::userEmail).containsExactly("u3", "u4", "u5");
+        try (Stream<Path> files = Files.list(dir)) {
+            assertThat(files.filter(f -> f.toString().endsWith(".seg"))).hasSize(3);
+        }
+    }
+
+    @Test
+    void reopen_recoversRecordsAndTenantDictionary() throws Exception {
+        AuditSegmentStore first = store(1024 * 1024, HOUR, 10);
+        first.write(List.of(event(T0, "tenant-a", "USER_REGISTER", "a@test.com", true, null)));
+        first.close();
+
+        AuditSegmentStore second = store(1024 * 1024, HOUR, 10);
+        assertThat(scan(second, new AuditQuery("tenant-a", null, null, T0, T0)))
+                .extracting(AuditEvent::action).containsExactly("USER_REGISTER");
+
+        second.write(List.of(event(T0 + 1, "tenant-b", "USER_LOGOUT", "b@test.com", true, null)));
+        assertThat(second.segmentCount()).isEqualTo(1);
+        assertThat(scan(second, new AuditQuery(null, null, null, T0, T0 + 1))).hasSize(2);
+    }
+
+    @Test
+    void scan_stopsWhenConsumerDeclines() throws Exception {
+        AuditSegmentStore store = store(1024 * 1024, HOUR, 10);
+        List<AuditEvent> batch = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            batch.add(event(T0 + i, "t", "USER_LOGIN", "u" + i, false, null));
+        }
+        store.write(batch);
+        List<AuditEvent> seen = new ArrayList<>();
+
+        store.scan(new AuditQuery(null, null, null, T0 + 2500, T0 + 2999), event -> {
+            seen.add(event);
+            return seen.size() < 5;
+        });
+
+        assertThat(seen).extracting(AuditEvent::userEmail).containsExactly("u2500", "u2501", "u2502", "u2503", "u2504");
+    }
+
+    @Test
+    void scan_onMissingDirectory_returnsNothing() {
+        AuditSegmentStore store = new AuditSegmentStore(dir.resolve("absent"), 1024 * 1024, HOUR, 10, clock);
+
+        assertThat(scan(store, new AuditQuery(null, null, null, 0, Long.MAX_VALUE))).isEmpty();
+        assertThat(dir.resolve("absent")).doesNotExist();
+    }
+
+    private AuditSegmentStore store(long segmentBytes, long rollIntervalMs, int maxSegments) {
+        return new AuditSegmentStore(dir, segmentBytes, rollIntervalMs, maxSegments, clock);
+    }
+
+    private static List<AuditEvent> scan(AuditSegmentStore store, AuditQuery query) {
+        List<AuditEvent> events = new ArrayList<>();
+        store.scan(query, events::add);
+        return events;
+    }
+
+    private static AuditEvent event(long ts, String tenant, String action, String user, boolean success, String error) {
+        return new AuditEvent(ts, tenant, action, user, "2001:db8::1", "ua", success, error);
+    }
+
+    private static final class MutableClock extends Clock {
+        private long millis;
+
+        MutableClock(long millis) {
+            this.millis = millis;
+        }
+
+        void advance(long delta) {
+            millis += delta;
+        }
+
+        @Override
+        public long millis() {
+            return millis;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+    }
+}
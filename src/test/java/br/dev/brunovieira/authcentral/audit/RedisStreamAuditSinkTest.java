@@ -0,0 +1,59 @@
+package br.dev.brunovieira.authcentral.audit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisStreamCommands;
+import org.springframework.data.redis.connection.RedisStreamCommands.XAddOptions;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RedisStreamAuditSinkTest {
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private RedisConnection connection;
+
+    @Mock
+    private RedisStreamCommands streamCommands;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void write_pipelinesOneCappedXaddPerEvent() {
+        when(connection.streamCommands()).thenReturn(streamCommands);
+        when(redisTemplate.executePipelined(any(RedisCallback.class))).thenAnswer(invocation -> {
+            invocation.<RedisCallback<Object>>getArgument(0).doInRedis(connection);
+            return List.of();
+        });
+        RedisStreamAuditSink sink = new RedisStreamAuditSink(redisTemplate, JsonMapper.builder().build(), "audit", 1000);
+
+        sink.write(List.of(
+                new AuditEvent(1L, "tenant", "USER_LOGIN", "a@test.com", "10.0.0.1", "ua", true, null),
+                new AuditEvent(2L, "tenant", "USER_LOGOUT", "b@test.com", "10.0.0.2", "ua", true, null)));
+
+        ArgumentCaptor<MapRecord<byte[], byte[], byte[]>> records = ArgumentCaptor.forClass(MapRecord.class);
+        ArgumentCaptor<XAddOptions> options = ArgumentCaptor.forClass(XAddOptions.class);
+        verify(streamCommands, times(2)).xAdd(records.capture(), options.capture());
+        MapRecord<byte[], byte[], byte[]> first = records.getAllValues().getFirst();
+        assertThat(new String(first.getStream(), StandardCharsets.UTF_8)).isEqualTo("audit");
+        assertThat(new String(first.getValue().values().iterator().next(), StandardCharsets.UTF_8))
+                .contains("\"action\":\"USER_LOGIN\"");
+        assertThat(options.getValue().getMaxlen()).isEqualTo(1000);
+        assertThat(options.getValue().isApproximateTrimming()).isTrue();
+    }
+}
@@ -0,0 +1,68 @@
+package br.dev.brunovieira.authcentral.audit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+class RollingFileAuditSinkTest {
+
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void write_appendsJsonLines() throws Exception {
+        Path file = dir.resolve("audit/audit.log");
+        RollingFileAuditSink sink = new RollingFileAuditSink(jsonMapper, file, 1024 * 1024, 3);
+
+        sink.write(List.of(event("a"), event("b")));
+        sink.write(List.of(event("c")));
+        sink.close();
+
+        List<String> lines = Files.readAllLines(file);
+        assertThat(lines).hasSize(3);
+        assertThat(lines.getFirst()).contains("\"user\":\"a\"", "\"ok\":true").doesNotContain("error");
+    }
+
+    @Test
+    void write_rollsFilesAndKeepsAtMostMaxFiles() throws Exception {
+        Path file = dir.resolve("audit.log");
+        int lineLength = jsonMapper.writeValueAsBytes(event("u0")).length + 1;
+        RollingFileAuditSink sink = new RollingFileAuditSink(jsonMapper, file, lineLength * 2L, 2);
+
+        for (int i = 0; i < 8; i++) {
+            sink.write(List.of(event("u" + i)));
+        }
+        sink.close();
+
+        assertThat(Files.readAllLines(file)).hasSize(2).first().asString().contains("u6");
+        assertThat(Files.readAllLines(dir.resolve("audit.log.1")).getFirst()).contains("u4");
+        assertThat(Files.readAllLines(dir.resolve("audit.log.2")).getFirst()).contains("u2");
+        assertThat(dir.resolve("audit.log.3")).doesNotExist();
+    }
+
+    @Test
+    void write_continuesExistingFileAfterRestart() throws Exception {
+        Path file = dir.resolve("audit.log");
+        RollingFileAuditSink first = new RollingFileAuditSink(jsonMapper, file, 1024 * 1024, 1);
+        first.write(List.of(event("before")));
+        first.close();
+
+        RollingFileAuditSink second = new RollingFileAuditSink(jsonMapper, file, 1024 * 1024, 1);
+        second.write(List.of(event("after")));
+        second.close();
+
+        assertThat(Files.readAllLines(file)).hasSize(2);
+    }
+
+    private static AuditEvent event(String user) {
+        return new AuditEvent(1_700_000_000_000L, "tenant", "USER_LOGIN", user, "127.0.0.1", "ua", true, null);
+    }
+}
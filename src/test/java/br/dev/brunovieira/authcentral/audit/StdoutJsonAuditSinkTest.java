@@ -0,0 +1,34 @@
+package br.dev.brunovieira.authcentral.audit;
+
+import org.junit.jupiter.api.Test;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+class StdoutJsonAuditSinkTest {
+
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+
+    @Test
+    void write_printsOneJsonObjectPerLine() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        StdoutJsonAuditSink sink = new StdoutJsonAuditSink(jsonMapper, new PrintStream(bytes, true, StandardCharsets.UTF_8));
+
+        sink.write(List.of(
+                new AuditEvent(1L, "tenant", "USER_LOGIN", "a@test.com", "10.0.0.1", "ua", true, null),
+                new AuditEvent(2L, "tenant", "USER_LOGIN", "b@test.com", "10.0.0.2", "ua", false, "Invalid credentials")));
+
+        String[] lines = bytes.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(lines).hasSize(2);
+        JsonNode failure = jsonMapper.readTree(lines[1]);
+        assertThat(failure.get("ts").asLong()).isEqualTo(2L);
+        assertThat(failure.get("ok").asBoolean()).isFalse();
+        assertThat(failure.get("error").stringValue()).isEqualTo("Invalid credentials");
+    }
+}
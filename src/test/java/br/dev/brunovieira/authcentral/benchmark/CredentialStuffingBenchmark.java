@@ -0,0 +1,115 @@
+package br.dev.brunovieira.authcentral.benchmark;
+
+import br.dev.brunovieira.authcentral.dto.response.PreparedError;
+import br.dev.brunovieira.authcentral.exception.AuthenticationException;
+import br.dev.brunovieira.authcentral.exception.PreparedErrors;
+import br.dev.brunovieira.authcentral.model.AuthOutcome;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 401 throughput while every login attempt carries a wrong password, as under credential stuffing. Each operation
+ * is one rejected attempt from the token endpoint's answer to the response body written out:
+ * <ul>
+ *     <li>{@code stackTraceException}: the previous path, an exception with a stack trace thrown {@code depth}
+ *     frames down, rethrown by the Keycloak and auth service layers and turned into a body by the exception
+ *     handler;</li>
+ *     <li>{@code stacklessException}: the same with today's stackless {@link AuthenticationException}, as
+ *     unexpected failures still travel;</li>
+ *     <li>{@code outcome}: an {@link AuthOutcome.Rejected} returned through the same frames and mapped to the
+ *     body by the controller.</li>
+ * </ul>
+ * {@code depth} stands in for the servlet filter chain and Spring MVC frames beneath the token call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class CredentialStuffingBenchmark {
+
+    private static final String REASON = "Invalid credentials";
+
+    @Param({"40", "160"})
+    public int depth;
+
+    private final OutputStream out = OutputStream.nullOutputStream();
+
+    @Benchmark
+    public long stackTraceException() throws IOException {
+        try {
+            authServiceRethrowing(() -> {
+                throw new StackTraceAuthenticationException(REASON);
+            });
+            throw new IllegalStateException("not rejected");
+        } catch (RuntimeException e) {
+            return write(PreparedErrors.AUTHENTICATION_FAILED.get(e.getMessage()).body());
+        }
+    }
+
+    @Benchmark
+    public long stacklessException() throws IOException {
+        try {
+            authServiceRethrowing(() -> {
+                throw new AuthenticationException(REASON);
+            });
+            throw new IllegalStateException("not rejected");
+        } catch (AuthenticationException e) {
+            return write(PreparedErrors.AUTHENTICATION_FAILED.get(e.getMessage()).body());
+        }
+    }
+
+    @Benchmark
+    public long outcome() throws IOException {
+        AuthOutcome<byte[]> outcome = below(depth, () -> AuthOutcome.<byte[]>rejected(REASON)).map(body -> body);
+        return switch (outcome) {
+            case AuthOutcome.Granted<byte[]> granted -> granted.value().length;
+            case AuthOutcome.Rejected<byte[]> rejected ->
+                    write(PreparedErrors.AUTHENTICATION_FAILED.get(rejected.reason()).body());
+        };
+    }
+
+    private long write(PreparedError.Body body) throws IOException {
+        body.writeTo(out);
+        return body.contentLength();
+    }
+
+    private void authServiceRethrowing(TokenCall call) {
+        try {
+            keycloakRethrowing(call);
+        } catch (RuntimeException e) {
+            throw e;
+        }
+    }
+
+    private void keycloakRethrowing(TokenCall call) {
+        try {
+            below(depth, call);
+        } catch (RuntimeException e) {
+            throw e;
+        }
+    }
+
+    private static AuthOutcome<byte[]> below(int frames, TokenCall call) {
+        return frames == 0 ? call.exchange() : below(frames - 1, call);
+    }
+
+    @FunctionalInterface
+    private interface TokenCall {
+        AuthOutcome<byte[]> exchange();
+    }
+
+    /**
+     * {@link AuthenticationException} as it was before it became stackless.
+     */
+    private static final class StackTraceAuthenticationException extends RuntimeException {
+        StackTraceAuthenticationException(String message) {
+            super(message);
+        }
+    }
+}
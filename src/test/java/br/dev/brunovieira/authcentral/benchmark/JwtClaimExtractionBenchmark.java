@@ -0,0 +1,75 @@
+package br.dev.brunovieira.authcentral.benchmark;
+
+import br.dev.brunovieira.authcentral.service.JwtClaimExtractor;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading {@code email}, {@code given_name} and {@code family_name} from a Keycloak access token: splitting it,
+ * Base64-decoding the payload and binding every claim into a {@code Map} (the previous login path), against
+ * {@link JwtClaimExtractor}. {@code roles} sets how many realm roles and groups the token carries. Run with
+ * {@code -prof gc} to compare allocation per token.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtClaimExtractionBenchmark {
+
+    @Param({"5", "200"})
+    public int roles;
+
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+    private final JwtClaimExtractor extractor = new JwtClaimExtractor("email", "given_name", "family_name");
+    private String jwt;
+
+    @Setup
+    public void setUp() {
+        StringJoiner roleNames = new StringJoiner("\",\"", "[\"", "\"]");
+        StringJoiner groups = new StringJoiner("\",\"", "[\"", "\"]");
+        for (int i = 0; i < roles; i++) {
+            roleNames.add("app-role-" + i);
+            groups.add("/organization/department-" + i);
+        }
+        // claims in Keycloak's order: the user's names come after the access claims
+        String payload = "{\"exp\":1760000300,\"iat\":1760000000,\"jti\":\"4c1f8b2e-9d3a-4e57-a1b6-0f2c7d8e9a10\","
+                + "\"iss\":\"https://keycloak.example.com/realms/benchmark\",\"aud\":\"account\","
+                + "\"sub\":\"0b6f5e2a-1c3d-4f8e-9a7b-2d4c6e8f0a1b\",\"typ\":\"Bearer\",\"azp\":\"benchmark-client\","
+                + "\"sid\":\"7e3a9c1d-5b2f-4d6e-8a0c-1f3b5d7e9a2c\",\"acr\":\"1\",\"allowed-origins\":[\"*\"],"
+                + "\"realm_access\":{\"roles\":" + roleNames + "},"
+                + "\"resource_access\":{\"account\":{\"roles\":[\"manage-account\",\"view-profile\"]}},"
+                + "\"scope\":\"openid email profile\",\"email_verified\":true,\"groups\":" + groups + ","
+                + "\"name\":\"Jane Doe\",\"preferred_username\":\"jane.doe@example.com\",\"given_name\":\"Jane\","
+                + "\"family_name\":\"Doe\",\"email\":\"jane.doe@example.com\"}";
+        jwt = "eyJhbGciOiJSUzI1NiIsInR5cCIgOiAiSldUIiwia2lkIiA6ICJrZXktMSJ9."
+                + Base64.getUrlEncoder().withoutPadding().encodeToString(payload.getBytes(StandardCharsets.UTF_8))
+                + ".c2lnbmF0dXJlLXBsYWNlaG9sZGVyLXNpZ25hdHVyZS1wbGFjZWhvbGRlcg";
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public void splitAndMap(Blackhole blackhole) {
+        String[] parts = jwt.split("\\.");
+        Map<String, Object> claims = jsonMapper.readValue(Base64.getUrlDecoder().decode(parts[1]), Map.class);
+        blackhole.consume(claims.get("email"));
+        blackhole.consume(claims.get("given_name"));
+        blackhole.consume(claims.get("family_name"));
+    }
+
+    @Benchmark
+    public void streaming(Blackhole blackhole) {
+        JwtClaimExtractor.Claims claims = extractor.extract(jwt);
+        blackhole.consume(claims.getString("email"));
+        blackhole.consume(claims.getString("given_name"));
+        blackhole.consume(claims.getString("family_name"));
+    }
+}
@@ -0,0 +1,108 @@
+package br.dev.brunovieira.authcentral.benchmark;
+
+import br.dev.brunovieira.authcentral.config.RateLimitConfig;
+import br.dev.brunovieira.authcentral.ratelimit.BucketKey;
+import br.dev.brunovieira.authcentral.ratelimit.BucketLimit;
+import br.dev.brunovieira.authcentral.ratelimit.RateLimitedEndpoint;
+import br.dev.brunovieira.authcentral.ratelimit.RedisCircuitBreaker;
+import br.dev.brunovieira.authcentral.ratelimit.RedisRateLimiter;
+import br.dev.brunovieira.authcentral.util.NanoClock;
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.BucketConfiguration;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Blocking vs async+coalesced bucket consumption for a burst of concurrent login attempts
+ * spread over {@code distinctClients} IPs of one tenant, against a Redis with {@code redisLatencyMicros} per command.
+ * Each request draws from its IP bucket and the shared tenant bucket.
+ * Each invocation is one whole burst; the score is the time until every request has a decision.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class RateLimitConsumptionBenchmark {
+
+    private static final BucketConfiguration LOGIN_LIMIT = BucketConfiguration.builder()
+            .addLimit(Bandwidth.builder().capacity(10).refillIntervally(10, Duration.ofMinutes(1)).build())
+            .build();
+
+    private static final BucketConfiguration TENANT_LIMIT = BucketConfiguration.builder()
+            .addLimit(Bandwidth.builder().capacity(100_000).refillIntervally(100_000, Duration.ofMinutes(1)).build())
+            .build();
+
+    @Param({"1000", "10000", "50000"})
+    int concurrentRequests;
+
+    @Param({"100"})
+    int distinctClients;
+
+    @Param({"500"})
+    int redisLatencyMicros;
+
+    private RedisRateLimiter limiter;
+    private List<BucketLimit>[] requests;
+
+    @Setup(Level.Invocation)
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        RateLimitConfig config = new RateLimitConfig();
+        config.getCircuitBreaker().setCallTimeoutMs(60_000);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        limiter = new RedisRateLimiter(new SimulatedTokenBucketStore(redisLatencyMicros),
+                new RedisCircuitBreaker(config, meterRegistry, NanoClock.system()), meterRegistry);
+        int tag = BucketKey.tenantTag("benchmark");
+        BucketLimit tenant = new BucketLimit(BucketKey.tenant(tag, RateLimitedEndpoint.LOGIN), TENANT_LIMIT);
+        requests = new List[distinctClients];
+        for (int i = 0; i < distinctClients; i++) {
+            String ip = "10.0." + (i / 256) + "." + (i % 256);
+            requests[i] = List.of(new BucketLimit(BucketKey.ip(tag, RateLimitedEndpoint.LOGIN, ip), LOGIN_LIMIT), tenant);
+        }
+    }
+
+    @Benchmark
+    public int blocking() {
+        // One virtual thread per request, as with spring.threads.virtual.enabled
+        int[] admitted = new int[1];
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < concurrentRequests; i++) {
+                List<BucketLimit> buckets = requests[i % distinctClients];
+                executor.submit(() -> {
+                    if (limiter.tryConsume(buckets)) {
+                        synchronized (admitted) {
+                            admitted[0]++;
+                        }
+                    }
+                });
+            }
+        }
+        return admitted[0];
+    }
+
+    @Benchmark
+    public long asyncCoalesced() {
+        @SuppressWarnings("unchecked")
+        CompletableFuture<Boolean>[] decisions = new CompletableFuture[concurrentRequests];
+        for (int i = 0; i < concurrentRequests; i++) {
+            decisions[i] = limiter.tryConsumeAsync(requests[i % distinctClients]);
+        }
+        CompletableFuture.allOf(decisions).join();
+        long admitted = 0;
+        for (CompletableFuture<Boolean> decision : decisions) {
+            if (decision.join()) {
+                admitted++;
+            }
+        }
+        return admitted;
+    }
+}
@@ -0,0 +1,53 @@
+package br.dev.brunovieira.authcentral.benchmark;
+
+import br.dev.brunovieira.authcentral.ratelimit.BucketKey;
+import br.dev.brunovieira.authcentral.ratelimit.BucketLimit;
+import br.dev.brunovieira.authcentral.ratelimit.TokenBucketStore;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory stand-in for the Redis token bucket script: every call is applied atomically, like a script on the
+ * single-threaded Redis server, and answered after a fixed network latency. Buckets do not refill.
+ */
+final class SimulatedTokenBucketStore implements TokenBucketStore {
+
+    private final Map<BucketKey, Long> balances = new HashMap<>();
+    private final Executor network;
+
+    SimulatedTokenBucketStore(long latencyMicros) {
+        this.network = CompletableFuture.delayedExecutor(latencyMicros, TimeUnit.MICROSECONDS);
+    }
+
+    @Override
+    public CompletableFuture<Long> consume(List<BucketLimit> buckets, long tokens) {
+        return CompletableFuture.supplyAsync(() -> apply(buckets, tokens, false), network);
+    }
+
+    @Override
+    public CompletableFuture<Long> debit(BucketLimit bucket, long tokens) {
+        return CompletableFuture.supplyAsync(() -> apply(List.of(bucket), tokens, true), network);
+    }
+
+    private synchronized long apply(List<BucketLimit> buckets, long tokens, boolean force) {
+        long granted = tokens;
+        long remaining = Long.MAX_VALUE;
+        for (BucketLimit bucket : buckets) {
+            long balance = balances.computeIfAbsent(bucket.key(),
+                    k -> bucket.configuration().getBandwidths()[0].getCapacity());
+            if (!force) {
+                granted = Math.max(0, Math.min(granted, balance));
+            }
+        }
+        for (BucketLimit bucket : buckets) {
+            long balance = balances.merge(bucket.key(), -granted, Long::sum);
+            remaining = Math.min(remaining, balance);
+        }
+        return force ? remaining : granted;
+    }
+}
@@ -0,0 +1,74 @@
+package br.dev.brunovieira.authcentral.benchmark;
+
+import br.dev.brunovieira.authcentral.config.TenantCacheProperties;
+import br.dev.brunovieira.authcentral.model.Tenant;
+import br.dev.brunovieira.authcentral.service.TokenRequestEncoder;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.FormHttpMessageConverter;
+import org.springframework.mock.http.MockHttpOutputMessage;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.util.DefaultUriBuilderFactory;
+import org.springframework.web.util.UriBuilderFactory;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building one password-grant token request: URL concatenation, a {@code MultiValueMap} and Spring's
+ * {@link FormHttpMessageConverter} (as {@code RestClient} does for a form body), against a precompiled
+ * {@link TokenRequestEncoder.Template}. Run with {@code -prof gc} to compare allocation per request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenRequestEncodingBenchmark {
+
+    private static final String USERNAME = "jane.doe+work@example.com";
+    private static final String PASSWORD = "correct horse battery staple!";
+
+    private final FormHttpMessageConverter converter = new FormHttpMessageConverter();
+    private final UriBuilderFactory uriBuilderFactory = new DefaultUriBuilderFactory();
+    private TokenRequestEncoder encoder;
+    private Tenant tenant;
+
+    @Setup
+    public void setUp() {
+        encoder = new TokenRequestEncoder(new TenantCacheProperties());
+        tenant = Tenant.builder()
+                .tenantKey("benchmark")
+                .realmName("benchmark-realm")
+                .clientId("benchmark-client")
+                .clientSecret("9f1c2b7e-52d4-4a8e-b0f3-6d1e2c9a7b44")
+                .keycloakBaseUrl("https://keycloak.example.com")
+                .build();
+    }
+
+    @Benchmark
+    public byte[] formConverter(Blackhole blackhole) throws IOException {
+        String url = tenant.getKeycloakBaseUrl() + "/realms/" + tenant.getRealmName() + "/protocol/openid-connect/token";
+        blackhole.consume(uriBuilderFactory.expand(url));
+
+        MultiValueMap<String, String> body = new LinkedMultiValueMap<>();
+        body.add("client_id", tenant.getClientId());
+        body.add("client_secret", tenant.getClientSecret());
+        body.add("grant_type", "password");
+        body.add("username", USERNAME);
+        body.add("password", PASSWORD);
+        MockHttpOutputMessage message = new MockHttpOutputMessage();
+        converter.write(body, MediaType.APPLICATION_FORM_URLENCODED, message);
+        return message.getBodyAsBytes();
+    }
+
+    @Benchmark
+    public byte[] precompiled(Blackhole blackhole) {
+        TokenRequestEncoder.Template template = encoder.template(tenant);
+        blackhole.consume(template.tokenUri(tenant.getKeycloakBaseUrl()));
+        return template.passwordGrant(USERNAME, PASSWORD);
+    }
+}
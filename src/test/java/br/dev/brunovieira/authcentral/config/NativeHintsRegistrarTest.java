@@ -1,12 +1,13 @@
 package br.dev.brunovieira.authcentral.config;
 
+import br.dev.brunovieira.authcentral.audit.AuditEvent;
+import br.dev.brunovieira.authcentral.dto.response.ApiResponse;
+import br.dev.brunovieira.authcentral.dto.response.LoginResponse;
 import br.dev.brunovieira.authcentral.model.Tenant;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.keycloak.representations.idm.CredentialRepresentation;
-import org.keycloak.representations.idm.UserRepresentation;
-import org.springframework.aot.hint.MemberCategory;
 import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.TypeReference;
 import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
 
 import static org.assertj.core.api.Assertions.*;
@@ -27,13 +28,24 @@ class NativeHintsRegistrarTest {
     }
 
     @Test
-    void registersUserRepresentationForReflection() {
-        assertThat(RuntimeHintsPredicates.reflection().onType(UserRepresentation.class)).accepts(hints);
+    void registersAuditEventForReflection() {
+        assertThat(RuntimeHintsPredicates.reflection().onType(AuditEvent.class)).accepts(hints);
     }
 
     @Test
-    void registersCredentialRepresentationForReflection() {
-        assertThat(RuntimeHintsPredicates.reflection().onType(CredentialRepresentation.class)).accepts(hints);
+    void registersTokenResponsesForBinding() {
+        assertThat(RuntimeHintsPredicates.reflection().onType(LoginResponse.class)).accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection().onMethodInvocation(LoginResponse.class, "setAccessToken"))
+                .accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection().onType(ApiResponse.class)).accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection().onMethodInvocation(ApiResponse.class, "getData")).accepts(hints);
+    }
+
+    @Test
+    void registersSharedServiceTokenForReflection() {
+        assertThat(RuntimeHintsPredicates.reflection()
+                .onType(TypeReference.of("br.dev.brunovieira.authcentral.service.ServiceTokenManager$ServiceToken")))
+                .accepts(hints);
     }
 
     @Test
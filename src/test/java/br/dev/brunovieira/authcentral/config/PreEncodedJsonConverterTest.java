@@ -0,0 +1,59 @@
+package br.dev.brunovieira.authcentral.config;
+
+import br.dev.brunovieira.authcentral.dto.response.ApiResponse;
+import br.dev.brunovieira.authcentral.dto.response.TokenPassthrough;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.MockHttpOutputMessage;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PreEncodedJsonConverterTest {
+
+    private static final byte[] TOKEN_RESPONSE =
+            "{\"access_token\":\"tok\",\"expires_in\":300,\"token_type\":\"Bearer\"}".getBytes(StandardCharsets.UTF_8);
+
+    private final PreEncodedJsonConverter converter = new PreEncodedJsonConverter();
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+
+    @Test
+    void raw_writesBodyAsIs() throws Exception {
+        MockHttpOutputMessage output = new MockHttpOutputMessage();
+
+        converter.write(TokenPassthrough.raw(TOKEN_RESPONSE), MediaType.APPLICATION_JSON, output);
+
+        assertThat(output.getBodyAsBytes()).isEqualTo(TOKEN_RESPONSE);
+        assertThat(output.getHeaders().getContentLength()).isEqualTo(TOKEN_RESPONSE.length);
+        assertThat(output.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_JSON);
+    }
+
+    @Test
+    void enveloped_matchesApiResponseSerialization() throws Exception {
+        MockHttpOutputMessage output = new MockHttpOutputMessage();
+        TokenPassthrough.Envelope envelope = new TokenPassthrough.Envelope("Login \"successful\"");
+
+        converter.write(TokenPassthrough.enveloped(envelope, TOKEN_RESPONSE), MediaType.APPLICATION_JSON, output);
+
+        JsonNode written = jsonMapper.readTree(output.getBodyAsBytes());
+        JsonNode expected = jsonMapper.readTree(jsonMapper.writeValueAsBytes(
+                ApiResponse.success("Login \"successful\"", jsonMapper.readValue(TOKEN_RESPONSE, Map.class))));
+        assertThat(written.propertyNames()).containsExactlyElementsOf(expected.propertyNames());
+        assertThat(written.get("status")).isEqualTo(expected.get("status"));
+        assertThat(written.get("message")).isEqualTo(expected.get("message"));
+        assertThat(written.get("data")).isEqualTo(expected.get("data"));
+        assertThat(written.get("timestamp").asString()).matches("\\d{4}-\\d{2}-\\d{2}T\\d{2}:\\d{2}:\\d{2}.*");
+        assertThat(output.getHeaders().getContentLength()).isEqualTo(output.getBodyAsBytes().length);
+    }
+
+    @Test
+    void neverReads() {
+        assertThat(converter.canRead(TokenPassthrough.class, MediaType.APPLICATION_JSON)).isFalse();
+        assertThat(converter.canWrite(TokenPassthrough.class, MediaType.APPLICATION_JSON)).isTrue();
+        assertThat(converter.canWrite(ApiResponse.class, MediaType.APPLICATION_JSON)).isFalse();
+    }
+}
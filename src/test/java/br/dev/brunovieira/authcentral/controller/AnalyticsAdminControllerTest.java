@@ -0,0 +1,48 @@
+package br.dev.brunovieira.authcentral.controller;
+
+import br.dev.brunovieira.authcentral.analytics.AuthAnalytics;
+import br.dev.brunovieira.authcentral.dto.response.AnalyticsResponse;
+import br.dev.brunovieira.authcentral.dto.response.ApiResponse;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AnalyticsAdminControllerTest {
+
+    @Mock
+    private AuthAnalytics authAnalytics;
+
+    @Test
+    void analytics_queriesRequestedRange() {
+        AnalyticsResponse analytics = AnalyticsResponse.builder().tenant("tenant-a").build();
+        Instant from = Instant.parse("2025-01-01T10:00:00Z");
+        Instant to = Instant.parse("2025-01-01T12:00:00Z");
+        when(authAnalytics.query("tenant-a", from.toEpochMilli(), to.toEpochMilli())).thenReturn(analytics);
+
+        ResponseEntity<ApiResponse<AnalyticsResponse>> response =
+                new AnalyticsAdminController(authAnalytics).analytics("tenant-a", from, to);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody().getData()).isSameAs(analytics);
+    }
+
+    @Test
+    void analytics_defaultsToLastHour() {
+        long before = System.currentTimeMillis();
+        new AnalyticsAdminController(authAnalytics).analytics("tenant-a", null, null);
+
+        verify(authAnalytics).query(eq("tenant-a"),
+                longThat(from -> from >= before - 3_600_000L && from <= before),
+                longThat(to -> to >= before));
+    }
+}
@@ -0,0 +1,78 @@
+package br.dev.brunovieira.authcentral.controller;
+
+import br.dev.brunovieira.authcentral.audit.AuditEvent;
+import br.dev.brunovieira.authcentral.audit.AuditQuery;
+import br.dev.brunovieira.authcentral.audit.AuditSegmentStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AuditAdminControllerTest {
+
+    @Mock
+    private AuditSegmentStore auditSegmentStore;
+
+    private AuditAdminController controller;
+
+    @BeforeEach
+    void setUp() {
+        controller = new AuditAdminController(auditSegmentStore, JsonMapper.builder().build());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void query_streamsMatchesAsNdjsonUpToLimit() throws Exception {
+        when(auditSegmentStore.scan(any(), any())).thenAnswer(invocation -> {
+            Predicate<AuditEvent> consumer = invocation.getArgument(1);
+            int sent = 0;
+            for (int i = 0; i < 5; i++) {
+                sent++;
+                if (!consumer.test(new AuditEvent(i, "tenant-a", "USER_LOGIN", "u" + i, "10.0.0.1", null, false, "Invalid credentials"))) {
+                    break;
+                }
+            }
+            return sent;
+        });
+        Instant from = Instant.parse("2025-01-01T10:00:00Z");
+        Instant to = Instant.parse("2025-01-01T11:00:00Z");
+
+        ResponseEntity<StreamingResponseBody> response = controller.query("tenant-a", "USER_LOGIN", false, from, to, 2);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+
+        assertThat(response.getHeaders().getContentType()).hasToString("application/x-ndjson");
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(lines).hasSize(2);
+        assertThat(lines[1]).contains("\"user\":\"u1\"");
+        ArgumentCaptor<AuditQuery> query = ArgumentCaptor.forClass(AuditQuery.class);
+        verify(auditSegmentStore).scan(query.capture(), any());
+        assertThat(query.getValue()).isEqualTo(
+                new AuditQuery("tenant-a", "USER_LOGIN", false, from.toEpochMilli(), to.toEpochMilli()));
+    }
+
+    @Test
+    void query_defaultsToLastHour() throws Exception {
+        ResponseEntity<StreamingResponseBody> response = controller.query(null, null, null, null, null, 1000);
+        response.getBody().writeTo(new ByteArrayOutputStream());
+
+        ArgumentCaptor<AuditQuery> query = ArgumentCaptor.forClass(AuditQuery.class);
+        verify(auditSegmentStore).scan(query.capture(), any());
+        assertThat(query.getValue().to() - query.getValue().from()).isEqualTo(3_600_000L);
+    }
+}
@@ -4,10 +4,17 @@ import br.dev.brunovieira.authcentral.TestFixtures;
 import br.dev.brunovieira.authcentral.dto.request.LoginRequest;
 import br.dev.brunovieira.authcentral.dto.request.RefreshTokenRequest;
 import br.dev.brunovieira.authcentral.dto.request.RegisterRequest;
+import br.dev.brunovieira.authcentral.dto.request.ValidateTokenRequest;
 import br.dev.brunovieira.authcentral.dto.response.ApiResponse;
 import br.dev.brunovieira.authcentral.dto.response.LoginResponse;
+import br.dev.brunovieira.authcentral.dto.response.PreparedError;
+import br.dev.brunovieira.authcentral.dto.response.TokenPassthrough;
+import br.dev.brunovieira.authcentral.dto.response.TokenValidationResponse;
+import br.dev.brunovieira.authcentral.model.AuthOutcome;
 import br.dev.brunovieira.authcentral.model.Tenant;
+import br.dev.brunovieira.authcentral.model.TokenResponseMode;
 import br.dev.brunovieira.authcentral.service.AuthService;
+import br.dev.brunovieira.authcentral.service.TokenValidationService;
 import br.dev.brunovieira.authcentral.util.TenantContext;
 import jakarta.servlet.http.HttpServletRequest;
 import org.junit.jupiter.api.AfterEach;
@@ -17,8 +24,11 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 
+import java.nio.charset.StandardCharsets;
+
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
@@ -28,6 +38,9 @@ class AuthControllerTest {
     @Mock
     private AuthService authService;
 
+    @Mock
+    private TokenValidationService tokenValidationService;
+
     @Mock
     private HttpServletRequest httpRequest;
 
@@ -36,12 +49,12 @@ class AuthControllerTest {
 
     @BeforeEach
     void setUp() {
-        controller = new AuthController(authService);
+        controller = new AuthController(authService, tokenValidationService);
         tenant = TestFixtures.tenant();
         TenantContext.setCurrentTenant(tenant);
 
-        when(httpRequest.getHeader("X-Forwarded-For")).thenReturn("10.0.0.1");
-        when(httpRequest.getHeader("User-Agent")).thenReturn("TestAgent");
+        lenient().when(httpRequest.getHeader("X-Forwarded-For")).thenReturn("10.0.0.1");
+        lenient().when(httpRequest.getHeader("User-Agent")).thenReturn("TestAgent");
     }
 
     @AfterEach
@@ -81,13 +94,92 @@ class AuthControllerTest {
                 .build();
 
         when(authService.login(eq(tenant), eq(request), eq("10.0.0.1"), eq("TestAgent")))
-                .thenReturn(loginResponse);
+                .thenReturn(AuthOutcome.granted(loginResponse));
 
-        ResponseEntity<ApiResponse<LoginResponse>> response = controller.login(request, httpRequest);
+        ResponseEntity<?> response = controller.login(request, httpRequest);
 
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
-        assertThat(response.getBody()).isNotNull();
-        assertThat(response.getBody().getData().getAccessToken()).isEqualTo("access-tok");
+        assertThat(response.getBody()).isInstanceOfSatisfying(ApiResponse.class,
+                body -> assertThat(((LoginResponse) body.getData()).getAccessToken()).isEqualTo("access-tok"));
+        verify(authService, never()).loginPassthrough(any(), any(), any(), any());
+    }
+
+    @Test
+    void login_rawHeader_passesKeycloakResponseThrough() {
+        LoginRequest request = LoginRequest.builder()
+                .email("user@test.com")
+                .password("password123")
+                .build();
+        byte[] tokenResponse = "{\"access_token\":\"access-tok\"}".getBytes(StandardCharsets.UTF_8);
+        when(httpRequest.getHeader(TokenResponseMode.HEADER)).thenReturn("raw");
+        when(authService.loginPassthrough(eq(tenant), eq(request), eq("10.0.0.1"), eq("TestAgent")))
+                .thenReturn(AuthOutcome.granted(tokenResponse));
+
+        ResponseEntity<?> response = controller.login(request, httpRequest);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_JSON);
+        assertThat(response.getBody()).isInstanceOfSatisfying(TokenPassthrough.class, body -> {
+            assertThat(body.prefix()).isEmpty();
+            assertThat(body.body()).isSameAs(tokenResponse);
+            assertThat(body.suffix()).isEmpty();
+        });
+        verify(authService, never()).login(any(), any(), any(), any());
+    }
+
+    @Test
+    void login_rejected_returnsPreparedUnauthorized() {
+        LoginRequest request = LoginRequest.builder()
+                .email("user@test.com")
+                .password("wrong")
+                .build();
+        when(authService.login(eq(tenant), eq(request), eq("10.0.0.1"), eq("TestAgent")))
+                .thenReturn(AuthOutcome.rejected("Invalid credentials"));
+
+        ResponseEntity<?> response = controller.login(request, httpRequest);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+        assertThat(response.getBody()).isInstanceOfSatisfying(PreparedError.Body.class, body -> {
+            assertThat(body.error().code()).isEqualTo(401);
+            assertThat(body.error().message()).isEqualTo("Invalid credentials");
+            assertThat(body.error().details()).isEqualTo("Authentication failed");
+        });
+    }
+
+    @Test
+    void refreshToken_rawHeaderRejected_returnsPreparedUnauthorized() {
+        RefreshTokenRequest request = RefreshTokenRequest.builder()
+                .refreshToken("expired")
+                .build();
+        when(httpRequest.getHeader(TokenResponseMode.HEADER)).thenReturn("raw");
+        when(authService.refreshTokenPassthrough(eq(tenant), eq("expired"), eq("10.0.0.1"), eq("TestAgent")))
+                .thenReturn(AuthOutcome.rejected("Invalid or expired refresh token"));
+
+        ResponseEntity<?> response = controller.refreshToken(request, httpRequest);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+        assertThat(response.getBody()).isInstanceOfSatisfying(PreparedError.Body.class,
+                body -> assertThat(body.error().message()).isEqualTo("Invalid or expired refresh token"));
+    }
+
+    @Test
+    void refreshToken_tenantEnvelopeMode_wrapsKeycloakResponse() {
+        tenant.setTokenResponseMode(TokenResponseMode.ENVELOPE);
+        RefreshTokenRequest request = RefreshTokenRequest.builder()
+                .refreshToken("old-refresh")
+                .build();
+        byte[] tokenResponse = "{\"access_token\":\"new-access\"}".getBytes(StandardCharsets.UTF_8);
+        when(authService.refreshTokenPassthrough(eq(tenant), eq("old-refresh"), eq("10.0.0.1"), eq("TestAgent")))
+                .thenReturn(AuthOutcome.granted(tokenResponse));
+
+        ResponseEntity<?> response = controller.refreshToken(request, httpRequest);
+
+        assertThat(response.getBody()).isInstanceOfSatisfying(TokenPassthrough.class, body -> {
+            assertThat(new String(body.prefix(), StandardCharsets.UTF_8))
+                    .isEqualTo("{\"status\":\"success\",\"message\":\"Token refreshed successfully\",\"data\":");
+            assertThat(body.body()).isSameAs(tokenResponse);
+            assertThat(new String(body.suffix(), StandardCharsets.UTF_8)).startsWith(",\"timestamp\":\"").endsWith("\"}");
+        });
     }
 
     @Test
@@ -104,13 +196,13 @@ class AuthControllerTest {
                 .build();
 
         when(authService.refreshToken(eq(tenant), eq("old-refresh"), eq("10.0.0.1"), eq("TestAgent")))
-                .thenReturn(loginResponse);
+                .thenReturn(AuthOutcome.granted(loginResponse));
 
-        ResponseEntity<ApiResponse<LoginResponse>> response = controller.refreshToken(request, httpRequest);
+        ResponseEntity<?> response = controller.refreshToken(request, httpRequest);
 
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
-        assertThat(response.getBody()).isNotNull();
-        assertThat(response.getBody().getData().getAccessToken()).isEqualTo("new-access");
+        assertThat(response.getBody()).isInstanceOfSatisfying(ApiResponse.class,
+                body -> assertThat(((LoginResponse) body.getData()).getAccessToken()).isEqualTo("new-access"));
     }
 
     @Test
@@ -126,4 +218,17 @@ class AuthControllerTest {
         assertThat(response.getBody().getStatus()).isEqualTo("success");
         verify(authService).logout(eq(tenant), eq("refresh-tok"), eq("10.0.0.1"), eq("TestAgent"));
     }
+
+    @Test
+    void validate_returnsClaims() {
+        TokenValidationResponse claims = TokenValidationResponse.builder().subject("user-id").build();
+        when(tokenValidationService.validate(tenant, "access-tok")).thenReturn(claims);
+
+        ResponseEntity<ApiResponse<TokenValidationResponse>> response =
+                controller.validate(ValidateTokenRequest.builder().token("access-tok").build());
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isNotNull();
+        assertThat(response.getBody().getData()).isSameAs(claims);
+    }
 }
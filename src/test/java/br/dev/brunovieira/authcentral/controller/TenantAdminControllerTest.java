@@ -0,0 +1,60 @@
+package br.dev.brunovieira.authcentral.controller;
+
+import br.dev.brunovieira.authcentral.config.TenantProperties;
+import br.dev.brunovieira.authcentral.dto.response.ApiResponse;
+import br.dev.brunovieira.authcentral.service.TenantRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TenantAdminControllerTest {
+
+    @Mock
+    private TenantRegistry tenantRegistry;
+
+    private TenantAdminController controller;
+
+    @BeforeEach
+    void setUp() {
+        controller = new TenantAdminController(tenantRegistry);
+    }
+
+    @Test
+    void reload_returnsTenantCount() {
+        when(tenantRegistry.reloadAndBroadcast()).thenReturn(3);
+
+        ResponseEntity<ApiResponse<Map<String, Integer>>> response = controller.reload();
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody().getData()).containsEntry("tenants", 3);
+    }
+
+    @Test
+    void upsert_delegatesToRegistry() {
+        TenantProperties.TenantEntry entry = new TenantProperties.TenantEntry();
+        when(tenantRegistry.upsert("t1", entry)).thenReturn(2);
+
+        ResponseEntity<ApiResponse<Map<String, Integer>>> response = controller.upsert("t1", entry);
+
+        assertThat(response.getBody().getData()).containsEntry("tenants", 2);
+    }
+
+    @Test
+    void remove_delegatesToRegistry() {
+        when(tenantRegistry.remove("t1")).thenReturn(1);
+
+        ResponseEntity<ApiResponse<Map<String, Integer>>> response = controller.remove("t1");
+
+        assertThat(response.getBody().getData()).containsEntry("tenants", 1);
+    }
+}
@@ -0,0 +1,63 @@
+package br.dev.brunovieira.authcentral.dto.response;
+
+import org.junit.jupiter.api.Test;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.*;
+
+class PreparedErrorTest {
+
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+
+    @Test
+    void body_matchesErrorResponseSerialization() throws IOException {
+        PreparedError error = new PreparedError(401, "Bad \"credentials\" for joão", "Authentication failed");
+
+        PreparedError.Body body = error.body();
+        byte[] written = write(body);
+
+        JsonNode actual = jsonMapper.readTree(written);
+        ErrorResponse expected = ErrorResponse.builder()
+                .message("Bad \"credentials\" for joão")
+                .code(401)
+                .details("Authentication failed")
+                .timestamp(LocalDateTime.parse(actual.get("timestamp").asString()))
+                .build();
+        assertThat(actual).isEqualTo(jsonMapper.readTree(jsonMapper.writeValueAsBytes(expected)));
+        assertThat(actual.propertyNames()).containsExactly("status", "message", "code", "details", "timestamp");
+        assertThat(body.contentLength()).isEqualTo(written.length);
+    }
+
+    @Test
+    void body_omitsNullFields() throws IOException {
+        JsonNode actual = jsonMapper.readTree(write(new PreparedError(429, null, null).body()));
+
+        assertThat(actual.propertyNames()).containsExactly("status", "code", "timestamp");
+    }
+
+    @Test
+    void cache_reusesPerMessageAndStaysBounded() {
+        PreparedError.Cache cache = new PreparedError.Cache(401, "Authentication failed", 2);
+
+        PreparedError first = cache.get("Invalid credentials");
+        assertThat(cache.get("Invalid credentials")).isSameAs(first);
+        assertThat(cache.get(null).message()).isNull();
+
+        cache.get("Token expired");
+        cache.get("Account disabled");
+
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(cache.get("Account disabled").code()).isEqualTo(401);
+    }
+
+    private static byte[] write(PreEncodedJson body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        body.writeTo(out);
+        return out.toByteArray();
+    }
+}
@@ -1,10 +1,12 @@
 package br.dev.brunovieira.authcentral.exception;
 
 import br.dev.brunovieira.authcentral.dto.response.ErrorResponse;
+import br.dev.brunovieira.authcentral.dto.response.PreparedError;
 import jakarta.servlet.http.HttpServletRequest;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BeanPropertyBindingResult;
@@ -29,23 +31,34 @@ class GlobalExceptionHandlerTest {
     void handleTenantNotFoundException() {
         TenantNotFoundException ex = new TenantNotFoundException("Tenant not found");
 
-        ResponseEntity<ErrorResponse> response = handler.handleTenantNotFoundException(ex, request);
+        ResponseEntity<PreparedError.Body> response = handler.handleTenantNotFoundException(ex, request);
 
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
         assertThat(response.getBody()).isNotNull();
-        assertThat(response.getBody().getMessage()).isEqualTo("Tenant not found");
-        assertThat(response.getBody().getCode()).isEqualTo(401);
+        assertThat(response.getBody().error().message()).isEqualTo("Tenant not found");
+        assertThat(response.getBody().error().code()).isEqualTo(401);
     }
 
     @Test
     void handleAuthenticationException() {
         AuthenticationException ex = new AuthenticationException("Invalid credentials");
 
-        ResponseEntity<ErrorResponse> response = handler.handleAuthenticationException(ex, request);
+        ResponseEntity<PreparedError.Body> response = handler.handleAuthenticationException(ex, request);
 
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
         assertThat(response.getBody()).isNotNull();
-        assertThat(response.getBody().getMessage()).isEqualTo("Invalid credentials");
+        assertThat(response.getBody().error().message()).isEqualTo("Invalid credentials");
+        assertThat(response.getBody().error().details()).isEqualTo("Authentication failed");
+    }
+
+    @Test
+    void handleAuthenticationException_reusesPreparedErrorPerMessage() {
+        ResponseEntity<PreparedError.Body> first =
+                handler.handleAuthenticationException(new AuthenticationException("Invalid credentials"), request);
+        ResponseEntity<PreparedError.Body> second =
+                handler.handleAuthenticationException(new AuthenticationException("Invalid credentials"), request);
+
+        assertThat(second.getBody().error()).isSameAs(first.getBody().error());
     }
 
     @Test
@@ -74,11 +87,23 @@ class GlobalExceptionHandlerTest {
     void handleRateLimitExceededException() {
         RateLimitExceededException ex = new RateLimitExceededException("Too many requests");
 
-        ResponseEntity<ErrorResponse> response = handler.handleRateLimitExceededException(ex, request);
+        ResponseEntity<PreparedError.Body> response = handler.handleRateLimitExceededException(ex, request);
 
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
         assertThat(response.getBody()).isNotNull();
-        assertThat(response.getBody().getCode()).isEqualTo(429);
+        assertThat(response.getBody().error().code()).isEqualTo(429);
+    }
+
+    @Test
+    void handleServiceUnavailableException() {
+        ServiceUnavailableException ex = new ServiceUnavailableException("Keycloak is at its concurrency limit", 2);
+
+        ResponseEntity<PreparedError.Body> response = handler.handleServiceUnavailableException(ex, request);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("2");
+        assertThat(response.getBody()).isNotNull();
+        assertThat(response.getBody().error().code()).isEqualTo(503);
     }
 
     @Test
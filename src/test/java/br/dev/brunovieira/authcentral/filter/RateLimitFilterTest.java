@@ -1,30 +1,47 @@
 package br.dev.brunovieira.authcentral.filter;
 
 import br.dev.brunovieira.authcentral.config.RateLimitConfig;
+import br.dev.brunovieira.authcentral.model.Tenant;
+import br.dev.brunovieira.authcentral.ratelimit.BucketKey;
+import br.dev.brunovieira.authcentral.ratelimit.BucketLimit;
+import br.dev.brunovieira.authcentral.ratelimit.RateLimitPolicy;
+import br.dev.brunovieira.authcentral.ratelimit.RateLimitedEndpoint;
+import br.dev.brunovieira.authcentral.ratelimit.RateLimiter;
+import br.dev.brunovieira.authcentral.service.TenantRegistry;
 import tools.jackson.databind.json.JsonMapper;
-import io.github.bucket4j.distributed.BucketProxy;
-import io.github.bucket4j.distributed.proxy.RemoteBucketBuilder;
-import io.github.bucket4j.redis.lettuce.cas.LettuceBasedProxyManager;
+import jakarta.servlet.AsyncContext;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatcher;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-
-import java.io.PrintWriter;
-import java.io.StringWriter;
-import java.util.function.Supplier;
-
+import org.springframework.mock.web.DelegatingServletOutputStream;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import static org.assertj.core.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class RateLimitFilterTest {
 
     @Mock
-    private LettuceBasedProxyManager<String> proxyManager;
+    private RateLimiter rateLimiter;
+
+    @Mock
+    private TenantRegistry tenantRegistry;
 
     @Mock
     private HttpServletRequest request;
@@ -36,10 +53,7 @@ class RateLimitFilterTest {
     private FilterChain filterChain;
 
     @Mock
-    private BucketProxy bucket;
-
-    @Mock
-    private RemoteBucketBuilder<String> remoteBucketBuilder;
+    private AsyncContext asyncContext;
 
     private JsonMapper jsonMapper;
     private RateLimitConfig rateLimitConfig;
@@ -48,56 +62,78 @@ class RateLimitFilterTest {
     void setUp() {
         jsonMapper = JsonMapper.builder().build();
         rateLimitConfig = new RateLimitConfig();
+        rateLimitConfig.getLimits().put("login", limits(limit(10), limit(5), limit(1000)));
+        rateLimitConfig.getLimits().put("register", limits(limit(5), null, null));
+        // Headers not stubbed by a test (e.g. X-Tenant-Key) are absent
+        lenient().when(request.getHeader(anyString())).thenReturn(null);
+    }
 
-        RateLimitConfig.EndpointLimit loginLimit = new RateLimitConfig.EndpointLimit();
-        loginLimit.setCapacity(10);
-        loginLimit.setRefillTokens(10);
-        loginLimit.setRefillPeriod(60);
-        rateLimitConfig.setLogin(loginLimit);
+    private RateLimitFilter newFilter() {
+        return newFilter(Runnable::run);
+    }
+
+    private RateLimitFilter newFilter(Executor decisionExecutor) {
+        return new RateLimitFilter(rateLimitConfig, new RateLimitPolicy(rateLimitConfig), tenantRegistry,
+                rateLimiter, jsonMapper, decisionExecutor);
+    }
 
-        RateLimitConfig.EndpointLimit registerLimit = new RateLimitConfig.EndpointLimit();
-        registerLimit.setCapacity(5);
-        registerLimit.setRefillTokens(5);
-        registerLimit.setRefillPeriod(60);
-        rateLimitConfig.setRegister(registerLimit);
+    private static RateLimitConfig.EndpointLimit limit(int capacity) {
+        RateLimitConfig.EndpointLimit limit = new RateLimitConfig.EndpointLimit();
+        limit.setCapacity(capacity);
+        limit.setRefillTokens(capacity);
+        limit.setRefillPeriod(60);
+        return limit;
+    }
+
+    private static RateLimitConfig.EndpointLimits limits(RateLimitConfig.EndpointLimit ip,
+                                                         RateLimitConfig.EndpointLimit account,
+                                                         RateLimitConfig.EndpointLimit tenant) {
+        RateLimitConfig.EndpointLimits limits = new RateLimitConfig.EndpointLimits();
+        limits.setIp(ip);
+        limits.setAccount(account);
+        limits.setTenant(tenant);
+        return limits;
+    }
+
+    private static ArgumentMatcher<List<BucketLimit>> keys(BucketKey... expected) {
+        return buckets -> buckets != null
+                && buckets.stream().map(BucketLimit::key).toList().equals(List.of(expected));
     }
 
     @Test
     void disabled_passesThrough() throws Exception {
         rateLimitConfig.setEnabled(false);
-        RateLimitFilter filter = new RateLimitFilter(rateLimitConfig, proxyManager, jsonMapper);
+        RateLimitFilter filter = newFilter();
 
         filter.doFilterInternal(request, response, filterChain);
 
         verify(filterChain).doFilter(request, response);
-        verifyNoInteractions(proxyManager);
+        verifyNoInteractions(rateLimiter);
     }
 
     @Test
     void nonRateLimitedEndpoint_passesThrough() throws Exception {
         rateLimitConfig.setEnabled(true);
-        RateLimitFilter filter = new RateLimitFilter(rateLimitConfig, proxyManager, jsonMapper);
+        RateLimitFilter filter = newFilter();
 
-        when(request.getRequestURI()).thenReturn("/api/v1/auth/refresh");
+        when(request.getRequestURI()).thenReturn("/api/v1/auth/me");
 
         filter.doFilterInternal(request, response, filterChain);
 
         verify(filterChain).doFilter(request, response);
-        verifyNoInteractions(proxyManager);
+        verifyNoInteractions(rateLimiter);
     }
 
     @Test
-    @SuppressWarnings("unchecked")
     void loginEndpoint_allowed() throws Exception {
         rateLimitConfig.setEnabled(true);
-        RateLimitFilter filter = new RateLimitFilter(rateLimitConfig, proxyManager, jsonMapper);
+        RateLimitFilter filter = newFilter();
 
         when(request.getRequestURI()).thenReturn("/api/v1/auth/login");
         when(request.getHeader("X-Forwarded-For")).thenReturn("10.0.0.1");
 
-        when(proxyManager.builder()).thenReturn(remoteBucketBuilder);
-        when(remoteBucketBuilder.build(anyString(), any(Supplier.class))).thenReturn(bucket);
-        when(bucket.tryConsume(1)).thenReturn(true);
+        when(rateLimiter.tryConsume(argThat(keys(BucketKey.ip(BucketKey.NO_TENANT, RateLimitedEndpoint.LOGIN, "10.0.0.1")))))
+                .thenReturn(true);
 
         filter.doFilterInternal(request, response, filterChain);
 
@@ -105,21 +141,16 @@ class RateLimitFilterTest {
     }
 
     @Test
-    @SuppressWarnings("unchecked")
     void loginEndpoint_rateLimited() throws Exception {
         rateLimitConfig.setEnabled(true);
-        RateLimitFilter filter = new RateLimitFilter(rateLimitConfig, proxyManager, jsonMapper);
+        RateLimitFilter filter = newFilter();
 
         when(request.getRequestURI()).thenReturn("/api/v1/auth/login");
         when(request.getHeader("X-Forwarded-For")).thenReturn("10.0.0.1");
 
-        when(proxyManager.builder()).thenReturn(remoteBucketBuilder);
-        when(remoteBucketBuilder.build(anyString(), any(Supplier.class))).thenReturn(bucket);
-        when(bucket.tryConsume(1)).thenReturn(false);
+        when(rateLimiter.tryConsume(anyList())).thenReturn(false);
 
-        StringWriter sw = new StringWriter();
-        PrintWriter pw = new PrintWriter(sw);
-        when(response.getWriter()).thenReturn(pw);
+        when(response.getOutputStream()).thenReturn(new DelegatingServletOutputStream(new ByteArrayOutputStream()));
 
         filter.doFilterInternal(request, response, filterChain);
 
@@ -128,17 +159,15 @@ class RateLimitFilterTest {
     }
 
     @Test
-    @SuppressWarnings("unchecked")
     void registerEndpoint_allowed() throws Exception {
         rateLimitConfig.setEnabled(true);
-        RateLimitFilter filter = new RateLimitFilter(rateLimitConfig, proxyManager, jsonMapper);
+        RateLimitFilter filter = newFilter();
 
         when(request.getRequestURI()).thenReturn("/api/v1/auth/register");
         when(request.getHeader("X-Forwarded-For")).thenReturn("10.0.0.1");
 
-        when(proxyManager.builder()).thenReturn(remoteBucketBuilder);
-        when(remoteBucketBuilder.build(anyString(), any(Supplier.class))).thenReturn(bucket);
-        when(bucket.tryConsume(1)).thenReturn(true);
+        when(rateLimiter.tryConsume(argThat(keys(BucketKey.ip(BucketKey.NO_TENANT, RateLimitedEndpoint.REGISTER, "10.0.0.1")))))
+                .thenReturn(true);
 
         filter.doFilterInternal(request, response, filterChain);
 
@@ -146,17 +175,250 @@ class RateLimitFilterTest {
     }
 
     @Test
-    void proxyManagerError_passesThrough() throws Exception {
+    void rateLimiterError_passesThrough() throws Exception {
         rateLimitConfig.setEnabled(true);
-        RateLimitFilter filter = new RateLimitFilter(rateLimitConfig, proxyManager, jsonMapper);
+        RateLimitFilter filter = newFilter();
 
         when(request.getRequestURI()).thenReturn("/api/v1/auth/login");
         when(request.getHeader("X-Forwarded-For")).thenReturn("10.0.0.1");
 
-        when(proxyManager.builder()).thenThrow(new RuntimeException("Redis down"));
+        when(rateLimiter.tryConsume(anyList()))
+                .thenThrow(new RuntimeException("Redis down"));
+
+        filter.doFilterInternal(request, response, filterChain);
+
+        verify(filterChain).doFilter(request, response);
+    }
+
+    @Test
+    void async_alreadyDecided_continuesOnSameThread() throws Exception {
+        RateLimitFilter filter = newFilter();
+
+        when(request.getRequestURI()).thenReturn("/api/v1/auth/login");
+        when(request.getHeader("X-Forwarded-For")).thenReturn("10.0.0.1");
+        when(request.isAsyncSupported()).thenReturn(true);
+        when(rateLimiter.tryConsumeAsync(anyList()))
+                .thenReturn(CompletableFuture.completedFuture(true));
 
         filter.doFilterInternal(request, response, filterChain);
 
         verify(filterChain).doFilter(request, response);
+        verify(request, never()).startAsync(any(), any());
+    }
+
+    @Test
+    void async_allowed_dispatchesWhenRedisAnswers() throws Exception {
+        RateLimitFilter filter = newFilter();
+        CompletableFuture<Boolean> decision = new CompletableFuture<>();
+
+        when(request.getRequestURI()).thenReturn("/api/v1/auth/login");
+        when(request.getHeader("X-Forwarded-For")).thenReturn("10.0.0.1");
+        when(request.isAsyncSupported()).thenReturn(true);
+        when(request.startAsync(request, response)).thenReturn(asyncContext);
+        when(rateLimiter.tryConsumeAsync(anyList())).thenReturn(decision);
+
+        filter.doFilterInternal(request, response, filterChain);
+        verify(asyncContext, never()).dispatch();
+
+        decision.complete(true);
+
+        verify(asyncContext).dispatch();
+        verify(filterChain, never()).doFilter(request, response);
+    }
+
+    @Test
+    void async_rejected_writes429AndCompletes() throws Exception {
+        RateLimitFilter filter = newFilter();
+        CompletableFuture<Boolean> decision = new CompletableFuture<>();
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+        when(request.getRequestURI()).thenReturn("/api/v1/auth/login");
+        when(request.getHeader("X-Forwarded-For")).thenReturn("10.0.0.1");
+        when(request.isAsyncSupported()).thenReturn(true);
+        when(request.startAsync(request, response)).thenReturn(asyncContext);
+        when(asyncContext.getResponse()).thenReturn(response);
+        when(response.getOutputStream()).thenReturn(new DelegatingServletOutputStream(body));
+        when(rateLimiter.tryConsumeAsync(anyList())).thenReturn(decision);
+
+        filter.doFilterInternal(request, response, filterChain);
+        decision.complete(false);
+
+        verify(response).setStatus(429);
+        verify(asyncContext).complete();
+        verify(asyncContext, never()).dispatch();
+        assertThat(body.toString(StandardCharsets.UTF_8)).contains("Rate limit exceeded");
+    }
+
+    @Test
+    void async_decisionIsHandledOnTheDecisionExecutor() throws Exception {
+        Queue<Runnable> decisions = new ArrayDeque<>();
+        RateLimitFilter filter = newFilter(decisions::add);
+        CompletableFuture<Boolean> decision = new CompletableFuture<>();
+
+        when(request.getRequestURI()).thenReturn("/api/v1/auth/login");
+        when(request.getHeader("X-Forwarded-For")).thenReturn("10.0.0.1");
+        when(request.isAsyncSupported()).thenReturn(true);
+        when(request.startAsync(request, response)).thenReturn(asyncContext);
+        when(asyncContext.getResponse()).thenReturn(response);
+        when(response.getOutputStream()).thenReturn(new DelegatingServletOutputStream(new ByteArrayOutputStream()));
+        when(rateLimiter.tryConsumeAsync(anyList())).thenReturn(decision);
+
+        filter.doFilterInternal(request, response, filterChain);
+        // completed by the Redis client: nothing is written on its thread
+        decision.complete(false);
+        verifyNoInteractions(response);
+
+        assertThat(decisions).hasSize(1);
+        decisions.poll().run();
+
+        verify(response).setStatus(429);
+        verify(asyncContext).complete();
+    }
+
+    @Test
+    void async_limiterTimesOut_failsOpen() throws Exception {
+        rateLimitConfig.getAsync().setTimeoutMs(10);
+        RateLimitFilter filter = newFilter();
+
+        when(request.getRequestURI()).thenReturn("/api/v1/auth/login");
+        when(request.getHeader("X-Forwarded-For")).thenReturn("10.0.0.1");
+        when(request.isAsyncSupported()).thenReturn(true);
+        when(request.startAsync(request, response)).thenReturn(asyncContext);
+        when(rateLimiter.tryConsumeAsync(anyList())).thenReturn(new CompletableFuture<>());
+
+        filter.doFilterInternal(request, response, filterChain);
+
+        verify(asyncContext, timeout(2000)).dispatch();
+    }
+
+    @Test
+    void async_limiterThrows_failsOpen() throws Exception {
+        RateLimitFilter filter = newFilter();
+
+        when(request.getRequestURI()).thenReturn("/api/v1/auth/login");
+        when(request.getHeader("X-Forwarded-For")).thenReturn("10.0.0.1");
+        when(request.isAsyncSupported()).thenReturn(true);
+        when(rateLimiter.tryConsumeAsync(anyList()))
+                .thenThrow(new RuntimeException("Redis down"));
+
+        filter.doFilterInternal(request, response, filterChain);
+
+        verify(filterChain).doFilter(request, response);
+    }
+
+    @Test
+    void endpointWithoutLimits_passesThrough() throws Exception {
+        RateLimitFilter filter = newFilter();
+
+        when(request.getRequestURI()).thenReturn("/api/v1/auth/refresh");
+
+        filter.doFilterInternal(request, response, filterChain);
+
+        verify(filterChain).doFilter(request, response);
+        verifyNoInteractions(rateLimiter);
+    }
+
+    @Test
+    void knownTenant_checksIpAccountAndTenantBucketsAndKeepsBodyReadable() throws Exception {
+        rateLimitConfig.getAsync().setEnabled(false);
+        RateLimitFilter filter = newFilter();
+        Tenant tenant = Tenant.builder().id(7L).tenantKey("tenant-a").build();
+        when(tenantRegistry.find("tenant-a")).thenReturn(tenant);
+        int tag = BucketKey.tenantTag("tenant-a");
+        when(rateLimiter.tryConsume(argThat(keys(
+                BucketKey.ip(tag, RateLimitedEndpoint.LOGIN, "10.0.0.1"),
+                BucketKey.account(tag, RateLimitedEndpoint.LOGIN, "user@example.com"),
+                BucketKey.tenant(tag, RateLimitedEndpoint.LOGIN))))).thenReturn(true);
+
+        MockHttpServletRequest mockRequest = new MockHttpServletRequest("POST", "/api/v1/auth/login");
+        mockRequest.addHeader("X-Tenant-Key", "tenant-a");
+        mockRequest.addHeader("X-Forwarded-For", "10.0.0.1");
+        mockRequest.setContent("{\"email\":\"User@Example.com\",\"password\":\"x\"}".getBytes(StandardCharsets.UTF_8));
+
+        filter.doFilterInternal(mockRequest, new MockHttpServletResponse(), (req, res) ->
+                assertThat(new String(req.getInputStream().readAllBytes(), StandardCharsets.UTF_8))
+                        .contains("User@Example.com"));
+
+        verify(rateLimiter).tryConsume(anyList());
+    }
+
+    @Test
+    void oversizedBody_skipsAccountBucketWithoutBuffering() throws Exception {
+        rateLimitConfig.getAsync().setEnabled(false);
+        rateLimitConfig.setMaxAccountBodyBytes(64);
+        RateLimitFilter filter = newFilter();
+        Tenant tenant = Tenant.builder().id(7L).tenantKey("tenant-a").build();
+        when(tenantRegistry.find("tenant-a")).thenReturn(tenant);
+        int tag = BucketKey.tenantTag("tenant-a");
+        when(rateLimiter.tryConsume(argThat(keys(
+                BucketKey.ip(tag, RateLimitedEndpoint.LOGIN, "10.0.0.1"),
+                BucketKey.tenant(tag, RateLimitedEndpoint.LOGIN))))).thenReturn(true);
+
+        MockHttpServletRequest mockRequest = new MockHttpServletRequest("POST", "/api/v1/auth/login");
+        mockRequest.addHeader("X-Tenant-Key", "tenant-a");
+        mockRequest.addHeader("X-Forwarded-For", "10.0.0.1");
+        mockRequest.setContent(("{\"email\":\"user@example.com\",\"password\":\"" + "x".repeat(100) + "\"}")
+                .getBytes(StandardCharsets.UTF_8));
+        FilterChain chain = mock(FilterChain.class);
+
+        filter.doFilterInternal(mockRequest, new MockHttpServletResponse(), chain);
+
+        verify(chain).doFilter(same(mockRequest), any());
+    }
+
+    @Test
+    void undeclaredBodyOverCap_skipsAccountBucketAndStaysReadable() throws Exception {
+        rateLimitConfig.getAsync().setEnabled(false);
+        rateLimitConfig.setMaxAccountBodyBytes(64);
+        RateLimitFilter filter = newFilter();
+        Tenant tenant = Tenant.builder().id(7L).tenantKey("tenant-a").build();
+        when(tenantRegistry.find("tenant-a")).thenReturn(tenant);
+        int tag = BucketKey.tenantTag("tenant-a");
+        when(rateLimiter.tryConsume(argThat(keys(
+                BucketKey.ip(tag, RateLimitedEndpoint.LOGIN, "10.0.0.1"),
+                BucketKey.tenant(tag, RateLimitedEndpoint.LOGIN))))).thenReturn(true);
+
+        String body = "{\"email\":\"user@example.com\",\"password\":\"" + "x".repeat(100) + "\"}";
+        MockHttpServletRequest mockRequest = new MockHttpServletRequest("POST", "/api/v1/auth/login") {
+            @Override
+            public long getContentLengthLong() {
+                return -1; // chunked
+            }
+        };
+        mockRequest.addHeader("X-Tenant-Key", "tenant-a");
+        mockRequest.addHeader("X-Forwarded-For", "10.0.0.1");
+        mockRequest.setContent(body.getBytes(StandardCharsets.UTF_8));
+        StringBuilder seen = new StringBuilder();
+
+        filter.doFilterInternal(mockRequest, new MockHttpServletResponse(), (req, res) ->
+                seen.append(new String(req.getInputStream().readAllBytes(), StandardCharsets.UTF_8)));
+
+        assertThat(seen.toString()).isEqualTo(body);
+    }
+
+    @Test
+    void tenantOverride_replacesDefaultDimension() throws Exception {
+        rateLimitConfig.getAsync().setEnabled(false);
+        RateLimitFilter filter = newFilter();
+        Tenant tenant = Tenant.builder().id(7L).tenantKey("tenant-a")
+                .rateLimits(java.util.Map.of("register", limits(null, null, limit(50))))
+                .build();
+        when(tenantRegistry.find("tenant-a")).thenReturn(tenant);
+        int tag = BucketKey.tenantTag("tenant-a");
+        when(rateLimiter.tryConsume(argThat(keys(
+                BucketKey.ip(tag, RateLimitedEndpoint.REGISTER, "10.0.0.1"),
+                BucketKey.tenant(tag, RateLimitedEndpoint.REGISTER))))).thenReturn(false);
+
+        MockHttpServletRequest mockRequest = new MockHttpServletRequest("POST", "/api/v1/auth/register");
+        mockRequest.addHeader("X-Tenant-Key", "tenant-a");
+        mockRequest.addHeader("X-Forwarded-For", "10.0.0.1");
+        MockHttpServletResponse mockResponse = new MockHttpServletResponse();
+
+        filter.doFilterInternal(mockRequest, mockResponse, filterChain);
+
+        assertThat(mockResponse.getStatus()).isEqualTo(429);
+        assertThat(mockResponse.getContentAsString()).contains("\"code\":429");
+        assertThat(mockResponse.getContentLength()).isEqualTo(mockResponse.getContentAsByteArray().length);
+        verifyNoInteractions(filterChain);
     }
 }
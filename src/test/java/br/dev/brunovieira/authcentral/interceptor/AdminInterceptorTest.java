@@ -0,0 +1,68 @@
+package br.dev.brunovieira.authcentral.interceptor;
+
+import br.dev.brunovieira.authcentral.config.AdminProperties;
+import br.dev.brunovieira.authcentral.exception.AuthenticationException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AdminInterceptorTest {
+
+    @Mock
+    private HttpServletRequest request;
+
+    @Mock
+    private HttpServletResponse response;
+
+    private AdminProperties adminProperties;
+    private AdminInterceptor interceptor;
+
+    @BeforeEach
+    void setUp() {
+        adminProperties = new AdminProperties();
+        interceptor = new AdminInterceptor(adminProperties);
+    }
+
+    @Test
+    void preHandle_validKey() {
+        adminProperties.setApiKey("secret");
+        when(request.getHeader("X-Admin-Key")).thenReturn("secret");
+
+        assertThat(interceptor.preHandle(request, response, new Object())).isTrue();
+    }
+
+    @Test
+    void preHandle_wrongKey() {
+        adminProperties.setApiKey("secret");
+        when(request.getHeader("X-Admin-Key")).thenReturn("guess");
+
+        assertThatThrownBy(() -> interceptor.preHandle(request, response, new Object()))
+                .isInstanceOf(AuthenticationException.class);
+    }
+
+    @Test
+    void preHandle_missingKey() {
+        adminProperties.setApiKey("secret");
+        when(request.getHeader("X-Admin-Key")).thenReturn(null);
+
+        assertThatThrownBy(() -> interceptor.preHandle(request, response, new Object()))
+                .isInstanceOf(AuthenticationException.class);
+    }
+
+    @Test
+    void preHandle_notConfigured_rejectsEverything() {
+        adminProperties.setApiKey("");
+        when(request.getHeader("X-Admin-Key")).thenReturn("");
+
+        assertThatThrownBy(() -> interceptor.preHandle(request, response, new Object()))
+                .isInstanceOf(AuthenticationException.class);
+    }
+}
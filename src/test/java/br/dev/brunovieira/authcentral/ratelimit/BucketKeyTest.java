@@ -0,0 +1,99 @@
+package br.dev.brunovieira.authcentral.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.*;
+
+class BucketKeyTest {
+
+    private static final int TAG = BucketKey.tenantTag("tenant-a");
+
+    @Test
+    void ipv4Key_isFourteenBytes() {
+        BucketKey key = BucketKey.ip(TAG, RateLimitedEndpoint.LOGIN, "192.168.1.20");
+
+        assertThat(key.bytes()).hasSize(14);
+        assertThat(key.bytes()[0]).isEqualTo((byte) '{');
+        assertThat(key.bytes()[7]).isEqualTo((byte) '}');
+        assertThat(key.bytes()[8]).isEqualTo((byte) RateLimitedEndpoint.LOGIN.ordinal());
+        assertThat(key.bytes()).endsWith((byte) 192, (byte) 168, (byte) 1, (byte) 20);
+    }
+
+    @Test
+    void ipv6Key_usesSlash64Prefix() {
+        BucketKey a = BucketKey.ip(TAG, RateLimitedEndpoint.LOGIN, "2001:db8:1:2::1");
+        BucketKey b = BucketKey.ip(TAG, RateLimitedEndpoint.LOGIN, "2001:db8:1:2:ffff::9");
+        BucketKey otherNetwork = BucketKey.ip(TAG, RateLimitedEndpoint.LOGIN, "2001:db8:1:3::1");
+
+        assertThat(a.bytes()).hasSize(18);
+        assertThat(a).isEqualTo(b).hasSameHashCodeAs(b);
+        assertThat(a).isNotEqualTo(otherNetwork);
+    }
+
+    @Test
+    void ipv4MappedIpv6_matchesIpv4() {
+        assertThat(BucketKey.ip(TAG, RateLimitedEndpoint.LOGIN, "::ffff:10.0.0.1"))
+                .isEqualTo(BucketKey.ip(TAG, RateLimitedEndpoint.LOGIN, "10.0.0.1"));
+    }
+
+    @Test
+    void unparseableAddress_isHashed() {
+        BucketKey key = BucketKey.ip(TAG, RateLimitedEndpoint.LOGIN, "not-an-ip");
+
+        assertThat(key.bytes()).hasSize(18);
+        assertThat(key).isEqualTo(BucketKey.ip(TAG, RateLimitedEndpoint.LOGIN, "not-an-ip"));
+        assertThat(key).isNotEqualTo(BucketKey.ip(TAG, RateLimitedEndpoint.LOGIN, "not-an-ip-2"));
+    }
+
+    @Test
+    void hashTag_neverContainsBraces() {
+        // 0x7D7D7D7D would be four '}' bytes written raw
+        for (int tag : new int[]{0x7D7D7D7D, 0x7B7B7B7B, -1, 1, TAG}) {
+            byte[] key = BucketKey.tenant(tag, RateLimitedEndpoint.LOGIN).bytes();
+
+            assertThat(key[0]).isEqualTo((byte) '{');
+            assertThat(key[7]).isEqualTo((byte) '}');
+            for (int i = 1; i < 7; i++) {
+                assertThat(key[i]).isNotIn((byte) '{', (byte) '}');
+            }
+        }
+        assertThat(BucketKey.tenant(0x7D7D7D7D, RateLimitedEndpoint.LOGIN))
+                .isNotEqualTo(BucketKey.tenant(0x7D7D7D7C, RateLimitedEndpoint.LOGIN));
+    }
+
+    @Test
+    void packAddress_rejectsInvalidIpv4() {
+        assertThat(BucketKey.packAddress("10.0.0")).isNull();
+        assertThat(BucketKey.packAddress("10.0.0.256")).isNull();
+        assertThat(BucketKey.packAddress("10..0.1")).isNull();
+        assertThat(BucketKey.packAddress("10.0.0.1.2")).isNull();
+        assertThat(BucketKey.packAddress("zz:zz")).isNull();
+        assertThat(BucketKey.packAddress("")).isNull();
+    }
+
+    @Test
+    void accountKey_isCaseInsensitiveAndDoesNotStoreTheEmail() {
+        BucketKey key = BucketKey.account(TAG, RateLimitedEndpoint.LOGIN, " User@Example.com");
+
+        assertThat(key).isEqualTo(BucketKey.account(TAG, RateLimitedEndpoint.LOGIN, "user@example.com"));
+        assertThat(new String(key.bytes())).doesNotContain("example");
+    }
+
+    @Test
+    void dimensionsEndpointsAndTenants_doNotCollide() {
+        assertThat(BucketKey.tenant(TAG, RateLimitedEndpoint.LOGIN))
+                .isNotEqualTo(BucketKey.tenant(TAG, RateLimitedEndpoint.REGISTER))
+                .isNotEqualTo(BucketKey.tenant(BucketKey.tenantTag("tenant-b"), RateLimitedEndpoint.LOGIN));
+        assertThat(BucketKey.tenantTag(null)).isEqualTo(BucketKey.NO_TENANT);
+        assertThat(BucketKey.tenantTag("tenant-a")).isNotEqualTo(BucketKey.NO_TENANT);
+    }
+
+    @Test
+    void bandwidthIndex_appendsSuffix() {
+        BucketKey key = BucketKey.tenant(TAG, RateLimitedEndpoint.LOGIN);
+
+        assertThat(key.bytes(0)).isSameAs(key.bytes());
+        assertThat(key.bytes(1)).hasSize(key.bytes().length + 1).endsWith((byte) 1);
+        assertThat(key.toString()).hasSize(key.bytes().length * 2);
+    }
+}
@@ -0,0 +1,133 @@
+package br.dev.brunovieira.authcentral.ratelimit;
+
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.BucketConfiguration;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.*;
+
+class CoalescingBucketConsumerTest {
+
+    private static final BucketConfiguration CONFIG = BucketConfiguration.builder()
+            .addLimit(Bandwidth.builder().capacity(10).refillIntervally(10, Duration.ofMinutes(1)).build())
+            .build();
+
+    private static final BucketLimit KEY = new BucketLimit(key("key"), CONFIG);
+
+    private final List<Long> requestedBatches = new ArrayList<>();
+    private final List<CompletableFuture<Long>> remoteCalls = new ArrayList<>();
+
+    private final CoalescingBucketConsumer consumer = new CoalescingBucketConsumer((buckets, tokens) -> {
+        requestedBatches.add(tokens);
+        CompletableFuture<Long> call = new CompletableFuture<>();
+        remoteCalls.add(call);
+        return call;
+    });
+
+    @Test
+    void concurrentRequests_shareOneRemoteOperation() {
+        CompletableFuture<Boolean> first = consumer.tryConsume(List.of(KEY));
+        CompletableFuture<Boolean> second = consumer.tryConsume(List.of(KEY));
+        CompletableFuture<Boolean> third = consumer.tryConsume(List.of(KEY));
+
+        // first goes out alone; second and third wait for it and are then sent as one batch of 2
+        assertThat(requestedBatches).containsExactly(1L);
+        remoteCalls.get(0).complete(1L);
+        assertThat(first).isCompletedWithValue(true);
+        assertThat(requestedBatches).containsExactly(1L, 2L);
+
+        remoteCalls.get(1).complete(1L);
+        assertThat(second).isCompletedWithValue(true);
+        assertThat(third).isCompletedWithValue(false);
+        assertThat(consumer.activeKeys()).isZero();
+    }
+
+    @Test
+    void differentKeys_areNotCoalesced() {
+        consumer.tryConsume(List.of(new BucketLimit(key("a"), CONFIG)));
+        consumer.tryConsume(List.of(new BucketLimit(key("b"), CONFIG)));
+
+        assertThat(requestedBatches).containsExactly(1L, 1L);
+    }
+
+    @Test
+    void sameBucketSet_isCoalescedAcrossRequests() {
+        List<BucketLimit> buckets = List.of(KEY, new BucketLimit(key("tenant"), CONFIG));
+        consumer.tryConsume(buckets);
+        consumer.tryConsume(List.of(KEY, new BucketLimit(key("tenant"), CONFIG)));
+        consumer.tryConsume(List.of(KEY));
+
+        // the second request waits behind the first; the single-bucket request has its own queue
+        assertThat(requestedBatches).containsExactly(1L, 1L);
+        assertThat(consumer.activeKeys()).isEqualTo(2);
+    }
+
+    @Test
+    void remoteFailure_failsWholeBatch() {
+        CompletableFuture<Boolean> first = consumer.tryConsume(List.of(KEY));
+        remoteCalls.get(0).completeExceptionally(new RuntimeException("Redis down"));
+
+        assertThat(first).isCompletedExceptionally();
+        assertThat(consumer.activeKeys()).isZero();
+    }
+
+    @Test
+    void synchronousFailure_isReportedThroughFuture() {
+        CoalescingBucketConsumer failing = new CoalescingBucketConsumer((buckets, tokens) -> {
+            throw new IllegalStateException("no connection");
+        });
+
+        assertThat(failing.tryConsume(List.of(KEY))).isCompletedExceptionally();
+    }
+
+    @Test
+    void laterBatch_usesItsOwnLimits() {
+        BucketConfiguration raised = BucketConfiguration.builder()
+                .addLimit(Bandwidth.builder().capacity(50).refillIntervally(50, Duration.ofMinutes(1)).build())
+                .build();
+        BucketLimit raisedKey = new BucketLimit(KEY.key(), raised);
+        List<List<BucketLimit>> sent = new ArrayList<>();
+        CoalescingBucketConsumer recording = new CoalescingBucketConsumer((buckets, tokens) -> {
+            sent.add(buckets);
+            CompletableFuture<Long> call = new CompletableFuture<>();
+            remoteCalls.add(call);
+            return call;
+        });
+
+        recording.tryConsume(List.of(KEY));
+        recording.tryConsume(List.of(raisedKey));
+        remoteCalls.get(0).complete(1L);
+
+        assertThat(sent).containsExactly(List.of(KEY), List.of(raisedKey));
+    }
+
+    @Test
+    void immediatelyCompletedBatches_doNotGrowTheStack() {
+        int requests = 100_000;
+        List<CompletableFuture<Boolean>> decisions = new ArrayList<>();
+        CoalescingBucketConsumer[] holder = new CoalescingBucketConsumer[1];
+        // every call queues the next request and answers at once, as an open circuit breaker does
+        holder[0] = new CoalescingBucketConsumer((buckets, tokens) -> {
+            if (decisions.size() < requests - 1) {
+                decisions.add(holder[0].tryConsume(List.of(KEY)));
+            }
+            return CompletableFuture.failedFuture(new IllegalStateException("circuit open"));
+        });
+
+        decisions.add(holder[0].tryConsume(List.of(KEY)));
+
+        assertThat(decisions.size()).isEqualTo(requests);
+        assertThat(decisions.stream().allMatch(CompletableFuture::isCompletedExceptionally)).isTrue();
+        assertThat(holder[0].activeKeys()).isZero();
+    }
+
+    private static BucketKey key(String name) {
+        return new BucketKey(name.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,258 @@
+package br.dev.brunovieira.authcentral.ratelimit;
+
+import br.dev.brunovieira.authcentral.config.RateLimitConfig;
+import br.dev.brunovieira.authcentral.util.NanoClock;
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.BucketConfiguration;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class HybridRateLimiterTest {
+
+    private static final BucketConfiguration CONFIG = BucketConfiguration.builder()
+            .addLimit(Bandwidth.builder().capacity(10).refillIntervally(10, Duration.ofMinutes(1)).build())
+            .build();
+
+    private static final BucketLimit KEY = new BucketLimit(key("key"), CONFIG);
+    private static final List<BucketLimit> REQUEST = List.of(KEY);
+
+    @Mock
+    private TokenBucketStore store;
+
+    private RateLimitConfig config;
+    private RedisCircuitBreaker circuitBreaker;
+    private HybridRateLimiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        config = new RateLimitConfig();
+        config.getHybrid().setOverAdmissionTolerance(0.5);
+        circuitBreaker = new RedisCircuitBreaker(config, new SimpleMeterRegistry(), NanoClock.system());
+        limiter = new HybridRateLimiter(store, circuitBreaker, config);
+    }
+
+    @Test
+    void tryConsume_decidesLocallyWithinAllowance() {
+        // half of capacity 10 * tolerance 0.5 -> 2 local admissions before the first sync
+        for (int i = 0; i < 2; i++) {
+            assertThat(limiter.tryConsume(REQUEST)).isTrue();
+        }
+        assertThat(limiter.tryConsume(REQUEST)).isFalse();
+        verifyNoInteractions(store);
+    }
+
+    @Test
+    void sync_debitsUnsyncedTokensAndAdoptsRemoteState() {
+        when(store.debit(KEY, 2)).thenReturn(CompletableFuture.completedFuture(2L));
+
+        for (int i = 0; i < 2; i++) {
+            limiter.tryConsume(REQUEST);
+        }
+        limiter.sync();
+
+        // Shared bucket has 2 left -> allowance ceil(2 * 0.5) = 1
+        assertThat(limiter.tryConsume(REQUEST)).isTrue();
+        assertThat(limiter.tryConsume(REQUEST)).isFalse();
+    }
+
+    @Test
+    void sync_exhaustedRemoteBucket_blocksLocally() {
+        when(store.debit(KEY, 1)).thenReturn(CompletableFuture.completedFuture(-4L));
+
+        limiter.tryConsume(REQUEST);
+        limiter.sync();
+
+        assertThat(limiter.tryConsume(REQUEST)).isFalse();
+    }
+
+    @Test
+    void sync_starvedKeyWithoutUsage_refreshesAllowance() {
+        when(store.debit(KEY, 2)).thenReturn(CompletableFuture.completedFuture(0L));
+        when(store.debit(KEY, 0)).thenReturn(CompletableFuture.completedFuture(10L));
+
+        for (int i = 0; i < 6; i++) {
+            limiter.tryConsume(REQUEST);
+        }
+        limiter.sync();
+        assertThat(limiter.tryConsume(REQUEST)).isFalse();
+
+        limiter.sync();
+
+        assertThat(limiter.tryConsume(REQUEST)).isTrue();
+    }
+
+    @Test
+    void sync_failure_keepsTokensForNextRound() {
+        when(store.debit(KEY, 2))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("Redis down")))
+                .thenReturn(CompletableFuture.completedFuture(8L));
+
+        limiter.tryConsume(REQUEST);
+        limiter.tryConsume(REQUEST);
+        limiter.sync();
+        limiter.sync();
+
+        verify(store, times(2)).debit(KEY, 2);
+    }
+
+    @Test
+    void sync_evictsIdleKeys() {
+        config.getHybrid().setIdleEvictionMs(0);
+        limiter.tryConsume(REQUEST);
+        when(store.debit(KEY, 1)).thenReturn(CompletableFuture.completedFuture(9L));
+
+        limiter.sync();
+        assertThat(limiter.trackedKeys()).isEqualTo(1);
+
+        limiter.sync();
+        assertThat(limiter.trackedKeys()).isZero();
+    }
+
+    @Test
+    void sync_slowRedis_doesNotBlockBeyondInterval() {
+        config.getHybrid().setSyncIntervalMs(10);
+        when(store.debit(KEY, 1)).thenReturn(new CompletableFuture<>());
+
+        limiter.tryConsume(REQUEST);
+
+        assertThatCode(() -> limiter.sync()).doesNotThrowAnyException();
+    }
+
+    @Test
+    void tryConsume_rejectedByOneBucket_returnsTokensToTheOthers() {
+        BucketConfiguration tight = BucketConfiguration.builder()
+                .addLimit(Bandwidth.builder().capacity(2).refillIntervally(2, Duration.ofMinutes(1)).build())
+                .build();
+        // first-sync allowance: 1 for the tenant bucket, 2 for the ip bucket
+        List<BucketLimit> request = List.of(KEY, new BucketLimit(key("tenant"), tight));
+        when(store.debit(KEY, 1)).thenReturn(CompletableFuture.completedFuture(9L));
+        when(store.debit(request.get(1), 1)).thenReturn(CompletableFuture.completedFuture(1L));
+
+        assertThat(limiter.tryConsume(request)).isTrue();
+        assertThat(limiter.tryConsume(request)).isFalse();
+        limiter.sync();
+
+        // the rejected request's ip token was handed back, so only the admitted one is debited
+        verify(store).debit(KEY, 1);
+    }
+
+    @Test
+    void openCircuit_ignoresAllowanceAndUsesLocalBucketOnly() {
+        config.getCircuitBreaker().setFailureThreshold(1);
+        when(store.debit(KEY, 2)).thenReturn(CompletableFuture.failedFuture(new RuntimeException("Redis down")));
+
+        for (int i = 0; i < 2; i++) {
+            limiter.tryConsume(REQUEST);
+        }
+        limiter.sync();
+        assertThat(circuitBreaker.state()).isEqualTo(RedisCircuitBreaker.State.OPEN);
+
+        // allowance (2) is used up, but the local bucket still has 8 of its 10 tokens
+        for (int i = 0; i < 8; i++) {
+            assertThat(limiter.tryConsume(REQUEST)).isTrue();
+        }
+        assertThat(limiter.tryConsume(REQUEST)).isFalse();
+    }
+
+    @Test
+    void sync_keyWithoutUsage_isReservedOnItsFirstSync() {
+        BucketLimit tenant = new BucketLimit(key("tenant"), BucketConfiguration.builder()
+                .addLimit(Bandwidth.builder().capacity(2).refillIntervally(2, Duration.ofMinutes(1)).build())
+                .build());
+        when(store.debit(tenant, 1)).thenReturn(CompletableFuture.completedFuture(1L));
+        when(store.debit(KEY, 0)).thenReturn(CompletableFuture.completedFuture(0L));
+
+        assertThat(limiter.tryConsume(List.of(tenant))).isTrue();
+        // KEY is seen first here and hands its token back when the tenant bucket rejects
+        assertThat(limiter.tryConsume(List.of(KEY, tenant))).isFalse();
+        limiter.sync();
+
+        // KEY learnt that the shared bucket is empty although it never spent a token
+        assertThat(limiter.tryConsume(REQUEST)).isFalse();
+    }
+
+    @Test
+    void nInstances_drainedSharedBucket_admitAtMostHalfAShareEachBeforeTheirFirstSync() {
+        int instances = 4;
+        long capacity = 100;
+        BucketLimit limit = new BucketLimit(key("shared"), BucketConfiguration.builder()
+                .addLimit(Bandwidth.builder().capacity(capacity).refillIntervally(capacity, Duration.ofHours(1)).build())
+                .build());
+        // another instance already spent the whole bucket
+        AtomicLong balance = new AtomicLong(0);
+        when(store.debit(eq(limit), anyLong()))
+                .thenAnswer(inv -> CompletableFuture.completedFuture(balance.addAndGet(-(long) inv.getArgument(1))));
+        config.getHybrid().setOverAdmissionTolerance(1.0 / instances);
+        List<HybridRateLimiter> cluster = new ArrayList<>();
+        for (int i = 0; i < instances; i++) {
+            RedisCircuitBreaker breaker = new RedisCircuitBreaker(config, new SimpleMeterRegistry(), NanoClock.system());
+            cluster.add(new HybridRateLimiter(store, breaker, config));
+        }
+
+        long beforeSync = admitted(cluster, limit, capacity);
+        cluster.forEach(HybridRateLimiter::sync);
+        long afterSync = admitted(cluster, limit, capacity);
+
+        // half of a 1/N share each: together at most half the capacity
+        assertThat(beforeSync).isLessThanOrEqualTo(capacity / 2);
+        assertThat(afterSync).isZero();
+        assertThat(balance.get()).isEqualTo(-beforeSync);
+    }
+
+    @Test
+    void nInstances_freshSharedBucket_firstIntervalLeavesHalfTheCapacity() {
+        int instances = 4;
+        long capacity = 100;
+        BucketLimit limit = new BucketLimit(key("shared"), BucketConfiguration.builder()
+                .addLimit(Bandwidth.builder().capacity(capacity).refillIntervally(capacity, Duration.ofHours(1)).build())
+                .build());
+        AtomicLong balance = new AtomicLong(capacity);
+        when(store.debit(eq(limit), anyLong()))
+                .thenAnswer(inv -> CompletableFuture.completedFuture(balance.addAndGet(-(long) inv.getArgument(1))));
+        config.getHybrid().setOverAdmissionTolerance(1.0 / instances);
+        List<HybridRateLimiter> cluster = new ArrayList<>();
+        for (int i = 0; i < instances; i++) {
+            RedisCircuitBreaker breaker = new RedisCircuitBreaker(config, new SimpleMeterRegistry(), NanoClock.system());
+            cluster.add(new HybridRateLimiter(store, breaker, config));
+        }
+
+        long firstInterval = admitted(cluster, limit, capacity);
+        cluster.forEach(HybridRateLimiter::sync);
+
+        assertThat(firstInterval).isLessThanOrEqualTo(capacity / 2);
+        assertThat(balance.get()).isGreaterThanOrEqualTo(capacity / 2);
+        // every instance now holds a share of what is actually left
+        assertThat(admitted(cluster, limit, capacity)).isPositive();
+    }
+
+    private static long admitted(List<HybridRateLimiter> cluster, BucketLimit limit, long attemptsEach) {
+        long admitted = 0;
+        for (HybridRateLimiter instance : cluster) {
+            for (long i = 0; i < attemptsEach; i++) {
+                if (instance.tryConsume(List.of(limit))) {
+                    admitted++;
+                }
+            }
+        }
+        return admitted;
+    }
+
+    private static BucketKey key(String name) {
+        return new BucketKey(name.getBytes(StandardCharsets.UTF_8));
+    }
+}
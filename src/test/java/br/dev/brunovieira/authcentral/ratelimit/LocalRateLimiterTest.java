@@ -0,0 +1,71 @@
+package br.dev.brunovieira.authcentral.ratelimit;
+
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.BucketConfiguration;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+class LocalRateLimiterTest {
+
+    private static final BucketConfiguration TWO = BucketConfiguration.builder()
+            .addLimit(Bandwidth.builder().capacity(2).refillIntervally(2, Duration.ofMinutes(1)).build())
+            .build();
+
+    private static final BucketConfiguration FIVE = BucketConfiguration.builder()
+            .addLimit(Bandwidth.builder().capacity(5).refillIntervally(5, Duration.ofMinutes(1)).build())
+            .build();
+
+    private final LocalRateLimiter limiter = new LocalRateLimiter();
+
+    @Test
+    void enforcesEveryBucket() {
+        List<BucketLimit> request = List.of(new BucketLimit(key("ip"), FIVE), new BucketLimit(key("tenant"), TWO));
+
+        assertThat(limiter.tryConsume(request)).isTrue();
+        assertThat(limiter.tryConsume(request)).isTrue();
+        assertThat(limiter.tryConsume(request)).isFalse();
+
+        // the rejected request's ip token was returned: 3 of 5 left
+        List<BucketLimit> ipOnly = List.of(new BucketLimit(key("ip"), FIVE));
+        assertThat(limiter.tryConsume(ipOnly)).isTrue();
+        assertThat(limiter.tryConsume(ipOnly)).isTrue();
+        assertThat(limiter.tryConsume(ipOnly)).isTrue();
+        assertThat(limiter.tryConsume(ipOnly)).isFalse();
+    }
+
+    @Test
+    void evictFull_keepsBucketsWithSpentTokens() {
+        limiter.tryConsume(List.of(new BucketLimit(key("used"), FIVE)));
+        limiter.tryConsume(List.of(new BucketLimit(key("b"), TWO), new BucketLimit(key("c"), TWO)));
+        assertThat(limiter.trackedKeys()).isEqualTo(3);
+
+        limiter.evictFull();
+
+        assertThat(limiter.trackedKeys()).isEqualTo(3);
+    }
+
+    @Test
+    void evictFull_removesRefilledBuckets() {
+        List<BucketLimit> rejected = List.of(new BucketLimit(key("a"), TWO), new BucketLimit(key("zero"), ZERO));
+        limiter.tryConsume(rejected);
+        assertThat(limiter.trackedKeys()).isEqualTo(2);
+
+        limiter.evictFull();
+
+        // "a" got its token back after "zero" rejected the request, so it is full again
+        assertThat(limiter.trackedKeys()).isEqualTo(1);
+    }
+
+    private static final BucketConfiguration ZERO = BucketConfiguration.builder()
+            .addLimit(Bandwidth.builder().capacity(1).refillIntervally(1, Duration.ofDays(1)).initialTokens(0).build())
+            .build();
+
+    private static BucketKey key(String name) {
+        return new BucketKey(name.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,120 @@
+package br.dev.brunovieira.authcentral.ratelimit;
+
+import br.dev.brunovieira.authcentral.config.RateLimitConfig;
+import br.dev.brunovieira.authcentral.model.Tenant;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+
+class RateLimitPolicyTest {
+
+    private static final int TAG = BucketKey.tenantTag("tenant-a");
+
+    private RateLimitConfig config;
+    private RateLimitPolicy policy;
+
+    @BeforeEach
+    void setUp() {
+        config = new RateLimitConfig();
+        config.getLimits().put("login", limits(limit(10), limit(5), limit(1000)));
+        config.getLimits().put("refresh", limits(limit(30), limit(5), null));
+        policy = new RateLimitPolicy(config);
+    }
+
+    @Test
+    void unknownTenant_onlyIpLimitApplies() {
+        List<BucketLimit> buckets = policy.bucketsFor(null, RateLimitedEndpoint.LOGIN, "10.0.0.1", "a@b.com");
+
+        assertThat(buckets).extracting(BucketLimit::key)
+                .containsExactly(BucketKey.ip(BucketKey.NO_TENANT, RateLimitedEndpoint.LOGIN, "10.0.0.1"));
+        assertThat(policy.limitsAccounts(null, RateLimitedEndpoint.LOGIN)).isFalse();
+    }
+
+    @Test
+    void knownTenant_addsAccountAndTenantBuckets() {
+        Tenant tenant = tenant(null);
+
+        List<BucketLimit> buckets = policy.bucketsFor(tenant, RateLimitedEndpoint.LOGIN, "10.0.0.1", " A@B.com ");
+
+        assertThat(buckets).extracting(BucketLimit::key).containsExactly(
+                BucketKey.ip(TAG, RateLimitedEndpoint.LOGIN, "10.0.0.1"),
+                BucketKey.account(TAG, RateLimitedEndpoint.LOGIN, "a@b.com"),
+                BucketKey.tenant(TAG, RateLimitedEndpoint.LOGIN));
+        assertThat(buckets.get(0).configuration().getBandwidths()[0].getCapacity()).isEqualTo(10);
+        assertThat(policy.limitsAccounts(tenant, RateLimitedEndpoint.LOGIN)).isTrue();
+    }
+
+    @Test
+    void accountLimit_ignoredForEndpointsWithoutEmail() {
+        Tenant tenant = tenant(null);
+
+        assertThat(policy.limitsAccounts(tenant, RateLimitedEndpoint.REFRESH)).isFalse();
+        assertThat(policy.bucketsFor(tenant, RateLimitedEndpoint.REFRESH, "10.0.0.1", null))
+                .extracting(BucketLimit::key).containsExactly(BucketKey.ip(TAG, RateLimitedEndpoint.REFRESH, "10.0.0.1"));
+    }
+
+    @Test
+    void tenantOverride_mergesPerDimension() {
+        Tenant tenant = tenant(Map.of("login", limits(limit(50), null, null)));
+
+        List<BucketLimit> buckets = policy.bucketsFor(tenant, RateLimitedEndpoint.LOGIN, "10.0.0.1", null);
+
+        assertThat(buckets).extracting(b -> b.configuration().getBandwidths()[0].getCapacity())
+                .containsExactly(50L, 1000L);
+    }
+
+    @Test
+    void overrideOnlyEndpoint_isLimited() {
+        Tenant tenant = tenant(Map.of("logout", limits(limit(2), null, null)));
+
+        assertThat(policy.bucketsFor(tenant, RateLimitedEndpoint.LOGOUT, "10.0.0.1", null)).hasSize(1);
+        assertThat(policy.bucketsFor(tenant(null), RateLimitedEndpoint.LOGOUT, "10.0.0.1", null)).isEmpty();
+    }
+
+    @Test
+    void compiledLimits_cachedPerTenantInstance() {
+        Tenant tenant = tenant(null);
+        BucketLimit first = policy.bucketsFor(tenant, RateLimitedEndpoint.LOGIN, "ip", null).get(0);
+        BucketLimit second = policy.bucketsFor(tenant, RateLimitedEndpoint.LOGIN, "ip", null).get(0);
+        assertThat(second.configuration()).isSameAs(first.configuration());
+
+        // a registry reload hands out a new instance, whose overrides take effect
+        Tenant reloaded = tenant(Map.of("login", limits(limit(1), null, null)));
+        BucketLimit third = policy.bucketsFor(reloaded, RateLimitedEndpoint.LOGIN, "ip", null).get(0);
+        assertThat(third.configuration().getBandwidths()[0].getCapacity()).isEqualTo(1);
+    }
+
+    @Test
+    void zeroCapacity_disablesDimension() {
+        Tenant tenant = tenant(Map.of("login", limits(null, null, limit(0))));
+
+        assertThat(policy.bucketsFor(tenant, RateLimitedEndpoint.LOGIN, "10.0.0.1", null))
+                .extracting(BucketLimit::key).containsExactly(BucketKey.ip(TAG, RateLimitedEndpoint.LOGIN, "10.0.0.1"));
+    }
+
+    private static Tenant tenant(Map<String, RateLimitConfig.EndpointLimits> rateLimits) {
+        return Tenant.builder().id(3L).tenantKey("tenant-a").rateLimits(rateLimits).build();
+    }
+
+    private static RateLimitConfig.EndpointLimit limit(int capacity) {
+        RateLimitConfig.EndpointLimit limit = new RateLimitConfig.EndpointLimit();
+        limit.setCapacity(capacity);
+        limit.setRefillTokens(capacity);
+        limit.setRefillPeriod(60);
+        return limit;
+    }
+
+    private static RateLimitConfig.EndpointLimits limits(RateLimitConfig.EndpointLimit ip,
+                                                         RateLimitConfig.EndpointLimit account,
+                                                         RateLimitConfig.EndpointLimit tenant) {
+        RateLimitConfig.EndpointLimits limits = new RateLimitConfig.EndpointLimits();
+        limits.setIp(ip);
+        limits.setAccount(account);
+        limits.setTenant(tenant);
+        return limits;
+    }
+}
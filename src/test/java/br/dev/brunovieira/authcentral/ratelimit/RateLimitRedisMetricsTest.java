@@ -0,0 +1,76 @@
+package br.dev.brunovieira.authcentral.ratelimit;
+
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.sync.RedisCommands;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RateLimitRedisMetricsTest {
+
+    @Mock
+    private StatefulRedisConnection<byte[], String> connection;
+
+    @Mock
+    private RedisCommands<byte[], String> commands;
+
+    @Mock
+    private RedisTokenBucketStore store;
+
+    private SimpleMeterRegistry meterRegistry;
+    private RateLimitRedisMetrics metrics;
+
+    @BeforeEach
+    void setUp() {
+        when(connection.sync()).thenReturn(commands);
+        meterRegistry = new SimpleMeterRegistry();
+        metrics = new RateLimitRedisMetrics(connection, store, meterRegistry);
+    }
+
+    @Test
+    void refresh_publishesMemoryAndHeadroom() {
+        byte[] sample = {1, 2, 3};
+        when(commands.info("memory")).thenReturn("# Memory\r\nused_memory:5000000\r\nused_memory_human:4.77M\r\nmaxmemory:26214400\r\n");
+        when(commands.info("stats")).thenReturn("# Stats\r\nexpired_keys:42\r\nevicted_keys:3\r\n");
+        when(store.sampleKey()).thenReturn(sample);
+        when(commands.memoryUsage(sample)).thenReturn(80L);
+
+        metrics.refresh();
+
+        assertThat(gauge("rate_limit.redis.used_memory")).isEqualTo(5_000_000);
+        assertThat(gauge("rate_limit.redis.maxmemory")).isEqualTo(26_214_400);
+        assertThat(gauge("rate_limit.redis.bucket_bytes")).isEqualTo(80);
+        assertThat(gauge("rate_limit.redis.bucket_headroom")).isEqualTo((26_214_400 - 5_000_000) / 80.0);
+        assertThat(gauge("rate_limit.redis.evicted_keys")).isEqualTo(3);
+        assertThat(gauge("rate_limit.redis.expired_keys")).isEqualTo(42);
+    }
+
+    @Test
+    void headroom_unknownWithoutMaxmemoryOrSample() {
+        when(commands.info(anyString())).thenReturn("used_memory:100\r\nmaxmemory:0\r\n");
+
+        metrics.refresh();
+
+        assertThat(gauge("rate_limit.redis.bucket_headroom")).isNaN();
+        verify(commands, never()).memoryUsage(any());
+    }
+
+    @Test
+    void refresh_redisDown_keepsLastValues() {
+        when(commands.info("memory")).thenThrow(new RuntimeException("Connection refused"));
+
+        assertThatCode(() -> metrics.refresh()).doesNotThrowAnyException();
+        assertThat(gauge("rate_limit.redis.used_memory")).isZero();
+    }
+
+    private double gauge(String name) {
+        return meterRegistry.get(name).gauge().value();
+    }
+}
@@ -0,0 +1,125 @@
+package br.dev.brunovieira.authcentral.ratelimit;
+
+import br.dev.brunovieira.authcentral.config.RateLimitConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.*;
+
+class RedisCircuitBreakerTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private final AtomicInteger calls = new AtomicInteger();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private RedisCircuitBreaker breaker;
+
+    @BeforeEach
+    void setUp() {
+        RateLimitConfig config = new RateLimitConfig();
+        config.getCircuitBreaker().setFailureThreshold(3);
+        config.getCircuitBreaker().setOpenDurationMs(1000);
+        config.getCircuitBreaker().setCallTimeoutMs(20);
+        breaker = new RedisCircuitBreaker(config, meterRegistry, now::get);
+    }
+
+    @Test
+    void consecutiveFailures_openCircuit() {
+        fail(2);
+        succeed();
+        fail(2);
+        assertThat(breaker.state()).isEqualTo(RedisCircuitBreaker.State.CLOSED);
+
+        fail(1);
+
+        assertThat(breaker.state()).isEqualTo(RedisCircuitBreaker.State.OPEN);
+        assertThat(breaker.isClosed()).isFalse();
+        assertThat(meterRegistry.get("rate_limit.redis.circuit_state").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    void openCircuit_failsFastWithoutCalling() {
+        fail(3);
+        int before = calls.get();
+
+        CompletableFuture<String> result = breaker.call(this::success);
+
+        assertThat(result).isCompletedExceptionally();
+        assertThatThrownBy(result::join).hasCauseInstanceOf(RedisCircuitBreaker.CircuitOpenException.class);
+        assertThat(calls.get()).isEqualTo(before);
+    }
+
+    @Test
+    void halfOpen_singleProbeClosesOnSuccess() {
+        fail(3);
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(1000));
+
+        CompletableFuture<String> probe = new CompletableFuture<>();
+        CompletableFuture<String> probeResult = breaker.call(() -> probe);
+        assertThat(breaker.state()).isEqualTo(RedisCircuitBreaker.State.HALF_OPEN);
+        assertThat(breaker.call(this::success)).isCompletedExceptionally();
+
+        probe.complete("PONG");
+
+        assertThat(probeResult).isCompletedWithValue("PONG");
+        assertThat(breaker.state()).isEqualTo(RedisCircuitBreaker.State.CLOSED);
+        assertThat(breaker.call(this::success)).isCompletedWithValue("ok");
+    }
+
+    @Test
+    void halfOpen_failedProbeReopens() {
+        fail(3);
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(1000));
+
+        breaker.call(this::failure);
+
+        assertThat(breaker.state()).isEqualTo(RedisCircuitBreaker.State.OPEN);
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(999));
+        assertThat(breaker.call(this::success)).isCompletedExceptionally();
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+        assertThat(breaker.call(this::success)).isCompletedWithValue("ok");
+    }
+
+    @Test
+    void slowCall_timesOutAndCountsAsFailure() {
+        CompletableFuture<String> result = breaker.call(CompletableFuture::new);
+
+        assertThatThrownBy(result::join).hasCauseInstanceOf(java.util.concurrent.TimeoutException.class);
+    }
+
+    @Test
+    void supplierThrowing_countsAsFailure() {
+        for (int i = 0; i < 3; i++) {
+            breaker.call(() -> {
+                throw new IllegalStateException("connection closed");
+            });
+        }
+
+        assertThat(breaker.state()).isEqualTo(RedisCircuitBreaker.State.OPEN);
+    }
+
+    private void fail(int times) {
+        for (int i = 0; i < times; i++) {
+            breaker.call(this::failure);
+        }
+    }
+
+    private void succeed() {
+        breaker.call(this::success);
+    }
+
+    private CompletableFuture<String> success() {
+        calls.incrementAndGet();
+        return CompletableFuture.completedFuture("ok");
+    }
+
+    private CompletableFuture<String> failure() {
+        calls.incrementAndGet();
+        return CompletableFuture.failedFuture(new RuntimeException("Redis down"));
+    }
+}
@@ -0,0 +1,124 @@
+package br.dev.brunovieira.authcentral.ratelimit;
+
+import br.dev.brunovieira.authcentral.config.RateLimitConfig;
+import br.dev.brunovieira.authcentral.util.NanoClock;
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.BucketConfiguration;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RedisRateLimiterTest {
+
+    private static final BucketConfiguration CONFIG = BucketConfiguration.builder()
+            .addLimit(Bandwidth.builder().capacity(10).refillIntervally(10, Duration.ofMinutes(1)).build())
+            .build();
+
+    private static final List<BucketLimit> BUCKETS = List.of(
+            new BucketLimit(key("ip"), CONFIG), new BucketLimit(key("tenant"), CONFIG));
+
+    @Mock
+    private TokenBucketStore store;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private RateLimitConfig config;
+    private RedisCircuitBreaker circuitBreaker;
+
+    @BeforeEach
+    void setUp() {
+        config = new RateLimitConfig();
+        config.getCircuitBreaker().setFailureThreshold(2);
+        circuitBreaker = new RedisCircuitBreaker(config, meterRegistry, NanoClock.system());
+    }
+
+    @Test
+    void tryConsume_takesOneTokenFromAllBuckets() {
+        when(store.consume(BUCKETS, 1)).thenReturn(
+                CompletableFuture.completedFuture(1L), CompletableFuture.completedFuture(0L));
+
+        RedisRateLimiter limiter = new RedisRateLimiter(store, circuitBreaker, meterRegistry);
+
+        assertThat(limiter.tryConsume(BUCKETS)).isTrue();
+        assertThat(limiter.tryConsume(BUCKETS)).isFalse();
+    }
+
+    @Test
+    void tryConsumeAsync_coalescesPendingRequests() {
+        CompletableFuture<Long> firstCall = new CompletableFuture<>();
+        when(store.consume(BUCKETS, 1)).thenReturn(firstCall);
+        when(store.consume(BUCKETS, 2)).thenReturn(CompletableFuture.completedFuture(2L));
+
+        RedisRateLimiter limiter = new RedisRateLimiter(store, circuitBreaker, meterRegistry);
+        CompletableFuture<Boolean> a = limiter.tryConsumeAsync(BUCKETS);
+        CompletableFuture<Boolean> b = limiter.tryConsumeAsync(BUCKETS);
+        CompletableFuture<Boolean> c = limiter.tryConsumeAsync(BUCKETS);
+        firstCall.complete(1L);
+
+        assertThat(a).isCompletedWithValue(true);
+        assertThat(b).isCompletedWithValue(true);
+        assertThat(c).isCompletedWithValue(true);
+        verify(store).consume(BUCKETS, 2);
+    }
+
+    @Test
+    void redisFailure_decidedByLocalFallback() {
+        when(store.consume(BUCKETS, 1)).thenReturn(CompletableFuture.failedFuture(new RuntimeException("Redis down")));
+        RedisRateLimiter limiter = new RedisRateLimiter(store, circuitBreaker, meterRegistry);
+
+        // capacity 10 locally, then rejected — limiting is loosened per instance, never lifted
+        for (int i = 0; i < 10; i++) {
+            assertThat(limiter.tryConsume(BUCKETS)).isTrue();
+        }
+        assertThat(limiter.tryConsume(BUCKETS)).isFalse();
+        assertThat(meterRegistry.get("rate_limit.fallback.decisions").counter().count()).isEqualTo(11);
+    }
+
+    @Test
+    void openCircuit_skipsRedis() {
+        when(store.consume(BUCKETS, 1)).thenReturn(CompletableFuture.failedFuture(new RuntimeException("Redis down")));
+        RedisRateLimiter limiter = new RedisRateLimiter(store, circuitBreaker, meterRegistry);
+
+        limiter.tryConsume(BUCKETS);
+        limiter.tryConsume(BUCKETS);
+        assertThat(circuitBreaker.state()).isEqualTo(RedisCircuitBreaker.State.OPEN);
+
+        assertThat(limiter.tryConsumeAsync(BUCKETS)).isCompletedWithValue(true);
+        assertThat(limiter.tryConsume(BUCKETS)).isTrue();
+        verify(store, times(2)).consume(BUCKETS, 1);
+    }
+
+    @Test
+    void slowRedis_boundedByCallBudget() {
+        config.getCircuitBreaker().setCallTimeoutMs(20);
+        when(store.consume(BUCKETS, 1)).thenReturn(new CompletableFuture<>());
+        RedisRateLimiter limiter = new RedisRateLimiter(store, circuitBreaker, meterRegistry);
+
+        long start = System.nanoTime();
+        assertThat(limiter.tryConsume(BUCKETS)).isTrue();
+        assertThat(limiter.tryConsumeAsync(BUCKETS).join()).isTrue();
+        assertThat(System.nanoTime() - start).isLessThan(1_000_000_000L);
+    }
+
+    @Test
+    void evictFallbackBuckets_doesNotThrow() {
+        RedisRateLimiter limiter = new RedisRateLimiter(store, circuitBreaker, meterRegistry);
+
+        assertThatCode(limiter::evictFallbackBuckets).doesNotThrowAnyException();
+    }
+
+    private static BucketKey key(String name) {
+        return new BucketKey(name.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,127 @@
+package br.dev.brunovieira.authcentral.ratelimit;
+
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.BucketConfiguration;
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.RedisNoScriptException;
+import io.lettuce.core.ScriptOutputType;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.async.RedisAsyncCommands;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatcher;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.AdditionalMatchers.aryEq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RedisTokenBucketStoreTest {
+
+    private static final BucketConfiguration CONFIG = BucketConfiguration.builder()
+            .addLimit(Bandwidth.builder().capacity(10).refillIntervally(5, Duration.ofSeconds(60)).build())
+            .build();
+
+    @Mock
+    private StatefulRedisConnection<byte[], String> connection;
+
+    @Mock
+    private RedisAsyncCommands<byte[], String> commands;
+
+    @Mock
+    private RedisFuture<List<Long>> shaFuture;
+
+    @Mock
+    private RedisFuture<List<Long>> evalFuture;
+
+    private RedisTokenBucketStore store;
+
+    @BeforeEach
+    void setUp() {
+        when(connection.async()).thenReturn(commands);
+        store = new RedisTokenBucketStore(connection);
+    }
+
+    @Test
+    void consume_sendsEveryBucketInOneScriptCall() {
+        when(commands.<List<Long>>evalsha(anyString(), eq(ScriptOutputType.MULTI), any(byte[][].class), any(String[].class)))
+                .thenReturn(shaFuture);
+        when(shaFuture.toCompletableFuture()).thenReturn(CompletableFuture.completedFuture(List.of(2L, 4L)));
+
+        CompletableFuture<Long> granted = store.consume(
+                List.of(new BucketLimit(key("ip"), CONFIG), new BucketLimit(key("tenant"), CONFIG)), 3);
+
+        assertThat(granted).isCompletedWithValue(2L);
+        verify(commands).evalsha(anyString(), eq(ScriptOutputType.MULTI),
+                argThat(keys("ip", "tenant")),
+                aryEq(new String[]{"3", "0", "10", "5", "60000", "10", "5", "60000"}));
+    }
+
+    @Test
+    void debit_forcesConsumptionAndReturnsRemainingTokens() {
+        when(commands.<List<Long>>evalsha(anyString(), eq(ScriptOutputType.MULTI), any(byte[][].class), any(String[].class)))
+                .thenReturn(shaFuture);
+        when(shaFuture.toCompletableFuture()).thenReturn(CompletableFuture.completedFuture(List.of(12L, -2L)));
+
+        CompletableFuture<Long> remaining = store.debit(new BucketLimit(key("ip"), CONFIG), 12);
+
+        assertThat(remaining).isCompletedWithValue(-2L);
+        verify(commands).evalsha(anyString(), eq(ScriptOutputType.MULTI),
+                argThat(keys("ip")), aryEq(new String[]{"12", "1", "10", "5", "60000"}));
+    }
+
+    @Test
+    void unknownScript_fallsBackToEval() {
+        when(commands.<List<Long>>evalsha(anyString(), eq(ScriptOutputType.MULTI), any(byte[][].class), any(String[].class)))
+                .thenReturn(shaFuture);
+        when(shaFuture.toCompletableFuture())
+                .thenReturn(CompletableFuture.failedFuture(new RedisNoScriptException("NOSCRIPT")));
+        when(commands.<List<Long>>eval(eq(RedisTokenBucketStore.SCRIPT), eq(ScriptOutputType.MULTI),
+                any(byte[][].class), any(String[].class)))
+                .thenReturn(evalFuture);
+        when(evalFuture.toCompletableFuture()).thenReturn(CompletableFuture.completedFuture(List.of(1L, 9L)));
+
+        assertThat(store.consume(List.of(new BucketLimit(key("ip"), CONFIG)), 1)).isCompletedWithValue(1L);
+    }
+
+    @Test
+    void otherErrors_arePropagated() {
+        when(commands.<List<Long>>evalsha(anyString(), eq(ScriptOutputType.MULTI), any(byte[][].class), any(String[].class)))
+                .thenReturn(shaFuture);
+        when(shaFuture.toCompletableFuture())
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("connection closed")));
+
+        assertThat(store.consume(List.of(new BucketLimit(key("ip"), CONFIG)), 1)).isCompletedExceptionally();
+        verify(commands, never()).eval(anyString(), any(), any(byte[][].class), any(String[].class));
+    }
+
+    @Test
+    void consume_remembersAKeyForMemorySampling() {
+        when(commands.<List<Long>>evalsha(anyString(), eq(ScriptOutputType.MULTI), any(byte[][].class), any(String[].class)))
+                .thenReturn(shaFuture);
+        when(shaFuture.toCompletableFuture()).thenReturn(CompletableFuture.completedFuture(List.of(1L, 9L)));
+        assertThat(store.sampleKey()).isNull();
+
+        store.consume(List.of(new BucketLimit(key("ip"), CONFIG)), 1);
+
+        assertThat(store.sampleKey()).isEqualTo(key("ip").bytes());
+    }
+
+    private static BucketKey key(String name) {
+        return new BucketKey(name.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static ArgumentMatcher<byte[][]> keys(String... expected) {
+        return actual -> Arrays.deepEquals(actual,
+                Arrays.stream(expected).map(k -> k.getBytes(StandardCharsets.UTF_8)).toArray(byte[][]::new));
+    }
+}
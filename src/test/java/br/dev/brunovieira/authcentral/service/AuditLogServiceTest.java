@@ -1,38 +1,75 @@
 package br.dev.brunovieira.authcentral.service;
 
 import br.dev.brunovieira.authcentral.TestFixtures;
+import br.dev.brunovieira.authcentral.analytics.AuthAnalytics;
+import br.dev.brunovieira.authcentral.audit.AuditEvent;
+import br.dev.brunovieira.authcentral.audit.AuditPipeline;
 import br.dev.brunovieira.authcentral.model.Tenant;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
 
 import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
 
+@ExtendWith(MockitoExtension.class)
 class AuditLogServiceTest {
 
+    @Mock
+    private AuditPipeline auditPipeline;
+
+    @Mock
+    private AuthAnalytics authAnalytics;
+
     private AuditLogService auditLogService;
     private Tenant tenant;
 
     @BeforeEach
     void setUp() {
-        auditLogService = new AuditLogService();
+        auditLogService = new AuditLogService(auditPipeline, authAnalytics);
         tenant = TestFixtures.tenant();
     }
 
     @Test
-    void logSuccess_delegatesToLogAction() {
-        assertThatCode(() -> auditLogService.logSuccess(tenant, "user@test.com", "USER_LOGIN", "127.0.0.1", "TestAgent"))
-                .doesNotThrowAnyException();
+    void logSuccess_publishesSuccessfulEvent() {
+        auditLogService.logSuccess(tenant, "user@test.com", "USER_LOGIN", "127.0.0.1", "TestAgent");
+
+        AuditEvent event = published();
+        assertThat(event.tenantKey()).isEqualTo("test-tenant");
+        assertThat(event.action()).isEqualTo("USER_LOGIN");
+        assertThat(event.userEmail()).isEqualTo("user@test.com");
+        assertThat(event.ipAddress()).isEqualTo("127.0.0.1");
+        assertThat(event.userAgent()).isEqualTo("TestAgent");
+        assertThat(event.success()).isTrue();
+        assertThat(event.errorMessage()).isNull();
+        assertThat(event.timestamp()).isPositive();
+        verify(authAnalytics).record("test-tenant", "USER_LOGIN", true, "user@test.com", event.timestamp());
     }
 
     @Test
-    void logFailure_delegatesToLogAction() {
-        assertThatCode(() -> auditLogService.logFailure(tenant, "user@test.com", "USER_LOGIN", "127.0.0.1", "TestAgent", "Bad password"))
-                .doesNotThrowAnyException();
+    void logFailure_publishesFailedEventWithError() {
+        auditLogService.logFailure(tenant, "user@test.com", "USER_LOGIN", "127.0.0.1", "TestAgent", "Bad password");
+
+        AuditEvent event = published();
+        assertThat(event.success()).isFalse();
+        assertThat(event.errorMessage()).isEqualTo("Bad password");
     }
 
     @Test
-    void logAction_doesNotThrow() {
-        assertThatCode(() -> auditLogService.logAction(tenant, "user@test.com", "USER_REGISTER", "127.0.0.1", "TestAgent", true, null))
-                .doesNotThrowAnyException();
+    void logAction_truncatesOversizedText() {
+        auditLogService.logAction(tenant, null, "USER_REGISTER", "127.0.0.1", "A".repeat(1000), false, "E".repeat(1000));
+
+        AuditEvent event = published();
+        assertThat(event.userAgent()).hasSize(256);
+        assertThat(event.errorMessage()).hasSize(256);
+    }
+
+    private AuditEvent published() {
+        ArgumentCaptor<AuditEvent> captor = ArgumentCaptor.forClass(AuditEvent.class);
+        verify(auditPipeline).publish(captor.capture());
+        return captor.getValue();
     }
 }
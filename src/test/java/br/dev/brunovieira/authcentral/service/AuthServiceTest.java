@@ -5,6 +5,7 @@ import br.dev.brunovieira.authcentral.dto.request.LoginRequest;
 import br.dev.brunovieira.authcentral.dto.request.RegisterRequest;
 import br.dev.brunovieira.authcentral.dto.response.LoginResponse;
 import br.dev.brunovieira.authcentral.exception.AuthenticationException;
+import br.dev.brunovieira.authcentral.model.AuthOutcome;
 import br.dev.brunovieira.authcentral.model.Tenant;
 import tools.jackson.databind.json.JsonMapper;
 import org.junit.jupiter.api.BeforeEach;
@@ -12,12 +13,16 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Base64;
-import java.util.Map;
+import java.util.function.Supplier;
 
 import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -29,8 +34,11 @@ class AuthServiceTest {
     @Mock
     private AuditLogService auditLogService;
 
+    @Spy
+    private JsonMapper jsonMapper = JsonMapper.builder().build();
+
     @Mock
-    private JsonMapper jsonMapper;
+    private RefreshTokenCoalescer refreshTokenCoalescer;
 
     @InjectMocks
     private AuthService authService;
@@ -84,8 +92,7 @@ class AuthServiceTest {
     // --- login ---
 
     @Test
-    @SuppressWarnings("unchecked")
-    void login_success_decodesJwtAndReturns() throws Exception {
+    void login_success_decodesJwtAndReturns() {
         LoginRequest request = LoginRequest.builder()
                 .email("user@test.com")
                 .password("password123")
@@ -95,25 +102,10 @@ class AuthServiceTest {
                 .encodeToString("{\"email\":\"user@test.com\",\"given_name\":\"John\",\"family_name\":\"Doe\"}".getBytes());
         String jwt = "header." + payload + ".signature";
 
-        Map<String, Object> tokenResponse = Map.of(
-                "access_token", jwt,
-                "refresh_token", "refresh-tok",
-                "token_type", "Bearer",
-                "expires_in", 1800,
-                "refresh_expires_in", 3600
-        );
-
         when(keycloakAdminService.authenticateUser(tenant, "user@test.com", "password123"))
-                .thenReturn(tokenResponse);
-
-        Map<String, Object> claims = Map.of(
-                "email", "user@test.com",
-                "given_name", "John",
-                "family_name", "Doe"
-        );
-        when(jsonMapper.readValue(any(byte[].class), any(Class.class))).thenReturn(claims);
+                .thenReturn(AuthOutcome.granted(tokenResponse(jwt, "refresh-tok")));
 
-        LoginResponse response = authService.login(tenant, request, "127.0.0.1", "TestAgent");
+        LoginResponse response = granted(authService.login(tenant, request, "127.0.0.1", "TestAgent"));
 
         assertThat(response.getAccessToken()).isEqualTo(jwt);
         assertThat(response.getRefreshToken()).isEqualTo("refresh-tok");
@@ -128,20 +120,39 @@ class AuthServiceTest {
     }
 
     @Test
-    void login_failure_logsAndRethrows() {
+    void login_rejected_auditsAndReturnsRejection() {
         LoginRequest request = LoginRequest.builder()
                 .email("user@test.com")
                 .password("wrong")
                 .build();
 
         when(keycloakAdminService.authenticateUser(tenant, "user@test.com", "wrong"))
-                .thenThrow(new AuthenticationException("Invalid credentials"));
+                .thenReturn(AuthOutcome.rejected("Invalid credentials"));
+
+        AuthOutcome<LoginResponse> outcome = authService.login(tenant, request, "127.0.0.1", "TestAgent");
+
+        assertThat(outcome).isEqualTo(AuthOutcome.rejected("Invalid credentials"));
+        verify(auditLogService).logFailure(tenant, "user@test.com", "USER_LOGIN", "127.0.0.1", "TestAgent", "Invalid credentials");
+        verify(auditLogService, never()).logSuccess(any(), any(), any(), any(), any());
+        verifyNoInteractions(jsonMapper);
+    }
+
+    @Test
+    void login_unexpectedFailure_logsAndRethrows() {
+        LoginRequest request = LoginRequest.builder()
+                .email("user@test.com")
+                .password("password123")
+                .build();
+
+        when(keycloakAdminService.authenticateUser(tenant, "user@test.com", "password123"))
+                .thenThrow(new AuthenticationException("Failed to authenticate user"));
 
         assertThatThrownBy(() -> authService.login(tenant, request, "127.0.0.1", "TestAgent"))
                 .isInstanceOf(AuthenticationException.class)
-                .hasMessage("Invalid credentials");
+                .hasMessage("Failed to authenticate user");
 
-        verify(auditLogService).logFailure(tenant, "user@test.com", "USER_LOGIN", "127.0.0.1", "TestAgent", "Invalid credentials");
+        verify(auditLogService).logFailure(tenant, "user@test.com", "USER_LOGIN", "127.0.0.1", "TestAgent",
+                "Failed to authenticate user");
     }
 
     @Test
@@ -152,16 +163,8 @@ class AuthServiceTest {
                 .build();
 
         // JWT with only 2 parts — triggers parts.length != 3 → AuthenticationException
-        Map<String, Object> tokenResponse = Map.of(
-                "access_token", "invalid.jwt",
-                "refresh_token", "refresh-tok",
-                "token_type", "Bearer",
-                "expires_in", 1800,
-                "refresh_expires_in", 3600
-        );
-
         when(keycloakAdminService.authenticateUser(tenant, "user@test.com", "password123"))
-                .thenReturn(tokenResponse);
+                .thenReturn(AuthOutcome.granted(tokenResponse("invalid.jwt", "refresh-tok")));
 
         assertThatThrownBy(() -> authService.login(tenant, request, "127.0.0.1", "TestAgent"))
                 .isInstanceOf(AuthenticationException.class)
@@ -172,30 +175,18 @@ class AuthServiceTest {
     }
 
     @Test
-    @SuppressWarnings("unchecked")
-    void login_jwtDecodeException_fallsBackToEmptyClaims() throws Exception {
+    void login_jwtDecodeException_fallsBackToEmptyClaims() {
         LoginRequest request = LoginRequest.builder()
                 .email("user@test.com")
                 .password("password123")
                 .build();
 
-        // Valid 3-part JWT but base64 decode of payload throws exception in jsonMapper
-        Map<String, Object> tokenResponse = Map.of(
-                "access_token", "header.payload.signature",
-                "refresh_token", "refresh-tok",
-                "token_type", "Bearer",
-                "expires_in", 1800,
-                "refresh_expires_in", 3600
-        );
-
+        // Valid 3-part JWT but the decoded payload is not JSON
         when(keycloakAdminService.authenticateUser(tenant, "user@test.com", "password123"))
-                .thenReturn(tokenResponse);
-
-        when(jsonMapper.readValue(any(byte[].class), any(Class.class)))
-                .thenThrow(new RuntimeException("Bad JSON"));
+                .thenReturn(AuthOutcome.granted(tokenResponse("header.payload.signature", "refresh-tok")));
 
         // Falls back to empty claims — email comes from request.getEmail() via getOrDefault
-        LoginResponse response = authService.login(tenant, request, "127.0.0.1", "TestAgent");
+        LoginResponse response = granted(authService.login(tenant, request, "127.0.0.1", "TestAgent"));
 
         assertThat(response.getEmail()).isEqualTo("user@test.com");
         assertThat(response.getFirstName()).isNull();
@@ -204,37 +195,122 @@ class AuthServiceTest {
         verify(auditLogService).logSuccess(tenant, "user@test.com", "USER_LOGIN", "127.0.0.1", "TestAgent");
     }
 
+    @Test
+    void loginPassthrough_returnsKeycloakBodyUnparsed() {
+        LoginRequest request = LoginRequest.builder()
+                .email("user@test.com")
+                .password("password123")
+                .build();
+        byte[] tokenResponse = tokenResponse("header.payload.signature", "refresh-tok");
+        when(keycloakAdminService.authenticateUser(tenant, "user@test.com", "password123")).thenReturn(AuthOutcome.granted(tokenResponse));
+
+        byte[] response = granted(authService.loginPassthrough(tenant, request, "127.0.0.1", "TestAgent"));
+
+        assertThat(response).isSameAs(tokenResponse);
+        verifyNoInteractions(jsonMapper);
+        verify(auditLogService).logSuccess(tenant, "user@test.com", "USER_LOGIN", "127.0.0.1", "TestAgent");
+    }
+
+    @Test
+    void login_unreadableTokenResponse_auditsFailure() {
+        LoginRequest request = LoginRequest.builder()
+                .email("user@test.com")
+                .password("password123")
+                .build();
+        when(keycloakAdminService.authenticateUser(tenant, "user@test.com", "password123"))
+                .thenReturn(AuthOutcome.granted("not json".getBytes(StandardCharsets.UTF_8)));
+
+        assertThatThrownBy(() -> authService.login(tenant, request, "127.0.0.1", "TestAgent"))
+                .isInstanceOf(RuntimeException.class);
+
+        verify(auditLogService).logFailure(eq(tenant), eq("user@test.com"), eq("USER_LOGIN"),
+                eq("127.0.0.1"), eq("TestAgent"), any());
+        verify(auditLogService, never()).logSuccess(any(), any(), any(), any(), any());
+    }
+
     // --- refreshToken ---
 
     @Test
     void refreshToken_success() {
-        Map<String, Object> tokenResponse = Map.of(
-                "access_token", "new-access",
-                "refresh_token", "new-refresh",
-                "token_type", "Bearer",
-                "expires_in", 1800,
-                "refresh_expires_in", 3600
-        );
-
-        when(keycloakAdminService.refreshToken(tenant, "old-refresh")).thenReturn(tokenResponse);
+        when(keycloakAdminService.refreshToken(tenant, "old-refresh"))
+                .thenReturn(AuthOutcome.granted(tokenResponse("new-access", "new-refresh")));
+        passThroughCoalescer("old-refresh");
 
-        LoginResponse response = authService.refreshToken(tenant, "old-refresh", "127.0.0.1", "TestAgent");
+        LoginResponse response = granted(authService.refreshToken(tenant, "old-refresh", "127.0.0.1", "TestAgent"));
 
         assertThat(response.getAccessToken()).isEqualTo("new-access");
         assertThat(response.getRefreshToken()).isEqualTo("new-refresh");
+        assertThat(response.getExpiresIn()).isEqualTo(1800L);
+        verify(auditLogService).logSuccess(tenant, null, "TOKEN_REFRESH", "127.0.0.1", "TestAgent");
+    }
+
+    @Test
+    void refreshTokenPassthrough_returnsKeycloakBodyUnparsed() {
+        byte[] tokenResponse = tokenResponse("new-access", "new-refresh");
+        when(keycloakAdminService.refreshToken(tenant, "old-refresh")).thenReturn(AuthOutcome.granted(tokenResponse));
+        passThroughCoalescer("old-refresh");
+
+        byte[] response = granted(authService.refreshTokenPassthrough(tenant, "old-refresh", "127.0.0.1", "TestAgent"));
+
+        assertThat(response).isSameAs(tokenResponse);
+        verifyNoInteractions(jsonMapper);
         verify(auditLogService).logSuccess(tenant, null, "TOKEN_REFRESH", "127.0.0.1", "TestAgent");
     }
 
     @Test
-    void refreshToken_failure_logsAndRethrows() {
+    void refreshToken_rejected_auditsAndReturnsRejection() {
         when(keycloakAdminService.refreshToken(tenant, "bad-token"))
-                .thenThrow(new AuthenticationException("Token expired"));
+                .thenReturn(AuthOutcome.rejected("Invalid or expired refresh token"));
+        passThroughCoalescer("bad-token");
+
+        AuthOutcome<LoginResponse> outcome = authService.refreshToken(tenant, "bad-token", "127.0.0.1", "TestAgent");
+
+        assertThat(outcome).isEqualTo(AuthOutcome.rejected("Invalid or expired refresh token"));
+        verify(auditLogService).logFailure(tenant, null, "TOKEN_REFRESH", "127.0.0.1", "TestAgent",
+                "Invalid or expired refresh token");
+    }
+
+    @Test
+    void refreshToken_unexpectedFailure_logsAndRethrows() {
+        when(keycloakAdminService.refreshToken(tenant, "bad-token"))
+                .thenThrow(new AuthenticationException("Token refresh failed: Timeout"));
+        passThroughCoalescer("bad-token");
 
         assertThatThrownBy(() -> authService.refreshToken(tenant, "bad-token", "127.0.0.1", "TestAgent"))
                 .isInstanceOf(AuthenticationException.class)
-                .hasMessage("Token expired");
+                .hasMessage("Token refresh failed: Timeout");
+
+        verify(auditLogService).logFailure(tenant, null, "TOKEN_REFRESH", "127.0.0.1", "TestAgent",
+                "Token refresh failed: Timeout");
+    }
+
+    @Test
+    void refreshToken_coalescedResult_auditsEachCaller() {
+        when(refreshTokenCoalescer.refresh(eq(tenant), eq("same-refresh"), any()))
+                .thenReturn(AuthOutcome.granted(tokenResponse("shared-access", "shared-refresh")));
+
+        LoginResponse response = granted(authService.refreshToken(tenant, "same-refresh", "10.0.0.2", "OtherAgent"));
+
+        assertThat(response.getAccessToken()).isEqualTo("shared-access");
+        verifyNoInteractions(keycloakAdminService);
+        verify(auditLogService).logSuccess(tenant, null, "TOKEN_REFRESH", "10.0.0.2", "OtherAgent");
+    }
+
+    private void passThroughCoalescer(String refreshToken) {
+        when(refreshTokenCoalescer.refresh(eq(tenant), eq(refreshToken), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<AuthOutcome<byte[]>>>getArgument(2).get());
+    }
+
+    private static <T> T granted(AuthOutcome<T> outcome) {
+        assertThat(outcome).isInstanceOf(AuthOutcome.Granted.class);
+        return ((AuthOutcome.Granted<T>) outcome).value();
+    }
 
-        verify(auditLogService).logFailure(tenant, null, "TOKEN_REFRESH", "127.0.0.1", "TestAgent", "Token expired");
+    private static byte[] tokenResponse(String accessToken, String refreshToken) {
+        return ("{\"access_token\":\"" + accessToken + "\",\"expires_in\":1800,\"refresh_expires_in\":3600,"
+                + "\"refresh_token\":\"" + refreshToken + "\",\"token_type\":\"Bearer\","
+                + "\"not-before-policy\":0,\"session_state\":\"s-1\",\"scope\":\"email profile\"}")
+                .getBytes(StandardCharsets.UTF_8);
     }
 
     // --- logout ---
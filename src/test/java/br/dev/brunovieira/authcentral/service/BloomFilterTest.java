@@ -0,0 +1,48 @@
+package br.dev.brunovieira.authcentral.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.*;
+
+class BloomFilterTest {
+
+    @Test
+    void mightContain_neverMissesInsertedKeys() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            EmailIndex.EmailHash hash = EmailIndex.EmailHash.of("user" + i + "@test.com");
+            filter.put(hash.high(), hash.low());
+        }
+
+        for (int i = 0; i < 10_000; i++) {
+            EmailIndex.EmailHash hash = EmailIndex.EmailHash.of("user" + i + "@test.com");
+            assertThat(filter.mightContain(hash.high(), hash.low())).isTrue();
+        }
+    }
+
+    @Test
+    void mightContain_falsePositivesStayNearConfiguredRate() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            EmailIndex.EmailHash hash = EmailIndex.EmailHash.of("user" + i + "@test.com");
+            filter.put(hash.high(), hash.low());
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            EmailIndex.EmailHash hash = EmailIndex.EmailHash.of("other" + i + "@test.com");
+            if (filter.mightContain(hash.high(), hash.low())) {
+                falsePositives++;
+            }
+        }
+        assertThat(falsePositives).isLessThan(200);
+    }
+
+    @Test
+    void constructor_sizesForExpectedInsertions() {
+        BloomFilter filter = new BloomFilter(100_000, 0.01);
+
+        // ~9.6 bits per element at 1%
+        assertThat(filter.bitSize()).isBetween(950_000L, 970_000L);
+    }
+}
@@ -0,0 +1,69 @@
+package br.dev.brunovieira.authcentral.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+class BulkheadTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void tryAcquire_atLimit_timesOut() throws Exception {
+        Bulkhead bulkhead = new Bulkhead(2);
+
+        assertThat(bulkhead.tryAcquire(0)).isTrue();
+        assertThat(bulkhead.tryAcquire(0)).isTrue();
+        assertThat(bulkhead.tryAcquire(TimeUnit.MILLISECONDS.toNanos(5))).isFalse();
+        assertThat(bulkhead.inFlight()).isEqualTo(2);
+        assertThat(bulkhead.available()).isZero();
+    }
+
+    @Test
+    void release_wakesWaiter() throws Exception {
+        Bulkhead bulkhead = new Bulkhead(1);
+        bulkhead.tryAcquire(0);
+
+        Thread releaser = Thread.ofVirtual().start(() -> {
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            bulkhead.release(1_000);
+        });
+
+        assertThat(bulkhead.tryAcquire(5 * SECOND)).isTrue();
+        releaser.join();
+    }
+
+    @Test
+    void resize_followsThroughputTimesLatency() throws Exception {
+        Bulkhead bulkhead = new Bulkhead(2);
+        // 100 calls/s at 100 ms each need 10 concurrent slots
+        for (int i = 0; i < 100; i++) {
+            bulkhead.tryAcquire(0);
+            bulkhead.release(SECOND / 10);
+        }
+
+        bulkhead.resize(SECOND, 2, 32, 1.5);
+
+        assertThat(bulkhead.limit()).isEqualTo(15);
+    }
+
+    @Test
+    void resize_staysWithinBounds() throws Exception {
+        Bulkhead bulkhead = new Bulkhead(8);
+        bulkhead.resize(SECOND, 2, 32, 1.5);
+        assertThat(bulkhead.limit()).isEqualTo(2);
+
+        for (int i = 0; i < 1000; i++) {
+            bulkhead.tryAcquire(0);
+            bulkhead.release(SECOND);
+        }
+        bulkhead.resize(SECOND, 2, 32, 1.5);
+        assertThat(bulkhead.limit()).isEqualTo(32);
+    }
+}
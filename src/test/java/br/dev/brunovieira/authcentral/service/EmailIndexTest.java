@@ -0,0 +1,224 @@
+package br.dev.brunovieira.authcentral.service;
+
+import br.dev.brunovieira.authcentral.TestFixtures;
+import br.dev.brunovieira.authcentral.config.EmailIndexProperties;
+import br.dev.brunovieira.authcentral.config.TenantCacheProperties;
+import br.dev.brunovieira.authcentral.model.Tenant;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.SetOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class EmailIndexTest {
+
+    private static final String CHANNEL = "auth-central:emails:added";
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private SetOperations<String, String> setOperations;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    @Mock
+    private RedisOperations<String, String> pipelineOperations;
+
+    @Mock
+    private RedisMessageListenerContainer listenerContainer;
+
+    private EmailIndexProperties properties;
+    private EmailIndex index;
+    private Tenant tenant;
+    private List<Integer> pagesRequested;
+    private String setKey;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        properties = new EmailIndexProperties();
+        properties.setPageSize(2);
+        index = new EmailIndex(properties, redisTemplate, listenerContainer, new TenantCacheProperties(),
+                new SimpleMeterRegistry(), Runnable::run);
+        tenant = TestFixtures.tenant();
+        setKey = EmailIndex.setKey(tenant.getTenantKey());
+        pagesRequested = new ArrayList<>();
+
+        lenient().when(redisTemplate.opsForSet()).thenReturn(setOperations);
+        lenient().when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        lenient().when(pipelineOperations.opsForSet()).thenReturn(setOperations);
+        lenient().when(redisTemplate.executePipelined(any(SessionCallback.class))).thenAnswer(invocation -> {
+            invocation.<SessionCallback<Object>>getArgument(0).execute(pipelineOperations);
+            return List.of();
+        });
+    }
+
+    @Test
+    void init_subscribesToAnnouncements() {
+        index.init();
+
+        verify(listenerContainer).addMessageListener(eq(index), eq(new ChannelTopic(CHANNEL)));
+    }
+
+    @Test
+    void lookup_firstCall_rebuildsFromKeycloakInBackground() {
+        ArgumentCaptor<String> lockOwner = ArgumentCaptor.forClass(String.class);
+        when(valueOperations.setIfAbsent(eq(setKey + ":lock"), lockOwner.capture(), any(Duration.class))).thenReturn(true);
+
+        assertThat(index.lookup(tenant, "alice@test.com", this::realm)).isEqualTo(EmailIndex.Presence.UNKNOWN);
+
+        assertThat(pagesRequested).containsExactly(0, 2, 4);
+        ArgumentCaptor<String[]> staged = ArgumentCaptor.forClass(String[].class);
+        verify(setOperations).add(eq(setKey + ":rebuild"), staged.capture());
+        assertThat(staged.getValue()).containsExactlyInAnyOrder(
+                EmailIndex.EmailHash.of("alice@test.com").encoded(),
+                EmailIndex.EmailHash.of("bob@test.com").encoded(),
+                EmailIndex.EmailHash.of("carol@test.com").encoded());
+        verify(redisTemplate).rename(setKey + ":rebuild", setKey);
+        verify(valueOperations).set(eq(EmailIndex.syncedKey(tenant.getTenantKey())), anyString());
+        // released only if this instance still holds it
+        verify(redisTemplate).execute(any(RedisScript.class), eq(List.of(setKey + ":lock")), eq(lockOwner.getValue()));
+        verify(redisTemplate, never()).delete(setKey + ":lock");
+        assertThat(index.loadedTenants()).isEqualTo(1);
+    }
+
+    @Test
+    void lookup_afterLoad_answersNegativesLocallyAndConfirmsPositivesInRedis() {
+        when(valueOperations.setIfAbsent(eq(setKey + ":lock"), anyString(), any(Duration.class))).thenReturn(true);
+        index.lookup(tenant, "alice@test.com", this::realm);
+        String alice = EmailIndex.EmailHash.of("alice@test.com").encoded();
+        when(setOperations.isMember(setKey, alice)).thenReturn(true);
+
+        assertThat(index.lookup(tenant, " Alice@Test.com", this::realm)).isEqualTo(EmailIndex.Presence.PRESENT);
+        assertThat(index.lookup(tenant, "nobody@test.com", this::realm)).isEqualTo(EmailIndex.Presence.ABSENT);
+        verify(setOperations, times(1)).isMember(anyString(), anyString());
+    }
+
+    @Test
+    void lookup_recentlySyncedSet_loadsFromRedisWithoutKeycloak() {
+        String alice = EmailIndex.EmailHash.of("alice@test.com").encoded();
+        @SuppressWarnings("unchecked")
+        Cursor<String> cursor = mock(Cursor.class);
+        when(cursor.hasNext()).thenReturn(true, false);
+        when(cursor.next()).thenReturn(alice);
+        when(valueOperations.get(EmailIndex.syncedKey(tenant.getTenantKey())))
+                .thenReturn(Long.toString(System.currentTimeMillis()));
+        when(setOperations.size(setKey)).thenReturn(1L);
+        when(setOperations.scan(eq(setKey), any(ScanOptions.class))).thenReturn(cursor);
+        when(setOperations.isMember(setKey, alice)).thenReturn(true);
+
+        index.lookup(tenant, "alice@test.com", this::realm);
+
+        assertThat(index.lookup(tenant, "alice@test.com", this::realm)).isEqualTo(EmailIndex.Presence.PRESENT);
+        assertThat(index.lookup(tenant, "bob@test.com", this::realm)).isEqualTo(EmailIndex.Presence.ABSENT);
+        assertThat(pagesRequested).isEmpty();
+    }
+
+    @Test
+    void lookup_rebuildLockedElsewhere_staysUnknown() {
+        when(valueOperations.setIfAbsent(eq(setKey + ":lock"), anyString(), any(Duration.class))).thenReturn(false);
+
+        index.lookup(tenant, "alice@test.com", this::realm);
+
+        assertThat(index.lookup(tenant, "alice@test.com", this::realm)).isEqualTo(EmailIndex.Presence.UNKNOWN);
+        assertThat(pagesRequested).isEmpty();
+        assertThat(index.loadedTenants()).isZero();
+        // the second lookup falls inside the retry back-off
+        verify(valueOperations, times(1)).setIfAbsent(anyString(), anyString(), any(Duration.class));
+    }
+
+    @Test
+    void lookup_redisFailure_isUnknown() {
+        when(valueOperations.setIfAbsent(eq(setKey + ":lock"), anyString(), any(Duration.class))).thenReturn(true);
+        index.lookup(tenant, "alice@test.com", this::realm);
+        when(setOperations.isMember(eq(setKey), anyString())).thenThrow(new RedisConnectionFailureException("down"));
+
+        assertThat(index.lookup(tenant, "alice@test.com", this::realm)).isEqualTo(EmailIndex.Presence.UNKNOWN);
+    }
+
+    @Test
+    void lookup_disabled_isUnknownWithoutRedis() {
+        properties.setEnabled(false);
+
+        assertThat(index.lookup(tenant, "alice@test.com", this::realm)).isEqualTo(EmailIndex.Presence.UNKNOWN);
+        index.add(tenant, "alice@test.com");
+
+        verifyNoInteractions(redisTemplate);
+    }
+
+    @Test
+    void add_storesHashAndAnnouncesIt() {
+        String dave = EmailIndex.EmailHash.of("dave@test.com").encoded();
+
+        index.add(tenant, "Dave@test.com");
+
+        verify(setOperations).add(setKey, dave);
+        verify(redisTemplate).convertAndSend(eq(CHANNEL), endsWith(" " + tenant.getTenantKey() + " " + dave));
+    }
+
+    @Test
+    void onMessage_fromOtherInstance_updatesLocalFilter() {
+        when(valueOperations.setIfAbsent(eq(setKey + ":lock"), anyString(), any(Duration.class))).thenReturn(true);
+        index.lookup(tenant, "alice@test.com", this::realm);
+        String dave = EmailIndex.EmailHash.of("dave@test.com").encoded();
+        assertThat(index.lookup(tenant, "dave@test.com", this::realm)).isEqualTo(EmailIndex.Presence.ABSENT);
+
+        index.onMessage(new DefaultMessage(CHANNEL.getBytes(StandardCharsets.UTF_8),
+                ("other-instance " + tenant.getTenantKey() + " " + dave).getBytes(StandardCharsets.UTF_8)), null);
+        when(setOperations.isMember(setKey, dave)).thenReturn(true);
+
+        assertThat(index.lookup(tenant, "dave@test.com", this::realm)).isEqualTo(EmailIndex.Presence.PRESENT);
+    }
+
+    @Test
+    void bloomCapacity_tracksRealmSizeWithinFloorAndCap() {
+        assertThat(EmailIndex.bloomCapacity(0, 1_000_000)).isEqualTo(1024);
+        assertThat(EmailIndex.bloomCapacity(5, 1_000_000)).isEqualTo(1024);
+        assertThat(EmailIndex.bloomCapacity(20_000, 1_000_000)).isEqualTo(40_000);
+        assertThat(EmailIndex.bloomCapacity(800_000, 1_000_000)).isEqualTo(1_000_000);
+    }
+
+    @Test
+    void reconcile_rebuildsLoadedTenants() {
+        when(valueOperations.setIfAbsent(eq(setKey + ":lock"), anyString(), any(Duration.class))).thenReturn(true);
+        index.lookup(tenant, "alice@test.com", this::realm);
+        pagesRequested.clear();
+
+        index.reconcile();
+
+        assertThat(pagesRequested).containsExactly(0, 2, 4);
+        verify(redisTemplate, times(2)).rename(setKey + ":rebuild", setKey);
+    }
+
+    private List<String> realm(int first, int max) {
+        pagesRequested.add(first);
+        List<String> users = List.of("alice@test.com", "bob@test.com", "carol@test.com");
+        return users.subList(Math.min(first, users.size()), Math.min(first + max, users.size()));
+    }
+}
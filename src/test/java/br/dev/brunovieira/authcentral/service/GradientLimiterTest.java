@@ -0,0 +1,85 @@
+package br.dev.brunovieira.authcentral.service;
+
+import br.dev.brunovieira.authcentral.config.ConcurrencyLimitProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+class GradientLimiterTest {
+
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private ConcurrencyLimitProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        properties = new ConcurrencyLimitProperties();
+        properties.setInitialLimit(10);
+        properties.setMinLimit(2);
+        properties.setMaxLimit(100);
+    }
+
+    @Test
+    void tryAcquire_beyondLimit_isRefusedWithoutWaiting() {
+        GradientLimiter limiter = new GradientLimiter(properties);
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(limiter.tryAcquire()).isTrue();
+        }
+        assertThat(limiter.tryAcquire()).isFalse();
+
+        limiter.release(10 * MS);
+        assertThat(limiter.tryAcquire()).isTrue();
+    }
+
+    @Test
+    void steadyRttUnderFullLoad_growsLimit() {
+        GradientLimiter limiter = new GradientLimiter(properties);
+
+        runWindows(limiter, 20, 10 * MS);
+
+        assertThat(limiter.limit()).isGreaterThan(10);
+    }
+
+    @Test
+    void risingRtt_shrinksLimit() {
+        GradientLimiter limiter = new GradientLimiter(properties);
+        runWindows(limiter, 20, 10 * MS);
+        int grown = limiter.limit();
+
+        runWindows(limiter, 10, 80 * MS);
+
+        assertThat(limiter.limit()).isLessThan(grown);
+        assertThat(limiter.limit()).isGreaterThanOrEqualTo(2);
+    }
+
+    @Test
+    void lightLoad_leavesLimitUnchanged() {
+        GradientLimiter limiter = new GradientLimiter(properties);
+
+        for (int i = 0; i < 50; i++) {
+            limiter.tryAcquire();
+            limiter.release(500 * MS);
+        }
+
+        assertThat(limiter.limit()).isEqualTo(10);
+    }
+
+    /**
+     * Fill every permit, then complete them all with the given RTT.
+     */
+    private static void runWindows(GradientLimiter limiter, int windows, long rtt) {
+        for (int w = 0; w < windows; w++) {
+            int taken = 0;
+            while (limiter.tryAcquire()) {
+                taken++;
+            }
+            for (int i = 0; i < taken; i++) {
+                limiter.release(rtt);
+            }
+        }
+    }
+}
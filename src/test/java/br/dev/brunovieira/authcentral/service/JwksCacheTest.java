@@ -0,0 +1,147 @@
+package br.dev.brunovieira.authcentral.service;
+
+import br.dev.brunovieira.authcentral.config.TenantCacheProperties;
+import br.dev.brunovieira.authcentral.config.TokenValidationProperties;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClient;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class JwksCacheTest {
+
+    private static final String REALM_URL = "http://localhost:8080/realms/test-realm";
+    private static final String CERTS_URL = REALM_URL + "/protocol/openid-connect/certs";
+
+    @Mock
+    private RestClient restClient;
+
+    @Mock
+    private RestClient.RequestHeadersUriSpec<?> uriSpec;
+
+    @Mock
+    private RestClient.RequestHeadersSpec<?> headersSpec;
+
+    @Mock
+    private RestClient.ResponseSpec responseSpec;
+
+    private final AtomicLong clock = new AtomicLong();
+    private JwksCache cache;
+    private RSAKey first;
+    private RSAKey second;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        TokenValidationProperties properties = new TokenValidationProperties();
+        cache = new JwksCache(restClient, properties, clock::get, new TenantCacheProperties(),
+                new SimpleMeterRegistry());
+        first = new RSAKeyGenerator(2048).keyID("first").generate();
+        second = new RSAKeyGenerator(2048).keyID("second").generate();
+
+        doReturn(uriSpec).when(restClient).get();
+        doReturn(headersSpec).when(uriSpec).uri(CERTS_URL);
+        doReturn(responseSpec).when(headersSpec).retrieve();
+    }
+
+    @Test
+    void keys_fetchesOnceAndServesFromMemory() {
+        when(responseSpec.body(String.class)).thenReturn(jwks(first));
+
+        List<JWK> keys = cache.keys(REALM_URL, "first");
+        cache.keys(REALM_URL, "first");
+        cache.keys(REALM_URL, null);
+
+        assertThat(keys).extracting(JWK::getKeyID).containsExactly("first");
+        verify(restClient, times(1)).get();
+        assertThat(cache.realmCount()).isEqualTo(1);
+    }
+
+    @Test
+    void unknownKid_refetchesToPickUpRotatedKey() {
+        when(responseSpec.body(String.class)).thenReturn(jwks(first), jwks(first, second));
+        cache.keys(REALM_URL, "first");
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(11));
+
+        List<JWK> keys = cache.keys(REALM_URL, "second");
+
+        assertThat(keys).extracting(JWK::getKeyID).containsExactly("first", "second");
+        verify(restClient, times(2)).get();
+    }
+
+    @Test
+    void unknownKid_refetchIsRateLimited() {
+        when(responseSpec.body(String.class)).thenReturn(jwks(first));
+        cache.keys(REALM_URL, "first");
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+
+        cache.keys(REALM_URL, "forged-1");
+        cache.keys(REALM_URL, "forged-2");
+
+        verify(restClient, times(1)).get();
+    }
+
+    @Test
+    void refreshAll_refetchesKnownRealms() {
+        when(responseSpec.body(String.class)).thenReturn(jwks(first), jwks(second));
+        cache.keys(REALM_URL, "first");
+
+        cache.refreshAll();
+
+        assertThat(cache.keys(REALM_URL, null)).extracting(JWK::getKeyID).containsExactly("second");
+    }
+
+    @Test
+    void failedFetch_keepsPreviousKeys() {
+        when(responseSpec.body(String.class))
+                .thenReturn(jwks(first))
+                .thenThrow(new ResourceAccessException("Keycloak down"));
+        cache.keys(REALM_URL, "first");
+
+        cache.refreshAll();
+
+        assertThat(cache.keys(REALM_URL, null)).extracting(JWK::getKeyID).containsExactly("first");
+    }
+
+    @Test
+    void firstFetchFailure_returnsNoKeys() {
+        when(responseSpec.body(String.class)).thenReturn("not json");
+
+        assertThat(cache.keys(REALM_URL, "first")).isEmpty();
+    }
+
+    @Test
+    void realms_areBoundedByTheTenantCache() {
+        TenantCacheProperties cacheProperties = new TenantCacheProperties();
+        cacheProperties.setMaxTenants(2);
+        JwksCache bounded = new JwksCache(restClient, new TokenValidationProperties(), clock::get, cacheProperties,
+                new SimpleMeterRegistry());
+        doReturn(headersSpec).when(uriSpec).uri(startsWith("http://localhost:8080/realms/realm-"));
+        when(responseSpec.body(String.class)).thenReturn(jwks(first));
+
+        bounded.keys(REALM_URL, "first");
+        for (int i = 0; i < 5; i++) {
+            bounded.keys("http://localhost:8080/realms/realm-" + i, "first");
+        }
+
+        assertThat(bounded.realmCount()).isLessThanOrEqualTo(2);
+    }
+
+    private static String jwks(RSAKey... keys) {
+        return new JWKSet(List.of(keys).stream().map(key -> (JWK) key.toPublicJWK()).toList()).toString();
+    }
+}
@@ -0,0 +1,92 @@
+package br.dev.brunovieira.authcentral.service;
+
+import org.junit.jupiter.api.Test;
+import tools.jackson.core.JacksonException;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.*;
+
+class JwtClaimExtractorTest {
+
+    private final JwtClaimExtractor extractor = new JwtClaimExtractor("email", "given_name", "exp", "email_verified");
+
+    @Test
+    void extract_readsRequestedScalarClaims() {
+        String jwt = jwt("""
+                {"exp":1760000000,"realm_access":{"roles":["a","b",{"nested":[1,2]}]},"groups":["/x","/y"],
+                 "email":"jo\\u00e3o@test.com","given_name":"João","email_verified":true,"family_name":"Silva"}""");
+
+        JwtClaimExtractor.Claims claims = extractor.extract(jwt);
+
+        assertThat(claims.getString("email")).isEqualTo("joão@test.com");
+        assertThat(claims.getString("given_name")).isEqualTo("João");
+        assertThat(claims.get("exp")).isEqualTo(1760000000);
+        assertThat(claims.get("email_verified")).isEqualTo(true);
+        assertThat(claims.get("family_name")).isNull();
+    }
+
+    @Test
+    void extract_missingAndNonScalarClaims_readAsNull() {
+        JwtClaimExtractor.Claims claims = extractor.extract(jwt("{\"email\":{\"primary\":\"x\"},\"exp\":null}"));
+
+        assertThat(claims.get("email")).isNull();
+        assertThat(claims.get("exp")).isNull();
+        assertThat(claims.getString("given_name")).isNull();
+    }
+
+    @Test
+    void extract_stopsOnceEveryClaimIsFound() {
+        String payload = "{\"email\":\"a@test.com\",\"given_name\":\"A\",\"exp\":1,\"email_verified\":false,\"sub\":";
+        String jwt = "header." + Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(payload.getBytes(StandardCharsets.UTF_8)) + ".signature";
+
+        // the payload is cut off, but nothing after the last requested claim is parsed
+        assertThat(extractor.extract(jwt).getString("email")).isEqualTo("a@test.com");
+    }
+
+    @Test
+    void extract_notThreeSegments_returnsNull() {
+        assertThat(extractor.extract("invalid.jwt")).isNull();
+        assertThat(extractor.extract("no-dots")).isNull();
+        assertThat(extractor.extract("a.b.c.d")).isNull();
+        assertThat(extractor.extract("a.b.")).isNull();
+    }
+
+    @Test
+    void extract_malformedPayload_throws() {
+        assertThatThrownBy(() -> extractor.extract("header.pay!load.signature"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> extractor.extract("header.payload.signature"))
+                .isInstanceOf(JacksonException.class);
+        assertThatThrownBy(() -> extractor.extract(jwt("[1,2]")))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void base64UrlInputStream_matchesJdkDecoder() throws IOException {
+        Random random = new Random(42);
+        for (int length = 0; length < 64; length++) {
+            byte[] data = new byte[length];
+            random.nextBytes(data);
+            String encoded = "x." + Base64.getUrlEncoder().withoutPadding().encodeToString(data) + ".y";
+
+            try (var stream = new JwtClaimExtractor.Base64UrlInputStream(encoded, 2, encoded.length() - 2)) {
+                assertThat(stream.readAllBytes()).as("length %d", length).isEqualTo(data);
+            }
+        }
+        String padded = Base64.getUrlEncoder().encodeToString(new byte[]{1, 2, 3, 4});
+        try (var stream = new JwtClaimExtractor.Base64UrlInputStream(padded, 0, padded.length())) {
+            assertThat(stream.readAllBytes()).containsExactly(1, 2, 3, 4);
+        }
+    }
+
+    private static String jwt(String payload) {
+        return "eyJhbGciOiJSUzI1NiJ9."
+                + Base64.getUrlEncoder().withoutPadding().encodeToString(payload.getBytes(StandardCharsets.UTF_8))
+                + ".c2lnbmF0dXJl";
+    }
+}
@@ -0,0 +1,147 @@
+package br.dev.brunovieira.authcentral.service;
+
+import br.dev.brunovieira.authcentral.TestFixtures;
+import br.dev.brunovieira.authcentral.dto.keycloak.KeycloakUser;
+import br.dev.brunovieira.authcentral.exception.UserAlreadyExistsException;
+import br.dev.brunovieira.authcentral.model.Tenant;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.RestClient;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.net.URI;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class KeycloakAdminClientTest {
+
+    private static final String USERS_URL = "http://localhost:8080/admin/realms/test-realm/users";
+
+    @Mock
+    private RestClient restClient;
+
+    @Mock
+    private RestClient.RequestBodyUriSpec requestBodyUriSpec;
+
+    @Mock
+    private RestClient.RequestBodySpec requestBodySpec;
+
+    @Mock
+    private RestClient.RequestHeadersUriSpec<?> getUriSpec;
+
+    @Mock
+    private RestClient.RequestHeadersSpec<?> getHeadersSpec;
+
+    @Mock
+    private RestClient.ResponseSpec responseSpec;
+
+    @Mock
+    private ServiceTokenManager serviceTokenManager;
+
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+    private KeycloakAdminClient client;
+    private Tenant tenant;
+
+    @BeforeEach
+    void setUp() {
+        client = new KeycloakAdminClient(restClient, TestFixtures.router(), serviceTokenManager, jsonMapper);
+        tenant = TestFixtures.tenant();
+        when(serviceTokenManager.currentToken(tenant)).thenReturn("svc-token");
+    }
+
+    @Test
+    void createUser_postsUserWithCredentialsAndReturnsId() {
+        setupPost();
+        when(responseSpec.toBodilessEntity()).thenReturn(ResponseEntity.created(URI.create(USERS_URL + "/user-id-123")).build());
+
+        String id = client.createUser(tenant, "user@test.com", "John", "Doe", "secret");
+
+        assertThat(id).isEqualTo("user-id-123");
+        verify(requestBodySpec).header(HttpHeaders.AUTHORIZATION, "Bearer svc-token");
+        ArgumentCaptor<byte[]> body = ArgumentCaptor.forClass(byte[].class);
+        verify(requestBodySpec).body(body.capture());
+        JsonNode json = jsonMapper.readTree(body.getValue());
+        assertThat(json.get("username").stringValue()).isEqualTo("user@test.com");
+        assertThat(json.get("email").stringValue()).isEqualTo("user@test.com");
+        assertThat(json.get("enabled").booleanValue()).isTrue();
+        assertThat(json.get("credentials").get(0).get("type").stringValue()).isEqualTo("password");
+        assertThat(json.get("credentials").get(0).get("value").stringValue()).isEqualTo("secret");
+        assertThat(json.get("credentials").get(0).get("temporary").booleanValue()).isFalse();
+    }
+
+    @Test
+    void createUser_conflict_propagatesUserAlreadyExists() {
+        setupPost();
+        when(responseSpec.toBodilessEntity()).thenThrow(new UserAlreadyExistsException("exists"));
+
+        assertThatThrownBy(() -> client.createUser(tenant, "user@test.com", "John", "Doe", "secret"))
+                .isInstanceOf(UserAlreadyExistsException.class);
+    }
+
+    @Test
+    void createUser_withoutLocation_fails() {
+        setupPost();
+        when(responseSpec.toBodilessEntity()).thenReturn(ResponseEntity.status(201).build());
+
+        assertThatThrownBy(() -> client.createUser(tenant, "user@test.com", "John", "Doe", "secret"))
+                .hasMessageContaining("Failed to create user");
+    }
+
+    @Test
+    void searchByUsername_parsesUsers() {
+        setupGet(URI.create(USERS_URL + "?username=user%2Btag%40test.com&exact=true"));
+        when(responseSpec.body(String.class)).thenReturn("""
+                [{"id":"id-1","username":"user+tag@test.com","email":"user+tag@test.com",
+                  "firstName":"John","lastName":"Doe","enabled":true,"emailVerified":true,"attributes":{"x":["y"]}}]
+                """);
+
+        List<KeycloakUser> users = client.searchByUsername(tenant, "user+tag@test.com", true);
+
+        assertThat(users).containsExactly(
+                new KeycloakUser("id-1", "user+tag@test.com", "user+tag@test.com", "John", "Doe", true, true));
+        verify(getHeadersSpec).header(HttpHeaders.AUTHORIZATION, "Bearer svc-token");
+    }
+
+    @Test
+    void listUsers_requestsBriefPage() {
+        setupGet(URI.create(USERS_URL + "?first=500&max=500&briefRepresentation=true"));
+        when(responseSpec.body(String.class)).thenReturn("[{\"id\":\"id-1\",\"username\":\"legacy\"}]");
+
+        List<KeycloakUser> users = client.listUsers(tenant, 500, 500);
+
+        assertThat(users).singleElement().satisfies(user -> {
+            assertThat(user.username()).isEqualTo("legacy");
+            assertThat(user.email()).isNull();
+            assertThat(user.enabled()).isFalse();
+        });
+    }
+
+    private void setupPost() {
+        when(restClient.post()).thenReturn(requestBodyUriSpec);
+        when(requestBodyUriSpec.uri(URI.create(USERS_URL))).thenReturn(requestBodySpec);
+        when(requestBodySpec.header(eq(HttpHeaders.AUTHORIZATION), any(String[].class))).thenReturn(requestBodySpec);
+        when(requestBodySpec.contentType(MediaType.APPLICATION_JSON)).thenReturn(requestBodySpec);
+        doReturn(requestBodySpec).when(requestBodySpec).body(any(byte[].class));
+        when(requestBodySpec.retrieve()).thenReturn(responseSpec);
+        when(responseSpec.onStatus(any(), any())).thenReturn(responseSpec);
+    }
+
+    private void setupGet(URI uri) {
+        doReturn(getUriSpec).when(restClient).get();
+        doReturn(getHeadersSpec).when(getUriSpec).uri(uri);
+        doReturn(getHeadersSpec).when(getHeadersSpec).header(eq(HttpHeaders.AUTHORIZATION), any(String[].class));
+        doReturn(responseSpec).when(getHeadersSpec).retrieve();
+    }
+}
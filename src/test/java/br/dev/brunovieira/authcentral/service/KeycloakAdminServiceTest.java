@@ -1,33 +1,30 @@
 package br.dev.brunovieira.authcentral.service;
 
 import br.dev.brunovieira.authcentral.TestFixtures;
+import br.dev.brunovieira.authcentral.dto.keycloak.KeycloakUser;
 import br.dev.brunovieira.authcentral.exception.AuthenticationException;
 import br.dev.brunovieira.authcentral.exception.UserAlreadyExistsException;
 import br.dev.brunovieira.authcentral.exception.UserNotFoundException;
+import br.dev.brunovieira.authcentral.model.AuthOutcome;
 import br.dev.brunovieira.authcentral.model.Tenant;
-import jakarta.ws.rs.core.Response;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.keycloak.admin.client.Keycloak;
-import org.keycloak.admin.client.resource.RealmResource;
-import org.keycloak.admin.client.resource.UserResource;
-import org.keycloak.admin.client.resource.UsersResource;
-import org.keycloak.representations.idm.UserRepresentation;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.http.HttpStatusCode;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.web.client.RestClient;
 
-import org.springframework.util.MultiValueMap;
-
+import java.io.IOException;
 import java.net.URI;
-import java.util.Collections;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
-import java.util.Map;
 
 import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -45,113 +42,100 @@ class KeycloakAdminServiceTest {
     @Mock
     private RestClient.ResponseSpec responseSpec;
 
+    @Mock
+    private RestClient.RequestHeadersSpec.ConvertibleClientHttpResponse tokenResponse;
+
+    @Mock
+    private EmailIndex emailIndex;
+
+    @Mock
+    private KeycloakAdminClient adminClient;
+
     private KeycloakAdminService service;
     private Tenant tenant;
 
     @BeforeEach
     void setUp() {
-        service = new KeycloakAdminService(restClient);
+        service = new KeycloakAdminService(restClient, TestFixtures.router(), TestFixtures.requestEncoder(),
+                emailIndex, adminClient);
         tenant = TestFixtures.tenant();
     }
 
-    // --- createKeycloakClient / closeKeycloakClients ---
-    // Cannot easily test createKeycloakClient because it calls KeycloakBuilder.builder() which is static.
-    // We test closeKeycloakClients with an empty cache (no error path).
-
-    @Test
-    void closeKeycloakClients_emptyCache_doesNotThrow() {
-        assertThatCode(() -> service.closeKeycloakClients()).doesNotThrowAnyException();
-    }
-
     // --- registerUser ---
 
     @Test
     void registerUser_success() {
-        Keycloak keycloak = mock(Keycloak.class);
-        RealmResource realmResource = mock(RealmResource.class);
-        UsersResource usersResource = mock(UsersResource.class);
-        UserResource userResource = mock(UserResource.class);
-        Response response = mock(Response.class);
-
-        // We need to inject a Keycloak mock into the ConcurrentHashMap.
-        // Use reflection to set keycloakClients directly.
-        setKeycloakClient(keycloak);
-
-        when(keycloak.realm(tenant.getRealmName())).thenReturn(realmResource);
-        when(realmResource.users()).thenReturn(usersResource);
-        when(usersResource.search("user@test.com", true)).thenReturn(Collections.emptyList());
-        when(usersResource.create(any(UserRepresentation.class))).thenReturn(response);
-        when(response.getStatus()).thenReturn(201);
-        when(response.getLocation()).thenReturn(URI.create("http://localhost/users/user-id-123"));
-        when(usersResource.get("user-id-123")).thenReturn(userResource);
+        when(adminClient.createUser(tenant, "user@test.com", "John", "Doe", "password")).thenReturn("user-id-123");
 
         String userId = service.registerUser(tenant, "user@test.com", "John", "Doe", "password");
 
         assertThat(userId).isEqualTo("user-id-123");
-        verify(userResource).resetPassword(any());
-        verify(response).close();
+        verify(adminClient, never()).searchByUsername(any(), anyString(), anyBoolean());
+        verify(emailIndex).add(tenant, "user@test.com");
     }
 
     @Test
-    void registerUser_userAlreadyExists() {
-        Keycloak keycloak = mock(Keycloak.class);
-        RealmResource realmResource = mock(RealmResource.class);
-        UsersResource usersResource = mock(UsersResource.class);
-        UserRepresentation existingUser = new UserRepresentation();
-
-        setKeycloakClient(keycloak);
+    void registerUser_emailInIndex_skipsKeycloak() {
+        when(emailIndex.lookup(eq(tenant), eq("user@test.com"), any())).thenReturn(EmailIndex.Presence.PRESENT);
 
-        when(keycloak.realm(tenant.getRealmName())).thenReturn(realmResource);
-        when(realmResource.users()).thenReturn(usersResource);
-        when(usersResource.search("user@test.com", true)).thenReturn(List.of(existingUser));
+        assertThatThrownBy(() -> service.registerUser(tenant, "user@test.com", "John", "Doe", "password"))
+                .isInstanceOf(UserAlreadyExistsException.class);
+        verifyNoInteractions(adminClient);
+        verify(emailIndex, never()).add(any(), any());
+    }
 
+    @Test
+    void registerUser_emailSource_pagesRealmUsers() {
+        when(adminClient.listUsers(tenant, 0, 100)).thenReturn(List.of(
+                new KeycloakUser("id-1", "legacy-login", "user@test.com", null, null, true, true)));
+        when(emailIndex.lookup(eq(tenant), eq("user@test.com"), any())).thenReturn(EmailIndex.Presence.PRESENT);
         assertThatThrownBy(() -> service.registerUser(tenant, "user@test.com", "John", "Doe", "password"))
                 .isInstanceOf(UserAlreadyExistsException.class);
+
+        ArgumentCaptor<EmailIndex.EmailSource> source = ArgumentCaptor.forClass(EmailIndex.EmailSource.class);
+        verify(emailIndex).lookup(eq(tenant), eq("user@test.com"), source.capture());
+        assertThat(source.getValue().page(0, 100)).containsExactly("user@test.com", "legacy-login");
     }
 
     @Test
-    void registerUser_failedStatus() {
-        Keycloak keycloak = mock(Keycloak.class);
-        RealmResource realmResource = mock(RealmResource.class);
-        UsersResource usersResource = mock(UsersResource.class);
-        Response response = mock(Response.class);
-        Response.StatusType statusInfo = mock(Response.StatusType.class);
+    void registerUser_userAlreadyExists() {
+        when(adminClient.createUser(tenant, "user@test.com", "John", "Doe", "password"))
+                .thenThrow(new UserAlreadyExistsException("User with email user@test.com already exists"));
 
-        setKeycloakClient(keycloak);
+        assertThatThrownBy(() -> service.registerUser(tenant, "user@test.com", "John", "Doe", "password"))
+                .isInstanceOf(UserAlreadyExistsException.class);
+        verify(emailIndex).add(tenant, "user@test.com");
+    }
 
-        when(keycloak.realm(tenant.getRealmName())).thenReturn(realmResource);
-        when(realmResource.users()).thenReturn(usersResource);
-        when(usersResource.search("user@test.com", true)).thenReturn(Collections.emptyList());
-        when(usersResource.create(any(UserRepresentation.class))).thenReturn(response);
-        when(response.getStatus()).thenReturn(409);
-        when(response.getStatusInfo()).thenReturn(statusInfo);
+    @Test
+    void registerUser_failedStatus() {
+        when(adminClient.createUser(tenant, "user@test.com", "John", "Doe", "password"))
+                .thenThrow(new RuntimeException("Failed to create user: 500 INTERNAL_SERVER_ERROR"));
 
         assertThatThrownBy(() -> service.registerUser(tenant, "user@test.com", "John", "Doe", "password"))
                 .isInstanceOf(RuntimeException.class)
                 .hasMessageContaining("Failed to create user");
+        verify(emailIndex, never()).add(any(), any());
     }
 
     // --- authenticateUser ---
 
     @Test
-    @SuppressWarnings("unchecked")
-    void authenticateUser_success() {
-        setupRestClientPost();
-
-        Map<String, Object> tokenMap = Map.of("access_token", "tok", "token_type", "Bearer");
-        when(responseSpec.body(Map.class)).thenReturn(tokenMap);
+    void authenticateUser_success() throws IOException {
+        byte[] tokenResponse = "{\"access_token\":\"tok\",\"token_type\":\"Bearer\"}".getBytes(StandardCharsets.UTF_8);
+        setupTokenExchange(HttpStatus.OK, tokenResponse);
 
-        Map<String, Object> result = service.authenticateUser(tenant, "user@test.com", "password");
+        AuthOutcome<byte[]> result = service.authenticateUser(tenant, "user@test.com", "password");
 
-        assertThat(result).containsEntry("access_token", "tok");
+        assertThat(result).isEqualTo(AuthOutcome.granted(tokenResponse));
+        verify(requestBodyUriSpec).uri(URI.create("http://localhost:8080/realms/test-realm/protocol/openid-connect/token"));
+        verify(requestBodySpec).body(("client_id=test-client-id&client_secret=test-client-secret"
+                + "&grant_type=password&username=user%40test.com&password=password").getBytes(StandardCharsets.US_ASCII));
     }
 
     @Test
-    @SuppressWarnings("unchecked")
-    void authenticateUser_nullResponse() {
-        setupRestClientPost();
-
-        when(responseSpec.body(Map.class)).thenReturn(null);
+    void authenticateUser_nullResponse() throws IOException {
+        setupTokenExchange(HttpStatus.OK, null);
 
         assertThatThrownBy(() -> service.authenticateUser(tenant, "user@test.com", "password"))
                 .isInstanceOf(AuthenticationException.class)
@@ -159,23 +143,37 @@ class KeycloakAdminServiceTest {
     }
 
     @Test
-    @SuppressWarnings("unchecked")
-    void authenticateUser_authException_rethrown() {
-        setupRestClientPost();
+    void authenticateUser_unauthorized_isRejectedWithoutThrowing() throws IOException {
+        setupTokenExchange(HttpStatus.UNAUTHORIZED, null);
+
+        AuthOutcome<byte[]> result = service.authenticateUser(tenant, "user@test.com", "wrong");
 
-        when(responseSpec.body(Map.class)).thenThrow(new AuthenticationException("Invalid credentials"));
+        assertThat(result).isEqualTo(AuthOutcome.rejected("Invalid credentials"));
+        verify(tokenResponse, never()).bodyTo(byte[].class);
+    }
+
+    @Test
+    void authenticateUser_otherClientError_isRejectedWithStatus() throws IOException {
+        setupTokenExchange(HttpStatus.BAD_REQUEST, null);
+
+        AuthOutcome<byte[]> result = service.authenticateUser(tenant, "user@test.com", "password");
+
+        assertThat(result).isEqualTo(AuthOutcome.rejected("Authentication failed: 400 BAD_REQUEST"));
+    }
+
+    @Test
+    void authenticateUser_serverError_throws() throws IOException {
+        setupTokenExchange(HttpStatus.INTERNAL_SERVER_ERROR, null);
 
         assertThatThrownBy(() -> service.authenticateUser(tenant, "user@test.com", "password"))
                 .isInstanceOf(AuthenticationException.class)
-                .hasMessage("Invalid credentials");
+                .hasMessageContaining("Authentication failed");
     }
 
     @Test
-    @SuppressWarnings("unchecked")
-    void authenticateUser_unexpectedException() {
-        setupRestClientPost();
-
-        when(responseSpec.body(Map.class)).thenThrow(new RuntimeException("Connection refused"));
+    void authenticateUser_unexpectedException() throws IOException {
+        setupTokenExchange(HttpStatus.OK, null);
+        when(tokenResponse.bodyTo(byte[].class)).thenThrow(new RuntimeException("Connection refused"));
 
         assertThatThrownBy(() -> service.authenticateUser(tenant, "user@test.com", "password"))
                 .isInstanceOf(AuthenticationException.class)
@@ -185,24 +183,18 @@ class KeycloakAdminServiceTest {
     // --- refreshToken ---
 
     @Test
-    @SuppressWarnings("unchecked")
-    void refreshToken_success() {
-        setupRestClientPost();
-
-        Map<String, Object> tokenMap = Map.of("access_token", "new-tok");
-        when(responseSpec.body(Map.class)).thenReturn(tokenMap);
+    void refreshToken_success() throws IOException {
+        byte[] tokenResponse = "{\"access_token\":\"new-tok\"}".getBytes(StandardCharsets.UTF_8);
+        setupTokenExchange(HttpStatus.OK, tokenResponse);
 
-        Map<String, Object> result = service.refreshToken(tenant, "refresh-tok");
+        AuthOutcome<byte[]> result = service.refreshToken(tenant, "refresh-tok");
 
-        assertThat(result).containsEntry("access_token", "new-tok");
+        assertThat(result).isEqualTo(AuthOutcome.granted(tokenResponse));
     }
 
     @Test
-    @SuppressWarnings("unchecked")
-    void refreshToken_nullResponse() {
-        setupRestClientPost();
-
-        when(responseSpec.body(Map.class)).thenReturn(null);
+    void refreshToken_nullResponse() throws IOException {
+        setupTokenExchange(HttpStatus.OK, null);
 
         assertThatThrownBy(() -> service.refreshToken(tenant, "refresh-tok"))
                 .isInstanceOf(AuthenticationException.class)
@@ -210,23 +202,18 @@ class KeycloakAdminServiceTest {
     }
 
     @Test
-    @SuppressWarnings("unchecked")
-    void refreshToken_authException() {
-        setupRestClientPost();
+    void refreshToken_expired_isRejectedWithoutThrowing() throws IOException {
+        setupTokenExchange(HttpStatus.BAD_REQUEST, null);
 
-        when(responseSpec.body(Map.class)).thenThrow(new AuthenticationException("Expired"));
+        AuthOutcome<byte[]> result = service.refreshToken(tenant, "refresh-tok");
 
-        assertThatThrownBy(() -> service.refreshToken(tenant, "refresh-tok"))
-                .isInstanceOf(AuthenticationException.class)
-                .hasMessage("Expired");
+        assertThat(result).isEqualTo(AuthOutcome.rejected("Invalid or expired refresh token"));
     }
 
     @Test
-    @SuppressWarnings("unchecked")
-    void refreshToken_unexpectedException() {
-        setupRestClientPost();
-
-        when(responseSpec.body(Map.class)).thenThrow(new RuntimeException("Timeout"));
+    void refreshToken_unexpectedException() throws IOException {
+        setupTokenExchange(HttpStatus.OK, null);
+        when(tokenResponse.bodyTo(byte[].class)).thenThrow(new RuntimeException("Timeout"));
 
         assertThatThrownBy(() -> service.refreshToken(tenant, "refresh-tok"))
                 .isInstanceOf(AuthenticationException.class)
@@ -255,69 +242,54 @@ class KeycloakAdminServiceTest {
 
     @Test
     void getUserByEmail_found() {
-        Keycloak keycloak = mock(Keycloak.class);
-        RealmResource realmResource = mock(RealmResource.class);
-        UsersResource usersResource = mock(UsersResource.class);
-        UserRepresentation user = new UserRepresentation();
-        user.setEmail("user@test.com");
+        KeycloakUser user = new KeycloakUser("id-1", "user@test.com", "user@test.com", "John", "Doe", true, true);
+        when(adminClient.searchByUsername(tenant, "user@test.com", true)).thenReturn(List.of(user));
 
-        setKeycloakClient(keycloak);
+        KeycloakUser result = service.getUserByEmail(tenant, "user@test.com");
 
-        when(keycloak.realm(tenant.getRealmName())).thenReturn(realmResource);
-        when(realmResource.users()).thenReturn(usersResource);
-        when(usersResource.search("user@test.com", true)).thenReturn(List.of(user));
-
-        UserRepresentation result = service.getUserByEmail(tenant, "user@test.com");
-
-        assertThat(result.getEmail()).isEqualTo("user@test.com");
+        assertThat(result.email()).isEqualTo("user@test.com");
     }
 
     @Test
     void getUserByEmail_notFound() {
-        Keycloak keycloak = mock(Keycloak.class);
-        RealmResource realmResource = mock(RealmResource.class);
-        UsersResource usersResource = mock(UsersResource.class);
+        when(adminClient.searchByUsername(tenant, "notfound@test.com", true)).thenReturn(List.of());
 
-        setKeycloakClient(keycloak);
+        assertThatThrownBy(() -> service.getUserByEmail(tenant, "notfound@test.com"))
+                .isInstanceOf(UserNotFoundException.class);
+    }
 
-        when(keycloak.realm(tenant.getRealmName())).thenReturn(realmResource);
-        when(realmResource.users()).thenReturn(usersResource);
-        when(usersResource.search("notfound@test.com", true)).thenReturn(Collections.emptyList());
+    @Test
+    void getUserByEmail_absentFromIndex_skipsKeycloak() {
+        when(emailIndex.lookup(eq(tenant), eq("notfound@test.com"), any())).thenReturn(EmailIndex.Presence.ABSENT);
 
         assertThatThrownBy(() -> service.getUserByEmail(tenant, "notfound@test.com"))
                 .isInstanceOf(UserNotFoundException.class);
+        verifyNoInteractions(adminClient);
     }
 
     // --- helpers ---
 
-    private void setKeycloakClient(Keycloak keycloak) {
-        try {
-            var field = KeycloakAdminService.class.getDeclaredField("keycloakClients");
-            field.setAccessible(true);
-            @SuppressWarnings("unchecked")
-            var map = (java.util.concurrent.ConcurrentHashMap<Long, Keycloak>) field.get(service);
-            map.put(tenant.getId(), keycloak);
-        } catch (Exception e) {
-            throw new RuntimeException(e);
-        }
-    }
-
-    @SuppressWarnings("unchecked")
     private void setupRestClientPostForLogout() {
         when(restClient.post()).thenReturn(requestBodyUriSpec);
-        when(requestBodyUriSpec.uri(anyString())).thenReturn(requestBodySpec);
+        when(requestBodyUriSpec.uri(any(URI.class))).thenReturn(requestBodySpec);
         when(requestBodySpec.contentType(MediaType.APPLICATION_FORM_URLENCODED)).thenReturn(requestBodySpec);
-        doReturn(requestBodySpec).when(requestBodySpec).body(any(MultiValueMap.class));
+        when(requestBodySpec.body(any(byte[].class))).thenReturn(requestBodySpec);
         when(requestBodySpec.retrieve()).thenReturn(responseSpec);
     }
 
-    @SuppressWarnings("unchecked")
-    private void setupRestClientPost() {
+    /**
+     * A token endpoint POST whose exchange sees {@code status} and, when read, {@code body}.
+     */
+    private void setupTokenExchange(HttpStatus status, byte[] body) throws IOException {
         when(restClient.post()).thenReturn(requestBodyUriSpec);
-        when(requestBodyUriSpec.uri(anyString())).thenReturn(requestBodySpec);
+        when(requestBodyUriSpec.uri(any(URI.class))).thenReturn(requestBodySpec);
         when(requestBodySpec.contentType(MediaType.APPLICATION_FORM_URLENCODED)).thenReturn(requestBodySpec);
-        doReturn(requestBodySpec).when(requestBodySpec).body(any(MultiValueMap.class));
-        when(requestBodySpec.retrieve()).thenReturn(responseSpec);
-        when(responseSpec.onStatus(any(), any())).thenReturn(responseSpec);
+        when(requestBodySpec.body(any(byte[].class))).thenReturn(requestBodySpec);
+        when(tokenResponse.getStatusCode()).thenReturn(status);
+        lenient().when(tokenResponse.getStatusText()).thenReturn(status.getReasonPhrase());
+        lenient().when(tokenResponse.bodyTo(byte[].class)).thenReturn(body);
+        when(requestBodySpec.exchange(any())).thenAnswer(invocation -> invocation
+                .<RestClient.RequestHeadersSpec.ExchangeFunction<?>>getArgument(0)
+                .exchange(mock(HttpRequest.class), tokenResponse));
     }
 }
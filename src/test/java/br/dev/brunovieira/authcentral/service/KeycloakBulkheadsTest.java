@@ -0,0 +1,149 @@
+package br.dev.brunovieira.authcentral.service;
+
+import br.dev.brunovieira.authcentral.config.BulkheadProperties;
+import br.dev.brunovieira.authcentral.config.TenantCacheProperties;
+import br.dev.brunovieira.authcentral.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class KeycloakBulkheadsTest {
+
+    private static final URI SLOW = URI.create("http://kc:8080/realms/slow/protocol/openid-connect/token");
+    private static final URI FAST = URI.create("http://kc:8080/admin/realms/fast/users");
+    private static final byte[] BODY = new byte[0];
+
+    @Mock
+    private HttpRequest slowRequest;
+
+    @Mock
+    private HttpRequest fastRequest;
+
+    @Mock
+    private ClientHttpRequestExecution execution;
+
+    @Mock
+    private ClientHttpResponse response;
+
+    private final AtomicLong clock = new AtomicLong();
+    private BulkheadProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private KeycloakBulkheads bulkheads;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        properties = new BulkheadProperties();
+        properties.setMinPerRealm(1);
+        properties.setMaxPerRealm(4);
+        properties.setAcquireTimeoutMs(0);
+        meterRegistry = new SimpleMeterRegistry();
+        bulkheads = new KeycloakBulkheads(properties, new TenantCacheProperties(), meterRegistry, clock::get);
+
+        lenient().when(slowRequest.getURI()).thenReturn(SLOW);
+        lenient().when(fastRequest.getURI()).thenReturn(FAST);
+        lenient().when(execution.execute(any(), any())).thenReturn(response);
+    }
+
+    @Test
+    void partitionKey_isHostAndRealm() {
+        assertThat(KeycloakBulkheads.partitionKey(SLOW)).isEqualTo("kc:8080/slow");
+        assertThat(KeycloakBulkheads.partitionKey(FAST)).isEqualTo("kc:8080/fast");
+        assertThat(KeycloakBulkheads.partitionKey(URI.create("http://kc:8080/health"))).isEqualTo("kc:8080");
+    }
+
+    @Test
+    void saturatedRealm_rejectsOnlyItsOwnCalls() throws IOException {
+        ClientHttpResponse held = bulkheads.intercept(slowRequest, BODY, execution);
+
+        assertThatThrownBy(() -> bulkheads.intercept(slowRequest, BODY, execution))
+                .isInstanceOf(ServiceUnavailableException.class);
+        bulkheads.intercept(fastRequest, BODY, execution).close();
+
+        assertThat(meterRegistry.counter("keycloak.bulkhead.rejected", "partition", "kc:8080/slow").count()).isEqualTo(1);
+        assertThat(meterRegistry.get("keycloak.bulkhead.leased").tag("partition", "kc:8080/slow").gauge().value()).isEqualTo(1);
+
+        held.close();
+        bulkheads.intercept(slowRequest, BODY, execution).close();
+        assertThat(bulkheads.bulkhead("kc:8080/slow").inFlight()).isZero();
+    }
+
+    @Test
+    void slotIsHeldUntilResponseIsClosed() throws IOException {
+        ClientHttpResponse wrapped = bulkheads.intercept(slowRequest, BODY, execution);
+        assertThat(bulkheads.bulkhead("kc:8080/slow").inFlight()).isEqualTo(1);
+
+        wrapped.close();
+        wrapped.close();
+
+        assertThat(bulkheads.bulkhead("kc:8080/slow").inFlight()).isZero();
+        verify(response, times(2)).close();
+    }
+
+    @Test
+    void failedCall_releasesSlot() throws IOException {
+        when(execution.execute(any(), any())).thenThrow(new IOException("connection refused"));
+
+        assertThatThrownBy(() -> bulkheads.intercept(slowRequest, BODY, execution)).isInstanceOf(IOException.class);
+
+        assertThat(bulkheads.bulkhead("kc:8080/slow").inFlight()).isZero();
+    }
+
+    @Test
+    void partitionWithSlotsHeld_isNotEvicted() throws IOException {
+        TenantCacheProperties cacheProperties = new TenantCacheProperties();
+        cacheProperties.setMaxTenants(1);
+        // every partition counts as idle, even one used within the current millisecond
+        cacheProperties.setIdleEvictionMs(-1);
+        bulkheads = new KeycloakBulkheads(properties, cacheProperties, new SimpleMeterRegistry(), clock::get);
+        ClientHttpResponse held = bulkheads.intercept(slowRequest, BODY, execution);
+        bulkheads.intercept(fastRequest, BODY, execution).close();
+        bulkheads.evictIdle();
+
+        // a fresh partition would have admitted this call next to the held one
+        assertThatThrownBy(() -> bulkheads.intercept(slowRequest, BODY, execution))
+                .isInstanceOf(ServiceUnavailableException.class);
+        assertThat(bulkheads.bulkhead("kc:8080/slow").inFlight()).isEqualTo(1);
+
+        held.close();
+        bulkheads.evictIdle();
+        assertThat(bulkheads.bulkhead("kc:8080/slow")).isNull();
+    }
+
+    @Test
+    void resize_growsCapOfBusyRealmWithinMaximum() throws IOException {
+        for (int i = 0; i < 20; i++) {
+            ClientHttpResponse wrapped = bulkheads.intercept(slowRequest, BODY, execution);
+            clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+            wrapped.close();
+        }
+
+        bulkheads.resize();
+
+        assertThat(bulkheads.bulkhead("kc:8080/slow").limit()).isEqualTo(2);
+        assertThat(meterRegistry.get("keycloak.bulkhead.limit").tag("partition", "kc:8080/slow").gauge().value()).isEqualTo(2);
+    }
+
+    @Test
+    void disabled_passesThrough() throws IOException {
+        properties.setEnabled(false);
+
+        assertThat(bulkheads.intercept(slowRequest, BODY, execution)).isSameAs(response);
+        assertThat(bulkheads.bulkhead("kc:8080/slow")).isNull();
+    }
+}
@@ -0,0 +1,101 @@
+package br.dev.brunovieira.authcentral.service;
+
+import br.dev.brunovieira.authcentral.config.ConcurrencyLimitProperties;
+import br.dev.brunovieira.authcentral.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class KeycloakConcurrencyLimiterTest {
+
+    private static final byte[] BODY = new byte[0];
+
+    @Mock
+    private HttpRequest request;
+
+    @Mock
+    private ClientHttpRequestExecution execution;
+
+    @Mock
+    private ClientHttpResponse response;
+
+    private final AtomicLong clock = new AtomicLong();
+    private ConcurrencyLimitProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private KeycloakConcurrencyLimiter limiter;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        properties = new ConcurrencyLimitProperties();
+        properties.setInitialLimit(2);
+        properties.setMinLimit(2);
+        properties.setRetryAfterSeconds(3);
+        meterRegistry = new SimpleMeterRegistry();
+        limiter = new KeycloakConcurrencyLimiter(properties, meterRegistry, clock::get);
+
+        lenient().when(request.getURI()).thenReturn(URI.create("http://kc:8080/realms/test/protocol/openid-connect/token"));
+        lenient().when(execution.execute(any(), any())).thenReturn(response);
+    }
+
+    @Test
+    void overLimit_isShedWithRetryAfter() throws IOException {
+        List<ClientHttpResponse> open = new ArrayList<>();
+        open.add(limiter.intercept(request, BODY, execution));
+        open.add(limiter.intercept(request, BODY, execution));
+
+        assertThatThrownBy(() -> limiter.intercept(request, BODY, execution))
+                .isInstanceOfSatisfying(ServiceUnavailableException.class,
+                        e -> assertThat(e.getRetryAfterSeconds()).isEqualTo(3));
+        verify(execution, times(2)).execute(any(), any());
+        assertThat(meterRegistry.counter("keycloak.limiter.rejected", "host", "kc:8080").count()).isEqualTo(1);
+
+        open.getFirst().close();
+        limiter.intercept(request, BODY, execution).close();
+    }
+
+    @Test
+    void permitIsHeldUntilResponseIsClosed() throws IOException {
+        ClientHttpResponse wrapped = limiter.intercept(request, BODY, execution);
+        assertThat(limiter.limiter("kc:8080").inFlight()).isEqualTo(1);
+        assertThat(meterRegistry.get("keycloak.limiter.in_flight").tag("host", "kc:8080").gauge().value()).isEqualTo(1);
+
+        clock.addAndGet(5_000_000);
+        wrapped.close();
+
+        assertThat(limiter.limiter("kc:8080").inFlight()).isZero();
+    }
+
+    @Test
+    void failedCall_returnsPermit() throws IOException {
+        when(execution.execute(any(), any())).thenThrow(new IOException("read timed out"));
+
+        assertThatThrownBy(() -> limiter.intercept(request, BODY, execution)).isInstanceOf(IOException.class);
+
+        assertThat(limiter.limiter("kc:8080").inFlight()).isZero();
+    }
+
+    @Test
+    void disabled_passesThrough() throws IOException {
+        properties.setEnabled(false);
+
+        assertThat(limiter.intercept(request, BODY, execution)).isSameAs(response);
+        assertThat(limiter.limiter("kc:8080")).isNull();
+    }
+}
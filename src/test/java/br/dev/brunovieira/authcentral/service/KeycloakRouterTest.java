@@ -0,0 +1,193 @@
+package br.dev.brunovieira.authcentral.service;
+
+import br.dev.brunovieira.authcentral.TestFixtures;
+import br.dev.brunovieira.authcentral.config.RoutingProperties;
+import br.dev.brunovieira.authcentral.exception.AuthenticationException;
+import br.dev.brunovieira.authcentral.exception.ServiceUnavailableException;
+import br.dev.brunovieira.authcentral.model.Tenant;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.*;
+
+class KeycloakRouterTest {
+
+    private static final String NODE_A = "http://kc-a:8080";
+    private static final String NODE_B = "http://kc-b:8080";
+
+    private final AtomicLong clock = new AtomicLong();
+    private RoutingProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private KeycloakRouter router;
+    private Tenant tenant;
+
+    @BeforeEach
+    void setUp() {
+        properties = new RoutingProperties();
+        meterRegistry = new SimpleMeterRegistry();
+        router = new KeycloakRouter(properties, meterRegistry, Runnable::run, clock::get);
+        tenant = TestFixtures.tenant();
+        tenant.setKeycloakBaseUrl(NODE_A);
+        tenant.setKeycloakNodes(List.of(NODE_B, " ", NODE_A));
+    }
+
+    @Test
+    void endpoints_areDistinctWithBaseUrlFirst() {
+        assertThat(KeycloakRouter.endpoints(tenant)).containsExactly(NODE_A, NODE_B);
+        assertThat(KeycloakRouter.endpoints(TestFixtures.tenant())).containsExactly("http://localhost:8080");
+    }
+
+    @Test
+    void call_prefersTheFasterNode() {
+        timedCall(NODE_A, 200);
+        timedCall(NODE_B, 10);
+
+        List<String> chosen = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            chosen.add(route());
+        }
+
+        assertThat(chosen).containsOnly(NODE_B);
+        assertThat(meterRegistry.get("keycloak.node.latency").tag("node", NODE_A).gauge().value()).isEqualTo(200);
+    }
+
+    @Test
+    void call_ejectsNodeAfterConsecutiveFailuresUntilTheEjectionEnds() {
+        fail(NODE_A, properties.getEjectAfterFailures());
+        timedCall(NODE_B, 500);
+
+        for (int i = 0; i < 20; i++) {
+            assertThat(route()).isEqualTo(NODE_B);
+        }
+        assertThat(meterRegistry.get("keycloak.node.ejected").tag("node", NODE_A).gauge().value()).isEqualTo(1);
+
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(properties.getEjectionMs()));
+
+        assertThat(router.node(NODE_A).ejected(clock.get())).isFalse();
+        assertThat(route()).isEqualTo(NODE_A);
+    }
+
+    @Test
+    void call_clientErrorsDoNotEject() {
+        for (int i = 0; i < properties.getEjectAfterFailures() + 2; i++) {
+            assertThatThrownBy(() -> router.call(tenant, baseUrl -> {
+                throw new AuthenticationException("Invalid credentials");
+            })).isInstanceOf(AuthenticationException.class);
+        }
+
+        assertThat(router.node(NODE_A).ejected(clock.get())).isFalse();
+        assertThat(router.node(NODE_B).ejected(clock.get())).isFalse();
+    }
+
+    @Test
+    void call_shedLocallyLeavesNodeStatsAlone() {
+        Tenant single = TestFixtures.tenant();
+        single.setKeycloakBaseUrl(NODE_A);
+        timedCall(NODE_A, 200);
+        fail(NODE_A, properties.getEjectAfterFailures());
+        double latency = router.node(NODE_A).latencyNanos();
+
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+        assertThatThrownBy(() -> router.call(single, baseUrl -> {
+            throw new ServiceUnavailableException("Keycloak is at its concurrency limit");
+        })).isInstanceOf(ServiceUnavailableException.class);
+
+        assertThat(router.node(NODE_A).latencyNanos()).isEqualTo(latency);
+        assertThat(router.node(NODE_A).ejected(clock.get())).isTrue();
+        assertThat(router.node(NODE_A).percentile(0.5)).isEqualTo(TimeUnit.MILLISECONDS.toNanos(200));
+        assertThat(router.node(NODE_A).inFlight).hasValue(0);
+    }
+
+    @Test
+    void call_usesEjectedNodesWhenNoneIsHealthy() {
+        fail(NODE_A, properties.getEjectAfterFailures());
+        fail(NODE_B, properties.getEjectAfterFailures());
+
+        assertThat(route()).isIn(NODE_A, NODE_B);
+    }
+
+    @Test
+    void hedged_withHedgingDisabledSendsOnce() {
+        AtomicInteger sent = new AtomicInteger();
+
+        router.hedged(tenant, baseUrl -> sent.incrementAndGet());
+
+        assertThat(sent).hasValue(1);
+    }
+
+    @Test
+    void hedged_slowNodeIsRacedByAnother() throws InterruptedException {
+        properties.setHedging(true);
+        properties.setHedgeMinDelayMs(5);
+        properties.setHedgeMaxDelayMs(20);
+        KeycloakRouter hedging = new KeycloakRouter(properties, meterRegistry,
+                command -> Thread.ofVirtual().start(command), System::nanoTime);
+        CountDownLatch stalled = new CountDownLatch(1);
+        List<String> sentTo = new ArrayList<>();
+
+        String answeredBy = hedging.hedged(tenant, baseUrl -> {
+            boolean first;
+            synchronized (sentTo) {
+                first = sentTo.isEmpty();
+                sentTo.add(baseUrl);
+            }
+            if (first) {
+                try {
+                    stalled.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return baseUrl;
+        });
+        stalled.countDown();
+
+        assertThat(sentTo).hasSize(2).doesNotHaveDuplicates();
+        assertThat(answeredBy).isEqualTo(sentTo.get(1));
+        assertThat(meterRegistry.get("keycloak.hedges").tag("result", "sent").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("keycloak.hedges").tag("result", "won").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void percentile_keepsOnlyTheLatestSamplesAcrossManyWraps() {
+        KeycloakRouter.Node node = router.node(NODE_A);
+        for (int i = 0; i < 128 * 1000 + 7; i++) {
+            node.answered(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        for (int i = 0; i < 128; i++) {
+            node.answered(TimeUnit.MILLISECONDS.toNanos(5));
+        }
+
+        assertThat(node.percentile(0.01)).isEqualTo(TimeUnit.MILLISECONDS.toNanos(5));
+        assertThat(node.percentile(0.99)).isEqualTo(TimeUnit.MILLISECONDS.toNanos(5));
+    }
+
+    private String route() {
+        return router.call(tenant, baseUrl -> baseUrl);
+    }
+
+    private void timedCall(String node, long millis) {
+        Tenant single = TestFixtures.tenant();
+        single.setKeycloakBaseUrl(node);
+        router.call(single, baseUrl -> clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis)));
+    }
+
+    private void fail(String node, int times) {
+        Tenant single = TestFixtures.tenant();
+        single.setKeycloakBaseUrl(node);
+        for (int i = 0; i < times; i++) {
+            assertThatThrownBy(() -> router.call(single, baseUrl -> {
+                throw new ResourceAccessException("Connection refused");
+            })).isInstanceOf(ResourceAccessException.class);
+        }
+    }
+}
@@ -0,0 +1,288 @@
+package br.dev.brunovieira.authcentral.service;
+
+import br.dev.brunovieira.authcentral.config.RefreshCoalescingProperties;
+import br.dev.brunovieira.authcentral.exception.AuthenticationException;
+import br.dev.brunovieira.authcentral.model.AuthOutcome;
+import br.dev.brunovieira.authcentral.model.Tenant;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RefreshTokenCoalescerTest {
+
+    private static final Tenant TENANT = Tenant.builder().tenantKey("tenant-a").build();
+    private static final String TOKEN = "refresh-token";
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+    private RefreshCoalescingProperties properties;
+    private RefreshTokenCoalescer coalescer;
+    private String flightKey;
+    private final AtomicLong now = new AtomicLong();
+
+    @BeforeEach
+    void setUp() {
+        properties = new RefreshCoalescingProperties();
+        properties.setPollIntervalMs(1);
+        lenient().when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        coalescer = new RefreshTokenCoalescer(properties, redisTemplate, now::get);
+        flightKey = RefreshTokenCoalescer.flightKey(TENANT, TOKEN);
+    }
+
+    @Test
+    void disabled_callsUpstreamWithoutRedis() {
+        properties.setEnabled(false);
+
+        AuthOutcome<byte[]> outcome = coalescer.refresh(TENANT, TOKEN, () -> granted("access"));
+
+        assertThat(accessToken(outcome)).isEqualTo("access");
+        verifyNoInteractions(redisTemplate);
+    }
+
+    @Test
+    void leader_callsUpstreamPublishesResultAndReleasesLease() {
+        when(valueOperations.setIfAbsent(eq(lease()), anyString(), eq(Duration.ofMillis(20000)))).thenReturn(true);
+
+        AuthOutcome<byte[]> outcome = coalescer.refresh(TENANT, TOKEN, () -> granted("access"));
+
+        assertThat(accessToken(outcome)).isEqualTo("access");
+        ArgumentCaptor<String> published = ArgumentCaptor.forClass(String.class);
+        verify(valueOperations).set(eq(result()), published.capture(), eq(Duration.ofMillis(2000)));
+        verifyLeaseReleased();
+        assertThat(new String(Base64.getDecoder().decode(published.getValue()), StandardCharsets.ISO_8859_1))
+                .doesNotContain("access_token");
+        assertThat(accessToken(coalescer.decode(flightKey, RefreshTokenCoalescer.resultKey(TENANT, TOKEN),
+                published.getValue()))).isEqualTo("access");
+    }
+
+    @Test
+    void lease_isReleasedOnlyByItsHolder() {
+        ArgumentCaptor<String> holder = ArgumentCaptor.forClass(String.class);
+        when(valueOperations.setIfAbsent(eq(lease()), holder.capture(), any())).thenReturn(true);
+
+        coalescer.refresh(TENANT, TOKEN, () -> granted("access"));
+
+        verify(redisTemplate, never()).delete(anyString());
+        verify(redisTemplate).execute(any(RedisScript.class), eq(List.of(lease())), eq(holder.getValue()));
+    }
+
+    @Test
+    void lease_outlivesTheKeycloakTimeouts() {
+        properties.setLeaseMs(5);
+        coalescer = new RefreshTokenCoalescer(properties, redisTemplate, now::get);
+        when(valueOperations.setIfAbsent(eq(lease()), anyString(), any())).thenReturn(true);
+
+        coalescer.refresh(TENANT, TOKEN, () -> granted("access"));
+
+        verify(valueOperations).setIfAbsent(eq(lease()), anyString(), eq(RefreshTokenCoalescer.MIN_LEASE));
+    }
+
+    @Test
+    void publishedResult_doesNotOpenWithoutTheRefreshToken() {
+        String sealed = sealed("access");
+
+        assertThat(coalescer.decode(flightKey, RefreshTokenCoalescer.resultKey(TENANT, "other-token"), sealed))
+                .isNull();
+        assertThat(coalescer.decode(RefreshTokenCoalescer.flightKey(TENANT, "other-token"),
+                RefreshTokenCoalescer.resultKey(TENANT, TOKEN), sealed)).isNull();
+    }
+
+    @Test
+    void handedOffResultThatDoesNotOpen_callsUpstream() {
+        when(valueOperations.get(result())).thenReturn(new String(response("planted"), StandardCharsets.UTF_8));
+
+        AuthOutcome<byte[]> outcome = coalescer.refresh(TENANT, TOKEN, () -> granted("direct"));
+
+        assertThat(accessToken(outcome)).isEqualTo("direct");
+    }
+
+    @Test
+    void leader_rejection_publishesShortLivedErrorAndReturnsIt() {
+        when(valueOperations.setIfAbsent(eq(lease()), anyString(), any())).thenReturn(true);
+
+        AuthOutcome<byte[]> outcome = coalescer.refresh(TENANT, TOKEN,
+                () -> AuthOutcome.rejected("Invalid or expired refresh token"));
+
+        assertThat(outcome).isEqualTo(AuthOutcome.rejected("Invalid or expired refresh token"));
+        verify(valueOperations).set(result(), "!Invalid or expired refresh token", Duration.ofMillis(1000));
+        verifyLeaseReleased();
+    }
+
+    @Test
+    void leader_unexpectedFailure_isRethrownWithoutPublishing() {
+        when(valueOperations.setIfAbsent(eq(lease()), anyString(), any())).thenReturn(true);
+
+        assertThatThrownBy(() -> coalescer.refresh(TENANT, TOKEN, () -> {
+            throw new AuthenticationException("Failed to refresh token");
+        })).isInstanceOf(AuthenticationException.class);
+
+        verify(valueOperations, never()).set(anyString(), anyString(), any(Duration.class));
+        verifyLeaseReleased();
+    }
+
+    @Test
+    void handedOffResult_isReturnedWithoutCallingUpstream() {
+        when(valueOperations.get(result())).thenReturn(sealed("from-other-instance"));
+
+        AuthOutcome<byte[]> outcome = coalescer.refresh(TENANT, TOKEN, failingUpstream());
+
+        assertThat(accessToken(outcome)).isEqualTo("from-other-instance");
+        verify(valueOperations, never()).setIfAbsent(anyString(), anyString(), any());
+    }
+
+    @Test
+    void handedOffRejection_isReturned() {
+        when(valueOperations.get(result())).thenReturn("!Invalid or expired refresh token");
+
+        assertThat(coalescer.refresh(TENANT, TOKEN, failingUpstream()))
+                .isEqualTo(AuthOutcome.rejected("Invalid or expired refresh token"));
+    }
+
+    @Test
+    void follower_waitsForLeaderResult() {
+        when(valueOperations.get(result()))
+                .thenReturn(null, null, sealed("leader"));
+        when(valueOperations.setIfAbsent(eq(lease()), anyString(), any())).thenReturn(false);
+
+        AuthOutcome<byte[]> outcome = coalescer.refresh(TENANT, TOKEN, failingUpstream());
+
+        assertThat(accessToken(outcome)).isEqualTo("leader");
+    }
+
+    @Test
+    void follower_takesOverWhenLeaseIsReleasedWithoutResult() {
+        when(valueOperations.setIfAbsent(eq(lease()), anyString(), any())).thenReturn(false, true);
+
+        AuthOutcome<byte[]> outcome = coalescer.refresh(TENANT, TOKEN, () -> granted("retried"));
+
+        assertThat(accessToken(outcome)).isEqualTo("retried");
+        verifyLeaseReleased();
+    }
+
+    @Test
+    void follower_callsUpstreamAfterWaitingTooLong() {
+        // every clock read moves a second on, past the two lease periods a follower waits
+        coalescer = new RefreshTokenCoalescer(properties, redisTemplate,
+                () -> now.addAndGet(TimeUnit.SECONDS.toNanos(1)));
+        when(valueOperations.setIfAbsent(eq(lease()), anyString(), any())).thenReturn(false);
+
+        AuthOutcome<byte[]> outcome = coalescer.refresh(TENANT, TOKEN, () -> granted("direct"));
+
+        assertThat(accessToken(outcome)).isEqualTo("direct");
+    }
+
+    @Test
+    void redisUnavailable_fallsBackToUpstream() {
+        when(valueOperations.get(anyString())).thenThrow(new RedisConnectionFailureException("down"));
+
+        AuthOutcome<byte[]> outcome = coalescer.refresh(TENANT, TOKEN, () -> granted("direct"));
+
+        assertThat(accessToken(outcome)).isEqualTo("direct");
+    }
+
+    @Test
+    void concurrentCallersInProcess_shareOneUpstreamCall() throws Exception {
+        when(valueOperations.setIfAbsent(eq(lease()), anyString(), any())).thenReturn(true);
+        CountDownLatch upstreamEntered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger upstreamCalls = new AtomicInteger();
+        Supplier<AuthOutcome<byte[]>> upstream = () -> {
+            upstreamCalls.incrementAndGet();
+            upstreamEntered.countDown();
+            await(release);
+            return granted("shared");
+        };
+
+        CompletableFuture<AuthOutcome<byte[]>> leader = CompletableFuture.supplyAsync(() -> coalescer.refresh(TENANT, TOKEN, upstream));
+        assertThat(upstreamEntered.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<AuthOutcome<byte[]>> follower = CompletableFuture.supplyAsync(() -> coalescer.refresh(TENANT, TOKEN, upstream));
+        Thread.sleep(50);
+        release.countDown();
+
+        assertThat(leader.get(5, TimeUnit.SECONDS)).isSameAs(follower.get(5, TimeUnit.SECONDS));
+        assertThat(upstreamCalls).hasValue(1);
+        assertThat(coalescer.inFlightCount()).isZero();
+    }
+
+    @Test
+    void flightKey_hidesTokenAndSeparatesTenants() {
+        String other = RefreshTokenCoalescer.flightKey(Tenant.builder().tenantKey("tenant-b").build(), TOKEN);
+
+        assertThat(flightKey).doesNotContain(TOKEN).hasSize(43);
+        assertThat(other).isNotEqualTo(flightKey);
+        assertThat(RefreshTokenCoalescer.flightKey(TENANT, TOKEN)).isEqualTo(flightKey);
+    }
+
+    private String lease() {
+        return RefreshTokenCoalescer.LEASE_PREFIX + flightKey;
+    }
+
+    private String result() {
+        return RefreshTokenCoalescer.RESULT_PREFIX + flightKey;
+    }
+
+    private static byte[] response(String accessToken) {
+        return ("{\"access_token\":\"" + accessToken + "\",\"expires_in\":300,\"refresh_expires_in\":1800,"
+                + "\"refresh_token\":\"rotated\",\"token_type\":\"Bearer\"}").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static AuthOutcome<byte[]> granted(String accessToken) {
+        return AuthOutcome.granted(response(accessToken));
+    }
+
+    private String accessToken(AuthOutcome<byte[]> outcome) {
+        assertThat(outcome).isInstanceOf(AuthOutcome.Granted.class);
+        return jsonMapper.readTree(((AuthOutcome.Granted<byte[]>) outcome).value()).get("access_token").stringValue();
+    }
+
+    private String sealed(String accessToken) {
+        return coalescer.seal(flightKey, RefreshTokenCoalescer.resultKey(TENANT, TOKEN), response(accessToken));
+    }
+
+    private void verifyLeaseReleased() {
+        verify(redisTemplate).execute(any(RedisScript.class), eq(List.of(lease())), anyString());
+    }
+
+    private static Supplier<AuthOutcome<byte[]>> failingUpstream() {
+        return () -> {
+            throw new AssertionError("upstream must not be called");
+        };
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
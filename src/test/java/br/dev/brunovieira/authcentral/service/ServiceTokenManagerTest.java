@@ -0,0 +1,308 @@
+package br.dev.brunovieira.authcentral.service;
+
+import br.dev.brunovieira.authcentral.TestFixtures;
+import br.dev.brunovieira.authcentral.config.KeycloakConfig;
+import br.dev.brunovieira.authcentral.config.TenantCacheProperties;
+import br.dev.brunovieira.authcentral.exception.ServiceUnavailableException;
+import br.dev.brunovieira.authcentral.model.Tenant;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestClient;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.net.URI;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ServiceTokenManagerTest {
+
+    private static final String TOKEN_URL = "http://localhost:8080/realms/test-realm/protocol/openid-connect/token";
+    private static final String KEY = "auth-central:service-token:test-tenant";
+    private static final String LEASE = KEY + ":lease";
+
+    @Mock
+    private RestClient restClient;
+
+    @Mock
+    private RestClient.RequestBodyUriSpec requestBodyUriSpec;
+
+    @Mock
+    private RestClient.RequestBodySpec requestBodySpec;
+
+    @Mock
+    private RestClient.ResponseSpec responseSpec;
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    @Mock
+    private TenantRegistry tenantRegistry;
+
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+    private final AtomicLong clock = new AtomicLong(1_000_000);
+    private final List<Runnable> backgroundTasks = new ArrayList<>();
+    private SimpleMeterRegistry meterRegistry;
+    private ServiceTokenManager manager;
+    private Tenant tenant;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        manager = new ServiceTokenManager(new KeycloakConfig(), restClient, TestFixtures.router(),
+                TestFixtures.requestEncoder(), redisTemplate, jsonMapper, tenantRegistry, new TenantCacheProperties(),
+                meterRegistry, backgroundTasks::add, clockOf(clock));
+        tenant = TestFixtures.tenant();
+
+        lenient().when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        lenient().when(restClient.post()).thenReturn(requestBodyUriSpec);
+        lenient().when(requestBodyUriSpec.uri(URI.create(TOKEN_URL))).thenReturn(requestBodySpec);
+        lenient().when(requestBodySpec.contentType(MediaType.APPLICATION_FORM_URLENCODED)).thenReturn(requestBodySpec);
+        lenient().when(requestBodySpec.body(any(byte[].class))).thenReturn(requestBodySpec);
+        lenient().when(requestBodySpec.retrieve()).thenReturn(responseSpec);
+    }
+
+    @Test
+    void currentToken_firstUse_fetchesAndSharesToken() {
+        when(valueOperations.setIfAbsent(eq(LEASE), anyString(), any(Duration.class))).thenReturn(true);
+        when(responseSpec.body(Map.class)).thenReturn(Map.of("access_token", "tok-1", "expires_in", 60));
+
+        String token = manager.currentToken(tenant);
+
+        assertThat(token).isEqualTo("tok-1");
+        ArgumentCaptor<String> shared = ArgumentCaptor.forClass(String.class);
+        verify(valueOperations).set(eq(KEY), shared.capture(), eq(Duration.ofSeconds(60)));
+        assertThat(shared.getValue()).doesNotContain("tok-1");
+        assertThat(manager.open(tenant, shared.getValue()).value()).isEqualTo("tok-1");
+        verifyLeaseReleased();
+        assertThat(meterRegistry.counter("keycloak.service_token.fetches").count()).isEqualTo(1);
+    }
+
+    @Test
+    void currentToken_servedFromMemoryUntilRefreshPoint() {
+        when(valueOperations.setIfAbsent(eq(LEASE), anyString(), any(Duration.class))).thenReturn(true);
+        when(responseSpec.body(Map.class)).thenReturn(Map.of("access_token", "tok-1", "expires_in", 60));
+        manager.currentToken(tenant);
+
+        clock.addAndGet(44_000);
+        String token = manager.currentToken(tenant);
+
+        assertThat(token).isEqualTo("tok-1");
+        assertThat(backgroundTasks).isEmpty();
+        verify(restClient, times(1)).post();
+    }
+
+    @Test
+    void currentToken_pastRefreshPoint_returnsCurrentAndRefreshesInBackground() {
+        when(valueOperations.setIfAbsent(eq(LEASE), anyString(), any(Duration.class))).thenReturn(true);
+        when(responseSpec.body(Map.class))
+                .thenReturn(Map.of("access_token", "tok-1", "expires_in", 60))
+                .thenReturn(Map.of("access_token", "tok-2", "expires_in", 60));
+        manager.currentToken(tenant);
+
+        clock.addAndGet(46_000);
+        assertThat(manager.currentToken(tenant)).isEqualTo("tok-1");
+        assertThat(manager.currentToken(tenant)).isEqualTo("tok-1");
+
+        assertThat(backgroundTasks).hasSize(1);
+        backgroundTasks.getFirst().run();
+        assertThat(manager.currentToken(tenant)).isEqualTo("tok-2");
+    }
+
+    @Test
+    void currentToken_tokenSharedByOtherInstance_isAdoptedWithoutFetching() throws Exception {
+        String shared = manager.seal(tenant,
+                new ServiceTokenManager.ServiceToken("shared-tok", clock.get() + 60_000, clock.get() + 45_000));
+        when(valueOperations.get(KEY)).thenReturn(shared);
+
+        assertThat(manager.currentToken(tenant)).isEqualTo("shared-tok");
+        verifyNoInteractions(restClient);
+        verify(valueOperations, never()).setIfAbsent(anyString(), anyString(), any(Duration.class));
+    }
+
+    @Test
+    void refresh_leaseHeldElsewhere_keepsCurrentTokenUntilShared() throws Exception {
+        when(valueOperations.setIfAbsent(eq(LEASE), anyString(), any(Duration.class))).thenReturn(true, false);
+        when(responseSpec.body(Map.class)).thenReturn(Map.of("access_token", "tok-1", "expires_in", 60));
+        manager.currentToken(tenant);
+        clock.addAndGet(46_000);
+
+        manager.refreshDue();
+        backgroundTasks.removeFirst().run();
+        assertThat(manager.currentToken(tenant)).isEqualTo("tok-1");
+
+        String shared = manager.seal(tenant,
+                new ServiceTokenManager.ServiceToken("tok-2", clock.get() + 60_000, clock.get() + 45_000));
+        when(valueOperations.get(KEY)).thenReturn(shared);
+        manager.refreshDue();
+        backgroundTasks.removeFirst().run();
+
+        assertThat(manager.currentToken(tenant)).isEqualTo("tok-2");
+        verify(restClient, times(1)).post();
+    }
+
+    @Test
+    void currentToken_firstUseWhileOtherInstanceFetches_waitsForSharedToken() throws Exception {
+        String shared = manager.seal(tenant,
+                new ServiceTokenManager.ServiceToken("shared-tok", clock.get() + 60_000, clock.get() + 45_000));
+        when(valueOperations.get(KEY)).thenReturn(null, shared);
+        when(valueOperations.setIfAbsent(eq(LEASE), anyString(), any(Duration.class))).thenReturn(false);
+
+        assertThat(manager.currentToken(tenant)).isEqualTo("shared-tok");
+        verifyNoInteractions(restClient);
+    }
+
+    @Test
+    void currentToken_redisDown_fetchesLocally() {
+        when(valueOperations.get(KEY)).thenThrow(new RedisConnectionFailureException("down"));
+        when(responseSpec.body(Map.class)).thenReturn(Map.of("access_token", "tok-1", "expires_in", 60));
+
+        assertThat(manager.currentToken(tenant)).isEqualTo("tok-1");
+    }
+
+    @Test
+    void warmUp_schedulesEveryRegistryTenant() {
+        Tenant other = Tenant.builder().id(2L).tenantKey("other").realmName("other-realm").build();
+        when(tenantRegistry.tenants(1000)).thenReturn(List.of(tenant, other));
+
+        manager.warmUp();
+
+        assertThat(backgroundTasks).hasSize(2);
+    }
+
+    @Test
+    void refreshDue_failure_isCountedAndRetried() {
+        when(tenantRegistry.tenants(1000)).thenReturn(List.of(tenant));
+        when(valueOperations.setIfAbsent(eq(LEASE), anyString(), any(Duration.class))).thenReturn(true);
+        when(responseSpec.body(Map.class)).thenThrow(new IllegalStateException("keycloak down"));
+        manager.warmUp();
+
+        backgroundTasks.removeFirst().run();
+        manager.refreshDue();
+
+        assertThat(meterRegistry.counter("keycloak.service_token.refresh.failures").count()).isEqualTo(1);
+        assertThat(backgroundTasks).hasSize(1);
+        verifyLeaseReleased();
+    }
+
+    @Test
+    void idleTenant_isEvictedAndNoLongerRefreshed() {
+        when(valueOperations.setIfAbsent(eq(LEASE), anyString(), any(Duration.class))).thenReturn(true);
+        when(responseSpec.body(Map.class)).thenReturn(Map.of("access_token", "tok-1", "expires_in", 60));
+        manager.currentToken(tenant);
+
+        clock.addAndGet(new TenantCacheProperties().getIdleEvictionMs() + 1);
+        manager.evictIdle();
+        manager.refreshDue();
+
+        assertThat(manager.cachedTenants()).isZero();
+        assertThat(backgroundTasks).isEmpty();
+    }
+
+    @Test
+    void currentToken_sharedTokenSealedWithAnotherSecret_isIgnored() {
+        Tenant rotated = TestFixtures.tenant();
+        rotated.setClientSecret("previous-secret");
+        when(valueOperations.get(KEY)).thenReturn(manager.seal(rotated,
+                new ServiceTokenManager.ServiceToken("stale-tok", clock.get() + 60_000, clock.get() + 45_000)));
+        when(valueOperations.setIfAbsent(eq(LEASE), anyString(), any(Duration.class))).thenReturn(true);
+        when(responseSpec.body(Map.class)).thenReturn(Map.of("access_token", "tok-1", "expires_in", 60));
+
+        assertThat(manager.currentToken(tenant)).isEqualTo("tok-1");
+    }
+
+    @Test
+    void currentToken_concurrentFirstUse_sharesOneAcquisition() throws Exception {
+        when(valueOperations.setIfAbsent(eq(LEASE), anyString(), any(Duration.class))).thenReturn(true);
+        CountDownLatch fetching = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(responseSpec.body(Map.class)).thenAnswer(invocation -> {
+            fetching.countDown();
+            release.await();
+            throw new IllegalStateException("keycloak down");
+        });
+
+        CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> manager.currentToken(tenant));
+        assertThat(fetching.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<String> follower = CompletableFuture.supplyAsync(() -> manager.currentToken(tenant));
+        Thread.sleep(50);
+        release.countDown();
+
+        assertThatThrownBy(() -> leader.get(5, TimeUnit.SECONDS)).hasRootCauseMessage("keycloak down");
+        assertThatThrownBy(() -> follower.get(5, TimeUnit.SECONDS)).hasRootCauseMessage("keycloak down");
+        verify(restClient, times(1)).post();
+    }
+
+    @Test
+    void currentToken_serviceAccountRejected_isServiceUnavailable() {
+        when(valueOperations.setIfAbsent(eq(LEASE), anyString(), any(Duration.class))).thenReturn(true);
+        when(responseSpec.body(Map.class)).thenThrow(HttpClientErrorException.create(
+                HttpStatus.UNAUTHORIZED, "Unauthorized", HttpHeaders.EMPTY, new byte[0], null));
+
+        assertThatThrownBy(() -> manager.currentToken(tenant))
+                .isInstanceOf(ServiceUnavailableException.class)
+                .hasMessageContaining("401");
+        verifyLeaseReleased();
+    }
+
+    private void verifyLeaseReleased() {
+        ArgumentCaptor<String> holder = ArgumentCaptor.forClass(String.class);
+        verify(valueOperations, atLeastOnce()).setIfAbsent(eq(LEASE), holder.capture(), any(Duration.class));
+        verify(redisTemplate, never()).delete(anyString());
+        verify(redisTemplate).execute(any(RedisScript.class), eq(List.of(LEASE)), eq(holder.getValue()));
+    }
+
+    private static Clock clockOf(AtomicLong millis) {
+        return new Clock() {
+            @Override
+            public long millis() {
+                return millis.get();
+            }
+
+            @Override
+            public Instant instant() {
+                return Instant.ofEpochMilli(millis.get());
+            }
+
+            @Override
+            public ZoneId getZone() {
+                return ZoneOffset.UTC;
+            }
+
+            @Override
+            public Clock withZone(ZoneId zone) {
+                return this;
+            }
+        };
+    }
+}
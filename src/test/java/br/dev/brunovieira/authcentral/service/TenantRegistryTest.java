@@ -0,0 +1,326 @@
+package br.dev.brunovieira.authcentral.service;
+
+import br.dev.brunovieira.authcentral.config.TenantProperties;
+import br.dev.brunovieira.authcentral.model.Tenant;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Iterator;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TenantRegistryTest {
+
+    private static final String HASH_KEY = "auth-central:tenants";
+    private static final String CHANNEL = "auth-central:tenants:reload";
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private HashOperations<String, Object, Object> hashOperations;
+
+    @Mock
+    private RedisMessageListenerContainer listenerContainer;
+
+    private TenantProperties tenantProperties;
+    private TenantRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        tenantProperties = new TenantProperties();
+        tenantProperties.setTenantMap(Map.of("config-tenant", Tenant.builder()
+                .id(1L)
+                .tenantKey("config-tenant")
+                .tenantName("Config Tenant")
+                .realmName("realm-a")
+                .isActive(true)
+                .build()));
+
+        lenient().when(redisTemplate.opsForHash()).thenReturn(hashOperations);
+        registry = new TenantRegistry(tenantProperties, redisTemplate, listenerContainer, JsonMapper.builder().build());
+    }
+
+    @Test
+    void init_loadsConfigTenantsAndSubscribes() {
+        stubHash(Map.of());
+
+        registry.init();
+
+        assertThat(registry.find("config-tenant")).isNotNull();
+        assertThat(registry.size()).isEqualTo(1);
+        verify(listenerContainer).addMessageListener(eq(registry), eq(new ChannelTopic(CHANNEL)));
+    }
+
+    @Test
+    void tenants_listsOnlyActiveTenants() {
+        tenantProperties.setTenantMap(Map.of(
+                "active", Tenant.builder().id(1L).tenantKey("active").isActive(true).build(),
+                "inactive", Tenant.builder().id(2L).tenantKey("inactive").isActive(false).build()));
+        stubHash(Map.of());
+
+        registry.reload();
+
+        assertThat(registry.tenants(10)).extracting(Tenant::getTenantKey).containsExactly("active");
+    }
+
+    @Test
+    void reload_mergesRedisTenantsWithStableIds() {
+        stubHash(Map.of(
+                "redis-tenant", "{\"name\":\"Redis Tenant\",\"realmName\":\"realm-b\",\"clientId\":\"client-b\"}"));
+
+        registry.reload();
+        Tenant first = registry.find("redis-tenant");
+        registry.reload();
+        Tenant second = registry.find("redis-tenant");
+
+        assertThat(first.getRealmName()).isEqualTo("realm-b");
+        assertThat(first.getId()).isEqualTo(2L);
+        assertThat(second.getId()).isEqualTo(first.getId());
+    }
+
+    @Test
+    void reload_redisOverridesConfigButKeepsId() {
+        stubHash(Map.of(
+                "config-tenant", "{\"name\":\"Renamed\",\"realmName\":\"realm-a\"}"));
+
+        registry.reload();
+
+        Tenant tenant = registry.find("config-tenant");
+        assertThat(tenant.getTenantName()).isEqualTo("Renamed");
+        assertThat(tenant.getId()).isEqualTo(1L);
+    }
+
+    @Test
+    void find_malformedEntry_returnsNull() {
+        stubHash(Map.of("broken", "not-json"));
+        registry.reload();
+
+        assertThat(registry.find("broken")).isNull();
+        assertThat(registry.find("broken")).isNull();
+        assertThat(registry.find("config-tenant")).isNotNull();
+    }
+
+    @Test
+    void reload_redisDown_keepsPreviousSnapshot() {
+        Cursor<Map.Entry<Object, Object>> cursor = cursorOf(Map.of("redis-tenant", "{\"name\":\"Redis Tenant\"}"));
+        when(hashOperations.scan(eq(HASH_KEY), any(ScanOptions.class)))
+                .thenReturn(cursor)
+                .thenThrow(new RedisConnectionFailureException("down"));
+        when(hashOperations.get(HASH_KEY, "redis-tenant")).thenReturn("{\"name\":\"Redis Tenant\"}");
+
+        registry.reload();
+        registry.reload();
+
+        assertThat(registry.find("redis-tenant")).isNotNull();
+    }
+
+    @Test
+    void reload_redisDownAtStartup_usesConfigTenants() {
+        when(hashOperations.scan(eq(HASH_KEY), any(ScanOptions.class))).thenThrow(new RedisConnectionFailureException("down"));
+
+        registry.reload();
+
+        assertThat(registry.find("config-tenant")).isNotNull();
+    }
+
+    @Test
+    void find_inactiveOrNullKey_returnsNull() {
+        stubHash(Map.of(
+                "disabled", "{\"name\":\"Disabled\",\"active\":false}"));
+
+        registry.reload();
+
+        assertThat(registry.find("disabled")).isNull();
+        assertThat(registry.find(null)).isNull();
+    }
+
+    @Test
+    void upsert_writesHashAppliesLocallyAndBroadcastsKey() {
+        stubHash(Map.of());
+        registry.reload();
+        TenantProperties.TenantEntry entry = new TenantProperties.TenantEntry();
+        entry.setName("New");
+
+        int count = registry.upsert("new-tenant", entry);
+
+        verify(hashOperations).put(eq(HASH_KEY), eq("new-tenant"), contains("\"name\":\"New\""));
+        verify(redisTemplate).convertAndSend(eq(CHANNEL), endsWith(" new-tenant"));
+        verify(hashOperations, times(1)).scan(eq(HASH_KEY), any(ScanOptions.class));
+        assertThat(count).isEqualTo(2);
+        assertThat(registry.find("new-tenant").getTenantName()).isEqualTo("New");
+    }
+
+    @Test
+    void remove_deletesFromHashAndBroadcastsKey() {
+        stubHash(Map.of("old-tenant", "{\"name\":\"Old\"}"));
+        registry.reload();
+        assertThat(registry.find("old-tenant")).isNotNull();
+
+        int count = registry.remove("old-tenant");
+
+        verify(hashOperations).delete(HASH_KEY, "old-tenant");
+        verify(redisTemplate).convertAndSend(eq(CHANNEL), endsWith(" old-tenant"));
+        assertThat(count).isEqualTo(1);
+        assertThat(registry.find("old-tenant")).isNull();
+    }
+
+    @Test
+    void remove_redisOverrideOfConfigTenant_fallsBackToConfig() {
+        stubHash(Map.of("config-tenant", "{\"name\":\"Renamed\"}"));
+        registry.reload();
+
+        int count = registry.remove("config-tenant");
+
+        assertThat(count).isEqualTo(1);
+        assertThat(registry.find("config-tenant").getTenantName()).isEqualTo("Config Tenant");
+    }
+
+    @Test
+    void reloadAndBroadcast_publishFailure_doesNotThrow() {
+        stubHash(Map.of());
+        when(redisTemplate.convertAndSend(anyString(), anyString())).thenThrow(new RedisConnectionFailureException("down"));
+
+        assertThat(registry.reloadAndBroadcast()).isEqualTo(1);
+    }
+
+    @Test
+    void onMessage_fromOtherInstance_reloads() {
+        stubHash(Map.of());
+
+        registry.onMessage(new DefaultMessage(CHANNEL.getBytes(), "other".getBytes(StandardCharsets.UTF_8)), null);
+
+        verify(hashOperations).scan(eq(HASH_KEY), any(ScanOptions.class));
+    }
+
+    @Test
+    void onMessage_withTenantKey_refreshesOnlyThatTenant() {
+        stubHash(Map.of());
+        registry.reload();
+        when(hashOperations.get(HASH_KEY, "changed")).thenReturn("{\"name\":\"Changed\"}");
+
+        registry.onMessage(new DefaultMessage(CHANNEL.getBytes(), "other changed".getBytes(StandardCharsets.UTF_8)), null);
+
+        assertThat(registry.find("changed").getTenantName()).isEqualTo("Changed");
+        assertThat(registry.size()).isEqualTo(2);
+        verify(hashOperations, times(1)).scan(eq(HASH_KEY), any(ScanOptions.class));
+    }
+
+    @Test
+    void find_buildsTenantOnceAndRebuildsAfterChange() {
+        stubHash(Map.of("lazy", "{\"name\":\"Lazy\"}"));
+        registry.reload();
+
+        Tenant first = registry.find("lazy");
+        assertThat(registry.find("lazy")).isSameAs(first);
+
+        when(hashOperations.get(HASH_KEY, "lazy")).thenReturn("{\"name\":\"Renamed\"}");
+        registry.onMessage(new DefaultMessage(CHANNEL.getBytes(), "other lazy".getBytes(StandardCharsets.UTF_8)), null);
+
+        Tenant second = registry.find("lazy");
+        assertThat(second.getTenantName()).isEqualTo("Renamed");
+        assertThat(second.getId()).isEqualTo(first.getId());
+    }
+
+    @Test
+    void fileSource_isOverriddenByRedisAndPolledForChanges(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("tenants.ndjson");
+        Files.writeString(file, """
+                # bulk tenants
+                {"key":"file-a","name":"File A"}
+                {"key":"file-b","name":"File B"}
+                """);
+        tenantProperties.getRegistry().setFile(file.toString());
+        registry = new TenantRegistry(tenantProperties, redisTemplate, listenerContainer, JsonMapper.builder().build());
+        stubHash(Map.of("file-b", "{\"name\":\"Redis B\"}"));
+
+        assertThat(registry.reload()).isEqualTo(3);
+        assertThat(registry.find("file-a").getTenantName()).isEqualTo("File A");
+        assertThat(registry.find("file-b").getTenantName()).isEqualTo("Redis B");
+
+        Files.writeString(file, "{\"key\":\"file-c\",\"name\":\"File C\"}\n");
+        Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() + 60_000));
+        registry.pollSources();
+
+        assertThat(registry.find("file-a")).isNull();
+        assertThat(registry.find("file-c").getTenantName()).isEqualTo("File C");
+        assertThat(registry.size()).isEqualTo(3);
+        verify(hashOperations, times(1)).scan(eq(HASH_KEY), any(ScanOptions.class));
+    }
+
+    @Test
+    void find_readsOnlyResolvedEntriesFromTheirSource() {
+        stubHash(Map.of("used", "{\"name\":\"Used\"}", "unused", "{\"name\":\"Unused\"}"));
+        registry.reload();
+
+        registry.find("used");
+        registry.find("used");
+        registry.find("unknown");
+
+        verify(hashOperations, times(1)).get(HASH_KEY, "used");
+        verify(hashOperations, never()).get(HASH_KEY, "unused");
+        verify(hashOperations, never()).get(HASH_KEY, "unknown");
+    }
+
+    @Test
+    void fileSource_rewrittenBeforePoll_stillFindsMovedEntry(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("tenants.ndjson");
+        Files.writeString(file, "{\"key\":\"file-a\",\"name\":\"File A\"}\n{\"key\":\"file-b\",\"name\":\"File B\"}\n");
+        tenantProperties.getRegistry().setFile(file.toString());
+        registry = new TenantRegistry(tenantProperties, redisTemplate, listenerContainer, JsonMapper.builder().build());
+        stubHash(Map.of());
+        registry.reload();
+
+        Files.writeString(file, "{\"key\":\"file-b\",\"name\":\"File B\"}\n");
+
+        assertThat(registry.find("file-b").getTenantName()).isEqualTo("File B");
+    }
+
+    @Test
+    void onMessage_fromSelf_ignored() throws Exception {
+        var field = TenantRegistry.class.getDeclaredField("instanceId");
+        field.setAccessible(true);
+        String self = (String) field.get(registry);
+
+        registry.onMessage(new DefaultMessage(CHANNEL.getBytes(), self.getBytes(StandardCharsets.UTF_8)), null);
+
+        verifyNoInteractions(hashOperations);
+    }
+
+    private void stubHash(Map<String, String> entries) {
+        when(hashOperations.scan(eq(HASH_KEY), any(ScanOptions.class))).thenAnswer(invocation -> cursorOf(entries));
+        lenient().when(hashOperations.get(eq(HASH_KEY), any())).thenAnswer(invocation -> entries.get(invocation.getArgument(1)));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Cursor<Map.Entry<Object, Object>> cursorOf(Map<String, String> entries) {
+        Iterator<Map.Entry<Object, Object>> iterator = entries.entrySet().stream()
+                .map(e -> Map.<Object, Object>entry(e.getKey(), e.getValue()))
+                .iterator();
+        Cursor<Map.Entry<Object, Object>> cursor = mock(Cursor.class);
+        lenient().when(cursor.hasNext()).thenAnswer(invocation -> iterator.hasNext());
+        lenient().when(cursor.next()).thenAnswer(invocation -> iterator.next());
+        return cursor;
+    }
+}
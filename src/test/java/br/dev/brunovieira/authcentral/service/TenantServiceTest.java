@@ -1,7 +1,6 @@
 package br.dev.brunovieira.authcentral.service;
 
 import br.dev.brunovieira.authcentral.TestFixtures;
-import br.dev.brunovieira.authcentral.config.TenantProperties;
 import br.dev.brunovieira.authcentral.exception.TenantNotFoundException;
 import br.dev.brunovieira.authcentral.model.Tenant;
 import org.junit.jupiter.api.Test;
@@ -10,8 +9,6 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
-import java.util.Optional;
-
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
@@ -19,7 +16,7 @@ import static org.mockito.Mockito.*;
 class TenantServiceTest {
 
     @Mock
-    private TenantProperties tenantProperties;
+    private TenantRegistry tenantRegistry;
 
     @InjectMocks
     private TenantService tenantService;
@@ -27,28 +24,19 @@ class TenantServiceTest {
     @Test
     void getTenantByKey_activeFound() {
         Tenant tenant = TestFixtures.tenant();
-        when(tenantProperties.findByKey("test-tenant")).thenReturn(Optional.of(tenant));
+        when(tenantRegistry.find("test-tenant")).thenReturn(tenant);
 
         Tenant result = tenantService.getTenantByKey("test-tenant");
 
         assertThat(result).isEqualTo(tenant);
     }
 
-    @Test
-    void getTenantByKey_inactive() {
-        Tenant tenant = TestFixtures.tenant();
-        tenant.setIsActive(false);
-        when(tenantProperties.findByKey("test-tenant")).thenReturn(Optional.of(tenant));
-
-        assertThatThrownBy(() -> tenantService.getTenantByKey("test-tenant"))
-                .isInstanceOf(TenantNotFoundException.class);
-    }
-
     @Test
     void getTenantByKey_notFound() {
-        when(tenantProperties.findByKey("unknown")).thenReturn(Optional.empty());
+        when(tenantRegistry.find("unknown")).thenReturn(null);
 
         assertThatThrownBy(() -> tenantService.getTenantByKey("unknown"))
-                .isInstanceOf(TenantNotFoundException.class);
+                .isInstanceOf(TenantNotFoundException.class)
+                .hasMessage("Tenant not found or inactive");
     }
 }
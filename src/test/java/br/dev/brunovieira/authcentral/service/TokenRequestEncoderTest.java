@@ -0,0 +1,98 @@
+package br.dev.brunovieira.authcentral.service;
+
+import br.dev.brunovieira.authcentral.TestFixtures;
+import br.dev.brunovieira.authcentral.config.TenantCacheProperties;
+import br.dev.brunovieira.authcentral.model.Tenant;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+class TokenRequestEncoderTest {
+
+    private TokenRequestEncoder encoder;
+    private Tenant tenant;
+
+    @BeforeEach
+    void setUp() {
+        TenantCacheProperties cacheProperties = new TenantCacheProperties();
+        cacheProperties.setMaxTenants(2);
+        encoder = new TokenRequestEncoder(cacheProperties);
+        tenant = TestFixtures.tenant();
+        tenant.setClientSecret("s3cr3t&=+/ é");
+    }
+
+    @Test
+    void formEncoding_matchesUrlEncoder() {
+        for (String value : List.of("", "plain", "user+tag@example.com", "p@ss w0rd!&=?/#%", "ção-日本語-😀", "a.b-c*d_e~f")) {
+            assertThat(TokenRequestEncoder.FormEncoding.encode(value))
+                    .as(value)
+                    .isEqualTo(URLEncoder.encode(value, StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void passwordGrant_encodesOnlyTheCallFieldsAfterThePrecompiledPrefix() {
+        byte[] body = encoder.template(tenant).passwordGrant("user+1@test.com", "p@ss word");
+
+        assertThat(new String(body, StandardCharsets.US_ASCII)).isEqualTo(
+                "client_id=test-client-id&client_secret=s3cr3t%26%3D%2B%2F+%C3%A9"
+                        + "&grant_type=password&username=user%2B1%40test.com&password=p%40ss+word");
+    }
+
+    @Test
+    void otherBodies() {
+        TokenRequestEncoder.Template template = encoder.template(tenant);
+        String credentials = "client_id=test-client-id&client_secret=s3cr3t%26%3D%2B%2F+%C3%A9";
+
+        assertThat(new String(template.refreshGrant("r.t/1"), StandardCharsets.US_ASCII))
+                .isEqualTo(credentials + "&grant_type=refresh_token&refresh_token=r.t%2F1");
+        assertThat(new String(template.logout("r.t"), StandardCharsets.US_ASCII))
+                .isEqualTo(credentials + "&refresh_token=r.t");
+        assertThat(new String(template.clientCredentialsGrant(), StandardCharsets.US_ASCII))
+                .isEqualTo(credentials + "&grant_type=client_credentials");
+    }
+
+    @Test
+    void uris_arePrecomputedPerNode() {
+        tenant.setKeycloakNodes(List.of("http://kc-2:8080"));
+        TokenRequestEncoder.Template template = encoder.template(tenant);
+
+        assertThat(template.tokenUri("http://kc-2:8080"))
+                .isEqualTo(URI.create("http://kc-2:8080/realms/test-realm/protocol/openid-connect/token"))
+                .isSameAs(template.tokenUri("http://kc-2:8080"));
+        assertThat(template.logoutUri("http://localhost:8080"))
+                .isEqualTo(URI.create("http://localhost:8080/realms/test-realm/protocol/openid-connect/logout"));
+        assertThat(template.tokenUri("http://elsewhere"))
+                .isEqualTo(URI.create("http://elsewhere/realms/test-realm/protocol/openid-connect/token"));
+    }
+
+    @Test
+    void template_isReusedUntilTheTenantChanges() {
+        TokenRequestEncoder.Template first = encoder.template(tenant);
+        assertThat(encoder.template(tenant)).isSameAs(first);
+
+        Tenant updated = TestFixtures.tenant();
+        updated.setClientSecret("rotated");
+
+        assertThat(new String(encoder.template(updated).clientCredentialsGrant(), StandardCharsets.US_ASCII))
+                .contains("client_secret=rotated");
+        assertThat(encoder.size()).isEqualTo(1);
+    }
+
+    @Test
+    void templates_areDroppedBeyondMaxTenants() {
+        for (int i = 0; i < 3; i++) {
+            Tenant other = TestFixtures.tenant();
+            other.setTenantKey("tenant-" + i);
+            encoder.template(other);
+        }
+
+        assertThat(encoder.size()).isEqualTo(1);
+    }
+}
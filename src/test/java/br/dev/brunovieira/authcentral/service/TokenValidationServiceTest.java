@@ -0,0 +1,164 @@
+package br.dev.brunovieira.authcentral.service;
+
+import br.dev.brunovieira.authcentral.TestFixtures;
+import br.dev.brunovieira.authcentral.config.TenantCacheProperties;
+import br.dev.brunovieira.authcentral.config.TokenValidationProperties;
+import br.dev.brunovieira.authcentral.dto.response.TokenValidationResponse;
+import br.dev.brunovieira.authcentral.exception.AuthenticationException;
+import br.dev.brunovieira.authcentral.model.Tenant;
+import com.nimbusds.jose.JOSEObjectType;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.MACSigner;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TokenValidationServiceTest {
+
+    private static final String ISSUER = "http://localhost:8080/realms/test-realm";
+
+    @Mock
+    private JwksCache jwksCache;
+
+    private TokenValidationProperties properties;
+    private TokenValidationService service;
+    private Tenant tenant;
+    private RSAKey signingKey;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        properties = new TokenValidationProperties();
+        service = new TokenValidationService(jwksCache, properties, new TenantCacheProperties(),
+                new SimpleMeterRegistry());
+        tenant = TestFixtures.tenant();
+        signingKey = new RSAKeyGenerator(2048).keyID("kid-1").generate();
+        lenient().when(jwksCache.keys(eq(ISSUER), any())).thenReturn(List.of(signingKey.toPublicJWK()));
+    }
+
+    @Test
+    void validate_returnsClaimsOfValidToken() throws Exception {
+        TokenValidationResponse response = service.validate(tenant, token(claims -> claims));
+
+        assertThat(response.getSubject()).isEqualTo("user-id");
+        assertThat(response.getIssuer()).isEqualTo(ISSUER);
+        assertThat(response.getExpiresAt()).isGreaterThan(Instant.now().getEpochSecond());
+        assertThat(response.getClaims())
+                .containsEntry("email", "user@test.com")
+                .containsEntry("exp", response.getExpiresAt());
+        verify(jwksCache).keys(ISSUER, "kid-1");
+    }
+
+    @Test
+    void validate_acceptsIssuerWithDifferentHostForSameRealm() throws Exception {
+        String token = token(claims -> claims.issuer("https://auth.example.com/realms/test-realm"));
+
+        assertThat(service.validate(tenant, token).getSubject()).isEqualTo("user-id");
+    }
+
+    @Test
+    void validate_rejectsExpiredToken() throws Exception {
+        String token = token(claims -> claims.expirationTime(Date.from(Instant.now().minusSeconds(120))));
+
+        assertThatThrownBy(() -> service.validate(tenant, token))
+                .isInstanceOf(AuthenticationException.class)
+                .hasMessage("Invalid or expired token");
+    }
+
+    @Test
+    void validate_rejectsTokenFromOtherRealm() throws Exception {
+        String token = token(claims -> claims.issuer("http://localhost:8080/realms/other-realm"));
+
+        assertThatThrownBy(() -> service.validate(tenant, token)).isInstanceOf(AuthenticationException.class);
+    }
+
+    @Test
+    void validate_rejectsIdToken() throws Exception {
+        String token = token(claims -> claims.claim("typ", "ID"));
+
+        assertThatThrownBy(() -> service.validate(tenant, token)).isInstanceOf(AuthenticationException.class);
+    }
+
+    @Test
+    void validate_rejectsTokenWithoutType() throws Exception {
+        String token = token(claims -> claims.claim("typ", null));
+
+        assertThatThrownBy(() -> service.validate(tenant, token)).isInstanceOf(AuthenticationException.class);
+    }
+
+    @Test
+    void validate_rejectsTokenIssuedToAnotherClient() throws Exception {
+        String token = token(claims -> claims.claim("azp", "other-client").audience("account"));
+
+        assertThatThrownBy(() -> service.validate(tenant, token)).isInstanceOf(AuthenticationException.class);
+    }
+
+    @Test
+    void validate_acceptsConfiguredAudience() throws Exception {
+        properties.setAudiences(List.of("orders-api"));
+        String token = token(claims -> claims.claim("azp", "frontend").audience(List.of("account", "orders-api")));
+
+        assertThat(service.validate(tenant, token).getSubject()).isEqualTo("user-id");
+        assertThatThrownBy(() -> service.validate(tenant, token(claims -> claims)))
+                .isInstanceOf(AuthenticationException.class);
+    }
+
+    @Test
+    void validate_rejectsTokenSignedByUnknownKey() throws Exception {
+        signingKey = new RSAKeyGenerator(2048).keyID("kid-1").generate();
+
+        String token = token(claims -> claims);
+
+        assertThatThrownBy(() -> service.validate(tenant, token)).isInstanceOf(AuthenticationException.class);
+    }
+
+    @Test
+    void validate_rejectsSymmetricallySignedToken() throws Exception {
+        SignedJWT jwt = new SignedJWT(new JWSHeader(JWSAlgorithm.HS256), baseClaims().build());
+        jwt.sign(new MACSigner(new byte[32]));
+
+        assertThatThrownBy(() -> service.validate(tenant, jwt.serialize())).isInstanceOf(AuthenticationException.class);
+    }
+
+    @Test
+    void validate_rejectsMalformedToken() {
+        assertThatThrownBy(() -> service.validate(tenant, "not-a-jwt")).isInstanceOf(AuthenticationException.class);
+    }
+
+    private String token(UnaryOperator<JWTClaimsSet.Builder> customizer) throws Exception {
+        SignedJWT jwt = new SignedJWT(
+                new JWSHeader.Builder(JWSAlgorithm.RS256).keyID("kid-1").type(JOSEObjectType.JWT).build(),
+                customizer.apply(baseClaims()).build());
+        jwt.sign(new RSASSASigner(signingKey));
+        return jwt.serialize();
+    }
+
+    private static JWTClaimsSet.Builder baseClaims() {
+        return new JWTClaimsSet.Builder()
+                .issuer(ISSUER)
+                .subject("user-id")
+                .claim("typ", "Bearer")
+                .claim("azp", "test-client-id")
+                .claim("email", "user@test.com")
+                .issueTime(new Date())
+                .expirationTime(Date.from(Instant.now().plusSeconds(300)));
+    }
+}
@@ -0,0 +1,43 @@
+package br.dev.brunovieira.authcentral.util;
+
+import org.junit.jupiter.api.Test;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.*;
+
+class CoarseClockTest {
+
+    private final AtomicLong millis = new AtomicLong(1_760_000_000_120L);
+    private final CoarseClock clock = new CoarseClock(millis::get, ZoneOffset.UTC);
+
+    @Test
+    void now_isCachedWithinAMillisecond() {
+        LocalDateTime first = clock.now();
+        byte[] iso = clock.isoBytes();
+
+        assertThat(clock.now()).isSameAs(first);
+        assertThat(clock.isoBytes()).isSameAs(iso);
+        assertThat(first).isEqualTo(LocalDateTime.of(2025, 10, 9, 8, 53, 20, 120_000_000));
+
+        millis.incrementAndGet();
+
+        assertThat(clock.now()).isEqualTo(first.plusNanos(1_000_000));
+        assertThat(clock.isoBytes()).isNotSameAs(iso);
+    }
+
+    @Test
+    void isoBytes_matchJacksonFormat() {
+        JsonMapper jsonMapper = JsonMapper.builder().build();
+        for (long value : new long[]{1_760_000_000_120L, 1_760_000_000_000L, 1_760_000_000_007L}) {
+            millis.set(value);
+
+            assertThat("\"" + new String(clock.isoBytes(), StandardCharsets.US_ASCII) + "\"")
+                    .isEqualTo(jsonMapper.writeValueAsString(clock.now()));
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package br.dev.brunovieira.authcentral.util;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.*;
+
+class TenantCacheTest {
+
+    private final AtomicLong clock = new AtomicLong(1_000);
+    private final List<String> closed = new ArrayList<>();
+    private SimpleMeterRegistry meterRegistry;
+    private TenantCache<String, String> cache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new TenantCache<>("test", 3, 1_000, closed::add, meterRegistry, clock::get);
+    }
+
+    @Test
+    void acquire_countsHitsAndMisses() {
+        cache.acquire("a", key -> "value-" + key).close();
+        try (TenantCache.Lease<String> lease = cache.acquire("a", key -> "other")) {
+            assertThat(lease.value()).isEqualTo("value-a");
+        }
+
+        assertThat(meterRegistry.counter("tenant_cache.gets", "cache", "test", "result", "miss").count()).isEqualTo(1);
+        assertThat(meterRegistry.counter("tenant_cache.gets", "cache", "test", "result", "hit").count()).isEqualTo(1);
+        assertThat(meterRegistry.get("tenant_cache.size").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    void acquire_beyondMaxSize_evictsLeastRecentlyUsed() {
+        for (String key : List.of("a", "b", "c")) {
+            cache.acquire(key, k -> k).close();
+            clock.incrementAndGet();
+        }
+        cache.acquire("a", k -> k).close();
+        clock.incrementAndGet();
+
+        cache.acquire("d", k -> k).close();
+
+        assertThat(cache.size()).isEqualTo(3);
+        assertThat(closed).containsExactly("b");
+        assertThat(meterRegistry.counter("tenant_cache.evictions", "cache", "test", "cause", "size").count()).isEqualTo(1);
+    }
+
+    @Test
+    void evictIdle_dropsEntriesNotUsedWithinIdleTime() {
+        cache.acquire("a", k -> k).close();
+        clock.addAndGet(600);
+        cache.acquire("b", k -> k).close();
+        clock.addAndGet(600);
+
+        assertThat(cache.evictIdle()).isEqualTo(1);
+
+        assertThat(closed).containsExactly("a");
+        assertThat(meterRegistry.counter("tenant_cache.evictions", "cache", "test", "cause", "idle").count()).isEqualTo(1);
+    }
+
+    @Test
+    void evictedValue_isClosedOnlyAfterLastLeaseIsReleased() {
+        TenantCache.Lease<String> lease = cache.acquire("a", k -> k);
+        clock.addAndGet(2_000);
+
+        cache.evictIdle();
+        assertThat(closed).isEmpty();
+        assertThat(cache.pin("a")).isNull();
+
+        lease.close();
+        lease.close();
+        assertThat(closed).containsExactly("a");
+    }
+
+    @Test
+    void keepLeased_evictsOnlyEntriesWithoutLeases() {
+        cache = new TenantCache<>("kept", 2, 1_000, true, closed::add, meterRegistry, clock::get);
+        TenantCache.Lease<String> lease = cache.acquire("a", k -> k);
+        clock.incrementAndGet();
+        cache.acquire("b", k -> k).close();
+        clock.incrementAndGet();
+
+        // "a" is the least recently used but still leased, so "b" goes instead
+        cache.acquire("c", k -> k).close();
+        assertThat(closed).containsExactly("b");
+
+        clock.addAndGet(2_000);
+        cache.evictIdle();
+        assertThat(closed).containsExactly("b", "c");
+        try (TenantCache.Lease<String> pinned = cache.pin("a")) {
+            assertThat(pinned.value()).isEqualTo("a");
+        }
+
+        lease.close();
+        cache.evictIdle();
+        assertThat(closed).containsExactly("b", "c", "a");
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void acquire_afterEviction_loadsFreshValue() {
+        cache.acquire("a", k -> "first").close();
+        cache.clear();
+
+        try (TenantCache.Lease<String> lease = cache.acquire("a", k -> "second")) {
+            assertThat(lease.value()).isEqualTo("second");
+        }
+        assertThat(closed).containsExactly("first");
+    }
+
+    @Test
+    void pin_doesNotExtendIdleTime() {
+        cache.acquire("a", k -> k).close();
+        clock.addAndGet(900);
+        cache.pin("a").close();
+        clock.addAndGet(200);
+
+        cache.evictIdle();
+
+        assertThat(closed).containsExactly("a");
+    }
+}